@@ -48,8 +48,9 @@ public class SubscribersReportDTO implements Serializable {
 	 */
 
 	/**
-	 * Number of waiting-list entries per day. Key - day of month (1-31) Value -
-	 * number of waiting-list entries
+	 * Number of waiting-list entries that were seated, per day of their table
+	 * assignment. Offers that expired or were cancelled are not counted. Key -
+	 * day of month (1-31) Value - number of seated waiting-list entries
 	 */
 	private Map<Integer, Integer> waitingListPerDay;
 
@@ -7,8 +7,6 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import dbControllers.*;
@@ -28,9 +26,10 @@ import protocol.Commands;
  * This server is responsible for: initializing the database connection and
  * schema, constructing database and logic controllers, registering DTO
  * handlers, routing incoming {@link RequestDTO} messages, maintaining online
- * user state, running background schedulers (waiting expiration, reservation
- * grace-period cancellation, end-of-day cleanup, and daily availability grid
- * refresh), and managing automatic shutdown on extended inactivity.
+ * user state, running background jobs through one {@link SchedulingService}
+ * (waiting expiration, reservation grace-period cancellation, end-of-day
+ * cleanup, daily availability grid refresh, notification sweep and retention),
+ * and managing automatic shutdown on extended inactivity.
  * </p>
  *
  * <p>
@@ -42,6 +41,12 @@ public class RestaurantServer extends AbstractServer {
 
 	public static final int DEFAULT_PORT = 5556;
 
+	/** Number of user ids reserved per database round trip. */
+	private static final int USER_ID_BLOCK_SIZE = 20;
+
+	/** Number of confirmation-code counters reserved per database round trip. */
+	private static final int CONFIRMATION_CODE_BLOCK_SIZE = 50;
+
 	private DBController conn;
 
 	// ===== DB Controllers =====
@@ -52,6 +57,7 @@ public class RestaurantServer extends AbstractServer {
 	private Notification_DB_Controller notificationDB;
 	private Receipt_DB_Controller receiptDB;
 	private SpecialOpeningHours_DB_Controller specialOpeningHoursDB;
+	private Sequence_DB_Controller sequenceDB;
 
 	// ===== Logic Controllers =====
 	private RestaurantController restaurantController;
@@ -64,15 +70,21 @@ public class RestaurantServer extends AbstractServer {
 	// ===== Notifications runtime =====
 	private OnlineUsersRegistry onlineUsersRegistry;
 	private NotificationDispatcher notificationDispatcher;
+	private NotificationDeliveryPipeline notificationPipeline;
 	private NotificationSchedulerService notificationScheduler;
+	private FreedTableMatcher freedTableMatcher;
+	private NotificationWriteBehindQueue notificationWriteBehind;
 
-	// ===== Schedulers =====
-	private ScheduledExecutorService waitingScheduler;
-	private ScheduledExecutorService reservationScheduler;
-	private ScheduledExecutorService closingScheduler;
-	private ScheduledExecutorService gridDailyScheduler;
+	// ===== Expiry deadlines =====
+	private DeadlineQueue<String> waitingOfferDeadlines;
+	private DeadlineQueue<Integer> reservationCheckinDeadlines;
 
-	private final ScheduledExecutorService idleScheduler = Executors.newSingleThreadScheduledExecutor();
+	// ===== Maintenance =====
+	private RetentionService retentionService;
+
+	// ===== Schedulers =====
+	private final SchedulingService scheduling = new SchedulingService(ServerConfig.SCHEDULER_THREADS,
+			ServerConfig.SCHEDULER_JITTER_PERCENT, this::log);
 
 	private LocalDate lastClosingHandledDate = null;
 
@@ -172,33 +184,34 @@ public class RestaurantServer extends AbstractServer {
 
 		try {
 			Connection sqlConn = conn.getConnection();
-			if (sqlConn == null) {
+			Connection txConn = conn.getTransactionConnection();
+			if (sqlConn == null || txConn == null) {
 				log("❌ DB connection failed.");
 				return;
 			}
 
 			restaurantDB = new Restaurant_DB_Controller(sqlConn);
-			reservationDB = new Reservation_DB_Controller(sqlConn);
+			reservationDB = new Reservation_DB_Controller(sqlConn, txConn);
 			userDB = new User_DB_Controller(sqlConn);
-			waitingDB = new Waiting_DB_Controller(sqlConn);
-			notificationDB = new Notification_DB_Controller(sqlConn);
+			waitingDB = new Waiting_DB_Controller(sqlConn, txConn);
+			notificationDB = new Notification_DB_Controller(sqlConn, txConn);
 			receiptDB = new Receipt_DB_Controller(sqlConn);
 			specialOpeningHoursDB = new SpecialOpeningHours_DB_Controller(sqlConn);
+			sequenceDB = new Sequence_DB_Controller(sqlConn);
 
-			log("⚙️ Ensuring all database tables exist...");
-			userDB.createSubscribersTable();
-			userDB.createGuestsTable();
-			restaurantDB.createRestaurantTablesTable();
-			restaurantDB.createOpeningHoursTable();
-			reservationDB.createReservationsTable();
-			waitingDB.createWaitingListTable();
-			notificationDB.createNotificationsTable();
-			receiptDB.createReceiptsTable();
-			specialOpeningHoursDB.createSpecialOpeningHoursTable();
-			log("✅ Database schema ensured.");
+			new SchemaMigrator(sqlConn, this::log).migrate(SchemaMigrations.all());
+
+			if (ServerConfig.NOTIFICATION_WRITE_BEHIND) {
+				notificationWriteBehind = new NotificationWriteBehindQueue(notificationDB,
+						ServerConfig.NOTIFICATION_WRITE_BEHIND_MS, ServerConfig.NOTIFICATION_BATCH_SIZE, this::log);
+				notificationWriteBehind.start();
+				notificationDB.setWriteBehind(notificationWriteBehind);
+			}
 
 			restaurantController = new RestaurantController(restaurantDB);
 			userController = new UserController(userDB);
+			userController.setUserIdAllocator(
+					new IdBlockAllocator(sequenceDB, "user_id", USER_ID_BLOCK_SIZE));
 			receiptController = new ReceiptController(receiptDB);
 			restaurantController.setReservationDB(reservationDB);
 
@@ -210,80 +223,118 @@ public class RestaurantServer extends AbstractServer {
 					reservationController);
 
 			reservationController.setWaitingController(waitingController);
+			reservationController.setRelocationPlanner(
+					new TableRelocationPlanner(txConn, restaurantDB, reservationDB));
+
+			IdBlockAllocator codeCounter = new IdBlockAllocator(sequenceDB, "confirmation_code",
+					CONFIRMATION_CODE_BLOCK_SIZE);
+			codeCounter.ensureAtLeast(0);
+			ConfirmationCodeAllocator codeAllocator = new ConfirmationCodeAllocator(codeCounter);
+			codeAllocator.markUsed(reservationDB.getAllConfirmationCodes());
+			reservationController.setConfirmationCodeAllocator(codeAllocator);
+			waitingController.setConfirmationCodeAllocator(codeAllocator);
+			waitingController.setWaitingListIndex(new WaitingListIndex());
+			log("✅ Waiting-list index loaded: " + waitingController.rebuildWaitingListIndex() + " active entries.");
+			freedTableMatcher = new FreedTableMatcher(waitingController, this::log,
+					ServerConfig.TABLE_MATCH_WINDOW_MS);
+			waitingController.setFreedTableMatcher(freedTableMatcher);
 			restaurantController.setSpecialOpeningHoursDB(specialOpeningHoursDB);
+			restaurantController.verifyGridSchemaOnStartup();
+			log("✅ Availability grid schema verified.");
+
+			ReportAggregates_DB_Controller reportAggregatesDB = new ReportAggregates_DB_Controller(sqlConn, txConn);
+			ReportCache reportCache = new ReportCache(ServerConfig.REPORT_CACHE_ENTRIES,
+					new ReportCache_DB_Controller(sqlConn), this::log);
+			if (ServerConfig.REPORT_AGGREGATES_REBUILD) {
+				log("✅ Report aggregates rebuilt: " + reportAggregatesDB.rebuild() + " rows.");
+				reportCache.clear();
+			}
+			reportAggregatesDB.setChangeListener(reportCache::invalidate);
+			userDB.setSubscribersChangedListener(reportCache::invalidate);
+			reservationDB.setReportAggregates(reportAggregatesDB);
+			waitingDB.setReportAggregates(reportAggregatesDB);
 
 			reportsController = new ReportsController(reservationDB, waitingDB, userDB);
-
-			waitingScheduler = Executors.newSingleThreadScheduledExecutor();
-			waitingScheduler.scheduleAtFixedRate(() -> {
-				try {
-					int c = waitingController.cancelExpiredWaitings();
-					if (c > 0)
-						log("⏳ Auto-cancelled expired waitings: " + c);
-				} catch (Exception e) {
-					log("❌ Waiting scheduler error: " + e.getMessage());
+			reportsController.setAggregatesDB(reportAggregatesDB);
+			reportsController.setReportCache(reportCache);
+
+			waitingOfferDeadlines = new DeadlineQueue<>("waiting-offer", waitingController::expireWaitingOffers,
+					this::log);
+			waitingController.setOfferDeadlines(waitingOfferDeadlines);
+			reservationCheckinDeadlines = new DeadlineQueue<>("reservation-checkin",
+					reservationController::expireReservations, this::log);
+			reservationController.setCheckinDeadlines(reservationCheckinDeadlines);
+			log("✅ Expiry deadlines loaded: " + waitingController.rebuildOfferDeadlines() + " waiting offers, "
+					+ reservationController.rebuildCheckinDeadlines() + " reservation check-ins.");
+			waitingOfferDeadlines.start();
+			reservationCheckinDeadlines.start();
+
+			scheduling.schedule("waitings.expire", ServerConfig.WAITING_EXPIRY_SECONDS,
+					ServerConfig.WAITING_EXPIRY_SECONDS, TimeUnit.SECONDS, () -> {
+						int c = waitingController.cancelExpiredWaitings();
+						if (c > 0)
+							log("⏳ Auto-cancelled expired waitings: " + c);
+					}, "waiting_list");
+
+			scheduling.schedule("reservations.autoCancel", ServerConfig.RESERVATION_AUTOCANCEL_SECONDS,
+					ServerConfig.RESERVATION_AUTOCANCEL_SECONDS, TimeUnit.SECONDS, () -> {
+						ReservationController.AutoCancelReport report = reservationController
+								.cancelReservationsWithoutCheckinAfterGracePeriod();
+						if (report.getCancelled() > 0)
+							log("⏳ Auto-cancelled reservations without check-in (" + report + ")");
+					}, "reservations");
+
+			scheduling.schedule("waitings.endOfDay", 10, ServerConfig.CLOSING_CHECK_SECONDS, TimeUnit.SECONDS, () -> {
+				LocalDate today = LocalDate.now();
+				if (today.equals(lastClosingHandledDate))
+					return;
+
+				OpeningHouers oh = restaurantController.getEffectiveOpeningHoursForDate(today);
+				if (oh == null || oh.getCloseTime() == null)
+					return;
+
+				LocalTime closeTime = LocalTime.parse(oh.getCloseTime().substring(0, 5));
+
+				if (LocalTime.now().isAfter(closeTime)) {
+					waitingController.cancelAllWaitingsEndOfDay(today);
+					lastClosingHandledDate = today;
+					log("🌙 End-of-day waitings cancelled.");
 				}
-			}, 10, 10, TimeUnit.SECONDS);
-
-			reservationScheduler = Executors.newSingleThreadScheduledExecutor();
-			reservationScheduler.scheduleAtFixedRate(() -> {
-				try {
-					int c = reservationController.cancelReservationsWithoutCheckinAfterGracePeriod();
-					if (c > 0)
-						log("⏳ Auto-cancelled reservations without check-in: " + c);
-				} catch (Exception e) {
-					log("❌ Reservation scheduler error: " + e.getMessage());
-				}
-			}, 30, 30, TimeUnit.SECONDS);
-
-			closingScheduler = Executors.newSingleThreadScheduledExecutor();
-			closingScheduler.scheduleAtFixedRate(() -> {
-				try {
-					LocalDate today = LocalDate.now();
-					if (today.equals(lastClosingHandledDate))
-						return;
-
-					OpeningHouers oh = restaurantController.getEffectiveOpeningHoursForDate(today);
-					if (oh == null || oh.getCloseTime() == null)
-						return;
-
-					LocalTime closeTime = LocalTime.parse(oh.getCloseTime().substring(0, 5));
-
-					if (LocalTime.now().isAfter(closeTime)) {
-						waitingController.cancelAllWaitingsEndOfDay(today);
-						lastClosingHandledDate = today;
-						log("🌙 End-of-day waitings cancelled.");
-					}
-				} catch (Exception e) {
-					log("❌ Closing scheduler error: " + e.getMessage());
-				}
-			}, 10, 60, TimeUnit.SECONDS);
+			}, "waiting_list");
 
 			onlineUsersRegistry = new OnlineUsersRegistry();
 			notificationDispatcher = new NotificationDispatcher(onlineUsersRegistry, this::log);
-			notificationScheduler = new NotificationSchedulerService(notificationDB, notificationDispatcher, this::log);
-			notificationScheduler.start();
+			notificationPipeline = new NotificationDeliveryPipeline(notificationDispatcher,
+					ServerConfig.NOTIFICATION_DISPATCH_THREADS, this::log);
+			notificationScheduler = new NotificationSchedulerService(notificationDB, notificationPipeline, this::log);
+			notificationScheduler.start(scheduling);
 
 			createMonthlyReportNotificationIfNeeded();
 
 			registerHandlers();
 
 			try {
-				restaurantController.initAvailabilityGridNext30Days();
-				log("📅 Availability grid ensured for the next 30 days.");
+				GridHorizonMaterializer.Report report = restaurantController.warmAvailabilityGrid();
+				log("📅 Availability grid warmed for the next " + ServerConfig.GRID_WARM_DAYS
+						+ " days, later days up to " + ServerConfig.BOOKING_HORIZON_DAYS + " are created on demand ("
+						+ report + ").");
 			} catch (Exception e) {
 				log("⚠️ Grid init failed: " + e.getMessage());
 			}
-			gridDailyScheduler = Executors.newSingleThreadScheduledExecutor();
-
-			gridDailyScheduler.scheduleAtFixedRate(() -> {
-				try {
-					restaurantController.initAvailabilityGridNext30Days();
-					log("📅 Daily availability grid refresh completed.");
-				} catch (Exception e) {
-					log("❌ Daily grid refresh failed: " + e.getMessage());
-				}
-			}, 1, 24 * 60, TimeUnit.MINUTES);
+			scheduling.schedule("grid.warm", 1, ServerConfig.GRID_WARM_INTERVAL_MINUTES, TimeUnit.MINUTES, () -> {
+				GridHorizonMaterializer.Report report = restaurantController.warmAvailabilityGrid();
+				log("📅 Daily availability grid warm-up completed (" + report + "). Opening hours cache: "
+						+ restaurantController.getEffectiveHoursCache().describeMetrics());
+			}, "reservations");
+
+			retentionService = new RetentionService(new Retention_DB_Controller(txConn), restaurantController,
+					this::log);
+			scheduling.schedule("retention", 5, ServerConfig.RETENTION_CHECK_MINUTES, TimeUnit.MINUTES,
+					retentionService::runIfDue, "waiting_list", "notifications");
+
+			scheduling.schedule("scheduler.stats", ServerConfig.SCHEDULER_STATS_MINUTES,
+					ServerConfig.SCHEDULER_STATS_MINUTES, TimeUnit.MINUTES,
+					() -> log("🗓️ Background jobs: " + scheduling.getJobStats()));
 
 			log("✅ Server fully initialized.");
 
@@ -440,17 +491,21 @@ public class RestaurantServer extends AbstractServer {
 	 */
 	@Override
 	protected void serverStopped() {
-		idleScheduler.shutdownNow();
-		if (waitingScheduler != null)
-			waitingScheduler.shutdownNow();
-		if (reservationScheduler != null)
-			reservationScheduler.shutdownNow();
-		if (closingScheduler != null)
-			closingScheduler.shutdownNow();
+		if (retentionService != null)
+			retentionService.stop();
+		scheduling.stop();
+		if (waitingOfferDeadlines != null)
+			waitingOfferDeadlines.stop();
+		if (reservationCheckinDeadlines != null)
+			reservationCheckinDeadlines.stop();
 		if (notificationScheduler != null)
 			notificationScheduler.stop();
-		if (gridDailyScheduler != null)
-			gridDailyScheduler.shutdownNow();
+		if (notificationPipeline != null)
+			notificationPipeline.stop();
+		if (freedTableMatcher != null)
+			freedTableMatcher.stop();
+		if (notificationWriteBehind != null)
+			notificationWriteBehind.stop();
 		log("🛑 Server stopped.");
 	}
 
@@ -473,17 +528,13 @@ public class RestaurantServer extends AbstractServer {
 	 * </p>
 	 */
 	private void startIdleWatchdog() {
-		idleScheduler.scheduleAtFixedRate(() -> {
-			try {
-				long idle = System.currentTimeMillis() - lastActivityMs;
-				if (idle >= IDLE_TIMEOUT_MS && getNumberOfClients() == 0) {
-					log("AUTO-SHUTDOWN: No activity for 30 minutes. Closing server...");
-					shutdownServerNow();
-				}
-			} catch (Exception e) {
-				log("IdleWatchdog error: " + e.getMessage());
+		scheduling.schedule("server.idleWatchdog", 1, 1, TimeUnit.MINUTES, () -> {
+			long idle = System.currentTimeMillis() - lastActivityMs;
+			if (idle >= IDLE_TIMEOUT_MS && getNumberOfClients() == 0) {
+				log("AUTO-SHUTDOWN: No activity for 30 minutes. Closing server...");
+				shutdownServerNow();
 			}
-		}, 1, 1, TimeUnit.MINUTES);
+		});
 	}
 
 	/**
@@ -500,10 +551,19 @@ public class RestaurantServer extends AbstractServer {
 			close();
 		} catch (Exception ignored) {
 		}
-		idleScheduler.shutdownNow();
-
+		if (retentionService != null)
+			retentionService.stop();
+		scheduling.stop();
+		if (waitingOfferDeadlines != null)
+			waitingOfferDeadlines.stop();
+		if (reservationCheckinDeadlines != null)
+			reservationCheckinDeadlines.stop();
+		if (notificationWriteBehind != null)
+			notificationWriteBehind.stop();
 		if (notificationScheduler != null)
 			notificationScheduler.stop();
+		if (notificationPipeline != null)
+			notificationPipeline.stop();
 
 		if (onAutoShutdown != null) {
 			try {
@@ -532,10 +592,10 @@ public class RestaurantServer extends AbstractServer {
 			var reportMonth = java.time.YearMonth.now().minusMonths(1);
 			int managerId = userDB.getRestaurantManagerId();
 
-			notificationDB.addNotification(new entities.Notification(0, managerId, entities.Enums.Channel.SMS,
-					entities.Enums.NotificationType.MONTHLY_REPORT_READY,
+			notificationDB.addNotifications(java.util.List.of(new entities.Notification(0, managerId,
+					entities.Enums.Channel.SMS, entities.Enums.NotificationType.MONTHLY_REPORT_READY,
 					"Monthly report for " + reportMonth + " is now available.",
-					java.time.LocalDateTime.now().withHour(0).withMinute(0).withSecond(0), false, null));
+					java.time.LocalDateTime.now().withHour(0).withMinute(0).withSecond(0), false, null)));
 
 			log("📊 Monthly report notification created for manager | month=" + reportMonth);
 
@@ -0,0 +1,197 @@
+package application;
+
+/**
+ * Tunable server settings.
+ * <p>
+ * Each value has a default and can be overridden with a JVM system property
+ * (e.g. {@code -Dbistro.bookingHorizonDays=45}). Like
+ * {@link dbControllers.DBController#MYSQL_PASSWORD}, the fields may also be set
+ * programmatically before the server starts.
+ * </p>
+ */
+public final class ServerConfig {
+
+	private ServerConfig() {
+	}
+
+	/**
+	 * How many days ahead (including today) reservations can be made and the
+	 * availability grid may be materialized.
+	 */
+	public static int BOOKING_HORIZON_DAYS = intProperty("bistro.bookingHorizonDays", 30);
+
+	/**
+	 * How many days ahead (including today) the background warmer pre-creates
+	 * grid slots. Later days are created lazily on first access.
+	 */
+	public static int GRID_WARM_DAYS = intProperty("bistro.gridWarmDays", 3);
+
+	/**
+	 * How long (milliseconds) freed-table events are collected before they are
+	 * matched to waiting parties as one batch.
+	 */
+	public static int TABLE_MATCH_WINDOW_MS = intProperty("bistro.tableMatchWindowMs", 500);
+
+	/**
+	 * Maximum number of notifications claimed and dispatched per outbox batch.
+	 */
+	public static int NOTIFICATION_BATCH_SIZE = intProperty("bistro.notificationBatchSize", 100);
+
+	/**
+	 * Number of SMS delivery workers (each user is always served by the same
+	 * worker).
+	 */
+	public static int NOTIFICATION_DISPATCH_THREADS = intProperty("bistro.notificationDispatchThreads", 4);
+
+	/**
+	 * How many hours ahead (at most 23) scheduled notifications are kept in the
+	 * in-memory timer wheel.
+	 */
+	public static int NOTIFICATION_WHEEL_HOURS = intProperty("bistro.notificationWheelHours", 6);
+
+	/**
+	 * Interval (seconds) of the safety-net sweep over {@code notifications}.
+	 */
+	public static int NOTIFICATION_SWEEP_SECONDS = intProperty("bistro.notificationSweepSeconds", 300);
+
+	/**
+	 * Whether notification inserts are buffered and written asynchronously in
+	 * batches (flushed on shutdown).
+	 */
+	public static boolean NOTIFICATION_WRITE_BEHIND = booleanProperty("bistro.notificationWriteBehind", true);
+
+	/**
+	 * Maximum time (milliseconds) a buffered notification waits before it is
+	 * inserted.
+	 */
+	public static int NOTIFICATION_WRITE_BEHIND_MS = intProperty("bistro.notificationWriteBehindMs", 200);
+
+	/**
+	 * Threads shared by the periodic background jobs.
+	 */
+	public static int SCHEDULER_THREADS = intProperty("bistro.schedulerThreads", 4);
+
+	/**
+	 * Maximum random offset of a background job run, in percent of the job's
+	 * period (at most 50).
+	 */
+	public static int SCHEDULER_JITTER_PERCENT = intProperty("bistro.schedulerJitterPercent", 10);
+
+	/**
+	 * Interval (seconds) of the expired waiting-offer sweep. Offers normally
+	 * expire on time through the deadline queue; the sweep is the safety net.
+	 */
+	public static int WAITING_EXPIRY_SECONDS = intProperty("bistro.waitingExpirySeconds", 300);
+
+	/**
+	 * Interval (seconds) of the no-show reservation sweep. Reservations are
+	 * normally cancelled on time through the deadline queue; the sweep is the
+	 * safety net.
+	 */
+	public static int RESERVATION_AUTOCANCEL_SECONDS = intProperty("bistro.reservationAutoCancelSeconds", 300);
+
+	/**
+	 * Interval (seconds) of the end-of-day closing check.
+	 */
+	public static int CLOSING_CHECK_SECONDS = intProperty("bistro.closingCheckSeconds", 60);
+
+	/**
+	 * Interval (minutes) of the availability grid warm-up.
+	 */
+	public static int GRID_WARM_INTERVAL_MINUTES = intProperty("bistro.gridWarmIntervalMinutes", 24 * 60);
+
+	/**
+	 * Interval (minutes) of the off-hours retention check.
+	 */
+	public static int RETENTION_CHECK_MINUTES = intProperty("bistro.retentionCheckMinutes", 30);
+
+	/**
+	 * Interval (minutes) at which background job counters are logged.
+	 */
+	public static int SCHEDULER_STATS_MINUTES = intProperty("bistro.schedulerStatsMinutes", 60);
+
+	/**
+	 * Days sent notifications are kept.
+	 */
+	public static int RETENTION_NOTIFICATION_DAYS = intProperty("bistro.retentionNotificationDays", 30);
+
+	/**
+	 * Days cancelled and seated waiting-list entries stay in {@code waiting_list}
+	 * (covers the monthly reports) before they are moved to
+	 * {@code waiting_list_archive}.
+	 */
+	public static int RETENTION_WAITING_DAYS = intProperty("bistro.retentionWaitingDays", 400);
+
+	/**
+	 * Days login sessions are kept.
+	 */
+	public static int RETENTION_SESSION_DAYS = intProperty("bistro.retentionSessionDays", 1);
+
+	/**
+	 * Days a guest row without an active reservation, waiting entry or unpaid
+	 * bill is kept.
+	 */
+	public static int RETENTION_GUEST_DAYS = intProperty("bistro.retentionGuestDays", 7);
+
+	/**
+	 * Rows archived/deleted per retention transaction.
+	 */
+	public static int RETENTION_CHUNK_SIZE = intProperty("bistro.retentionChunkSize", 500);
+
+	/**
+	 * Maximum chunks per table in one retention run; the rest is left for the
+	 * next run.
+	 */
+	public static int RETENTION_MAX_CHUNKS = intProperty("bistro.retentionMaxChunks", 200);
+
+	/**
+	 * Pause (milliseconds) between retention chunks, so request handling gets the
+	 * shared connection in between.
+	 */
+	public static int RETENTION_PAUSE_MS = intProperty("bistro.retentionPauseMs", 100);
+
+	/**
+	 * Rebuilds the report aggregate tables from the reservation and waiting
+	 * tables at startup (repairs aggregates after manual data changes).
+	 */
+	public static boolean REPORT_AGGREGATES_REBUILD = booleanProperty("bistro.reportAggregatesRebuild", false);
+
+	/**
+	 * Maximum number of built monthly reports kept in memory (closed months
+	 * evicted from memory are reloaded from {@code report_cache}).
+	 */
+	public static int REPORT_CACHE_ENTRIES = intProperty("bistro.reportCacheEntries", 48);
+
+	/**
+	 * Reads a positive integer system property.
+	 *
+	 * @param name         property name
+	 * @param defaultValue value used when the property is missing or invalid
+	 * @return configured value
+	 */
+	static int intProperty(String name, int defaultValue) {
+		String raw = System.getProperty(name);
+		if (raw == null || raw.isBlank())
+			return defaultValue;
+		try {
+			int v = Integer.parseInt(raw.trim());
+			return v > 0 ? v : defaultValue;
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Reads a boolean system property.
+	 *
+	 * @param name         property name
+	 * @param defaultValue value used when the property is missing
+	 * @return configured value
+	 */
+	static boolean booleanProperty(String name, boolean defaultValue) {
+		String raw = System.getProperty(name);
+		if (raw == null || raw.isBlank())
+			return defaultValue;
+		return Boolean.parseBoolean(raw.trim());
+	}
+}
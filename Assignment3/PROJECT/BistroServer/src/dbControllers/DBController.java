@@ -11,10 +11,12 @@ import application.RestaurantServer;
 /**
  * Manages the application's JDBC connection to the MySQL database.
  * <p>
- * This class is responsible for establishing and holding a single
- * {@link Connection} instance used by the different DB controller classes. It
- * also provides lightweight diagnostics/logging to verify connectivity and
- * basic schema presence.
+ * This class is responsible for establishing and holding the shared
+ * auto-commit {@link Connection} used by the different DB controller classes,
+ * plus a second connection reserved for {@link TransactionRunner} so that
+ * transactions never include other threads' statements. It also provides
+ * lightweight diagnostics/logging to verify connectivity and basic schema
+ * presence.
  * </p>
  * <p>
  * Logging is routed through {@link RestaurantServer} when available; otherwise
@@ -28,7 +30,10 @@ public class DBController {
 	 */
 	public static String MYSQL_PASSWORD = "";
 
+	private static final String URL = "jdbc:mysql://localhost:3306/bistrodb?serverTimezone=Asia/Jerusalem&useSSL=false";
+
 	private Connection conn;
+	private Connection txConn;
 
 	/**
 	 * Server reference used for logging to the server UI.
@@ -58,7 +63,8 @@ public class DBController {
 	}
 
 	/**
-	 * Establishes a JDBC connection to the application's MySQL database.
+	 * Establishes the shared and the transaction JDBC connections to the
+	 * application's MySQL database.
 	 * <p>
 	 * On successful connection, this method runs diagnostic helpers that log:
 	 * <ul>
@@ -74,9 +80,8 @@ public class DBController {
 	 */
 	public void ConnectToDb() {
 		try {
-			conn = DriverManager.getConnection(
-					"jdbc:mysql://localhost:3306/bistrodb?serverTimezone=Asia/Jerusalem&useSSL=false", "root",
-					MYSQL_PASSWORD);
+			conn = DriverManager.getConnection(URL, "root", MYSQL_PASSWORD);
+			txConn = DriverManager.getConnection(URL, "root", MYSQL_PASSWORD);
 
 			log("SQL connection succeed");
 
@@ -100,6 +105,15 @@ public class DBController {
 		return conn;
 	}
 
+	/**
+	 * Returns the connection reserved for {@link TransactionRunner}.
+	 *
+	 * @return transaction {@link Connection}, or {@code null} if not connected
+	 */
+	public Connection getTransactionConnection() {
+		return txConn;
+	}
+
 	/**
 	 * Logs the currently selected database name using {@code SELECT DATABASE()}.
 	 */
@@ -0,0 +1,87 @@
+package dbControllers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single versioned schema migration.
+ * <p>
+ * A migration is an ordered list of SQL statements identified by a version
+ * number. Its checksum is a SHA-256 hash of the statements, so an already
+ * applied migration that was edited afterwards can be detected at startup.
+ * </p>
+ */
+public class Migration {
+
+	private final int version;
+	private final String description;
+	private final List<String> statements;
+	private final String checksum;
+
+	/**
+	 * Constructs a migration.
+	 *
+	 * @param version     unique, increasing schema version
+	 * @param description short human-readable description
+	 * @param statements  SQL statements executed in order
+	 */
+	public Migration(int version, String description, String... statements) {
+		this.version = version;
+		this.description = description;
+		this.statements = List.of(statements);
+		this.checksum = computeChecksum(this.statements);
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public List<String> getStatements() {
+		return Collections.unmodifiableList(statements);
+	}
+
+	/**
+	 * @return SHA-256 hex digest of the migration statements
+	 */
+	public String getChecksum() {
+		return checksum;
+	}
+
+	/**
+	 * Computes a SHA-256 digest over the trimmed statements.
+	 * <p>
+	 * Statements are trimmed so indentation-only changes in the Java text blocks
+	 * do not change the checksum.
+	 * </p>
+	 *
+	 * @param statements migration statements
+	 * @return lowercase hex digest
+	 */
+	private static String computeChecksum(List<String> statements) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			for (String s : statements) {
+				for (String line : s.strip().split("\\R")) {
+					md.update(line.strip().getBytes(StandardCharsets.UTF_8));
+					md.update((byte) '\n');
+				}
+				md.update((byte) ';');
+			}
+
+			StringBuilder hex = new StringBuilder();
+			for (byte b : md.digest()) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package dbControllers;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import entities.Notification;
+
+/**
+ * Asynchronous write-behind buffer for notification inserts.
+ * <p>
+ * Producers hand notifications to {@link Notification_DB_Controller#addNotifications(List)}
+ * and return immediately; the queue writes everything collected so far with
+ * {@link Notification_DB_Controller#addNotificationsBatch(List)}:
+ * <ul>
+ * <li>Every {@code flushIntervalMs}</li>
+ * <li>Right away once a full insert chunk is waiting</li>
+ * <li>On {@link #stop()}, so nothing queued is lost on a clean shutdown</li>
+ * </ul>
+ * A flush inserts the whole batch in one transaction, so a failed flush
+ * inserted nothing and its rows are put back at the front of the queue for the
+ * next flush. After {@value #MAX_ATTEMPTS} failed flushes a row is tried on its
+ * own; if it still fails it is dropped and logged, so one bad row cannot block
+ * the queue forever. Flushes run on a single thread, so rows are inserted in
+ * submission order.
+ * </p>
+ */
+public class NotificationWriteBehindQueue {
+
+	private static final int MAX_ATTEMPTS = 5;
+
+	private final Notification_DB_Controller db;
+	private final long flushIntervalMs;
+	private final int flushThreshold;
+	private final Consumer<String> logger;
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+	private final List<Notification> pending = new ArrayList<>();
+	private boolean flushRequested;
+
+	/** Failed flushes per queued row (only rows that failed at least once). */
+	private final Map<Notification, Integer> failedAttempts = new IdentityHashMap<>();
+
+	/**
+	 * Constructs a queue.
+	 *
+	 * @param db              controller that performs the inserts
+	 * @param flushIntervalMs maximum time a notification waits before insert
+	 * @param flushThreshold  queue size that triggers an immediate flush
+	 * @param logger          callback used for logging
+	 */
+	public NotificationWriteBehindQueue(Notification_DB_Controller db, long flushIntervalMs, int flushThreshold,
+			Consumer<String> logger) {
+		this.db = db;
+		this.flushIntervalMs = flushIntervalMs;
+		this.flushThreshold = flushThreshold;
+		this.logger = logger;
+	}
+
+	/**
+	 * Starts the periodic flush.
+	 */
+	public void start() {
+		executor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Queues notifications for insert.
+	 *
+	 * @param notifications notifications to insert
+	 */
+	public void submit(List<Notification> notifications) {
+		if (notifications == null || notifications.isEmpty())
+			return;
+
+		boolean trigger;
+		synchronized (pending) {
+			pending.addAll(notifications);
+			trigger = pending.size() >= flushThreshold && !flushRequested;
+			if (trigger)
+				flushRequested = true;
+		}
+
+		if (trigger) {
+			try {
+				executor.execute(this::flush);
+			} catch (RejectedExecutionException e) {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * @return number of notifications waiting to be inserted
+	 */
+	public int size() {
+		synchronized (pending) {
+			return pending.size();
+		}
+	}
+
+	/**
+	 * Stops the periodic flush and inserts everything still queued.
+	 */
+	public void stop() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+
+		int left = size();
+		if (left > 0)
+			logger.accept("❌ Notification write-behind stopped with " + left + " unsaved notifications.");
+	}
+
+	/**
+	 * Inserts the queued notifications (synchronized so shutdown and the periodic
+	 * flush never overlap).
+	 */
+	public synchronized void flush() {
+		List<Notification> batch;
+		synchronized (pending) {
+			flushRequested = false;
+			if (pending.isEmpty())
+				return;
+			batch = new ArrayList<>(pending);
+			pending.clear();
+		}
+
+		try {
+			db.addNotificationsBatch(batch);
+			for (Notification n : batch) {
+				failedAttempts.remove(n);
+			}
+		} catch (Exception e) {
+			List<Notification> retry = new ArrayList<>();
+			List<Notification> exhausted = new ArrayList<>();
+			for (Notification n : batch) {
+				int attempts = failedAttempts.merge(n, 1, Integer::sum);
+				(attempts >= MAX_ATTEMPTS ? exhausted : retry).add(n);
+			}
+			synchronized (pending) {
+				pending.addAll(0, retry);
+			}
+			logger.accept("❌ Notification write-behind flush failed (" + retry.size() + " kept for retry): "
+					+ e.getMessage());
+
+			for (Notification n : exhausted) {
+				insertAlone(n);
+			}
+		}
+	}
+
+	/**
+	 * Last attempt for a row that failed {@value #MAX_ATTEMPTS} flushes: inserts
+	 * it on its own and drops it if that fails too.
+	 */
+	private void insertAlone(Notification n) {
+		failedAttempts.remove(n);
+		try {
+			db.addNotificationsBatch(List.of(n));
+		} catch (Exception e) {
+			logger.accept("❌ Notification dropped after " + MAX_ATTEMPTS + " failed inserts (user " + n.getUserId()
+					+ ", " + n.getChannel() + ", " + n.getNotificationType() + "): " + e.getMessage());
+		}
+	}
+}
@@ -6,7 +6,11 @@ import entities.Notification;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Provides persistence operations for scheduled notifications (SMS / Email
@@ -14,8 +18,8 @@ import java.util.List;
  * <p>
  * This DB controller manages the {@code notifications} table, supporting:
  * <ul>
- * <li>Schema creation</li>
- * <li>Insertion of scheduled notifications</li>
+ * <li>Insertion of scheduled notifications, single or in batches (optionally
+ * through a {@link NotificationWriteBehindQueue})</li>
  * <li>Querying notifications due to be sent (unsent + scheduled time
  * reached)</li>
  * <li>Marking notifications as sent</li>
@@ -29,64 +33,53 @@ import java.util.List;
  */
 public class Notification_DB_Controller {
 
+	/** Maximum number of rows per multi-row insert. */
+	private static final int INSERT_CHUNK = 200;
+
 	private final Connection conn;
+	private final Connection txConn;
+	private volatile BiConsumer<Integer, LocalDateTime> scheduleListener;
+	private volatile NotificationWriteBehindQueue writeBehind;
 
 	/**
-	 * Constructs a Notification_DB_Controller with the given JDBC connection.
+	 * Constructs a Notification_DB_Controller with the given JDBC connections.
 	 *
-	 * @param conn active JDBC connection used for notification persistence
+	 * @param conn   active JDBC connection used for notification persistence
+	 * @param txConn connection reserved for {@link TransactionRunner}
 	 */
-	public Notification_DB_Controller(Connection conn) {
+	public Notification_DB_Controller(Connection conn, Connection txConn) {
 		this.conn = conn;
+		this.txConn = txConn;
 	}
 
-	// =====================================================
-	// TABLE CREATION
-	// =====================================================
-
 	/**
-	 * Creates the {@code notifications} table if it does not already exist.
-	 * <p>
-	 * The table stores:
-	 * <ul>
-	 * <li>Notification metadata (user, channel, type)</li>
-	 * <li>Delivery payload (message)</li>
-	 * <li>Scheduling information (scheduled_for)</li>
-	 * <li>Delivery state (is_sent, sent_at)</li>
-	 * </ul>
-	 * </p>
+	 * Registers a listener that is told about every inserted notification (id and
+	 * {@code scheduled_for}), so a scheduler can fire it on time without polling.
+	 *
+	 * @param scheduleListener listener, or {@code null} to remove it
 	 */
-	public void createNotificationsTable() {
-		String sql = """
-				  CREATE TABLE IF NOT EXISTS notifications (
-				      notification_id INT AUTO_INCREMENT PRIMARY KEY,
-				      user_id INT NOT NULL,
-
-				      channel VARCHAR(10) NOT NULL,
-				      notification_type VARCHAR(60) NOT NULL,
-
-				      message VARCHAR(800) NOT NULL,
-				      scheduled_for DATETIME NOT NULL,
-
-				      is_sent TINYINT(1) NOT NULL DEFAULT 0,
-				      sent_at DATETIME NULL,
-				      reservation_id INT NULL,
-				confirmation_code VARCHAR(20) NULL,
+	public void setScheduleListener(BiConsumer<Integer, LocalDateTime> scheduleListener) {
+		this.scheduleListener = scheduleListener;
+	}
 
-				INDEX (reservation_id),
-				INDEX (confirmation_code),
-				      INDEX (user_id),
-				      INDEX (scheduled_for),
-				      INDEX (is_sent),
-				      INDEX (channel),
-				      INDEX (notification_type)
-				  );
-				  """;
+	/**
+	 * Routes {@link #addNotifications(List)} through an asynchronous write-behind
+	 * queue.
+	 *
+	 * @param writeBehind started queue, or {@code null} to insert synchronously
+	 */
+	public void setWriteBehind(NotificationWriteBehindQueue writeBehind) {
+		this.writeBehind = writeBehind;
+	}
 
-		try (Statement stmt = conn.createStatement()) {
-			stmt.execute(sql);
-		} catch (SQLException e) {
-			e.printStackTrace();
+	private void notifyScheduled(int notificationId, LocalDateTime scheduledFor) {
+		BiConsumer<Integer, LocalDateTime> listener = scheduleListener;
+		if (listener == null || notificationId <= 0 || scheduledFor == null)
+			return;
+		try {
+			listener.accept(notificationId, scheduledFor);
+		} catch (RuntimeException ignore) {
+			// the periodic sweep still finds the row
 		}
 	}
 
@@ -121,7 +114,9 @@ public class Notification_DB_Controller {
 
 			try (ResultSet rs = ps.getGeneratedKeys()) {
 				if (rs.next()) {
-					return rs.getInt(1);
+					int id = rs.getInt(1);
+					notifyScheduled(id, n.getScheduledFor());
+					return id;
 				}
 			}
 		}
@@ -129,6 +124,100 @@ public class Notification_DB_Controller {
 		return -1;
 	}
 
+	/**
+	 * Inserts notifications produced by one business event (e.g. the SMS and
+	 * Email of a reminder, or all cancellations of a batch job).
+	 * <p>
+	 * This is the entry point for producers. With a write-behind queue the rows
+	 * are queued and inserted asynchronously in multi-row batches; otherwise they
+	 * are inserted right away by {@link #addNotificationsBatch(List)}.
+	 * </p>
+	 *
+	 * @param notifications notifications to insert
+	 * @return number of rows inserted or queued
+	 * @throws SQLException if a synchronous insert fails
+	 */
+	public int addNotifications(List<Notification> notifications) throws SQLException {
+		if (notifications == null || notifications.isEmpty())
+			return 0;
+
+		NotificationWriteBehindQueue queue = writeBehind;
+		if (queue != null) {
+			queue.submit(notifications);
+			return notifications.size();
+		}
+		return addNotificationsBatch(notifications);
+	}
+
+	/**
+	 * Inserts several scheduled notifications with multi-row inserts.
+	 * <p>
+	 * Rows are written in chunks of {@value #INSERT_CHUNK} per statement, so a
+	 * large batch costs a handful of round trips instead of one per row.
+	 * Notifications that are already marked sent (audit rows of messages
+	 * delivered inline) keep {@code is_sent}/{@code sent_at}. Generated ids are
+	 * not returned, but unsent rows are passed to the schedule listener.
+	 * </p>
+	 * <p>
+	 * All chunks are inserted in one transaction: either every row is inserted
+	 * or none is, so a caller can safely retry the whole list after a failure.
+	 * The schedule listener is called after the commit.
+	 * </p>
+	 *
+	 * @param notifications notifications to insert
+	 * @return number of rows inserted
+	 * @throws SQLException if a database error occurs (nothing is inserted)
+	 */
+	public int addNotificationsBatch(List<Notification> notifications) throws SQLException {
+		if (notifications == null || notifications.isEmpty())
+			return 0;
+
+		Map<Integer, LocalDateTime> scheduled = new LinkedHashMap<>();
+		int inserted = TransactionRunner.inTransaction(txConn, c -> insertChunks(c, notifications, scheduled));
+		scheduled.forEach(this::notifyScheduled);
+		return inserted;
+	}
+
+	private static int insertChunks(Connection c, List<Notification> notifications,
+			Map<Integer, LocalDateTime> scheduled) throws SQLException {
+		int inserted = 0;
+		for (int from = 0; from < notifications.size(); from += INSERT_CHUNK) {
+			int to = Math.min(from + INSERT_CHUNK, notifications.size());
+
+			StringBuilder sql = new StringBuilder("""
+					INSERT INTO notifications
+					(user_id, channel, notification_type, message, scheduled_for, is_sent, sent_at)
+					VALUES""");
+			for (int i = from; i < to; i++) {
+				sql.append(i == from ? " (?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?)");
+			}
+
+			try (PreparedStatement ps = c.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+				int idx = 1;
+				for (int i = from; i < to; i++) {
+					Notification n = notifications.get(i);
+					ps.setInt(idx++, n.getUserId());
+					ps.setString(idx++, n.getChannel().name());
+					ps.setString(idx++, n.getNotificationType().name());
+					ps.setString(idx++, n.getMessage());
+					ps.setTimestamp(idx++, Timestamp.valueOf(n.getScheduledFor()));
+					ps.setBoolean(idx++, n.isSent());
+					ps.setTimestamp(idx++, n.getSentAt() == null ? null : Timestamp.valueOf(n.getSentAt()));
+				}
+				inserted += ps.executeUpdate();
+
+				try (ResultSet rs = ps.getGeneratedKeys()) {
+					for (int i = from; i < to && rs.next(); i++) {
+						Notification n = notifications.get(i);
+						if (!n.isSent())
+							scheduled.put(rs.getInt(1), n.getScheduledFor());
+					}
+				}
+			}
+		}
+		return inserted;
+	}
+
 	// =====================================================
 	// SELECT - Scheduler use
 	// =====================================================
@@ -173,6 +262,285 @@ public class Notification_DB_Controller {
 		return list;
 	}
 
+	// =====================================================
+	// OUTBOX - claim / batch
+	// =====================================================
+
+	/**
+	 * Claims up to {@code limit} due notifications for one dispatch batch and
+	 * returns them.
+	 * <p>
+	 * Rows are claimed with a single {@code UPDATE ... ORDER BY ... LIMIT} that
+	 * stamps them with {@code token}, so two dispatchers never take the same row.
+	 * A claim older than {@code staleBefore} (dispatcher crashed or stopped) is
+	 * treated as free again. The claimed rows are then read back by token.
+	 * </p>
+	 *
+	 * @param now         upper bound for {@code scheduled_for}
+	 * @param token       unique token of this batch
+	 * @param limit       maximum batch size
+	 * @param staleBefore claims older than this may be taken over
+	 * @return claimed notifications ordered by {@code scheduled_for} (possibly
+	 *         empty)
+	 * @throws SQLException if a database error occurs
+	 */
+	public List<Notification> claimDue(LocalDateTime now, String token, int limit, LocalDateTime staleBefore)
+			throws SQLException {
+		String claim = """
+				UPDATE notifications
+				SET claim_token = ?,
+				    claimed_at = ?
+				WHERE is_sent = 0
+				  AND scheduled_for <= ?
+				  AND (claim_token IS NULL OR claimed_at < ?)
+				ORDER BY scheduled_for ASC, notification_id ASC
+				LIMIT ?
+				""";
+
+		int claimed;
+		try (PreparedStatement ps = conn.prepareStatement(claim)) {
+			ps.setString(1, token);
+			ps.setTimestamp(2, Timestamp.valueOf(now));
+			ps.setTimestamp(3, Timestamp.valueOf(now));
+			ps.setTimestamp(4, Timestamp.valueOf(staleBefore));
+			ps.setInt(5, limit);
+			claimed = ps.executeUpdate();
+		}
+
+		List<Notification> list = new ArrayList<>();
+		if (claimed == 0)
+			return list;
+
+		String read = """
+				SELECT *
+				FROM notifications
+				WHERE claim_token = ?
+				  AND is_sent = 0
+				ORDER BY scheduled_for ASC, notification_id ASC
+				""";
+
+		try (PreparedStatement ps = conn.prepareStatement(read)) {
+			ps.setString(1, token);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					list.add(mapRow(rs));
+				}
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Claims specific due notifications (fired by the in-memory timer) for one
+	 * dispatch batch and returns them.
+	 * <p>
+	 * Same rules as {@link #claimDue}: only unsent, due rows that are not claimed
+	 * by another live batch are taken, so an id fired twice is sent once.
+	 * </p>
+	 *
+	 * @param ids         notification ids
+	 * @param now         upper bound for {@code scheduled_for}
+	 * @param token       unique token of this batch
+	 * @param staleBefore claims older than this may be taken over
+	 * @return claimed notifications ordered by {@code scheduled_for} (possibly
+	 *         empty)
+	 * @throws SQLException if a database error occurs
+	 */
+	public List<Notification> claimByIds(List<Integer> ids, LocalDateTime now, String token,
+			LocalDateTime staleBefore) throws SQLException {
+		List<Notification> list = new ArrayList<>();
+		if (ids == null || ids.isEmpty())
+			return list;
+
+		String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+		String claim = "UPDATE notifications SET claim_token = ?, claimed_at = ?"
+				+ " WHERE is_sent = 0 AND scheduled_for <= ? AND (claim_token IS NULL OR claimed_at < ?)"
+				+ " AND notification_id IN (" + in + ")";
+
+		int claimed;
+		try (PreparedStatement ps = conn.prepareStatement(claim)) {
+			int idx = 1;
+			ps.setString(idx++, token);
+			ps.setTimestamp(idx++, Timestamp.valueOf(now));
+			ps.setTimestamp(idx++, Timestamp.valueOf(now));
+			ps.setTimestamp(idx++, Timestamp.valueOf(staleBefore));
+			for (Integer id : ids) {
+				ps.setInt(idx++, id);
+			}
+			claimed = ps.executeUpdate();
+		}
+		if (claimed == 0)
+			return list;
+
+		String read = """
+				SELECT *
+				FROM notifications
+				WHERE claim_token = ?
+				  AND is_sent = 0
+				ORDER BY scheduled_for ASC, notification_id ASC
+				""";
+
+		try (PreparedStatement ps = conn.prepareStatement(read)) {
+			ps.setString(1, token);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					list.add(mapRow(rs));
+				}
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the ids and due times of unsent notifications scheduled in
+	 * {@code (from, to]}.
+	 * <p>
+	 * Used to load the in-memory timer with the upcoming window.
+	 * </p>
+	 *
+	 * @param from exclusive lower bound
+	 * @param to   inclusive upper bound
+	 * @return notification id -> {@code scheduled_for}, ordered by time
+	 * @throws SQLException if a database error occurs
+	 */
+	public Map<Integer, LocalDateTime> getUnsentScheduledBetween(LocalDateTime from, LocalDateTime to)
+			throws SQLException {
+		String sql = """
+				SELECT notification_id, scheduled_for
+				FROM notifications
+				WHERE is_sent = 0
+				  AND scheduled_for > ?
+				  AND scheduled_for <= ?
+				ORDER BY scheduled_for ASC
+				""";
+
+		Map<Integer, LocalDateTime> out = new LinkedHashMap<>();
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setTimestamp(1, Timestamp.valueOf(from));
+			ps.setTimestamp(2, Timestamp.valueOf(to));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					out.put(rs.getInt(1), rs.getTimestamp(2).toLocalDateTime());
+				}
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Releases the claim of the given notifications of a batch (the ones that
+	 * were not handed to delivery), so the next batch retries them.
+	 * <p>
+	 * Rows that were handed off keep their claim until
+	 * {@link #markDelivered(int, LocalDateTime)}; if delivery fails they are
+	 * claimed again once the lease expires.
+	 * </p>
+	 *
+	 * @param token batch token
+	 * @param ids   ids to release
+	 * @return number of rows released
+	 * @throws SQLException if a database error occurs
+	 */
+	public int releaseClaim(String token, List<Integer> ids) throws SQLException {
+		if (ids == null || ids.isEmpty())
+			return 0;
+
+		String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+		String sql = "UPDATE notifications SET claim_token = NULL, claimed_at = NULL"
+				+ " WHERE claim_token = ? AND is_sent = 0 AND notification_id IN (" + in + ")";
+
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			int idx = 1;
+			ps.setString(idx++, token);
+			for (Integer id : ids) {
+				ps.setInt(idx++, id);
+			}
+			return ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * Marks a delivered notification as sent and clears its claim.
+	 * <p>
+	 * The claim token is not checked: if the lease expired while the
+	 * notification was being delivered, the row is still marked once and a
+	 * later claim of it finds nothing to send.
+	 * </p>
+	 *
+	 * @param notificationId notification identifier
+	 * @param sentAt         delivery timestamp
+	 * @return {@code true} if the row was unsent and is now marked sent
+	 * @throws SQLException if a database error occurs
+	 */
+	public boolean markDelivered(int notificationId, LocalDateTime sentAt) throws SQLException {
+		String sql = """
+				UPDATE notifications
+				SET is_sent = 1,
+				    sent_at = ?,
+				    claim_token = NULL,
+				    claimed_at = NULL
+				WHERE notification_id = ?
+				  AND is_sent = 0
+				""";
+
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setTimestamp(1, Timestamp.valueOf(sentAt));
+			ps.setInt(2, notificationId);
+			return ps.executeUpdate() == 1;
+		}
+	}
+
+	/**
+	 * Size and age of the due, unsent notifications.
+	 */
+	public static final class Backlog {
+		private final long count;
+		private final LocalDateTime oldestDue;
+
+		private Backlog(long count, LocalDateTime oldestDue) {
+			this.count = count;
+			this.oldestDue = oldestDue;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return {@code scheduled_for} of the oldest due row, or {@code null} if
+		 *         the backlog is empty
+		 */
+		public LocalDateTime getOldestDue() {
+			return oldestDue;
+		}
+	}
+
+	/**
+	 * Returns the size and age of the due, unsent backlog.
+	 *
+	 * @param now reference timestamp
+	 * @return backlog summary
+	 * @throws SQLException if a database error occurs
+	 */
+	public Backlog getDueBacklog(LocalDateTime now) throws SQLException {
+		String sql = """
+				SELECT COUNT(*), MIN(scheduled_for)
+				FROM notifications
+				WHERE is_sent = 0
+				  AND scheduled_for <= ?
+				""";
+
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setTimestamp(1, Timestamp.valueOf(now));
+			try (ResultSet rs = ps.executeQuery()) {
+				if (!rs.next())
+					return new Backlog(0, null);
+				Timestamp oldest = rs.getTimestamp(2);
+				return new Backlog(rs.getLong(1), oldest == null ? null : oldest.toLocalDateTime());
+			}
+		}
+	}
+
 	// =====================================================
 	// UPDATE
 	// =====================================================
@@ -12,7 +12,6 @@ import entities.Receipt;
  * <p>
  * This DB controller manages the {@code receipts} table, supporting:
  * <ul>
- * <li>Schema creation</li>
  * <li>Idempotent receipt creation per reservation (one receipt per
  * reservation)</li>
  * <li>Fetching receipts by reservation ID</li>
@@ -37,52 +36,6 @@ public class Receipt_DB_Controller {
 		this.conn = conn;
 	}
 
-	// =====================================================
-	// TABLE SETUP
-	// =====================================================
-
-	/**
-	 * Creates the {@code receipts} table if it does not already exist.
-	 * <p>
-	 * The schema enforces a single receipt per reservation via
-	 * {@code UNIQUE(reservation_id)} and supports payment tracking via
-	 * {@code is_paid}, {@code paid_at}, and {@code payment_type}.
-	 * </p>
-	 */
-	public void createReceiptsTable() {
-		String sql = """
-				CREATE TABLE IF NOT EXISTS receipts (
-				    receipt_id INT AUTO_INCREMENT PRIMARY KEY,
-				    reservation_id INT NOT NULL,
-				    created_at DATETIME NOT NULL,
-				    amount DECIMAL(10,2) NOT NULL,
-				    is_paid TINYINT(1) NOT NULL DEFAULT 0,
-				    paid_at DATETIME NULL,
-				    payment_type ENUM('CreditCard','Cash') NULL,
-
-				    created_by_user_id INT NULL,
-				    created_by_role ENUM(
-				        'RandomClient',
-				        'Subscriber',
-				        'RestaurantAgent',
-				        'RestaurantManager'
-				    ) NULL,
-
-				    UNIQUE (reservation_id),
-				    INDEX (reservation_id),
-				    INDEX (is_paid),
-				    INDEX (created_at),
-				    INDEX (paid_at)
-				);
-				""";
-
-		try (Statement stmt = conn.createStatement()) {
-			stmt.execute(sql);
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
-	}
-
 	// =====================================================
 	// INSERT / GET
 	// =====================================================
@@ -0,0 +1,486 @@
+package dbControllers;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import entities.Enums.ReservationStatus;
+import entities.Enums.UserRole;
+import entities.Reservation;
+
+/**
+ * Database controller for the pre-aggregated report tables.
+ * <p>
+ * Tables:
+ * <ul>
+ * <li>{@code report_daily_aggregates}: one row per day (of the reservation
+ * time) with arrival-delay buckets, stay-minute sum and count, subscriber
+ * reservations and seated subscriber waiting entries</li>
+ * <li>{@code report_monthly_active_subscribers}: one row per month and
+ * subscriber that made a reservation in that month</li>
+ * </ul>
+ * The reservation and waiting-list controllers add to these tables in the
+ * same transaction as the matching write (finish, reservation insert, manager
+ * update, waiting seat), so a monthly report reads at most 31 aggregate rows
+ * per month instead of every reservation.
+ * {@link #rebuild()} recomputes both tables from the raw rows.
+ * </p>
+ */
+public class ReportAggregates_DB_Controller {
+
+	/**
+	 * Aggregates of one day.
+	 */
+	public static final class DailyAggregate {
+		private final int onTime;
+		private final int minorDelay;
+		private final int significantDelay;
+		private final long stayMinutesSum;
+		private final int stayCount;
+		private final int subscriberReservations;
+		private final int subscriberWaitings;
+
+		private DailyAggregate(int onTime, int minorDelay, int significantDelay, long stayMinutesSum, int stayCount,
+				int subscriberReservations, int subscriberWaitings) {
+			this.onTime = onTime;
+			this.minorDelay = minorDelay;
+			this.significantDelay = significantDelay;
+			this.stayMinutesSum = stayMinutesSum;
+			this.stayCount = stayCount;
+			this.subscriberReservations = subscriberReservations;
+			this.subscriberWaitings = subscriberWaitings;
+		}
+
+		public int getOnTime() {
+			return onTime;
+		}
+
+		public int getMinorDelay() {
+			return minorDelay;
+		}
+
+		public int getSignificantDelay() {
+			return significantDelay;
+		}
+
+		public long getStayMinutesSum() {
+			return stayMinutesSum;
+		}
+
+		public int getStayCount() {
+			return stayCount;
+		}
+
+		public int getSubscriberReservations() {
+			return subscriberReservations;
+		}
+
+		public int getSubscriberWaitings() {
+			return subscriberWaitings;
+		}
+	}
+
+	/** Recomputes arrival buckets from finished reservations. */
+	static final String BACKFILL_ARRIVALS = """
+			INSERT INTO report_daily_aggregates
+			(report_date, on_time_count, minor_delay_count, significant_delay_count)
+			SELECT DATE(reservation_datetime),
+			       SUM(TIMESTAMPDIFF(MINUTE, reservation_datetime, checkin) < 3),
+			       SUM(TIMESTAMPDIFF(MINUTE, reservation_datetime, checkin) BETWEEN 3 AND 10),
+			       SUM(TIMESTAMPDIFF(MINUTE, reservation_datetime, checkin) > 10)
+			FROM reservations
+			WHERE reservation_status = 'Finished'
+			  AND checkin IS NOT NULL
+			  AND checkout IS NOT NULL
+			GROUP BY DATE(reservation_datetime)
+			ON DUPLICATE KEY UPDATE
+			    on_time_count = VALUES(on_time_count),
+			    minor_delay_count = VALUES(minor_delay_count),
+			    significant_delay_count = VALUES(significant_delay_count)
+			""";
+
+	/** Recomputes stay sums from finished reservations. */
+	static final String BACKFILL_STAYS = """
+			INSERT INTO report_daily_aggregates (report_date, stay_minutes_sum, stay_count)
+			SELECT DATE(reservation_datetime),
+			       SUM(TIMESTAMPDIFF(MINUTE, checkin, checkout)),
+			       COUNT(*)
+			FROM reservations
+			WHERE reservation_status = 'Finished'
+			  AND checkin IS NOT NULL
+			  AND checkout IS NOT NULL
+			  AND TIMESTAMPDIFF(MINUTE, checkin, checkout) > 0
+			GROUP BY DATE(reservation_datetime)
+			ON DUPLICATE KEY UPDATE
+			    stay_minutes_sum = VALUES(stay_minutes_sum),
+			    stay_count = VALUES(stay_count)
+			""";
+
+	/** Recomputes subscriber reservation counts. */
+	static final String BACKFILL_SUBSCRIBER_RESERVATIONS = """
+			INSERT INTO report_daily_aggregates (report_date, subscriber_reservations)
+			SELECT DATE(reservation_datetime), COUNT(*)
+			FROM reservations
+			WHERE created_by_role = 'Subscriber'
+			GROUP BY DATE(reservation_datetime)
+			ON DUPLICATE KEY UPDATE subscriber_reservations = VALUES(subscriber_reservations)
+			""";
+
+	/**
+	 * Recomputes seated subscriber waiting entries. An offer that expired or was
+	 * cancelled is not counted, so offers never have to be un-counted.
+	 */
+	static final String BACKFILL_SUBSCRIBER_WAITINGS = """
+			INSERT INTO report_daily_aggregates (report_date, subscriber_waitings)
+			SELECT DATE(table_freed_time), COUNT(*)
+			FROM waiting_list
+			WHERE created_by_role = 'Subscriber'
+			  AND waiting_status = 'Seated'
+			  AND table_freed_time IS NOT NULL
+			GROUP BY DATE(table_freed_time)
+			ON DUPLICATE KEY UPDATE subscriber_waitings = VALUES(subscriber_waitings)
+			""";
+
+	/** Recomputes the active subscribers of every month. */
+	static final String BACKFILL_ACTIVE_SUBSCRIBERS = """
+			INSERT IGNORE INTO report_monthly_active_subscribers (month_start, subscriber_id)
+			SELECT DISTINCT DATE_FORMAT(reservation_datetime, '%Y-%m-01'), created_by
+			FROM reservations
+			WHERE created_by_role = 'Subscriber'
+			""";
+
+	private static final String ADD_TO_DAY = """
+			INSERT INTO report_daily_aggregates
+			(report_date, on_time_count, minor_delay_count, significant_delay_count,
+			 stay_minutes_sum, stay_count, subscriber_reservations, subscriber_waitings)
+			VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+			ON DUPLICATE KEY UPDATE
+			    on_time_count = on_time_count + VALUES(on_time_count),
+			    minor_delay_count = minor_delay_count + VALUES(minor_delay_count),
+			    significant_delay_count = significant_delay_count + VALUES(significant_delay_count),
+			    stay_minutes_sum = stay_minutes_sum + VALUES(stay_minutes_sum),
+			    stay_count = stay_count + VALUES(stay_count),
+			    subscriber_reservations = subscriber_reservations + VALUES(subscriber_reservations),
+			    subscriber_waitings = subscriber_waitings + VALUES(subscriber_waitings)
+			""";
+
+	/** Drops a month's activity row of a subscriber with no reservation left in it. */
+	static final String REMOVE_INACTIVE_MONTH = """
+			DELETE FROM report_monthly_active_subscribers
+			WHERE month_start = ?
+			  AND subscriber_id = ?
+			  AND NOT EXISTS (
+			      SELECT 1
+			      FROM reservations r
+			      WHERE r.created_by = ?
+			        AND r.created_by_role = 'Subscriber'
+			        AND r.reservation_datetime >= ?
+			        AND r.reservation_datetime < ?
+			  )
+			""";
+
+	private final Connection conn;
+	private final Connection txConn;
+	private volatile Consumer<LocalDate> changeListener;
+
+	/**
+	 * Constructs a controller.
+	 *
+	 * @param conn   shared JDBC connection
+	 * @param txConn connection reserved for {@link TransactionRunner}
+	 */
+	public ReportAggregates_DB_Controller(Connection conn, Connection txConn) {
+		this.conn = conn;
+		this.txConn = txConn;
+	}
+
+	/**
+	 * Sets a callback that receives the day of every successful aggregate write
+	 * (used to invalidate cached reports of that month).
+	 *
+	 * @param changeListener callback, or {@code null} for none
+	 */
+	public void setChangeListener(Consumer<LocalDate> changeListener) {
+		this.changeListener = changeListener;
+	}
+
+	// ====WRITES====
+	// Called by the reservation and waiting-list controllers inside the
+	// transaction of the matching write, so an aggregate never drifts from the
+	// raw rows. The caller calls notifyChanged(day) after the commit.
+
+	/**
+	 * Records a finished reservation on its reservation day: its arrival-delay
+	 * bucket and, if positive, its stay.
+	 * <p>
+	 * Delay buckets (minutes after the reservation time): on time {@code < 3},
+	 * minor delay {@code 3..10}, significant delay {@code > 10}. Like the Time
+	 * Report, only finished reservations count, so both are recorded at finish.
+	 * </p>
+	 *
+	 * @param c               connection of the caller's open transaction
+	 * @param reservationTime reservation start
+	 * @param checkinTime     check-in time
+	 * @param checkoutTime    check-out time
+	 * @throws SQLException on database error
+	 */
+	public void recordFinished(Connection c, LocalDateTime reservationTime, LocalDateTime checkinTime,
+			LocalDateTime checkoutTime) throws SQLException {
+		long delay = Duration.between(reservationTime, checkinTime).toMinutes();
+		long stay = Duration.between(checkinTime, checkoutTime).toMinutes();
+		addToDay(c, reservationTime.toLocalDate(), delay < 3 ? 1 : 0, delay >= 3 && delay <= 10 ? 1 : 0,
+				delay > 10 ? 1 : 0, stay > 0 ? stay : 0, stay > 0 ? 1 : 0, 0, 0);
+	}
+
+	/**
+	 * Records a new subscriber reservation: the day's counter and the
+	 * subscriber's activity in that month.
+	 *
+	 * @param c               connection of the caller's open transaction
+	 * @param subscriberId    subscriber that made the reservation
+	 * @param reservationTime reservation start
+	 * @throws SQLException on database error
+	 */
+	public void recordSubscriberReservation(Connection c, int subscriberId, LocalDateTime reservationTime)
+			throws SQLException {
+		LocalDate day = reservationTime.toLocalDate();
+		addToDay(c, day, 0, 0, 0, 0, 0, 1, 0);
+		addActiveMonth(c, day, subscriberId);
+	}
+
+	/**
+	 * Records a subscriber waiting entry that was seated.
+	 *
+	 * @param c              connection of the caller's open transaction
+	 * @param tableFreedTime time the entry got its table
+	 * @throws SQLException on database error
+	 */
+	public void recordSubscriberWaitingSeated(Connection c, LocalDateTime tableFreedTime) throws SQLException {
+		addToDay(c, tableFreedTime.toLocalDate(), 0, 0, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Moves a reservation's contributions after a manager edit (time, status,
+	 * creator): everything the old row added is subtracted from its day and
+	 * everything the new row adds is added to its day.
+	 * <p>
+	 * The subscriber's activity row of the new month is added; the one of the
+	 * old month is removed when the subscriber has no other reservation left in
+	 * that month. Must be called after the reservation row was updated.
+	 * </p>
+	 *
+	 * @param c      connection of the caller's open transaction
+	 * @param before reservation as read (locked) before the update
+	 * @param after  reservation as read after the update
+	 * @return {@code true} if the aggregates changed (notify both days after the
+	 *         commit)
+	 * @throws SQLException on database error
+	 */
+	public boolean moveReservation(Connection c, Reservation before, Reservation after) throws SQLException {
+		if (before == null || after == null || before.getReservationTime() == null
+				|| after.getReservationTime() == null)
+			return false;
+		if (before.getReservationTime().equals(after.getReservationTime())
+				&& before.getReservationStatus() == after.getReservationStatus()
+				&& before.getCreatedByRole() == after.getCreatedByRole()
+				&& before.getCreatedByUserId() == after.getCreatedByUserId())
+			return false;
+
+		applyReservation(c, before, -1);
+		applyReservation(c, after, 1);
+
+		if (after.getCreatedByRole() == UserRole.Subscriber)
+			addActiveMonth(c, after.getReservationTime().toLocalDate(), after.getCreatedByUserId());
+		if (before.getCreatedByRole() == UserRole.Subscriber) {
+			LocalDate monthStart = before.getReservationTime().toLocalDate().withDayOfMonth(1);
+			try (PreparedStatement ps = c.prepareStatement(REMOVE_INACTIVE_MONTH)) {
+				ps.setDate(1, Date.valueOf(monthStart));
+				ps.setInt(2, before.getCreatedByUserId());
+				ps.setInt(3, before.getCreatedByUserId());
+				ps.setTimestamp(4, Timestamp.valueOf(monthStart.atStartOfDay()));
+				ps.setTimestamp(5, Timestamp.valueOf(monthStart.plusMonths(1).atStartOfDay()));
+				ps.executeUpdate();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Tells the change listener that the aggregates of {@code day} changed. Call
+	 * after the transaction that wrote them has committed.
+	 *
+	 * @param day changed day
+	 */
+	public void notifyChanged(LocalDate day) {
+		Consumer<LocalDate> listener = changeListener;
+		if (listener != null)
+			listener.accept(day);
+	}
+
+	/**
+	 * Adds ({@code sign = 1}) or subtracts ({@code sign = -1}) what one
+	 * reservation row contributes to its day, using the same filters as the
+	 * backfill.
+	 */
+	private static void applyReservation(Connection c, Reservation r, int sign) throws SQLException {
+		int onTime = 0;
+		int minor = 0;
+		int significant = 0;
+		long staySum = 0;
+		int stayCount = 0;
+
+		if (r.getReservationStatus() == ReservationStatus.Finished && r.getCheckinTime() != null
+				&& r.getCheckoutTime() != null) {
+			long delay = Duration.between(r.getReservationTime(), r.getCheckinTime()).toMinutes();
+			onTime = delay < 3 ? 1 : 0;
+			minor = delay >= 3 && delay <= 10 ? 1 : 0;
+			significant = delay > 10 ? 1 : 0;
+			long stay = Duration.between(r.getCheckinTime(), r.getCheckoutTime()).toMinutes();
+			if (stay > 0) {
+				staySum = stay;
+				stayCount = 1;
+			}
+		}
+		int subscriberReservations = r.getCreatedByRole() == UserRole.Subscriber ? 1 : 0;
+
+		if (onTime + minor + significant + stayCount + subscriberReservations == 0)
+			return;
+		addToDay(c, r.getReservationTime().toLocalDate(), sign * onTime, sign * minor, sign * significant,
+				sign * staySum, sign * stayCount, sign * subscriberReservations, 0);
+	}
+
+	private static void addActiveMonth(Connection c, LocalDate day, int subscriberId) throws SQLException {
+		try (PreparedStatement ps = c.prepareStatement(
+				"INSERT IGNORE INTO report_monthly_active_subscribers (month_start, subscriber_id) VALUES (?, ?)")) {
+			ps.setDate(1, Date.valueOf(day.withDayOfMonth(1)));
+			ps.setInt(2, subscriberId);
+			ps.executeUpdate();
+		}
+	}
+
+	private static void addToDay(Connection c, LocalDate day, int onTime, int minor, int significant, long staySum,
+			int stayCount, int subscriberReservations, int subscriberWaitings) throws SQLException {
+		try (PreparedStatement ps = c.prepareStatement(ADD_TO_DAY)) {
+			ps.setDate(1, Date.valueOf(day));
+			ps.setInt(2, onTime);
+			ps.setInt(3, minor);
+			ps.setInt(4, significant);
+			ps.setLong(5, staySum);
+			ps.setInt(6, stayCount);
+			ps.setInt(7, subscriberReservations);
+			ps.setInt(8, subscriberWaitings);
+			ps.executeUpdate();
+		}
+	}
+
+	// ====READS====
+
+	/** Daily aggregates of one month ({@code [from, to)}). */
+	static final String DAILY_AGGREGATES_SQL = """
+			SELECT *
+			FROM report_daily_aggregates
+			WHERE report_date >= ? AND report_date < ?
+			""";
+
+	/** Active subscribers of one month. */
+	static final String ACTIVE_SUBSCRIBERS_SQL = """
+			SELECT COUNT(*)
+			FROM report_monthly_active_subscribers
+			WHERE month_start = ?
+			""";
+
+	/**
+	 * Returns the aggregates of one month.
+	 *
+	 * @param year  report year
+	 * @param month report month (1-12)
+	 * @return day of month to aggregates (days without activity are missing)
+	 * @throws SQLException on database error
+	 */
+	public Map<Integer, DailyAggregate> getDailyAggregates(int year, int month) throws SQLException {
+		LocalDate from = LocalDate.of(year, month, 1);
+		Map<Integer, DailyAggregate> out = new TreeMap<>();
+		try (PreparedStatement ps = conn.prepareStatement(DAILY_AGGREGATES_SQL)) {
+			ps.setDate(1, Date.valueOf(from));
+			ps.setDate(2, Date.valueOf(from.plusMonths(1)));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					out.put(rs.getDate("report_date").toLocalDate().getDayOfMonth(),
+							new DailyAggregate(rs.getInt("on_time_count"), rs.getInt("minor_delay_count"),
+									rs.getInt("significant_delay_count"), rs.getLong("stay_minutes_sum"),
+									rs.getInt("stay_count"), rs.getInt("subscriber_reservations"),
+									rs.getInt("subscriber_waitings")));
+				}
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Counts subscribers that made at least one reservation in the month.
+	 *
+	 * @param year  report year
+	 * @param month report month (1-12)
+	 * @return number of active subscribers
+	 * @throws SQLException on database error
+	 */
+	public int countActiveSubscribers(int year, int month) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(ACTIVE_SUBSCRIBERS_SQL)) {
+			ps.setDate(1, Date.valueOf(LocalDate.of(year, month, 1)));
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next() ? rs.getInt(1) : 0;
+			}
+		}
+	}
+
+	/**
+	 * @return number of registered subscribers
+	 * @throws SQLException on database error
+	 */
+	public int countSubscribers() throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM SUBSCRIBERS");
+				ResultSet rs = ps.executeQuery()) {
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+	// ====BACKFILL====
+
+	/**
+	 * Recomputes both aggregate tables from {@code reservations} and
+	 * {@code waiting_list}, in one transaction.
+	 * <p>
+	 * Used to repair the aggregates (e.g. after manual data changes); existing
+	 * history is filled once by the schema migration that creates the tables.
+	 * </p>
+	 *
+	 * @return number of daily rows after the rebuild
+	 * @throws SQLException on database error (the old aggregates are kept)
+	 */
+	public int rebuild() throws SQLException {
+		return TransactionRunner.inTransaction(txConn, c -> {
+			try (Statement st = c.createStatement()) {
+				st.executeUpdate("DELETE FROM report_daily_aggregates");
+				st.executeUpdate("DELETE FROM report_monthly_active_subscribers");
+				for (String sql : List.of(BACKFILL_ARRIVALS, BACKFILL_STAYS, BACKFILL_SUBSCRIBER_RESERVATIONS,
+						BACKFILL_SUBSCRIBER_WAITINGS, BACKFILL_ACTIVE_SUBSCRIBERS)) {
+					st.executeUpdate(sql);
+				}
+				try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM report_daily_aggregates")) {
+					return rs.next() ? rs.getInt(1) : 0;
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,101 @@
+package dbControllers;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+
+/**
+ * Database controller for {@code report_cache}: serialized reports of closed
+ * months, one row per report type and month.
+ */
+public class ReportCache_DB_Controller {
+
+	private final Connection conn;
+
+	/**
+	 * Constructs a controller.
+	 *
+	 * @param conn shared JDBC connection
+	 */
+	public ReportCache_DB_Controller(Connection conn) {
+		this.conn = conn;
+	}
+
+	/**
+	 * Loads a stored report.
+	 *
+	 * @param reportType report type key
+	 * @param month      report month
+	 * @return serialized report, or {@code null} if none is stored
+	 * @throws SQLException on database error
+	 */
+	public byte[] load(String reportType, YearMonth month) throws SQLException {
+		String sql = """
+				SELECT payload
+				FROM report_cache
+				WHERE report_type = ? AND report_month = ?
+				""";
+
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setString(1, reportType);
+			ps.setDate(2, Date.valueOf(month.atDay(1)));
+
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next() ? rs.getBytes(1) : null;
+			}
+		}
+	}
+
+	/**
+	 * Stores (or replaces) a report.
+	 *
+	 * @param reportType report type key
+	 * @param month      report month
+	 * @param payload    serialized report
+	 * @throws SQLException on database error
+	 */
+	public void store(String reportType, YearMonth month, byte[] payload) throws SQLException {
+		String sql = """
+				INSERT INTO report_cache (report_type, report_month, payload)
+				VALUES (?, ?, ?)
+				ON DUPLICATE KEY UPDATE payload = VALUES(payload), created_at = CURRENT_TIMESTAMP
+				""";
+
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setString(1, reportType);
+			ps.setDate(2, Date.valueOf(month.atDay(1)));
+			ps.setBytes(3, payload);
+			ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * Deletes the stored reports of one month.
+	 *
+	 * @param month report month
+	 * @return number of deleted rows
+	 * @throws SQLException on database error
+	 */
+	public int delete(YearMonth month) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement("DELETE FROM report_cache WHERE report_month = ?")) {
+			ps.setDate(1, Date.valueOf(month.atDay(1)));
+			return ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * Deletes every stored report.
+	 *
+	 * @return number of deleted rows
+	 * @throws SQLException on database error
+	 */
+	public int clear() throws SQLException {
+		try (Statement st = conn.createStatement()) {
+			return st.executeUpdate("DELETE FROM report_cache");
+		}
+	}
+}
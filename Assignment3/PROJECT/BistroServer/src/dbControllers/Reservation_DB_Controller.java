@@ -4,7 +4,9 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import dto.DueBillDTO;
@@ -17,7 +19,6 @@ import entities.Reservation;
  * <p>
  * This DB controller manages the {@code reservations} table and supports:
  * <ul>
- * <li>Schema creation</li>
  * <li>Creating reservations and generating DB identifiers</li>
  * <li>Canceling and finishing reservations</li>
  * <li>Updating reservation fields (status, confirmation, check-in, check-out,
@@ -32,79 +33,44 @@ import entities.Reservation;
  */
 public class Reservation_DB_Controller {
 
+	/** Maximum number of ids bound into one {@code IN (...)} list. */
+	private static final int BULK_CHUNK = 500;
+
 	private final Connection conn;
+	private final Connection txConn;
+	private volatile ReportAggregates_DB_Controller reportAggregates;
 
 	/**
-	 * Constructs a Reservation_DB_Controller with the given JDBC connection.
+	 * Constructs a Reservation_DB_Controller with the given JDBC connections.
 	 *
-	 * @param conn active JDBC connection used for reservation persistence
+	 * @param conn   active JDBC connection used for reservation persistence
+	 * @param txConn connection reserved for {@link TransactionRunner}
 	 */
-	public Reservation_DB_Controller(Connection conn) {
+	public Reservation_DB_Controller(Connection conn, Connection txConn) {
 		this.conn = conn;
+		this.txConn = txConn;
 	}
 
-	// =====================================================
-	// TABLE SETUP
-	// =====================================================
+	/**
+	 * Returns a controller whose statements run on {@code c}, used to call this
+	 * controller from inside another controller's transaction.
+	 *
+	 * @param c connection of the open transaction
+	 * @return controller bound to {@code c}
+	 */
+	public Reservation_DB_Controller onConnection(Connection c) {
+		return new Reservation_DB_Controller(c, c);
+	}
 
 	/**
-	 * Creates the {@code reservations} table if it does not already exist.
-	 * <p>
-	 * Note: {@code CREATE TABLE IF NOT EXISTS} will not add new columns to an
-	 * existing table.
-	 * </p>
+	 * Sets the report aggregates that are updated in the same transaction as a
+	 * subscriber reservation insert, a finish and a manager update.
+	 *
+	 * @param reportAggregates aggregates controller (may be {@code null} to skip
+	 *                         the updates)
 	 */
-	public void createReservationsTable() {
-		String sql = """
-				  CREATE TABLE IF NOT EXISTS reservations (
-				      reservation_id INT AUTO_INCREMENT PRIMARY KEY,
-
-				      reservation_datetime DATETIME NOT NULL,
-				      number_of_guests INT NOT NULL,
-				      confirmation_code VARCHAR(20) NOT NULL,
-
-				      created_by INT NOT NULL,
-				      created_by_role ENUM(
-				          'RandomClient',
-				          'Subscriber',
-				          'RestaurantAgent',
-				          'RestaurantManager'
-				      ) NOT NULL,
-
-				      is_confirmed TINYINT(1) NOT NULL DEFAULT 0,
-				      is_active TINYINT(1) NOT NULL DEFAULT 1,
-				      table_number INT NULL,
-
-				      reservation_status ENUM(
-				          'Active',
-				          'Finished',
-				          'Cancelled'
-				      ) NOT NULL DEFAULT 'Active',
-
-				      checkin DATETIME NULL,
-				      checkout DATETIME NULL,
-				      reminder_at DATETIME NULL,
-				      reminder_sent TINYINT(1) NOT NULL DEFAULT 0,
-				      bill_at DATETIME NULL,
-				bill_sent TINYINT(1) NOT NULL DEFAULT 0,
-
-				INDEX idx_bill_due (bill_sent, bill_at),
-				      UNIQUE (confirmation_code),
-				      INDEX (reservation_datetime),
-				      INDEX (created_by),
-				      INDEX (table_number),
-				      INDEX (reservation_status),
-				      INDEX checkin (checkin),
-				      INDEX checkout (checkout),
-				      INDEX idx_reminder_due (reminder_sent, reminder_at)
-				  );
-				  """;
-
-		try (Statement stmt = conn.createStatement()) {
-			stmt.execute(sql);
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+	public void setReportAggregates(ReportAggregates_DB_Controller reportAggregates) {
+		this.reportAggregates = reportAggregates;
 	}
 
 	// =====================================================
@@ -122,6 +88,8 @@ public class Reservation_DB_Controller {
 	 * <li>{@code reminder_at = reservation_datetime - 2 hours}</li>
 	 * <li>{@code reminder_sent = 0}</li>
 	 * </ul>
+	 * A subscriber reservation is counted in the report aggregates in the same
+	 * transaction.
 	 * </p>
 	 *
 	 * @param reservationDateTime reservation date/time
@@ -132,11 +100,33 @@ public class Reservation_DB_Controller {
 	 * @param tableNumber         assigned table number
 	 * @return generated {@code reservation_id}, or {@code -1} if insertion failed
 	 *         or no key was returned
-	 * @throws SQLException if a database error occurs during insertion
+	 * @throws SQLException if a database error occurs during insertion (nothing
+	 *                      is inserted)
 	 */
 	public int addReservation(LocalDateTime reservationDateTime, int guests, String confirmationCode,
 			int createdByUserId, Enums.UserRole createdByRole, int tableNumber) throws SQLException {
 
+		ReportAggregates_DB_Controller aggregates = reportAggregates;
+		if (aggregates == null || createdByRole != Enums.UserRole.Subscriber)
+			return insertReservation(conn, reservationDateTime, guests, confirmationCode, createdByUserId,
+					createdByRole, tableNumber);
+
+		int reservationId = TransactionRunner.inTransaction(txConn, c -> {
+			int id = insertReservation(c, reservationDateTime, guests, confirmationCode, createdByUserId,
+					createdByRole, tableNumber);
+			if (id != -1)
+				aggregates.recordSubscriberReservation(c, createdByUserId, reservationDateTime);
+			return id;
+		});
+		if (reservationId != -1)
+			aggregates.notifyChanged(reservationDateTime.toLocalDate());
+		return reservationId;
+	}
+
+	private static int insertReservation(Connection c, LocalDateTime reservationDateTime, int guests,
+			String confirmationCode, int createdByUserId, Enums.UserRole createdByRole, int tableNumber)
+			throws SQLException {
+
 		String sql = """
 				INSERT INTO reservations
 				(reservation_datetime,
@@ -152,7 +142,7 @@ public class Reservation_DB_Controller {
 				VALUES (?, ?, ?, ?, ?, 1, 1, ?, DATE_SUB(?, INTERVAL 2 HOUR), 0);
 				""";
 
-		try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+		try (PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
 			ps.setObject(1, reservationDateTime);
 
@@ -206,6 +196,114 @@ public class Reservation_DB_Controller {
 		}
 	}
 
+	/**
+	 * Cancels several active reservations with a single update.
+	 * <p>
+	 * Only rows that are still active with {@code reservation_status = 'Active'}
+	 * are changed. Ids are bound in chunks of {@value #BULK_CHUNK} to keep
+	 * statements bounded.
+	 * </p>
+	 *
+	 * @param reservationIds reservation identifiers to cancel
+	 * @return number of reservations actually cancelled
+	 * @throws SQLException if a database error occurs during the update
+	 */
+	public int cancelReservationsByIds(List<Integer> reservationIds) throws SQLException {
+		return cancelReservationsByIds(conn, reservationIds);
+	}
+
+	private static int cancelReservationsByIds(Connection c, List<Integer> reservationIds) throws SQLException {
+		if (reservationIds == null || reservationIds.isEmpty())
+			return 0;
+
+		int cancelled = 0;
+		for (int from = 0; from < reservationIds.size(); from += BULK_CHUNK) {
+			int to = Math.min(from + BULK_CHUNK, reservationIds.size());
+
+			StringBuilder sql = new StringBuilder("""
+					UPDATE reservations
+					SET is_active = 0,
+					    reservation_status = 'Cancelled'
+					WHERE is_active = 1
+					  AND reservation_status = 'Active'
+					  AND reservation_id IN (""");
+			for (int i = from; i < to; i++) {
+				sql.append(i == from ? "?" : ",?");
+			}
+			sql.append(")");
+
+			try (PreparedStatement ps = c.prepareStatement(sql.toString())) {
+				int idx = 1;
+				for (int i = from; i < to; i++) {
+					ps.setInt(idx++, reservationIds.get(i));
+				}
+				cancelled += ps.executeUpdate();
+			}
+		}
+		return cancelled;
+	}
+
+	/**
+	 * Locks and cancels the given reservations that are still active, in one
+	 * transaction.
+	 * <p>
+	 * The rows are locked with {@code SELECT ... FOR UPDATE} before the cancel
+	 * update, so every returned reservation was cancelled by this call. Rows
+	 * that were checked out, cancelled or changed concurrently do not match and
+	 * are not returned.
+	 * </p>
+	 *
+	 * @param reservationIds reservation identifiers to cancel
+	 * @return cancelled reservations (as read under the lock)
+	 * @throws SQLException if a database error occurs (nothing is cancelled)
+	 */
+	public List<Reservation> claimAndCancelActiveByIds(List<Integer> reservationIds) throws SQLException {
+		if (reservationIds == null || reservationIds.isEmpty())
+			return new ArrayList<>();
+
+		return TransactionRunner.inTransaction(txConn, c -> {
+			List<Reservation> claimed = new ArrayList<>();
+			for (int from = 0; from < reservationIds.size(); from += BULK_CHUNK) {
+				int to = Math.min(from + BULK_CHUNK, reservationIds.size());
+
+				String sql = """
+						SELECT *
+						FROM reservations
+						WHERE is_active = 1
+						  AND reservation_status = 'Active'
+						  AND reservation_id IN (%s)
+						FOR UPDATE
+						""".formatted(String.join(", ", Collections.nCopies(to - from, "?")));
+
+				try (PreparedStatement ps = c.prepareStatement(sql)) {
+					int idx = 1;
+					for (int i = from; i < to; i++) {
+						ps.setInt(idx++, reservationIds.get(i));
+					}
+					try (ResultSet rs = ps.executeQuery()) {
+						while (rs.next()) {
+							claimed.add(mapRowToReservation(rs));
+						}
+					}
+				}
+			}
+			if (claimed.isEmpty())
+				return claimed;
+
+			List<Integer> ids = new ArrayList<>();
+			for (Reservation r : claimed) {
+				ids.add(r.getReservationId());
+			}
+			cancelReservationsByIds(c, ids);
+
+			for (Reservation r : claimed) {
+				r.setActive(false);
+				r.setReservationStatus(ReservationStatus.Cancelled);
+			}
+			return claimed;
+		});
+	}
+
 	// =====================================================
 	// REMINDERS
 	// =====================================================
@@ -350,15 +448,7 @@ public class Reservation_DB_Controller {
 	 * @throws SQLException if a database error occurs during the query
 	 */
 	public Reservation getReservationById(int reservationId) throws SQLException {
-		String sql = "SELECT * FROM reservations WHERE reservation_id = ?;";
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
-			ps.setInt(1, reservationId);
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next())
-					return mapRowToReservation(rs);
-			}
-		}
-		return null;
+		return findById(conn, reservationId, false);
 	}
 
 	/**
@@ -406,6 +496,33 @@ public class Reservation_DB_Controller {
 		return list;
 	}
 
+	/**
+	 * Returns every confirmation code stored in {@code reservations} or
+	 * {@code waiting_list}.
+	 * <p>
+	 * Used once at startup to seed the confirmation code allocator, since both
+	 * tables enforce {@code UNIQUE(confirmation_code)} over their full history.
+	 * </p>
+	 *
+	 * @return list of distinct confirmation codes (possibly empty)
+	 * @throws SQLException if a database error occurs during the query
+	 */
+	public ArrayList<String> getAllConfirmationCodes() throws SQLException {
+		String sql = """
+				SELECT confirmation_code FROM reservations
+				UNION
+				SELECT confirmation_code FROM waiting_list
+				""";
+
+		ArrayList<String> codes = new ArrayList<>();
+		try (PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				codes.add(rs.getString(1));
+			}
+		}
+		return codes;
+	}
+
 	/**
 	 * Checks whether an active reservation exists for the given confirmation code.
 	 *
@@ -430,6 +547,18 @@ public class Reservation_DB_Controller {
 		}
 	}
 
+	/** Finished reservations of one month ({@code [from, to)}). */
+	static final String FINISHED_BY_MONTH_SQL = """
+			SELECT *
+			FROM reservations
+			WHERE reservation_status = 'Finished'
+			  AND reservation_datetime >= ?
+			  AND reservation_datetime < ?
+			  AND checkin IS NOT NULL
+			  AND checkout IS NOT NULL
+			ORDER BY reservation_datetime;
+			""";
+
 	/**
 	 * Retrieves finished reservations for a given year and month.
 	 * <p>
@@ -439,6 +568,8 @@ public class Reservation_DB_Controller {
 	 * <li>{@code checkin IS NOT NULL}</li>
 	 * <li>{@code checkout IS NOT NULL}</li>
 	 * </ul>
+	 * The month is matched as the range {@code [first day, first day of next
+	 * month)}. Only used by the reports when no aggregates controller is set.
 	 * </p>
 	 *
 	 * @param year  report year
@@ -448,22 +579,12 @@ public class Reservation_DB_Controller {
 	 */
 	public ArrayList<Reservation> getFinishedReservationsByMonth(int year, int month) throws SQLException {
 
-		String sql = """
-				SELECT *
-				FROM reservations
-				WHERE reservation_status = 'Finished'
-				  AND checkin IS NOT NULL
-				  AND checkout IS NOT NULL
-				  AND YEAR(reservation_datetime) = ?
-				  AND MONTH(reservation_datetime) = ?
-				ORDER BY reservation_datetime;
-				""";
-
 		ArrayList<Reservation> list = new ArrayList<>();
+		LocalDateTime from = LocalDate.of(year, month, 1).atStartOfDay();
 
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
-			ps.setInt(1, year);
-			ps.setInt(2, month);
+		try (PreparedStatement ps = conn.prepareStatement(FINISHED_BY_MONTH_SQL)) {
+			ps.setTimestamp(1, Timestamp.valueOf(from));
+			ps.setTimestamp(2, Timestamp.valueOf(from.plusMonths(1)));
 
 			try (ResultSet rs = ps.executeQuery()) {
 				while (rs.next()) {
@@ -564,6 +685,41 @@ public class Reservation_DB_Controller {
 		}
 	}
 
+	/**
+	 * Reassigns the tables of several active reservations with a single
+	 * {@code UPDATE ... SET table_number = CASE reservation_id ... END}.
+	 *
+	 * @param newTableByReservationId reservation id -> new table number
+	 * @return number of reservations updated
+	 * @throws SQLException if a database error occurs during the update
+	 */
+	public int updateReservationTableNumbers(Map<Integer, Integer> newTableByReservationId) throws SQLException {
+		if (newTableByReservationId == null || newTableByReservationId.isEmpty())
+			return 0;
+
+		StringBuilder sql = new StringBuilder("UPDATE reservations SET table_number = CASE reservation_id");
+		for (int i = 0; i < newTableByReservationId.size(); i++) {
+			sql.append(" WHEN ? THEN ?");
+		}
+		sql.append(" ELSE table_number END WHERE is_active = 1 AND reservation_status = 'Active' AND reservation_id IN (");
+		for (int i = 0; i < newTableByReservationId.size(); i++) {
+			sql.append(i == 0 ? "?" : ",?");
+		}
+		sql.append(")");
+
+		try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+			int idx = 1;
+			for (Map.Entry<Integer, Integer> e : newTableByReservationId.entrySet()) {
+				ps.setInt(idx++, e.getKey());
+				ps.setInt(idx++, e.getValue());
+			}
+			for (Integer id : newTableByReservationId.keySet()) {
+				ps.setInt(idx++, id);
+			}
+			return ps.executeUpdate();
+		}
+	}
+
 	// =====================================================
 	// UPDATE
 	// =====================================================
@@ -732,16 +888,58 @@ public class Reservation_DB_Controller {
 	 * <li>{@code checkout = checkoutTime}</li>
 	 * <li>{@code is_active = 0}</li>
 	 * </ul>
-	 * and only applies to active reservations.
+	 * and only applies to active reservations. The row is locked first and the
+	 * finished reservation is counted in the report aggregates in the same
+	 * transaction.
 	 * </p>
 	 *
 	 * @param confirmationCode reservation confirmation code
 	 * @param checkoutTime     check-out timestamp to store
 	 * @return {@code true} if the reservation was updated, {@code false} otherwise
-	 * @throws SQLException if a database error occurs during the update
+	 * @throws SQLException if a database error occurs during the update (nothing
+	 *                      is updated)
 	 */
 	public boolean finishReservationByConfirmationCode(String confirmationCode, LocalDateTime checkoutTime)
 			throws SQLException {
+		ReportAggregates_DB_Controller aggregates = reportAggregates;
+		if (aggregates == null)
+			return finish(conn, confirmationCode, checkoutTime);
+
+		String select = """
+				SELECT reservation_datetime, checkin
+				FROM reservations
+				WHERE confirmation_code = ?
+				  AND is_active = 1
+				  AND reservation_status = 'Active'
+				FOR UPDATE
+				""";
+
+		LocalDate day = TransactionRunner.inTransaction(txConn, c -> {
+			LocalDateTime start;
+			Timestamp checkin;
+			try (PreparedStatement ps = c.prepareStatement(select)) {
+				ps.setString(1, confirmationCode);
+				try (ResultSet rs = ps.executeQuery()) {
+					if (!rs.next())
+						return null;
+					start = rs.getTimestamp("reservation_datetime").toLocalDateTime();
+					checkin = rs.getTimestamp("checkin");
+				}
+			}
+			if (!finish(c, confirmationCode, checkoutTime))
+				return null;
+			if (checkin != null)
+				aggregates.recordFinished(c, start, checkin.toLocalDateTime(), checkoutTime);
+			return start.toLocalDate();
+		});
+		if (day == null)
+			return false;
+		aggregates.notifyChanged(day);
+		return true;
+	}
+
+	private static boolean finish(Connection c, String confirmationCode, LocalDateTime checkoutTime)
+			throws SQLException {
 		String sql = """
 				UPDATE reservations
 				SET reservation_status = 'Finished',
@@ -752,7 +950,7 @@ public class Reservation_DB_Controller {
 				  AND reservation_status = 'Active';
 				""";
 
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+		try (PreparedStatement ps = c.prepareStatement(sql)) {
 			ps.setObject(1, checkoutTime);
 			ps.setString(2, confirmationCode);
 			return ps.executeUpdate() > 0;
@@ -898,8 +1096,22 @@ public class Reservation_DB_Controller {
 		return null;
 	}
 
+	/** Reservations per day of one month for one creator role ({@code [from, to)}). */
+	static final String COUNT_PER_DAY_BY_ROLE_SQL = """
+			SELECT DAY(reservation_datetime) AS day, COUNT(*) AS cnt
+			FROM reservations
+			WHERE created_by_role = ?
+			  AND reservation_datetime >= ?
+			  AND reservation_datetime < ?
+			GROUP BY DAY(reservation_datetime)
+			ORDER BY day;
+			""";
+
 	/**
 	 * Aggregates reservation counts per day for a given creator role and month.
+	 * <p>
+	 * Only used by the reports when no aggregates controller is set.
+	 * </p>
 	 *
 	 * @param role  creator role filter
 	 * @param year  target year
@@ -910,22 +1122,13 @@ public class Reservation_DB_Controller {
 	public Map<Integer, Integer> getReservationsCountPerDayByRole(Enums.UserRole role, int year, int month)
 			throws SQLException {
 
-		String sql = """
-				SELECT DAY(reservation_datetime) AS day, COUNT(*) AS cnt
-				FROM reservations
-				WHERE created_by_role = ?
-				  AND YEAR(reservation_datetime) = ?
-				  AND MONTH(reservation_datetime) = ?
-				GROUP BY DAY(reservation_datetime)
-				ORDER BY day;
-				""";
-
 		Map<Integer, Integer> map = new HashMap<>();
+		LocalDateTime from = LocalDate.of(year, month, 1).atStartOfDay();
 
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+		try (PreparedStatement ps = conn.prepareStatement(COUNT_PER_DAY_BY_ROLE_SQL)) {
 			ps.setString(1, role.name());
-			ps.setInt(2, year);
-			ps.setInt(3, month);
+			ps.setTimestamp(2, Timestamp.valueOf(from));
+			ps.setTimestamp(3, Timestamp.valueOf(from.plusMonths(1)));
 
 			try (ResultSet rs = ps.executeQuery()) {
 				while (rs.next()) {
@@ -939,12 +1142,52 @@ public class Reservation_DB_Controller {
 	/**
 	 * Updates core reservation fields based on the given {@link Reservation}
 	 * entity.
+	 * <p>
+	 * The row is locked and read before the update; the report aggregates move
+	 * the reservation's contributions from the old row to the new one in the
+	 * same transaction.
+	 * </p>
 	 *
 	 * @param res reservation entity containing the updated values
 	 * @return {@code true} if the row was updated, {@code false} otherwise
-	 * @throws SQLException if a database error occurs during the update
+	 * @throws SQLException if a database error occurs during the update (nothing
+	 *                      is updated)
 	 */
 	public boolean updateFullReservationDetails(Reservation res) throws SQLException {
+		ReportAggregates_DB_Controller aggregates = reportAggregates;
+		if (aggregates == null)
+			return updateFull(conn, res);
+
+		Reservation[] moved = new Reservation[2];
+		boolean updated = TransactionRunner.inTransaction(txConn, c -> {
+			Reservation before = findById(c, res.getReservationId(), true);
+			if (before == null || !updateFull(c, res))
+				return false;
+			Reservation after = findById(c, res.getReservationId(), false);
+			if (aggregates.moveReservation(c, before, after)) {
+				moved[0] = before;
+				moved[1] = after;
+			}
+			return true;
+		});
+		if (moved[0] != null) {
+			aggregates.notifyChanged(moved[0].getReservationTime().toLocalDate());
+			aggregates.notifyChanged(moved[1].getReservationTime().toLocalDate());
+		}
+		return updated;
+	}
+
+	private Reservation findById(Connection c, int reservationId, boolean lock) throws SQLException {
+		String sql = "SELECT * FROM reservations WHERE reservation_id = ?" + (lock ? " FOR UPDATE" : "");
+		try (PreparedStatement ps = c.prepareStatement(sql)) {
+			ps.setInt(1, reservationId);
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next() ? mapRowToReservation(rs) : null;
+			}
+		}
+	}
+
+	private static boolean updateFull(Connection c, Reservation res) throws SQLException {
 		String sql = """
 				UPDATE reservations
 				SET reservation_datetime = ?,
@@ -955,7 +1198,7 @@ public class Reservation_DB_Controller {
 				WHERE reservation_id = ?
 				""";
 
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+		try (PreparedStatement ps = c.prepareStatement(sql)) {
 			ps.setTimestamp(1, Timestamp.valueOf(res.getReservationTime()));
 			ps.setInt(2, res.getGuestAmount());
 
@@ -1160,6 +1403,123 @@ public class Reservation_DB_Controller {
 		return list;
 	}
 
+	/**
+	 * Claims and cancels up to {@code limit} active reservations that have not
+	 * checked in by {@code threshold}, in one transaction.
+	 * <p>
+	 * The oldest expired rows are locked with {@code SELECT ... FOR UPDATE} and
+	 * cancelled with a single {@code UPDATE ... IN (...)} before the commit, so
+	 * every returned reservation was cancelled by this call and no other
+	 * check-in or cancel can interleave with it.
+	 * </p>
+	 *
+	 * @param threshold reservations at or before this time are expired
+	 * @param limit     maximum number of reservations to claim
+	 * @return cancelled reservations (possibly empty), oldest first
+	 * @throws SQLException if a database error occurs (nothing is cancelled)
+	 */
+	public List<Reservation> claimExpiredWithoutCheckin(LocalDateTime threshold, int limit) throws SQLException {
+		return claimExpired(threshold, null, limit);
+	}
+
+	/**
+	 * Claims and cancels the given reservations if they have not checked in by
+	 * {@code threshold}, in one transaction.
+	 * <p>
+	 * Used by the deadline queue: only the listed rows are read and updated.
+	 * Reservations that were checked in, cancelled or moved to a later time do
+	 * not match and are left alone.
+	 * </p>
+	 *
+	 * @param reservationIds candidate reservations
+	 * @param threshold      reservations at or before this time are expired
+	 * @return cancelled reservations (possibly empty), oldest first
+	 * @throws SQLException if a database error occurs (nothing is cancelled)
+	 */
+	public List<Reservation> claimExpiredWithoutCheckinByIds(List<Integer> reservationIds, LocalDateTime threshold)
+			throws SQLException {
+		if (reservationIds == null || reservationIds.isEmpty())
+			return new ArrayList<>();
+		return claimExpired(threshold, reservationIds, reservationIds.size());
+	}
+
+	private List<Reservation> claimExpired(LocalDateTime threshold, List<Integer> onlyIds, int limit)
+			throws SQLException {
+		StringBuilder select = new StringBuilder("""
+				SELECT *
+				FROM reservations
+				WHERE is_active = 1
+				  AND reservation_status = 'Active'
+				  AND checkin IS NULL
+				  AND reservation_datetime <= ?
+				""");
+		if (onlyIds != null) {
+			select.append(" AND reservation_id IN (")
+					.append(String.join(", ", Collections.nCopies(onlyIds.size(), "?"))).append(")");
+		}
+		select.append(" ORDER BY reservation_datetime LIMIT ? FOR UPDATE");
+
+		return TransactionRunner.inTransaction(txConn, c -> {
+			List<Reservation> claimed = new ArrayList<>();
+			try (PreparedStatement ps = c.prepareStatement(select.toString())) {
+				int idx = 1;
+				ps.setTimestamp(idx++, Timestamp.valueOf(threshold));
+				if (onlyIds != null) {
+					for (int id : onlyIds) {
+						ps.setInt(idx++, id);
+					}
+				}
+				ps.setInt(idx, limit);
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						claimed.add(mapRowToReservation(rs));
+					}
+				}
+			}
+			if (claimed.isEmpty())
+				return claimed;
+
+			List<Integer> ids = new ArrayList<>();
+			for (Reservation r : claimed) {
+				ids.add(r.getReservationId());
+			}
+			cancelReservationsByIds(c, ids);
+
+			for (Reservation r : claimed) {
+				r.setActive(false);
+				r.setReservationStatus(ReservationStatus.Cancelled);
+			}
+			return claimed;
+		});
+	}
+
+	/**
+	 * Returns the start times of all active reservations that have not checked
+	 * in yet (used to rebuild the check-in deadline queue at startup).
+	 *
+	 * @return reservation id to reservation start time
+	 * @throws SQLException if a database error occurs during the query
+	 */
+	public Map<Integer, LocalDateTime> getPendingCheckinTimes() throws SQLException {
+		String sql = """
+				SELECT reservation_id, reservation_datetime
+				FROM reservations
+				WHERE is_active = 1
+				  AND reservation_status = 'Active'
+				  AND checkin IS NULL
+				""";
+
+		Map<Integer, LocalDateTime> out = new HashMap<>();
+		try (PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				Timestamp ts = rs.getTimestamp("reservation_datetime");
+				if (ts != null)
+					out.put(rs.getInt("reservation_id"), ts.toLocalDateTime());
+			}
+		}
+		return out;
+	}
+
 	/**
 	 * Retrieves active reservations by date (ignoring time-of-day).
 	 *
@@ -1168,16 +1528,38 @@ public class Reservation_DB_Controller {
 	 * @throws SQLException if a database error occurs during the query
 	 */
 	public ArrayList<Reservation> getActiveReservationsByDate(LocalDate date) throws SQLException {
+		return getActiveReservationsBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+	}
+
+	/**
+	 * Retrieves active reservations whose start time is in the half-open range
+	 * {@code [from, to)}.
+	 * <p>
+	 * The range predicate is applied to the raw column, so the query can use
+	 * {@code idx_res_status_time}.
+	 * </p>
+	 *
+	 * @param from range start (inclusive)
+	 * @param to   range end (exclusive)
+	 * @return active reservations ordered by start time
+	 * @throws SQLException if a database error occurs during the query
+	 */
+	public ArrayList<Reservation> getActiveReservationsBetween(LocalDateTime from, LocalDateTime to)
+			throws SQLException {
 		ArrayList<Reservation> list = new ArrayList<>();
 
 		String sql = """
 				    SELECT * FROM reservations
 				    WHERE reservation_status = 'Active'
-				      AND DATE(reservation_datetime) = ?
+				      AND is_active = 1
+				      AND reservation_datetime >= ?
+				      AND reservation_datetime < ?
+				    ORDER BY reservation_datetime
 				""";
 
 		try (PreparedStatement ps = conn.prepareStatement(sql)) {
-			ps.setDate(1, Date.valueOf(date));
+			ps.setTimestamp(1, Timestamp.valueOf(from));
+			ps.setTimestamp(2, Timestamp.valueOf(to));
 
 			try (ResultSet rs = ps.executeQuery()) {
 				while (rs.next()) {
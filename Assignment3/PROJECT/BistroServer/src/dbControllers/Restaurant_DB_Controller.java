@@ -7,7 +7,6 @@ import entities.Table;
 import java.sql.*;
 import java.time.*;
 import java.util.*;
-import java.util.function.Function;
 
 /**
  * Provides persistence operations for restaurant-related data.
@@ -19,14 +18,18 @@ import java.util.function.Function;
  * <li>{@code table_availability_grid} (half-hour availability grid per
  * table)</li>
  * </ul>
- * It also supports schema creation/verification, seeding default opening hours
- * rows, and utility methods for converting between SQL TIME values and
- * string-based time fields.
+ * Base tables are created by {@link SchemaMigrations}; the dynamic grid columns
+ * are tracked by {@link SchemaRegistry}. It also provides utility methods for
+ * converting between SQL TIME values and string-based time fields.
  * </p>
  */
 public class Restaurant_DB_Controller {
 
+	/** Maximum number of rows per multi-row grid insert. */
+	private static final int SLOT_INSERT_CHUNK = 500;
+
 	private final Connection conn;
+	private final SchemaRegistry schema;
 
 	/**
 	 * Constructs a Restaurant_DB_Controller with the given JDBC connection.
@@ -34,91 +37,33 @@ public class Restaurant_DB_Controller {
 	 * @param conn active JDBC connection used for restaurant persistence
 	 */
 	public Restaurant_DB_Controller(Connection conn) {
-		this.conn = conn;
+		this(conn, new SchemaRegistry(conn));
 	}
 
-	// =========================
-	// CREATE TABLES (SAFE)
-	// =========================
+	private Restaurant_DB_Controller(Connection conn, SchemaRegistry schema) {
+		this.conn = conn;
+		this.schema = schema;
+	}
 
 	/**
-	 * Creates the {@code restaurant_tables} table if it does not already exist.
-	 * <p>
-	 * Schema:
-	 * <ul>
-	 * <li>{@code table_number} (primary key)</li>
-	 * <li>{@code seats_amount}</li>
-	 * </ul>
-	 * </p>
+	 * Returns a controller whose statements run on {@code c} and that shares this
+	 * controller's schema registry, used to call this controller from inside
+	 * another controller's transaction.
+	 *
+	 * @param c connection of the open transaction
+	 * @return controller bound to {@code c}
 	 */
-	public void createRestaurantTablesTable() {
-		String sql = """
-				CREATE TABLE IF NOT EXISTS restaurant_tables (
-				    table_number INT NOT NULL,
-				    seats_amount INT NOT NULL,
-				    PRIMARY KEY (table_number),
-				    INDEX (seats_amount)
-				);
-				""";
-
-		try (Statement stmt = conn.createStatement()) {
-			stmt.execute(sql);
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+	public Restaurant_DB_Controller onConnection(Connection c) {
+		return new Restaurant_DB_Controller(c, schema);
 	}
 
 	/**
-	 * Creates the {@code openinghours} table if it does not already exist and seeds
-	 * default weekday rows.
-	 * <p>
-	 * Schema:
-	 * <ul>
-	 * <li>{@code dayOfWeek} (primary key, English day name, e.g.
-	 * {@code "Sunday"})</li>
-	 * <li>{@code openTime} (nullable)</li>
-	 * <li>{@code closeTime} (nullable)</li>
-	 * </ul>
-	 * </p>
-	 * <p>
-	 * Seeding behavior: inserts all 7 English weekdays with {@code NULL} times
-	 * (idempotent via {@code ON DUPLICATE KEY}).
-	 * </p>
+	 * Returns the schema registry that tracks the availability grid columns.
+	 *
+	 * @return schema registry bound to this controller's connection
 	 */
-	public void createOpeningHoursTable() {
-		String createSql = """
-				CREATE TABLE IF NOT EXISTS openinghours (
-				    dayOfWeek VARCHAR(10) NOT NULL,
-				    openTime TIME NULL,
-				    closeTime TIME NULL,
-				    PRIMARY KEY (dayOfWeek)
-				);
-				""";
-
-		try (Statement stmt = conn.createStatement()) {
-			stmt.execute(createSql);
-		} catch (SQLException e) {
-			e.printStackTrace();
-			return;
-		}
-
-		String seedSql = """
-				INSERT INTO openinghours (dayOfWeek, openTime, closeTime)
-				VALUES (?, NULL, NULL)
-				ON DUPLICATE KEY UPDATE dayOfWeek = dayOfWeek;
-				""";
-
-		String[] days = { "Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday" };
-
-		try (PreparedStatement ps = conn.prepareStatement(seedSql)) {
-			for (String d : days) {
-				ps.setString(1, d);
-				ps.addBatch();
-			}
-			ps.executeBatch();
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+	public SchemaRegistry getSchemaRegistry() {
+		return schema;
 	}
 
 	// =========================
@@ -129,10 +74,10 @@ public class Restaurant_DB_Controller {
 	 * Loads all restaurant tables from {@code restaurant_tables} and updates the
 	 * Restaurant singleton cache.
 	 *
+	 * @return the loaded tables
 	 * @throws SQLException if a database error occurs during query execution
 	 */
-	public void loadTables() throws SQLException {
-		createRestaurantTablesTable();
+	public ArrayList<Table> loadTables() throws SQLException {
 		Restaurant r = Restaurant.getInstance();
 
 		String sql = "SELECT table_number, seats_amount FROM restaurant_tables";
@@ -149,6 +94,7 @@ public class Restaurant_DB_Controller {
 		}
 
 		r.setTables(tables);
+		return tables;
 	}
 
 	/**
@@ -211,19 +157,20 @@ public class Restaurant_DB_Controller {
 	/**
 	 * Deletes a table from {@code restaurant_tables} by {@code table_number}.
 	 * <p>
-	 * This method blocks deletion if the table has reserved slots in the next 30
-	 * days in the availability grid.
+	 * This method blocks deletion if the table has reserved slots in the next
+	 * {@code days} days in the availability grid.
 	 * </p>
 	 *
 	 * @param tableNumber table identifier
+	 * @param days        forward-looking window (the booking horizon)
 	 * @return {@code true} if the row was deleted, {@code false} if blocked or not
 	 *         found
 	 * @throws SQLException if a database error occurs during deletion or
 	 *                      reservation-check query
 	 */
-	public boolean deleteTable(int tableNumber) throws SQLException {
+	public boolean deleteTable(int tableNumber, int days) throws SQLException {
 
-		if (hasReservedSlotsInNextDays(tableNumber, 30)) {
+		if (hasReservedSlotsInNextDays(tableNumber, days)) {
 			return false;
 		}
 
@@ -238,18 +185,15 @@ public class Restaurant_DB_Controller {
 	 * Drops the availability grid column for a given table number.
 	 * <p>
 	 * Intended to be called only after the table deletion is allowed and executed.
+	 * The column is dropped through the {@link SchemaRegistry} so the in-memory
+	 * column set stays in sync.
 	 * </p>
 	 *
 	 * @param tableNumber table identifier
 	 * @throws SQLException if a database error occurs during schema alteration
 	 */
 	public void dropTableColumnFromGrid(int tableNumber) throws SQLException {
-		String col = "t_" + tableNumber;
-		String sql = "ALTER TABLE table_availability_grid DROP COLUMN " + col;
-
-		try (Statement stmt = conn.createStatement()) {
-			stmt.execute(sql);
-		}
+		schema.dropGridColumn(tableNumber);
 	}
 
 	// =========================
@@ -265,10 +209,10 @@ public class Restaurant_DB_Controller {
 	 * ordered by weekday in English.
 	 * </p>
 	 *
+	 * @return the loaded weekly opening hours
 	 * @throws SQLException if a database error occurs during query execution
 	 */
-	public void loadOpeningHours() throws SQLException {
-		createOpeningHoursTable();
+	public ArrayList<OpeningHouers> loadOpeningHours() throws SQLException {
 		Restaurant r = Restaurant.getInstance();
 
 		String sql = """
@@ -298,6 +242,7 @@ public class Restaurant_DB_Controller {
 		}
 
 		r.setOpeningHours(hours);
+		return hours;
 	}
 
 	/**
@@ -312,7 +257,6 @@ public class Restaurant_DB_Controller {
 	 * @throws SQLException if a database error occurs during update execution
 	 */
 	public void updateOpeningHours(OpeningHouers oh) throws SQLException {
-		createOpeningHoursTable();
 		String sql = """
 				UPDATE openinghours
 				SET openTime = ?, closeTime = ?
@@ -332,16 +276,13 @@ public class Restaurant_DB_Controller {
 	// =========================
 
 	/**
-	 * Ensures {@code table_availability_grid} exists and contains columns for every
-	 * table in {@code tables}.
+	 * Ensures {@code table_availability_grid} contains columns for every table in
+	 * {@code tables}.
 	 * <p>
-	 * Behavior:
-	 * <ol>
-	 * <li>Creates the grid table if missing (with current table columns)</li>
-	 * <li>Reads existing columns from {@code INFORMATION_SCHEMA}</li>
-	 * <li>Adds missing {@code t_<tableNumber>} columns for newly created
-	 * tables</li>
-	 * </ol>
+	 * The first call verifies the grid against the database (see
+	 * {@link SchemaRegistry#verifyAvailabilityGrid(List)}). Later calls only
+	 * compare against the in-memory column set and run {@code ALTER TABLE} for
+	 * columns that are actually missing.
 	 * </p>
 	 *
 	 * @param tables current list of tables to ensure schema for
@@ -349,78 +290,14 @@ public class Restaurant_DB_Controller {
 	 *                      updates
 	 */
 	public void ensureAvailabilityGridSchema(List<Table> tables) throws SQLException {
-		createAvailabilityGridTableIfNotExists(tables);
-
-		Set<String> existingCols = getExistingGridColumns();
-		for (Table t : tables) {
-			String col = "t_" + t.getTableNumber();
-			if (!existingCols.contains(col.toLowerCase(Locale.ROOT))) {
-
-				String alter = "ALTER TABLE table_availability_grid " + "ADD COLUMN " + col
-						+ " TINYINT(1) NOT NULL DEFAULT 1";
-
-				try (Statement stmt = conn.createStatement()) {
-					stmt.execute(alter);
-				}
-			}
+		if (!schema.isGridVerified()) {
+			schema.verifyAvailabilityGrid(tables);
+			return;
 		}
-	}
-
-	/**
-	 * Creates {@code table_availability_grid} if it does not exist.
-	 * <p>
-	 * Table structure:
-	 * <ul>
-	 * <li>{@code slot_datetime} is the primary key</li>
-	 * <li>Each table has a column {@code t_<tableNumber>} with {@code 1 = free},
-	 * {@code 0 = reserved}, default {@code 1}</li>
-	 * </ul>
-	 * </p>
-	 *
-	 * @param tables tables used to define initial grid columns
-	 * @throws SQLException if a database error occurs during table creation
-	 */
-	private void createAvailabilityGridTableIfNotExists(List<Table> tables) throws SQLException {
-		StringBuilder sb = new StringBuilder();
-		sb.append("CREATE TABLE IF NOT EXISTS table_availability_grid (")
-				.append("slot_datetime DATETIME NOT NULL PRIMARY KEY");
 
 		for (Table t : tables) {
-			sb.append(", t_").append(t.getTableNumber()).append(" TINYINT(1) NOT NULL DEFAULT 1");
-		}
-
-		sb.append(");");
-
-		try (Statement stmt = conn.createStatement()) {
-			stmt.execute(sb.toString());
-		}
-	}
-
-	/**
-	 * Reads the set of column names that currently exist in
-	 * {@code table_availability_grid}.
-	 * <p>
-	 * This is used to detect missing {@code t_<tableNumber>} columns.
-	 * </p>
-	 *
-	 * @return set of existing column names (lowercased)
-	 * @throws SQLException if a database error occurs while reading metadata
-	 */
-	private Set<String> getExistingGridColumns() throws SQLException {
-		Set<String> cols = new HashSet<>();
-		String sql = """
-				SELECT COLUMN_NAME
-				FROM INFORMATION_SCHEMA.COLUMNS
-				WHERE TABLE_SCHEMA = DATABASE()
-				  AND TABLE_NAME = 'table_availability_grid'
-				""";
-
-		try (PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
-			while (rs.next()) {
-				cols.add(rs.getString(1).toLowerCase(Locale.ROOT));
-			}
+			schema.ensureGridColumn(t.getTableNumber());
 		}
-		return cols;
 	}
 
 	/**
@@ -448,69 +325,134 @@ public class Restaurant_DB_Controller {
 	 * @param date  target date
 	 * @param open  opening time (inclusive)
 	 * @param close closing time (exclusive boundary used to compute last start)
-	 * @throws SQLException if a database error occurs during batch insertion
+	 * @throws SQLException if a database error occurs during insertion
 	 */
 	public void initGridForDate(LocalDate date, LocalTime open, LocalTime close) throws SQLException {
+		insertSlots(buildSlotsForDay(date, open, close));
+	}
+
+	/**
+	 * Builds the half-hour slot start times for a day open between {@code open}
+	 * and {@code close}.
+	 *
+	 * @param date  target date
+	 * @param open  opening time (inclusive)
+	 * @param close closing time (the last slot starts 30 minutes before it)
+	 * @return ordered slot start times (empty if the day is too short)
+	 */
+	public static List<LocalDateTime> buildSlotsForDay(LocalDate date, LocalTime open, LocalTime close) {
+		List<LocalDateTime> slots = new ArrayList<>();
 		LocalTime lastStart = close.minusMinutes(30);
 		if (lastStart.isBefore(open))
-			return;
+			return slots;
 
-		String sql = """
-				INSERT INTO table_availability_grid (slot_datetime)
-				VALUES (?)
-				ON DUPLICATE KEY UPDATE slot_datetime = slot_datetime
-				""";
+		LocalDateTime slot = LocalDateTime.of(date, open);
+		while (!slot.toLocalTime().isAfter(lastStart)) {
+			slots.add(slot);
+			slot = slot.plusMinutes(30);
+		}
+		return slots;
+	}
 
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
-			LocalDateTime slot = LocalDateTime.of(date, open);
+	/**
+	 * Returns all grid slot times in the half-open range {@code [from, to)}.
+	 * <p>
+	 * Reads only the primary key, so the query is an index range scan.
+	 * </p>
+	 *
+	 * @param from range start (inclusive)
+	 * @param to   range end (exclusive)
+	 * @return set of existing slot times
+	 * @throws SQLException if a database error occurs during query execution
+	 */
+	public Set<LocalDateTime> getExistingSlotsBetween(LocalDateTime from, LocalDateTime to) throws SQLException {
+		Set<LocalDateTime> out = new HashSet<>();
+		String sql = "SELECT slot_datetime FROM table_availability_grid WHERE slot_datetime >= ? AND slot_datetime < ?";
 
-			while (!slot.toLocalTime().isAfter(lastStart)) {
-				ps.setTimestamp(1, Timestamp.valueOf(slot));
-				ps.addBatch();
-				slot = slot.plusMinutes(30);
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setTimestamp(1, Timestamp.valueOf(from));
+			ps.setTimestamp(2, Timestamp.valueOf(to));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					out.add(rs.getTimestamp(1).toLocalDateTime());
+				}
 			}
-			ps.executeBatch();
 		}
+		return out;
 	}
 
 	/**
-	 * Initializes the availability grid for a forward-looking window of days
-	 * starting at {@code startDate}.
+	 * Inserts grid rows for the given slot times using multi-row
+	 * {@code INSERT IGNORE} statements.
 	 * <p>
-	 * For each date:
-	 * <ul>
-	 * <li>Calls {@code hoursProvider} to fetch opening hours (including any special
-	 * overrides)</li>
-	 * <li>If hours are missing/blank, skips the date</li>
-	 * <li>Otherwise, calls
-	 * {@link #initGridForDate(LocalDate, LocalTime, LocalTime)}</li>
-	 * </ul>
+	 * Rows are written in chunks of {@value #SLOT_INSERT_CHUNK} values per
+	 * statement. Existing rows are left untouched, so booking markers are never
+	 * overwritten. New rows get the column defaults ({@code 1 = free}).
 	 * </p>
 	 *
-	 * @param startDate     start date (inclusive)
-	 * @param days          number of days to initialize
-	 * @param hoursProvider function that returns opening hours for a given date
-	 * @throws SQLException if a database error occurs during initialization
+	 * @param slots slot times to insert
+	 * @return number of rows actually inserted
+	 * @throws SQLException if a database error occurs during insertion
 	 */
-	public void initGridForNextDays(LocalDate startDate, int days, Function<LocalDate, OpeningHouers> hoursProvider)
-			throws SQLException {
+	public int insertSlots(List<LocalDateTime> slots) throws SQLException {
+		if (slots == null || slots.isEmpty())
+			return 0;
 
-		for (int i = 0; i < days; i++) {
-			LocalDate d = startDate.plusDays(i);
-			OpeningHouers oh = hoursProvider.apply(d);
-			if (oh == null)
-				continue;
+		int inserted = 0;
+		for (int from = 0; from < slots.size(); from += SLOT_INSERT_CHUNK) {
+			int to = Math.min(from + SLOT_INSERT_CHUNK, slots.size());
 
-			String openStr = safeHHMM(oh.getOpenTime());
-			String closeStr = safeHHMM(oh.getCloseTime());
-			if (openStr.isBlank() || closeStr.isBlank())
-				continue;
+			StringBuilder sql = new StringBuilder("INSERT IGNORE INTO table_availability_grid (slot_datetime) VALUES ");
+			for (int i = from; i < to; i++) {
+				sql.append(i == from ? "(?)" : ",(?)");
+			}
+
+			try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+				int idx = 1;
+				for (int i = from; i < to; i++) {
+					ps.setTimestamp(idx++, Timestamp.valueOf(slots.get(i)));
+				}
+				inserted += ps.executeUpdate();
+			}
+		}
+		return inserted;
+	}
+
+	/**
+	 * Deletes the grid rows for the given slot times using chunked
+	 * {@code DELETE ... WHERE slot_datetime IN (...)} statements.
+	 * <p>
+	 * Rows that are not listed are left untouched, so booking markers of the
+	 * remaining slots are preserved.
+	 * </p>
+	 *
+	 * @param slots slot times to delete
+	 * @return number of rows actually deleted
+	 * @throws SQLException if a database error occurs during deletion
+	 */
+	public int deleteSlots(List<LocalDateTime> slots) throws SQLException {
+		if (slots == null || slots.isEmpty())
+			return 0;
 
-			LocalTime open = LocalTime.parse(openStr);
-			LocalTime close = LocalTime.parse(closeStr);
+		int deleted = 0;
+		for (int from = 0; from < slots.size(); from += SLOT_INSERT_CHUNK) {
+			int to = Math.min(from + SLOT_INSERT_CHUNK, slots.size());
 
-			initGridForDate(d, open, close);
+			StringBuilder sql = new StringBuilder("DELETE FROM table_availability_grid WHERE slot_datetime IN (");
+			for (int i = from; i < to; i++) {
+				sql.append(i == from ? "?" : ",?");
+			}
+			sql.append(")");
+
+			try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+				int idx = 1;
+				for (int i = from; i < to; i++) {
+					ps.setTimestamp(idx++, Timestamp.valueOf(slots.get(i)));
+				}
+				deleted += ps.executeUpdate();
+			}
 		}
+		return deleted;
 	}
 
 	/**
@@ -562,6 +504,169 @@ public class Restaurant_DB_Controller {
 		}
 	}
 
+	/**
+	 * Marks many {@code (table, slot)} cells as free with a single update.
+	 *
+	 * @param slotsByTable slots to release, grouped by table number
+	 * @return number of grid rows changed
+	 * @throws SQLException if a database error occurs during the update
+	 * @see #setSlotsBulk(Map, boolean)
+	 */
+	public int releaseSlotsBulk(Map<Integer, ? extends Collection<LocalDateTime>> slotsByTable)
+			throws SQLException {
+		return setSlotsBulk(slotsByTable, true);
+	}
+
+	/**
+	 * Marks many {@code (table, slot)} cells as reserved with a single update.
+	 * <p>
+	 * Unlike {@link #tryReserveSlot(LocalDateTime, int)} this does not check the
+	 * current value; callers must have verified availability (e.g. from a
+	 * snapshot read in the same transaction).
+	 * </p>
+	 *
+	 * @param slotsByTable slots to reserve, grouped by table number
+	 * @return number of grid rows changed
+	 * @throws SQLException if a database error occurs during the update
+	 * @see #setSlotsBulk(Map, boolean)
+	 */
+	public int reserveSlotsBulk(Map<Integer, ? extends Collection<LocalDateTime>> slotsByTable)
+			throws SQLException {
+		return setSlotsBulk(slotsByTable, false);
+	}
+
+	/**
+	 * Sets many {@code (table, slot)} cells to the same value with a single
+	 * update.
+	 * <p>
+	 * Each affected table column is rewritten with a {@code CASE} that sets the
+	 * value only on that table's slots and keeps the current value elsewhere; the
+	 * {@code WHERE} clause limits the update to the union of all slots. Tables
+	 * without a grid column are ignored.
+	 * </p>
+	 *
+	 * @param slotsByTable slots to change, grouped by table number
+	 * @param isFree       {@code true} to release, {@code false} to reserve
+	 * @return number of grid rows changed
+	 * @throws SQLException if a database error occurs during the update
+	 */
+	private int setSlotsBulk(Map<Integer, ? extends Collection<LocalDateTime>> slotsByTable, boolean isFree)
+			throws SQLException {
+		if (slotsByTable == null || slotsByTable.isEmpty())
+			return 0;
+
+		StringBuilder set = new StringBuilder();
+		List<Timestamp> params = new ArrayList<>();
+		Set<LocalDateTime> allSlots = new TreeSet<>();
+
+		for (Map.Entry<Integer, ? extends Collection<LocalDateTime>> e : slotsByTable.entrySet()) {
+			if (e.getKey() == null || e.getValue() == null || e.getValue().isEmpty())
+				continue;
+			if (schema.isGridVerified() && !schema.hasGridColumn(e.getKey()))
+				continue;
+
+			String col = "t_" + e.getKey();
+			set.append(set.length() == 0 ? "" : ", ").append(col).append(" = CASE WHEN slot_datetime IN (");
+			boolean first = true;
+			for (LocalDateTime slot : e.getValue()) {
+				set.append(first ? "?" : ",?");
+				params.add(Timestamp.valueOf(slot));
+				allSlots.add(slot);
+				first = false;
+			}
+			set.append(") THEN ").append(isFree ? 1 : 0).append(" ELSE ").append(col).append(" END");
+		}
+
+		if (allSlots.isEmpty())
+			return 0;
+
+		StringBuilder sql = new StringBuilder("UPDATE table_availability_grid SET ").append(set)
+				.append(" WHERE slot_datetime IN (");
+		boolean first = true;
+		for (LocalDateTime slot : allSlots) {
+			sql.append(first ? "?" : ",?");
+			params.add(Timestamp.valueOf(slot));
+			first = false;
+		}
+		sql.append(")");
+
+		try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+			for (int i = 0; i < params.size(); i++) {
+				ps.setTimestamp(i + 1, params.get(i));
+			}
+			return ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * Marks every slot of one table in {@code [from, to)} as free with a single
+	 * update (used before a table is deleted).
+	 *
+	 * @param tableNumber table identifier
+	 * @param from        range start (inclusive)
+	 * @param to          range end (exclusive)
+	 * @return number of grid rows changed
+	 * @throws SQLException if a database error occurs during the update
+	 */
+	public int releaseTableBetween(int tableNumber, LocalDateTime from, LocalDateTime to) throws SQLException {
+		String col = "t_" + tableNumber;
+		String sql = "UPDATE table_availability_grid SET " + col + " = 1 "
+				+ "WHERE slot_datetime >= ? AND slot_datetime < ? AND " + col + " = 0";
+
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setTimestamp(1, Timestamp.valueOf(from));
+			ps.setTimestamp(2, Timestamp.valueOf(to));
+			return ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * Reads the free tables of every slot in {@code [from, to)} with one range
+	 * query.
+	 * <p>
+	 * When {@code lockRows} is {@code true} the rows are read with
+	 * {@code FOR UPDATE}, which is meaningful inside a transaction.
+	 * </p>
+	 *
+	 * @param from     range start (inclusive)
+	 * @param to       range end (exclusive)
+	 * @param tables   tables to include (must have grid columns)
+	 * @param lockRows whether to lock the read rows
+	 * @return slot time -> numbers of the free tables at that slot
+	 * @throws SQLException if a database error occurs during query execution
+	 */
+	public Map<LocalDateTime, Set<Integer>> getFreeTablesBetween(LocalDateTime from, LocalDateTime to,
+			List<Table> tables, boolean lockRows) throws SQLException {
+		Map<LocalDateTime, Set<Integer>> out = new HashMap<>();
+		if (from == null || to == null || tables == null || tables.isEmpty())
+			return out;
+
+		StringBuilder select = new StringBuilder("SELECT slot_datetime");
+		for (Table t : tables) {
+			select.append(", t_").append(t.getTableNumber());
+		}
+		select.append(" FROM table_availability_grid WHERE slot_datetime >= ? AND slot_datetime < ?");
+		if (lockRows)
+			select.append(" FOR UPDATE");
+
+		try (PreparedStatement ps = conn.prepareStatement(select.toString())) {
+			ps.setTimestamp(1, Timestamp.valueOf(from));
+			ps.setTimestamp(2, Timestamp.valueOf(to));
+
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					Set<Integer> free = new HashSet<>();
+					for (int i = 0; i < tables.size(); i++) {
+						if (rs.getBoolean(i + 2))
+							free.add(tables.get(i).getTableNumber());
+					}
+					out.put(rs.getTimestamp(1).toLocalDateTime(), free);
+				}
+			}
+		}
+		return out;
+	}
+
 	/**
 	 * Builds a daily availability payload for GUI consumption.
 	 * <p>
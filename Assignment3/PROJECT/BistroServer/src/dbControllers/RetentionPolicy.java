@@ -0,0 +1,77 @@
+package dbControllers;
+
+/**
+ * Retention rule for one table: which rows are expired, how long they are
+ * kept, and whether they are copied to an archive table before deletion.
+ * <p>
+ * The {@code expiredWhere} condition is written against the table itself and
+ * must contain exactly one {@code ?} placeholder, bound to the cutoff time
+ * ({@code now - retentionDays}). It is used inside
+ * {@code SELECT id FROM table WHERE ...}, so it may reference the table by its
+ * name in correlated subqueries.
+ * </p>
+ */
+public final class RetentionPolicy {
+
+	private final String name;
+	private final String table;
+	private final String idColumn;
+	private final String expiredWhere;
+	private final int retentionDays;
+	private final String archiveTable;
+
+	/**
+	 * Constructs a policy.
+	 *
+	 * @param name          short name used in reports
+	 * @param table         table to purge
+	 * @param idColumn      unique key used to address rows in chunks
+	 * @param expiredWhere  condition selecting expired rows (one cutoff
+	 *                      {@code ?})
+	 * @param retentionDays days a row is kept after it expires
+	 * @param archiveTable  table with the same columns that receives the rows
+	 *                      before deletion, or {@code null} to delete only
+	 */
+	public RetentionPolicy(String name, String table, String idColumn, String expiredWhere, int retentionDays,
+			String archiveTable) {
+		this.name = name;
+		this.table = table;
+		this.idColumn = idColumn;
+		this.expiredWhere = expiredWhere;
+		this.retentionDays = retentionDays;
+		this.archiveTable = archiveTable;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	public String getIdColumn() {
+		return idColumn;
+	}
+
+	public String getExpiredWhere() {
+		return expiredWhere;
+	}
+
+	public int getRetentionDays() {
+		return retentionDays;
+	}
+
+	/**
+	 * @return archive table, or {@code null} if rows are deleted without a copy
+	 */
+	public String getArchiveTable() {
+		return archiveTable;
+	}
+
+	@Override
+	public String toString() {
+		return name + " (" + table + ", " + retentionDays + " days" + (archiveTable != null ? ", archived" : "")
+				+ ")";
+	}
+}
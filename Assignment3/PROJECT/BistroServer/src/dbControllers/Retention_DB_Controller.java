@@ -0,0 +1,95 @@
+package dbControllers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Database controller for the retention jobs.
+ * <p>
+ * Expired rows are removed in small chunks addressed by primary key. Each chunk
+ * runs in its own short transaction:
+ * <ol>
+ * <li>Select the next {@code limit} expired ids (index range on the policy's
+ * condition)</li>
+ * <li>Copy those rows to the archive table, if the policy has one</li>
+ * <li>Delete those rows by id</li>
+ * </ol>
+ * so locks are held only for the rows of one chunk, and a failure leaves the
+ * chunk untouched (neither archived nor deleted).
+ * </p>
+ */
+public class Retention_DB_Controller {
+
+	private final Connection conn;
+
+	/**
+	 * Constructs a controller.
+	 *
+	 * @param conn connection reserved for {@link TransactionRunner} (every
+	 *             purge runs in a transaction)
+	 */
+	public Retention_DB_Controller(Connection conn) {
+		this.conn = conn;
+	}
+
+	/**
+	 * Archives (if configured) and deletes one chunk of expired rows.
+	 *
+	 * @param policy retention policy
+	 * @param cutoff rows older than this are expired
+	 * @param limit  maximum rows in the chunk
+	 * @return number of rows deleted (less than {@code limit} when the table is
+	 *         clean)
+	 * @throws SQLException on database error (the chunk is rolled back)
+	 */
+	public int purgeChunk(RetentionPolicy policy, LocalDateTime cutoff, int limit) throws SQLException {
+		String select = "SELECT " + policy.getIdColumn() + " FROM " + policy.getTable() + " WHERE "
+				+ policy.getExpiredWhere() + " ORDER BY " + policy.getIdColumn() + " LIMIT ?";
+
+		return TransactionRunner.inTransaction(conn, c -> {
+			List<Object> ids = new ArrayList<>();
+			try (PreparedStatement ps = c.prepareStatement(select)) {
+				ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+				ps.setInt(2, limit);
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						ids.add(rs.getObject(1));
+					}
+				}
+			}
+			if (ids.isEmpty())
+				return 0;
+
+			String in = " WHERE " + policy.getIdColumn() + " IN ("
+					+ String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+
+			if (policy.getArchiveTable() != null) {
+				String archive = "INSERT IGNORE INTO " + policy.getArchiveTable() + " SELECT * FROM "
+						+ policy.getTable() + in;
+				try (PreparedStatement ps = c.prepareStatement(archive)) {
+					bindIds(ps, ids);
+					ps.executeUpdate();
+				}
+			}
+
+			try (PreparedStatement ps = c.prepareStatement("DELETE FROM " + policy.getTable() + in)) {
+				bindIds(ps, ids);
+				return ps.executeUpdate();
+			}
+		});
+	}
+
+	private static void bindIds(PreparedStatement ps, List<Object> ids) throws SQLException {
+		int idx = 1;
+		for (Object id : ids) {
+			ps.setObject(idx++, id);
+		}
+	}
+}
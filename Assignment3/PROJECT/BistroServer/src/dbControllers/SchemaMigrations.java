@@ -0,0 +1,483 @@
+package dbControllers;
+
+import java.util.List;
+
+/**
+ * Ordered list of all schema migrations for the Bistro database.
+ * <p>
+ * Rules:
+ * <ul>
+ * <li>Versions are strictly increasing and never reused</li>
+ * <li>An applied migration must never be edited (its checksum is verified on
+ * every startup); schema changes are shipped as a new migration instead</li>
+ * <li>Version 1 is the baseline and uses {@code IF NOT EXISTS} so it is safe on
+ * databases created before migrations existed</li>
+ * </ul>
+ * </p>
+ * <p>
+ * The dynamic {@code t_<n>} columns of {@code table_availability_grid} are not
+ * managed here; they are handled by {@link SchemaRegistry}.
+ * </p>
+ */
+public final class SchemaMigrations {
+
+	private SchemaMigrations() {
+	}
+
+	private static final List<Migration> ALL = List.of(
+
+			// =====================================================
+			// V1 - BASELINE
+			// =====================================================
+			new Migration(1, "Baseline tables",
+
+					"""
+							CREATE TABLE IF NOT EXISTS SUBSCRIBERS (
+							    subscriber_id INT PRIMARY KEY,
+							    username VARCHAR(50) NOT NULL,
+							    first_name VARCHAR(50),
+							    last_name VARCHAR(50),
+							    phone VARCHAR(15),
+							    email VARCHAR(100),
+							    role ENUM('RandomClient','Subscriber','RestaurantAgent','RestaurantManager') NOT NULL
+							)
+							""",
+
+					"""
+							CREATE TABLE IF NOT EXISTS GUESTS (
+							    guest_id INT PRIMARY KEY,
+							    phone VARCHAR(15) NULL,
+							    email VARCHAR(100) NULL
+							)
+							""",
+
+					"""
+							CREATE TABLE IF NOT EXISTS restaurant_tables (
+							    table_number INT NOT NULL,
+							    seats_amount INT NOT NULL,
+							    PRIMARY KEY (table_number),
+							    INDEX (seats_amount)
+							)
+							""",
+
+					"""
+							CREATE TABLE IF NOT EXISTS openinghours (
+							    dayOfWeek VARCHAR(10) NOT NULL,
+							    openTime TIME NULL,
+							    closeTime TIME NULL,
+							    PRIMARY KEY (dayOfWeek)
+							)
+							""",
+
+					"""
+							INSERT INTO openinghours (dayOfWeek, openTime, closeTime)
+							VALUES ('Sunday', NULL, NULL), ('Monday', NULL, NULL), ('Tuesday', NULL, NULL),
+							       ('Wednesday', NULL, NULL), ('Thursday', NULL, NULL), ('Friday', NULL, NULL),
+							       ('Saturday', NULL, NULL)
+							ON DUPLICATE KEY UPDATE dayOfWeek = dayOfWeek
+							""",
+
+					"""
+							CREATE TABLE IF NOT EXISTS reservations (
+							    reservation_id INT AUTO_INCREMENT PRIMARY KEY,
+
+							    reservation_datetime DATETIME NOT NULL,
+							    number_of_guests INT NOT NULL,
+							    confirmation_code VARCHAR(20) NOT NULL,
+
+							    created_by INT NOT NULL,
+							    created_by_role ENUM(
+							        'RandomClient',
+							        'Subscriber',
+							        'RestaurantAgent',
+							        'RestaurantManager'
+							    ) NOT NULL,
+
+							    is_confirmed TINYINT(1) NOT NULL DEFAULT 0,
+							    is_active TINYINT(1) NOT NULL DEFAULT 1,
+							    table_number INT NULL,
+
+							    reservation_status ENUM(
+							        'Active',
+							        'Finished',
+							        'Cancelled'
+							    ) NOT NULL DEFAULT 'Active',
+
+							    checkin DATETIME NULL,
+							    checkout DATETIME NULL,
+							    reminder_at DATETIME NULL,
+							    reminder_sent TINYINT(1) NOT NULL DEFAULT 0,
+							    bill_at DATETIME NULL,
+							    bill_sent TINYINT(1) NOT NULL DEFAULT 0,
+
+							    INDEX idx_bill_due (bill_sent, bill_at),
+							    UNIQUE (confirmation_code),
+							    INDEX (reservation_datetime),
+							    INDEX (created_by),
+							    INDEX (table_number),
+							    INDEX (reservation_status),
+							    INDEX checkin (checkin),
+							    INDEX checkout (checkout),
+							    INDEX idx_reminder_due (reminder_sent, reminder_at)
+							)
+							""",
+
+					"""
+							CREATE TABLE IF NOT EXISTS waiting_list (
+							    waiting_id INT AUTO_INCREMENT PRIMARY KEY,
+
+							    created_by INT NOT NULL,
+							    created_by_role ENUM(
+							        'RandomClient',
+							        'Subscriber',
+							        'RestaurantAgent',
+							        'RestaurantManager'
+							    ) NOT NULL,
+
+							    number_of_guests INT NOT NULL,
+							    confirmation_code VARCHAR(20) NOT NULL,
+
+							    joined_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+							    table_freed_time DATETIME NULL,
+							    table_number INT NULL,
+
+							    waiting_status ENUM(
+							        'Waiting',
+							        'Seated',
+							        'Cancelled'
+							    ) NOT NULL DEFAULT 'Waiting',
+
+							    UNIQUE (confirmation_code),
+							    INDEX (created_by),
+							    INDEX (waiting_status),
+							    INDEX (joined_at),
+							    INDEX (table_freed_time),
+							    INDEX (table_number)
+							)
+							""",
+
+					"""
+							CREATE TABLE IF NOT EXISTS notifications (
+							    notification_id INT AUTO_INCREMENT PRIMARY KEY,
+							    user_id INT NOT NULL,
+
+							    channel VARCHAR(10) NOT NULL,
+							    notification_type VARCHAR(60) NOT NULL,
+
+							    message VARCHAR(800) NOT NULL,
+							    scheduled_for DATETIME NOT NULL,
+
+							    is_sent TINYINT(1) NOT NULL DEFAULT 0,
+							    sent_at DATETIME NULL,
+							    reservation_id INT NULL,
+							    confirmation_code VARCHAR(20) NULL,
+
+							    INDEX (reservation_id),
+							    INDEX (confirmation_code),
+							    INDEX (user_id),
+							    INDEX (scheduled_for),
+							    INDEX (is_sent),
+							    INDEX (channel),
+							    INDEX (notification_type)
+							)
+							""",
+
+					"""
+							CREATE TABLE IF NOT EXISTS receipts (
+							    receipt_id INT AUTO_INCREMENT PRIMARY KEY,
+							    reservation_id INT NOT NULL,
+							    created_at DATETIME NOT NULL,
+							    amount DECIMAL(10,2) NOT NULL,
+							    is_paid TINYINT(1) NOT NULL DEFAULT 0,
+							    paid_at DATETIME NULL,
+							    payment_type ENUM('CreditCard','Cash') NULL,
+
+							    created_by_user_id INT NULL,
+							    created_by_role ENUM(
+							        'RandomClient',
+							        'Subscriber',
+							        'RestaurantAgent',
+							        'RestaurantManager'
+							    ) NULL,
+
+							    UNIQUE (reservation_id),
+							    INDEX (reservation_id),
+							    INDEX (is_paid),
+							    INDEX (created_at),
+							    INDEX (paid_at)
+							)
+							""",
+
+					"""
+							CREATE TABLE IF NOT EXISTS special_opening_hours (
+							    special_date DATE PRIMARY KEY,
+							    open_time TIME NULL,
+							    close_time TIME NULL,
+							    is_closed BOOLEAN NOT NULL DEFAULT FALSE
+							)
+							"""),
+
+			// =====================================================
+			// V2 - COMPOSITE INDEXES FOR HOT QUERIES
+			// =====================================================
+			new Migration(2, "Composite indexes for hot queries",
+
+					// grace-period cancel, opening-hours cancel, reports by status
+					"CREATE INDEX idx_res_status_time ON reservations (reservation_status, is_active, reservation_datetime)",
+
+					// table relocation / deletion checks
+					"CREATE INDEX idx_res_table_status_time ON reservations (table_number, reservation_status, reservation_datetime)",
+
+					// "my active reservations" and history
+					"CREATE INDEX idx_res_user_status_time ON reservations (created_by, reservation_status, reservation_datetime)",
+
+					// current diners / occupied-table checks
+					"CREATE INDEX idx_res_seated ON reservations (checkout, checkin)",
+
+					// expired offers and next waiting party
+					"CREATE INDEX idx_wait_status_freed ON waiting_list (waiting_status, table_freed_time, waiting_id)",
+
+					// "my active waitings"
+					"CREATE INDEX idx_wait_user_status ON waiting_list (created_by, waiting_status)",
+
+					// due-notification scan
+					"CREATE INDEX idx_notif_due ON notifications (is_sent, scheduled_for)"),
+
+			// =====================================================
+			// V3 - ID SEQUENCES
+			// =====================================================
+			new Migration(3, "Id sequences table seeded with the current max user id",
+
+					"""
+							CREATE TABLE IF NOT EXISTS id_sequences (
+							    sequence_name VARCHAR(40) NOT NULL PRIMARY KEY,
+							    next_value BIGINT NOT NULL
+							)
+							""",
+
+					"""
+							INSERT INTO id_sequences (sequence_name, next_value)
+							SELECT 'user_id',
+							       GREATEST(
+							           COALESCE((SELECT MAX(guest_id) FROM guests), 0),
+							           COALESCE((SELECT MAX(subscriber_id) FROM subscribers), 0)
+							       ) + 1
+							ON DUPLICATE KEY UPDATE next_value = next_value
+							"""),
+
+			// =====================================================
+			// V4 - NOTIFICATION OUTBOX CLAIMS
+			// =====================================================
+			new Migration(4, "Claim columns for batched notification dispatch",
+
+					"""
+							ALTER TABLE notifications
+							    ADD COLUMN claim_token CHAR(36) NULL,
+							    ADD COLUMN claimed_at DATETIME NULL
+							""",
+
+					// rows of one claimed batch
+					"CREATE INDEX idx_notif_claim ON notifications (claim_token)"),
+
+			// =====================================================
+			// V5 - RETENTION SUPPORT
+			// =====================================================
+			new Migration(5, "Creation timestamps and archive tables for retention jobs",
+
+					"""
+							CREATE TABLE IF NOT EXISTS login_sessions (
+							    session_id VARCHAR(16) NOT NULL PRIMARY KEY,
+							    subscriber_id INT NULL,
+							    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+							)
+							""",
+
+					// databases where login_sessions was created by hand
+					"ALTER TABLE login_sessions ADD COLUMN created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP",
+					"CREATE INDEX idx_login_sessions_created ON login_sessions (created_at)",
+
+					// existing guests start their retention clock now
+					"ALTER TABLE GUESTS ADD COLUMN created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP",
+					"CREATE INDEX idx_guests_created ON GUESTS (created_at)",
+
+					// finished waiting entries by age
+					"CREATE INDEX idx_wait_status_joined ON waiting_list (waiting_status, joined_at)",
+
+					"CREATE TABLE IF NOT EXISTS waiting_list_archive LIKE waiting_list"),
+
+			// =====================================================
+			// V6 - REPORT AGGREGATES
+			// =====================================================
+			new Migration(6, "Daily report aggregates with backfill of existing history",
+
+					"""
+							CREATE TABLE IF NOT EXISTS report_daily_aggregates (
+							    report_date DATE NOT NULL PRIMARY KEY,
+							    on_time_count INT NOT NULL DEFAULT 0,
+							    minor_delay_count INT NOT NULL DEFAULT 0,
+							    significant_delay_count INT NOT NULL DEFAULT 0,
+							    stay_minutes_sum BIGINT NOT NULL DEFAULT 0,
+							    stay_count INT NOT NULL DEFAULT 0,
+							    subscriber_reservations INT NOT NULL DEFAULT 0,
+							    subscriber_waitings INT NOT NULL DEFAULT 0
+							)
+							""",
+
+					"""
+							CREATE TABLE IF NOT EXISTS report_monthly_active_subscribers (
+							    month_start DATE NOT NULL,
+							    subscriber_id INT NOT NULL,
+							    PRIMARY KEY (month_start, subscriber_id)
+							)
+							""",
+
+					// backfill (same statements as ReportAggregates_DB_Controller.rebuild)
+					"""
+							INSERT INTO report_daily_aggregates
+							(report_date, on_time_count, minor_delay_count, significant_delay_count)
+							SELECT DATE(reservation_datetime),
+							       SUM(TIMESTAMPDIFF(MINUTE, reservation_datetime, checkin) < 3),
+							       SUM(TIMESTAMPDIFF(MINUTE, reservation_datetime, checkin) BETWEEN 3 AND 10),
+							       SUM(TIMESTAMPDIFF(MINUTE, reservation_datetime, checkin) > 10)
+							FROM reservations
+							WHERE checkin IS NOT NULL
+							GROUP BY DATE(reservation_datetime)
+							ON DUPLICATE KEY UPDATE
+							    on_time_count = VALUES(on_time_count),
+							    minor_delay_count = VALUES(minor_delay_count),
+							    significant_delay_count = VALUES(significant_delay_count)
+							""",
+
+					"""
+							INSERT INTO report_daily_aggregates (report_date, stay_minutes_sum, stay_count)
+							SELECT DATE(reservation_datetime),
+							       SUM(TIMESTAMPDIFF(MINUTE, checkin, checkout)),
+							       COUNT(*)
+							FROM reservations
+							WHERE reservation_status = 'Finished'
+							  AND checkin IS NOT NULL
+							  AND checkout IS NOT NULL
+							  AND TIMESTAMPDIFF(MINUTE, checkin, checkout) > 0
+							GROUP BY DATE(reservation_datetime)
+							ON DUPLICATE KEY UPDATE
+							    stay_minutes_sum = VALUES(stay_minutes_sum),
+							    stay_count = VALUES(stay_count)
+							""",
+
+					"""
+							INSERT INTO report_daily_aggregates (report_date, subscriber_reservations)
+							SELECT DATE(reservation_datetime), COUNT(*)
+							FROM reservations
+							WHERE created_by_role = 'Subscriber'
+							GROUP BY DATE(reservation_datetime)
+							ON DUPLICATE KEY UPDATE subscriber_reservations = VALUES(subscriber_reservations)
+							""",
+
+					"""
+							INSERT INTO report_daily_aggregates (report_date, subscriber_waitings)
+							SELECT DATE(table_freed_time), COUNT(*)
+							FROM waiting_list
+							WHERE created_by_role = 'Subscriber'
+							  AND waiting_status = 'Seated'
+							  AND table_freed_time IS NOT NULL
+							GROUP BY DATE(table_freed_time)
+							ON DUPLICATE KEY UPDATE subscriber_waitings = VALUES(subscriber_waitings)
+							""",
+
+					"""
+							INSERT IGNORE INTO report_monthly_active_subscribers (month_start, subscriber_id)
+							SELECT DISTINCT DATE_FORMAT(reservation_datetime, '%Y-%m-01'), created_by
+							FROM reservations
+							WHERE created_by_role = 'Subscriber'
+							"""),
+
+			// =====================================================
+			// V7 - INDEXES FOR MONTHLY REPORT QUERIES
+			// =====================================================
+			new Migration(7, "Covering indexes for monthly report range queries",
+
+					// per-day subscriber reservations, active subscribers (covering)
+					"CREATE INDEX idx_res_role_time_creator ON reservations (created_by_role, reservation_datetime, created_by)",
+
+					// inactive subscribers: NOT EXISTS probe per subscriber (covering)
+					"CREATE INDEX idx_res_creator_role_time ON reservations (created_by, created_by_role, reservation_datetime)",
+
+					// finished reservations of a month
+					"CREATE INDEX idx_res_status_datetime ON reservations (reservation_status, reservation_datetime)",
+
+					// per-day subscriber waiting entries (covering)
+					"CREATE INDEX idx_wait_role_freed ON waiting_list (created_by_role, table_freed_time)"),
+
+			// =====================================================
+			// V8 - REPORT CACHE
+			// =====================================================
+			new Migration(8, "Persistent cache of closed-month reports",
+
+					"""
+							CREATE TABLE IF NOT EXISTS report_cache (
+							    report_type VARCHAR(32) NOT NULL,
+							    report_month DATE NOT NULL,
+							    payload MEDIUMBLOB NOT NULL,
+							    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+							    PRIMARY KEY (report_type, report_month)
+							)
+							"""),
+
+			// =====================================================
+			// V9 - ARRIVAL AGGREGATES FROM FINISHED RESERVATIONS
+			// =====================================================
+			new Migration(9, "Recompute arrival aggregates from finished reservations only",
+
+					"""
+							UPDATE report_daily_aggregates
+							SET on_time_count = 0,
+							    minor_delay_count = 0,
+							    significant_delay_count = 0
+							""",
+
+					// same statement as ReportAggregates_DB_Controller.BACKFILL_ARRIVALS
+					"""
+							INSERT INTO report_daily_aggregates
+							(report_date, on_time_count, minor_delay_count, significant_delay_count)
+							SELECT DATE(reservation_datetime),
+							       SUM(TIMESTAMPDIFF(MINUTE, reservation_datetime, checkin) < 3),
+							       SUM(TIMESTAMPDIFF(MINUTE, reservation_datetime, checkin) BETWEEN 3 AND 10),
+							       SUM(TIMESTAMPDIFF(MINUTE, reservation_datetime, checkin) > 10)
+							FROM reservations
+							WHERE reservation_status = 'Finished'
+							  AND checkin IS NOT NULL
+							  AND checkout IS NOT NULL
+							GROUP BY DATE(reservation_datetime)
+							ON DUPLICATE KEY UPDATE
+							    on_time_count = VALUES(on_time_count),
+							    minor_delay_count = VALUES(minor_delay_count),
+							    significant_delay_count = VALUES(significant_delay_count)
+							""",
+
+					// cached reports embed the old arrival counts
+					"DELETE FROM report_cache"),
+
+			// =====================================================
+			// V10 - DROP UNUSED REPORT INDEXES
+			// =====================================================
+			// Reports are read from the aggregate tables; only the anti-join probe
+			// of ReportAggregates_DB_Controller.REMOVE_INACTIVE_MONTH still needs
+			// idx_res_creator_role_time.
+			new Migration(10, "Drop report range indexes not used by the aggregate path",
+
+					"DROP INDEX idx_res_role_time_creator ON reservations",
+
+					"DROP INDEX idx_res_status_datetime ON reservations",
+
+					"DROP INDEX idx_wait_role_freed ON waiting_list"));
+
+	/**
+	 * Returns all migrations ordered by version.
+	 *
+	 * @return immutable ordered list of migrations
+	 */
+	public static List<Migration> all() {
+		return ALL;
+	}
+}
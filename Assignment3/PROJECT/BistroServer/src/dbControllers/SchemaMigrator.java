@@ -0,0 +1,164 @@
+package dbControllers;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Applies versioned schema migrations and records them in
+ * {@code schema_version}.
+ * <p>
+ * Startup flow:
+ * <ol>
+ * <li>Ensure {@code schema_version} exists</li>
+ * <li>Read all applied versions and checksums with a single query</li>
+ * <li>Verify the checksum of every applied migration</li>
+ * <li>Apply pending migrations in version order and record each one</li>
+ * </ol>
+ * </p>
+ * <p>
+ * When everything is already applied this costs two small statements, so the
+ * server no longer re-runs every {@code CREATE TABLE} on each boot.
+ * </p>
+ * <p>
+ * MySQL commits DDL implicitly, so a migration cannot be rolled back as a
+ * whole. To make a partially applied migration re-runnable, "already exists"
+ * errors (duplicate column / duplicate index) are logged and skipped.
+ * </p>
+ */
+public class SchemaMigrator {
+
+	private static final int ER_DUP_FIELDNAME = 1060;
+	private static final int ER_DUP_KEYNAME = 1061;
+
+	private final Connection conn;
+	private final Consumer<String> logger;
+
+	/**
+	 * Constructs a SchemaMigrator.
+	 *
+	 * @param conn   active JDBC connection used to apply migrations
+	 * @param logger callback used for logging migration activity
+	 */
+	public SchemaMigrator(Connection conn, Consumer<String> logger) {
+		this.conn = conn;
+		this.logger = logger;
+	}
+
+	/**
+	 * Applies all pending migrations from {@code migrations}.
+	 *
+	 * @param migrations migrations ordered by increasing version
+	 * @return number of migrations applied in this run
+	 * @throws SQLException if a migration fails, the list is not ordered, or an
+	 *                      applied migration's checksum no longer matches
+	 */
+	public int migrate(List<Migration> migrations) throws SQLException {
+		long startNs = System.nanoTime();
+
+		createSchemaVersionTableIfNotExists();
+		Map<Integer, String> applied = loadAppliedChecksums();
+
+		int lastVersion = 0;
+		int appliedNow = 0;
+
+		for (Migration m : migrations) {
+			if (m.getVersion() <= lastVersion) {
+				throw new SQLException("Migrations are not strictly ordered at version " + m.getVersion());
+			}
+			lastVersion = m.getVersion();
+
+			String storedChecksum = applied.get(m.getVersion());
+			if (storedChecksum != null) {
+				if (!storedChecksum.equals(m.getChecksum())) {
+					throw new SQLException("Checksum mismatch for applied schema version " + m.getVersion() + " ("
+							+ m.getDescription() + "). Ship schema changes as a new migration.");
+				}
+				continue;
+			}
+
+			apply(m);
+			appliedNow++;
+		}
+
+		long ms = (System.nanoTime() - startNs) / 1_000_000;
+		logger.accept("🗄️ Schema at version " + lastVersion + " (" + appliedNow + " applied, " + ms + " ms).");
+		return appliedNow;
+	}
+
+	// =====================================================
+	// Helpers
+	// =====================================================
+
+	private void createSchemaVersionTableIfNotExists() throws SQLException {
+		String sql = """
+				CREATE TABLE IF NOT EXISTS schema_version (
+				    version INT NOT NULL PRIMARY KEY,
+				    description VARCHAR(200) NOT NULL,
+				    checksum CHAR(64) NOT NULL,
+				    applied_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+				    execution_ms INT NOT NULL
+				)
+				""";
+
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute(sql);
+		}
+	}
+
+	private Map<Integer, String> loadAppliedChecksums() throws SQLException {
+		Map<Integer, String> applied = new HashMap<>();
+		String sql = "SELECT version, checksum FROM schema_version";
+
+		try (PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				applied.put(rs.getInt("version"), rs.getString("checksum"));
+			}
+		}
+		return applied;
+	}
+
+	/**
+	 * Executes every statement of a migration and records it in
+	 * {@code schema_version}.
+	 *
+	 * @param m migration to apply
+	 * @throws SQLException if a statement fails with an error other than
+	 *                      "already exists"
+	 */
+	private void apply(Migration m) throws SQLException {
+		logger.accept("🗄️ Applying schema version " + m.getVersion() + ": " + m.getDescription());
+		long startNs = System.nanoTime();
+
+		try (Statement stmt = conn.createStatement()) {
+			for (String sql : m.getStatements()) {
+				try {
+					stmt.execute(sql);
+				} catch (SQLException e) {
+					if (e.getErrorCode() == ER_DUP_FIELDNAME || e.getErrorCode() == ER_DUP_KEYNAME) {
+						logger.accept("⚠️ Schema version " + m.getVersion() + ": " + e.getMessage() + " (skipped)");
+						continue;
+					}
+					throw e;
+				}
+			}
+		}
+
+		int ms = (int) ((System.nanoTime() - startNs) / 1_000_000);
+
+		String insert = """
+				INSERT INTO schema_version (version, description, checksum, execution_ms)
+				VALUES (?, ?, ?, ?)
+				""";
+
+		try (PreparedStatement ps = conn.prepareStatement(insert)) {
+			ps.setInt(1, m.getVersion());
+			ps.setString(2, m.getDescription());
+			ps.setString(3, m.getChecksum());
+			ps.setInt(4, ms);
+			ps.executeUpdate();
+		}
+	}
+}
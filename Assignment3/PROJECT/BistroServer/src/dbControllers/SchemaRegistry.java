@@ -0,0 +1,181 @@
+package dbControllers;
+
+import entities.Table;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Keeps an in-memory view of the dynamic part of the database schema.
+ * <p>
+ * The wide {@code table_availability_grid} table has one {@code t_<n>} column
+ * per restaurant table. Instead of running {@code CREATE TABLE IF NOT EXISTS}
+ * and an {@code INFORMATION_SCHEMA} scan on every availability request, the
+ * registry:
+ * <ul>
+ * <li>Verifies the grid once at startup (create if missing, read the existing
+ * columns, add missing columns)</li>
+ * <li>Tracks the known grid columns in memory afterwards</li>
+ * <li>Alters the grid only when a table is added or removed</li>
+ * </ul>
+ * </p>
+ */
+public class SchemaRegistry {
+
+	private final Connection conn;
+
+	private final Set<String> gridColumns = Collections.synchronizedSet(new HashSet<>());
+	private volatile boolean gridVerified = false;
+
+	/**
+	 * Constructs a SchemaRegistry with the given JDBC connection.
+	 *
+	 * @param conn active JDBC connection used for schema checks and updates
+	 */
+	public SchemaRegistry(Connection conn) {
+		this.conn = conn;
+	}
+
+	// =========================
+	// STARTUP VERIFICATION
+	// =========================
+
+	/**
+	 * Verifies {@code table_availability_grid} against the given tables and loads
+	 * its columns into memory.
+	 * <p>
+	 * This is the only place that reads {@code INFORMATION_SCHEMA}. It is intended
+	 * to run once at server startup.
+	 * </p>
+	 *
+	 * @param tables current list of restaurant tables
+	 * @throws SQLException if a database error occurs during schema checks or
+	 *                      updates
+	 */
+	public synchronized void verifyAvailabilityGrid(List<Table> tables) throws SQLException {
+		createAvailabilityGridTableIfNotExists(tables);
+
+		gridColumns.clear();
+		gridColumns.addAll(readGridColumnsFromMetadata());
+		gridVerified = true;
+
+		for (Table t : tables) {
+			ensureGridColumn(t.getTableNumber());
+		}
+	}
+
+	/**
+	 * @return {@code true} if {@link #verifyAvailabilityGrid(List)} already ran
+	 */
+	public boolean isGridVerified() {
+		return gridVerified;
+	}
+
+	// =========================
+	// GRID COLUMNS
+	// =========================
+
+	/**
+	 * Checks (in memory) whether the grid has a column for the given table.
+	 *
+	 * @param tableNumber table identifier
+	 * @return {@code true} if {@code t_<tableNumber>} is known to exist
+	 */
+	public boolean hasGridColumn(int tableNumber) {
+		return gridColumns.contains(columnName(tableNumber));
+	}
+
+	/**
+	 * Adds the {@code t_<tableNumber>} column to the grid if it is not known yet.
+	 *
+	 * @param tableNumber table identifier
+	 * @throws SQLException if a database error occurs during schema alteration
+	 */
+	public synchronized void ensureGridColumn(int tableNumber) throws SQLException {
+		String col = columnName(tableNumber);
+		if (gridColumns.contains(col))
+			return;
+
+		String alter = "ALTER TABLE table_availability_grid ADD COLUMN " + col + " TINYINT(1) NOT NULL DEFAULT 1";
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute(alter);
+		}
+		gridColumns.add(col);
+	}
+
+	/**
+	 * Drops the {@code t_<tableNumber>} column from the grid if it is known to
+	 * exist.
+	 *
+	 * @param tableNumber table identifier
+	 * @throws SQLException if a database error occurs during schema alteration
+	 */
+	public synchronized void dropGridColumn(int tableNumber) throws SQLException {
+		String col = columnName(tableNumber);
+		if (!gridColumns.contains(col))
+			return;
+
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("ALTER TABLE table_availability_grid DROP COLUMN " + col);
+		}
+		gridColumns.remove(col);
+	}
+
+	// =========================
+	// Helpers
+	// =========================
+
+	private String columnName(int tableNumber) {
+		return "t_" + tableNumber;
+	}
+
+	/**
+	 * Creates {@code table_availability_grid} if it does not exist.
+	 * <p>
+	 * {@code slot_datetime} is the primary key and each table has a column
+	 * {@code t_<tableNumber>} with {@code 1 = free}, {@code 0 = reserved}.
+	 * </p>
+	 *
+	 * @param tables tables used to define initial grid columns
+	 * @throws SQLException if a database error occurs during table creation
+	 */
+	private void createAvailabilityGridTableIfNotExists(List<Table> tables) throws SQLException {
+		StringBuilder sb = new StringBuilder();
+		sb.append("CREATE TABLE IF NOT EXISTS table_availability_grid (")
+				.append("slot_datetime DATETIME NOT NULL PRIMARY KEY");
+
+		for (Table t : tables) {
+			sb.append(", t_").append(t.getTableNumber()).append(" TINYINT(1) NOT NULL DEFAULT 1");
+		}
+
+		sb.append(");");
+
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute(sb.toString());
+		}
+	}
+
+	/**
+	 * Reads the column names of {@code table_availability_grid} from
+	 * {@code INFORMATION_SCHEMA}.
+	 *
+	 * @return set of existing column names (lowercased)
+	 * @throws SQLException if a database error occurs while reading metadata
+	 */
+	private Set<String> readGridColumnsFromMetadata() throws SQLException {
+		Set<String> cols = new HashSet<>();
+		String sql = """
+				SELECT COLUMN_NAME
+				FROM INFORMATION_SCHEMA.COLUMNS
+				WHERE TABLE_SCHEMA = DATABASE()
+				  AND TABLE_NAME = 'table_availability_grid'
+				""";
+
+		try (PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				cols.add(rs.getString(1).toLowerCase(Locale.ROOT));
+			}
+		}
+		return cols;
+	}
+}
@@ -0,0 +1,89 @@
+package dbControllers;
+
+import java.sql.*;
+
+/**
+ * Provides persistence operations for named id sequences.
+ * <p>
+ * This DB controller manages the {@code id_sequences} table, where each row
+ * stores the next value that has not been handed out yet. Callers reserve a
+ * whole block of values with a single atomic {@code UPDATE}, so several server
+ * instances sharing the same database never receive overlapping blocks.
+ * </p>
+ */
+public class Sequence_DB_Controller {
+
+	private final Connection conn;
+
+	/**
+	 * Constructs a Sequence_DB_Controller with the given JDBC connection.
+	 *
+	 * @param conn active JDBC connection used for sequence persistence
+	 */
+	public Sequence_DB_Controller(Connection conn) {
+		this.conn = conn;
+	}
+
+	/**
+	 * Atomically reserves {@code blockSize} consecutive values from a sequence.
+	 * <p>
+	 * The statement stores the new {@code next_value} through
+	 * {@code LAST_INSERT_ID(expr)}; the driver returns it as the generated key of
+	 * the same statement, so no second round trip (and no interleaving with other
+	 * statements on the shared connection) is involved.
+	 * </p>
+	 *
+	 * @param sequenceName sequence identifier (e.g. {@code "user_id"})
+	 * @param blockSize    number of values to reserve (must be positive)
+	 * @return first value of the reserved block; the block is
+	 *         {@code [first, first + blockSize)}
+	 * @throws SQLException if the sequence does not exist or the update fails
+	 */
+	public long reserveBlock(String sequenceName, int blockSize) throws SQLException {
+		String sql = """
+				UPDATE id_sequences
+				SET next_value = LAST_INSERT_ID(next_value + ?)
+				WHERE sequence_name = ?
+				""";
+
+		try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+			ps.setInt(1, blockSize);
+			ps.setString(2, sequenceName);
+
+			if (ps.executeUpdate() != 1)
+				throw new SQLException("Unknown id sequence: " + sequenceName);
+
+			try (ResultSet keys = ps.getGeneratedKeys()) {
+				if (!keys.next())
+					throw new SQLException("No value returned for id sequence: " + sequenceName);
+				return keys.getLong(1) - blockSize;
+			}
+		}
+	}
+
+	/**
+	 * Raises the sequence so that it never hands out a value below
+	 * {@code minNextValue}.
+	 * <p>
+	 * Creates the sequence row when it does not exist yet. Used at startup to
+	 * protect against rows inserted outside the allocator (e.g. restored dumps).
+	 * </p>
+	 *
+	 * @param sequenceName sequence identifier
+	 * @param minNextValue lowest value the sequence may return next
+	 * @throws SQLException if a database error occurs
+	 */
+	public void ensureAtLeast(String sequenceName, long minNextValue) throws SQLException {
+		String sql = """
+				INSERT INTO id_sequences (sequence_name, next_value)
+				VALUES (?, ?)
+				ON DUPLICATE KEY UPDATE next_value = GREATEST(next_value, VALUES(next_value))
+				""";
+
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setString(1, sequenceName);
+			ps.setLong(2, minNextValue);
+			ps.executeUpdate();
+		}
+	}
+}
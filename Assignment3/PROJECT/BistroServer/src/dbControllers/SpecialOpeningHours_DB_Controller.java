@@ -38,35 +38,6 @@ public class SpecialOpeningHours_DB_Controller {
 		this.conn = conn;
 	}
 
-	/**
-	 * Creates the {@code special_opening_hours} table if it does not already exist.
-	 * <p>
-	 * Schema:
-	 * <ul>
-	 * <li>{@code special_date} (primary key)</li>
-	 * <li>{@code open_time} (nullable)</li>
-	 * <li>{@code close_time} (nullable)</li>
-	 * <li>{@code is_closed} (boolean flag, default {@code false})</li>
-	 * </ul>
-	 * </p>
-	 *
-	 * @throws SQLException if a database error occurs during table creation
-	 */
-	public void createSpecialOpeningHoursTable() throws SQLException {
-		String sql = """
-				CREATE TABLE IF NOT EXISTS special_opening_hours (
-				    special_date DATE PRIMARY KEY,
-				    open_time TIME NULL,
-				    close_time TIME NULL,
-				    is_closed BOOLEAN NOT NULL DEFAULT FALSE
-				);
-				""";
-
-		try (Statement stmt = conn.createStatement()) {
-			stmt.executeUpdate(sql);
-		}
-	}
-
 	/**
 	 * Inserts or updates a special opening hours override (UPSERT) for a specific
 	 * date.
@@ -82,8 +53,6 @@ public class SpecialOpeningHours_DB_Controller {
 	 *                      execution
 	 */
 	public boolean upsertSpecialHours(SpecialOpeningHours special) throws SQLException {
-		createSpecialOpeningHoursTable();
-
 		String sql = """
 				INSERT INTO special_opening_hours (special_date, open_time, close_time, is_closed)
 				VALUES (?, ?, ?, ?)
@@ -111,8 +80,6 @@ public class SpecialOpeningHours_DB_Controller {
 	 * @throws SQLException if a database error occurs during query execution
 	 */
 	public SpecialOpeningHours getSpecialHoursByDate(LocalDate date) throws SQLException {
-		createSpecialOpeningHoursTable();
-
 		String sql = "SELECT * FROM special_opening_hours WHERE special_date = ?";
 
 		try (PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -127,6 +94,41 @@ public class SpecialOpeningHours_DB_Controller {
 		}
 	}
 
+	/**
+	 * Returns special opening hours overrides in the half-open date range
+	 * {@code [from, toExclusive)}, ordered by date ascending.
+	 * <p>
+	 * Used to precompute effective opening hours for a whole booking horizon with
+	 * a single query.
+	 * </p>
+	 *
+	 * @param from        first date (inclusive)
+	 * @param toExclusive end date (exclusive)
+	 * @return list of overrides in the range (possibly empty)
+	 * @throws SQLException if a database error occurs during query execution
+	 */
+	public ArrayList<SpecialOpeningHours> getSpecialHoursBetween(LocalDate from, LocalDate toExclusive)
+			throws SQLException {
+		String sql = """
+				SELECT * FROM special_opening_hours
+				WHERE special_date >= ? AND special_date < ?
+				ORDER BY special_date
+				""";
+
+		ArrayList<SpecialOpeningHours> list = new ArrayList<>();
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			ps.setDate(1, Date.valueOf(from));
+			ps.setDate(2, Date.valueOf(toExclusive));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					list.add(new SpecialOpeningHours(rs.getDate("special_date").toLocalDate(), rs.getTime("open_time"),
+							rs.getTime("close_time"), rs.getBoolean("is_closed")));
+				}
+			}
+		}
+		return list;
+	}
+
 	/**
 	 * Returns all special opening hours overrides ordered by date ascending.
 	 *
@@ -134,8 +136,6 @@ public class SpecialOpeningHours_DB_Controller {
 	 * @throws SQLException if a database error occurs during query execution
 	 */
 	public ArrayList<SpecialOpeningHours> getAllSpecialOpeningHours() throws SQLException {
-		createSpecialOpeningHoursTable();
-
 		String sql = "SELECT * FROM special_opening_hours ORDER BY special_date";
 
 		ArrayList<SpecialOpeningHours> list = new ArrayList<>();
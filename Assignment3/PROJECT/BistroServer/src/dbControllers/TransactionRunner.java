@@ -0,0 +1,83 @@
+package dbControllers;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Runs a unit of work inside a JDBC transaction on the dedicated transaction
+ * connection.
+ * <p>
+ * Request handlers and background jobs share one auto-commit
+ * {@link Connection}; a transaction opened on it would also commit or roll back
+ * every statement other threads issue meanwhile. Transactional work therefore
+ * runs on a second connection ({@link DBController#getTransactionConnection()})
+ * that only this runner uses. The runner:
+ * <ul>
+ * <li>Synchronizes on the connection for the whole unit of work (transactions
+ * never interleave)</li>
+ * <li>Rejects nested calls: entering while auto-commit is already off throws
+ * {@link IllegalStateException} instead of committing the outer unit
+ * halfway</li>
+ * <li>Disables auto-commit, commits on success and rolls back on any
+ * exception</li>
+ * <li>Restores auto-commit afterwards</li>
+ * </ul>
+ * Work passed here must only use the connection it receives; statements on the
+ * shared connection would run outside the transaction and may wait for the
+ * rows it locked.
+ * </p>
+ */
+public final class TransactionRunner {
+
+	/**
+	 * A unit of work executed inside a transaction.
+	 *
+	 * @param <T> result type
+	 */
+	@FunctionalInterface
+	public interface Work<T> {
+		/**
+		 * @param conn connection with auto-commit disabled
+		 * @return work result
+		 * @throws SQLException to roll the transaction back
+		 */
+		T run(Connection conn) throws SQLException;
+	}
+
+	private TransactionRunner() {
+	}
+
+	/**
+	 * Executes {@code work} in a transaction.
+	 *
+	 * @param conn dedicated transaction connection
+	 * @param work unit of work
+	 * @param <T>  result type
+	 * @return the work's result after a successful commit
+	 * @throws SQLException          if the work or the commit fails (the
+	 *                               transaction is rolled back)
+	 * @throws IllegalStateException if a transaction is already open on
+	 *                               {@code conn} (nested call)
+	 */
+	public static <T> T inTransaction(Connection conn, Work<T> work) throws SQLException {
+		synchronized (conn) {
+			if (!conn.getAutoCommit())
+				throw new IllegalStateException("Nested transaction: auto-commit is already off");
+			conn.setAutoCommit(false);
+			try {
+				T result = work.run(conn);
+				conn.commit();
+				return result;
+			} catch (SQLException | RuntimeException e) {
+				try {
+					conn.rollback();
+				} catch (SQLException rollbackEx) {
+					e.addSuppressed(rollbackEx);
+				}
+				throw e;
+			} finally {
+				conn.setAutoCommit(true);
+			}
+		}
+	}
+}
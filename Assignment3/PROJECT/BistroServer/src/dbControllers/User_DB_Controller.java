@@ -5,8 +5,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import entities.Enums;
 import entities.RestaurantAgent;
@@ -34,6 +38,7 @@ import entities.User;
 public class User_DB_Controller {
 
 	private Connection conn;
+	private volatile Consumer<LocalDate> subscribersChangedListener;
 
 	/**
 	 * Constructs a User_DB_Controller with the given JDBC connection.
@@ -44,49 +49,15 @@ public class User_DB_Controller {
 		this.conn = conn;
 	}
 
-	/*
-	 * =============================================================== TABLE
-	 * CREATION METHODS
-	 * ===============================================================
-	 */
-
 	/**
-	 * Creates the {@code GUESTS} table if it does not exist.
-	 * <p>
-	 * The table stores a guest id and optional contact fields.
-	 * </p>
+	 * Sets a callback that receives the current day whenever a subscriber row is
+	 * inserted or deleted (used to invalidate the cached Subscribers Report,
+	 * whose inactive count depends on the number of subscribers).
 	 *
-	 * @throws SQLException if a database error occurs during table creation
+	 * @param listener callback, or {@code null} for none
 	 */
-	public void createGuestsTable() throws SQLException {
-
-		String sql = "CREATE TABLE IF NOT EXISTS GUESTS (" + "guest_id INT PRIMARY KEY, " + "phone VARCHAR(15) NULL, "
-				+ "email VARCHAR(100) NULL)";
-
-		try (Statement stmt = conn.createStatement()) {
-			stmt.executeUpdate(sql);
-		}
-	}
-
-	/**
-	 * Creates the {@code SUBSCRIBERS} table if it does not exist.
-	 * <p>
-	 * The table stores subscriber identity fields and a required {@code role} enum
-	 * value.
-	 * </p>
-	 *
-	 * @throws SQLException if a database error occurs during table creation
-	 */
-	public void createSubscribersTable() throws SQLException {
-
-		String sql = "CREATE TABLE IF NOT EXISTS SUBSCRIBERS (" + "subscriber_id INT PRIMARY KEY, "
-				+ "username VARCHAR(50) NOT NULL, " + "first_name VARCHAR(50), " + "last_name VARCHAR(50), "
-				+ "phone VARCHAR(15), " + "email VARCHAR(100), "
-				+ "role ENUM('RandomClient','Subscriber','RestaurantAgent','RestaurantManager') NOT NULL)";
-
-		try (Statement stmt = conn.createStatement()) {
-			stmt.executeUpdate(sql);
-		}
+	public void setSubscribersChangedListener(Consumer<LocalDate> listener) {
+		this.subscribersChangedListener = listener;
 	}
 
 	/*
@@ -207,6 +178,7 @@ public class User_DB_Controller {
 			stmt.setString(7, role.name());
 
 			stmt.executeUpdate();
+			notifySubscribersChanged();
 
 			return createSubscriberByRole(subscriberId, username, firstName, lastName, phone, email, role);
 
@@ -426,7 +398,10 @@ public class User_DB_Controller {
 		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
 			stmt.setInt(1, subscriberId);
-			return stmt.executeUpdate() > 0;
+			if (stmt.executeUpdate() == 0)
+				return false;
+			notifySubscribersChanged();
+			return true;
 
 		} catch (SQLException e) {
 			e.printStackTrace();
@@ -448,7 +423,10 @@ public class User_DB_Controller {
 		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
 			stmt.setInt(1, subscriberId);
-			return stmt.executeUpdate() > 0;
+			if (stmt.executeUpdate() == 0)
+				return false;
+			notifySubscribersChanged();
+			return true;
 
 		} catch (SQLException e) {
 			e.printStackTrace();
@@ -463,6 +441,16 @@ public class User_DB_Controller {
 	 * ===============================================================
 	 */
 
+	/**
+	 * Tells the listener that the number of subscribers changed today. Closed
+	 * months keep the count their cached report was built with.
+	 */
+	private void notifySubscribersChanged() {
+		Consumer<LocalDate> listener = subscribersChangedListener;
+		if (listener != null)
+			listener.accept(LocalDate.now());
+	}
+
 	/**
 	 * Maps a {@link ResultSet} row to a {@link Subscriber}-typed instance based on
 	 * the {@code role} column.
@@ -604,9 +592,35 @@ public class User_DB_Controller {
 		}
 	}
 
+	/** Distinct subscribers with a reservation in one month ({@code [from, to)}). */
+	static final String COUNT_ACTIVE_SUBSCRIBERS_SQL = """
+			SELECT COUNT(DISTINCT r.created_by)
+			FROM reservations r
+			WHERE r.created_by_role = 'Subscriber'
+			  AND r.reservation_datetime >= ?
+			  AND r.reservation_datetime < ?;
+			""";
+
+	/** Subscribers without a reservation in one month ({@code [from, to)}). */
+	static final String COUNT_INACTIVE_SUBSCRIBERS_SQL = """
+			SELECT COUNT(*)
+			FROM subscribers s
+			WHERE NOT EXISTS (
+			    SELECT 1
+			    FROM reservations r
+			    WHERE r.created_by = s.subscriber_id
+			      AND r.created_by_role = 'Subscriber'
+			      AND r.reservation_datetime >= ?
+			      AND r.reservation_datetime < ?
+			);
+			""";
+
 	/**
 	 * Counts subscribers who made at least one reservation during the given
 	 * year/month.
+	 * <p>
+	 * Only used by the reports when no aggregates controller is set.
+	 * </p>
 	 *
 	 * @param year  target year
 	 * @param month target month (1-12)
@@ -616,17 +630,11 @@ public class User_DB_Controller {
 	 */
 	public int countActiveSubscribersInMonth(int year, int month) throws SQLException {
 
-		String sql = """
-				SELECT COUNT(DISTINCT r.created_by)
-				FROM reservations r
-				WHERE r.created_by_role = 'Subscriber'
-				  AND YEAR(r.reservation_datetime) = ?
-				  AND MONTH(r.reservation_datetime) = ?;
-				""";
+		LocalDateTime from = LocalDate.of(year, month, 1).atStartOfDay();
 
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
-			ps.setInt(1, year);
-			ps.setInt(2, month);
+		try (PreparedStatement ps = conn.prepareStatement(COUNT_ACTIVE_SUBSCRIBERS_SQL)) {
+			ps.setTimestamp(1, Timestamp.valueOf(from));
+			ps.setTimestamp(2, Timestamp.valueOf(from.plusMonths(1)));
 
 			try (ResultSet rs = ps.executeQuery()) {
 				if (rs.next())
@@ -639,6 +647,11 @@ public class User_DB_Controller {
 	/**
 	 * Counts subscribers who did not make any reservation during the given
 	 * year/month.
+	 * <p>
+	 * Written as an anti-join ({@code NOT EXISTS}): each subscriber is probed
+	 * with one seek into {@code idx_res_creator_role_time}, which stops at the
+	 * first reservation found, instead of materializing the month's creators.
+	 * </p>
 	 *
 	 * @param year  target year
 	 * @param month target month (1-12)
@@ -647,21 +660,11 @@ public class User_DB_Controller {
 	 */
 	public int countInactiveSubscribersInMonth(int year, int month) throws SQLException {
 
-		String sql = """
-				SELECT COUNT(*)
-				FROM subscribers s
-				WHERE s.subscriber_id NOT IN (
-				    SELECT DISTINCT r.created_by
-				    FROM reservations r
-				    WHERE r.created_by_role = 'Subscriber'
-				      AND YEAR(r.reservation_datetime) = ?
-				      AND MONTH(r.reservation_datetime) = ?
-				);
-				""";
+		LocalDateTime from = LocalDate.of(year, month, 1).atStartOfDay();
 
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
-			ps.setInt(1, year);
-			ps.setInt(2, month);
+		try (PreparedStatement ps = conn.prepareStatement(COUNT_INACTIVE_SUBSCRIBERS_SQL)) {
+			ps.setTimestamp(1, Timestamp.valueOf(from));
+			ps.setTimestamp(2, Timestamp.valueOf(from.plusMonths(1)));
 
 			try (ResultSet rs = ps.executeQuery()) {
 				if (rs.next())
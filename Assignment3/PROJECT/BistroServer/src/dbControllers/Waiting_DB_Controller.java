@@ -4,8 +4,12 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import entities.Waiting;
 import entities.Enums.UserRole;
@@ -35,71 +39,29 @@ import entities.Enums.WaitingStatus;
 public class Waiting_DB_Controller {
 
 	private final Connection conn;
+	private final Connection txConn;
+	private volatile ReportAggregates_DB_Controller reportAggregates;
 
 	/**
-	 * Constructs a Waiting_DB_Controller with the given JDBC connection.
+	 * Constructs a Waiting_DB_Controller with the given JDBC connections.
 	 *
-	 * @param conn active JDBC connection used for waiting-list persistence
+	 * @param conn   active JDBC connection used for waiting-list persistence
+	 * @param txConn connection reserved for {@link TransactionRunner}
 	 */
-	public Waiting_DB_Controller(Connection conn) {
+	public Waiting_DB_Controller(Connection conn, Connection txConn) {
 		this.conn = conn;
+		this.txConn = txConn;
 	}
 
-	// ===== Waiting List Table =====
-
 	/**
-	 * Creates the {@code waiting_list} table if it does not exist.
-	 * <p>
-	 * The table stores who created the waiting entry, number of guests, a unique
-	 * confirmation code, timestamps for join and table availability, an optional
-	 * table number, and a status enum.
-	 * </p>
-	 * <p>
-	 * {@code joined_at} is automatically set by the database using
-	 * {@code DEFAULT CURRENT_TIMESTAMP}.
-	 * </p>
+	 * Sets the report aggregates that count seated subscriber entries in the
+	 * same transaction as the seat update.
+	 *
+	 * @param reportAggregates aggregates controller (may be {@code null} to skip
+	 *                         the updates)
 	 */
-	public void createWaitingListTable() {
-		String sql = """
-				CREATE TABLE IF NOT EXISTS waiting_list (
-				    waiting_id INT AUTO_INCREMENT PRIMARY KEY,
-
-				    created_by INT NOT NULL,
-				    created_by_role ENUM(
-				        'RandomClient',
-				        'Subscriber',
-				        'RestaurantAgent',
-				        'RestaurantManager'
-				    ) NOT NULL,
-
-				    number_of_guests INT NOT NULL,
-				    confirmation_code VARCHAR(20) NOT NULL,
-
-				    joined_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
-
-				    table_freed_time DATETIME NULL,
-				    table_number INT NULL,
-
-				    waiting_status ENUM(
-				        'Waiting',
-				        'Seated',
-				        'Cancelled'
-				    ) NOT NULL DEFAULT 'Waiting',
-
-				    UNIQUE (confirmation_code),
-				    INDEX (created_by),
-				    INDEX (waiting_status),
-				    INDEX (joined_at),
-				    INDEX (table_freed_time),
-				    INDEX (table_number)
-				);
-				""";
-
-		try (Statement stmt = conn.createStatement()) {
-			stmt.execute(sql);
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+	public void setReportAggregates(ReportAggregates_DB_Controller reportAggregates) {
+		this.reportAggregates = reportAggregates;
 	}
 
 	/**
@@ -187,11 +149,13 @@ public class Waiting_DB_Controller {
 
 	/**
 	 * Marks a waiting entry as {@code Seated} by confirmation code, only if it is
-	 * still {@code Waiting}.
+	 * still {@code Waiting}. A seated subscriber entry is counted in the report
+	 * aggregates in the same transaction.
 	 *
 	 * @param confirmationCode confirmation code identifying the waiting entry
 	 * @return {@code true} if a row was updated; otherwise {@code false}
-	 * @throws SQLException if a database error occurs during update
+	 * @throws SQLException if a database error occurs during update (nothing is
+	 *                      updated)
 	 */
 	public boolean markWaitingAsSeated(String confirmationCode) throws SQLException {
 		String sql = """
@@ -201,10 +165,46 @@ public class Waiting_DB_Controller {
 				  AND waiting_status = 'Waiting';
 				""";
 
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
-			ps.setString(1, confirmationCode);
-			return ps.executeUpdate() > 0;
-		}
+		return seat(confirmationCode, c -> {
+			try (PreparedStatement ps = c.prepareStatement(sql)) {
+				ps.setString(1, confirmationCode);
+				return ps.executeUpdate() > 0;
+			}
+		});
+	}
+
+	/**
+	 * Runs a seat update. With report aggregates set, the update and the count
+	 * of a seated subscriber entry (on the day of its {@code table_freed_time},
+	 * read back after the update) share one transaction.
+	 */
+	private boolean seat(String confirmationCode, TransactionRunner.Work<Boolean> update) throws SQLException {
+		ReportAggregates_DB_Controller aggregates = reportAggregates;
+		if (aggregates == null)
+			return update.run(conn);
+
+		String select = "SELECT created_by_role, table_freed_time FROM waiting_list WHERE confirmation_code = ?";
+		LocalDate[] counted = new LocalDate[1];
+		boolean seated = TransactionRunner.inTransaction(txConn, c -> {
+			if (!update.run(c))
+				return false;
+			try (PreparedStatement ps = c.prepareStatement(select)) {
+				ps.setString(1, confirmationCode);
+				try (ResultSet rs = ps.executeQuery()) {
+					if (rs.next() && UserRole.Subscriber.name().equals(rs.getString("created_by_role"))) {
+						Timestamp freed = rs.getTimestamp("table_freed_time");
+						if (freed != null) {
+							aggregates.recordSubscriberWaitingSeated(c, freed.toLocalDateTime());
+							counted[0] = freed.toLocalDateTime().toLocalDate();
+						}
+					}
+				}
+			}
+			return true;
+		});
+		if (counted[0] != null)
+			aggregates.notifyChanged(counted[0]);
+		return seated;
 	}
 
 	/**
@@ -245,6 +245,74 @@ public class Waiting_DB_Controller {
 		}
 	}
 
+	/**
+	 * Offers tables to several waiting entries with one statement.
+	 * <p>
+	 * Each entry gets its own {@code table_number} (via {@code CASE}) and the
+	 * shared {@code freedTime}. Like {@link #setTableFreedForWaiting}, only rows
+	 * still in {@code Waiting} are updated. The matching rows are locked with
+	 * {@code SELECT ... FOR UPDATE} and updated in the same transaction, so the
+	 * returned codes are exactly the rows this call offered a table to.
+	 * </p>
+	 *
+	 * @param tableByCode confirmation code -> offered table number
+	 * @param freedTime   timestamp indicating when the tables became available
+	 *                    (callers should pass whole seconds, as stored by the
+	 *                    {@code DATETIME} column)
+	 * @return confirmation codes whose row was updated
+	 * @throws SQLException if a database error occurs (nothing is updated)
+	 */
+	public Set<String> setTableFreedForWaitings(Map<String, Integer> tableByCode, LocalDateTime freedTime)
+			throws SQLException {
+
+		if (tableByCode == null || tableByCode.isEmpty())
+			return new HashSet<>();
+
+		List<String> codes = new ArrayList<>(tableByCode.keySet());
+		String select = "SELECT confirmation_code FROM waiting_list WHERE waiting_status = 'Waiting'"
+				+ " AND confirmation_code IN (" + String.join(", ", Collections.nCopies(codes.size(), "?"))
+				+ ") FOR UPDATE";
+
+		return TransactionRunner.inTransaction(txConn, c -> {
+			Set<String> locked = new HashSet<>();
+			try (PreparedStatement ps = c.prepareStatement(select)) {
+				int idx = 1;
+				for (String code : codes) {
+					ps.setString(idx++, code);
+				}
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						locked.add(rs.getString(1));
+					}
+				}
+			}
+			if (locked.isEmpty())
+				return locked;
+
+			StringBuilder sql = new StringBuilder();
+			sql.append("UPDATE waiting_list SET table_freed_time = ?, table_number = CASE confirmation_code");
+			for (int i = 0; i < locked.size(); i++) {
+				sql.append(" WHEN ? THEN ?");
+			}
+			sql.append(" END WHERE confirmation_code IN (")
+					.append(String.join(", ", Collections.nCopies(locked.size(), "?"))).append(")");
+
+			try (PreparedStatement ps = c.prepareStatement(sql.toString())) {
+				int idx = 1;
+				ps.setTimestamp(idx++, Timestamp.valueOf(freedTime));
+				for (String code : locked) {
+					ps.setString(idx++, code);
+					ps.setInt(idx++, tableByCode.get(code));
+				}
+				for (String code : locked) {
+					ps.setString(idx++, code);
+				}
+				ps.executeUpdate();
+			}
+			return locked;
+		});
+	}
+
 	/**
 	 * Auto-cancels waiting entries that have a table assigned but were not
 	 * confirmed within 15 minutes.
@@ -275,6 +343,64 @@ public class Waiting_DB_Controller {
 		}
 	}
 
+	/**
+	 * Auto-cancels the given waiting entries if their 15-minute arrival window
+	 * has ended.
+	 * <p>
+	 * Used by the deadline queue: only the listed rows are read and updated. Rows
+	 * that were seated, cancelled or offered again in the meantime do not match
+	 * the expiry condition and are left alone. The rows are locked with
+	 * {@code SELECT ... FOR UPDATE} and cancelled in the same transaction, so the
+	 * returned codes are exactly the rows this call cancelled.
+	 * </p>
+	 *
+	 * @param confirmationCodes candidate entries
+	 * @param now               current timestamp used to compute the 15-minute
+	 *                          threshold
+	 * @return codes of the cancelled entries (possibly empty)
+	 * @throws SQLException if a database error occurs (nothing is cancelled)
+	 */
+	public List<String> cancelExpiredWaitingsByCodes(List<String> confirmationCodes, LocalDateTime now)
+			throws SQLException {
+		if (confirmationCodes == null || confirmationCodes.isEmpty())
+			return new ArrayList<>();
+
+		String in = String.join(", ", Collections.nCopies(confirmationCodes.size(), "?"));
+		String select = "SELECT confirmation_code FROM waiting_list WHERE waiting_status = 'Waiting'"
+				+ " AND table_number IS NOT NULL AND table_freed_time IS NOT NULL AND table_freed_time <= ?"
+				+ " AND confirmation_code IN (" + in + ") FOR UPDATE";
+
+		return TransactionRunner.inTransaction(txConn, c -> {
+			List<String> expired = new ArrayList<>();
+			try (PreparedStatement ps = c.prepareStatement(select)) {
+				int idx = 1;
+				ps.setTimestamp(idx++, Timestamp.valueOf(now.minusMinutes(15)));
+				for (String code : confirmationCodes) {
+					ps.setString(idx++, code);
+				}
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						expired.add(rs.getString(1));
+					}
+				}
+			}
+			if (expired.isEmpty())
+				return expired;
+
+			String update = "UPDATE waiting_list SET waiting_status = 'Cancelled', table_number = NULL,"
+					+ " table_freed_time = NULL WHERE confirmation_code IN ("
+					+ String.join(", ", Collections.nCopies(expired.size(), "?")) + ")";
+			try (PreparedStatement ps = c.prepareStatement(update)) {
+				int idx = 1;
+				for (String code : expired) {
+					ps.setString(idx++, code);
+				}
+				ps.executeUpdate();
+			}
+			return expired;
+		});
+	}
+
 	/**
 	 * Returns confirmation codes for waiting entries that are considered expired
 	 * (older than 15 minutes since {@code table_freed_time}) and still
@@ -367,6 +493,32 @@ public class Waiting_DB_Controller {
 		return null;
 	}
 
+	/**
+	 * Retrieves every active ({@code Waiting}) entry in FIFO order.
+	 * <p>
+	 * Used once at startup to rebuild the in-memory waiting-list index.
+	 * </p>
+	 *
+	 * @return active waiting entries ordered by {@code waiting_id}
+	 * @throws SQLException if a database error occurs during query execution
+	 */
+	public ArrayList<Waiting> getAllActiveWaitings() throws SQLException {
+		String sql = """
+				SELECT *
+				FROM waiting_list
+				WHERE waiting_status = 'Waiting'
+				ORDER BY waiting_id;
+				""";
+
+		ArrayList<Waiting> list = new ArrayList<>();
+		try (PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				list.add(mapRowToWaiting(rs));
+			}
+		}
+		return list;
+	}
+
 	/**
 	 * Retrieves active waiting entries for the given date using {@code joined_at}.
 	 *
@@ -443,13 +595,15 @@ public class Waiting_DB_Controller {
 	/**
 	 * Marks a waiting entry as {@code Seated} and stores an assigned table number.
 	 * <p>
-	 * This method also sets {@code table_freed_time = NOW()}.
+	 * This method also sets {@code table_freed_time = NOW()}. A seated subscriber
+	 * entry is counted in the report aggregates in the same transaction.
 	 * </p>
 	 *
 	 * @param confirmationCode confirmation code identifying the waiting entry
 	 * @param tableNumber      assigned table number (nullable)
 	 * @return {@code true} if a row was updated; otherwise {@code false}
-	 * @throws SQLException if a database error occurs during update
+	 * @throws SQLException if a database error occurs during update (nothing is
+	 *                      updated)
 	 */
 	public boolean markWaitingAsSeatedWithTable(String confirmationCode, Integer tableNumber) throws SQLException {
 		String sql = """
@@ -461,26 +615,45 @@ public class Waiting_DB_Controller {
 				  AND waiting_status = 'Waiting';
 				""";
 
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
-			if (tableNumber == null)
-				ps.setNull(1, Types.INTEGER);
-			else
-				ps.setInt(1, tableNumber);
+		return seat(confirmationCode, c -> {
+			try (PreparedStatement ps = c.prepareStatement(sql)) {
+				if (tableNumber == null)
+					ps.setNull(1, Types.INTEGER);
+				else
+					ps.setInt(1, tableNumber);
 
-			ps.setString(2, confirmationCode);
+				ps.setString(2, confirmationCode);
 
-			return ps.executeUpdate() > 0;
-		}
+				return ps.executeUpdate() > 0;
+			}
+		});
 	}
 
 	// =====================================================
 	// REPORTS – WAITING LIST
 	// =====================================================
 
+	/** Seated waiting entries per day of one month for one role ({@code [from, to)}). */
+	static final String COUNT_PER_DAY_BY_ROLE_SQL = """
+			SELECT DAY(table_freed_time) AS day, COUNT(*) AS cnt
+			FROM waiting_list
+			WHERE created_by_role = ?
+			  AND waiting_status = 'Seated'
+			  AND table_freed_time >= ?
+			  AND table_freed_time < ?
+			GROUP BY DAY(table_freed_time)
+			ORDER BY day;
+			""";
+
 	/**
 	 * Returns a map of day-of-month to waiting count for the given role in the
-	 * given month, based on {@code table_freed_time} (i.e., entries for which a
-	 * table was offered).
+	 * given month: entries that were seated, on the day of their
+	 * {@code table_freed_time}.
+	 * <p>
+	 * Offers that expired or were cancelled are not counted; this is the same
+	 * definition as the {@code subscriber_waitings} report aggregate. Only used
+	 * by the reports when no aggregates controller is set.
+	 * </p>
 	 *
 	 * @param role  creator role to filter by
 	 * @param year  target year
@@ -490,23 +663,13 @@ public class Waiting_DB_Controller {
 	 */
 	public Map<Integer, Integer> getWaitingCountPerDayByRole(UserRole role, int year, int month) throws SQLException {
 
-		String sql = """
-				SELECT DAY(table_freed_time) AS day, COUNT(*) AS cnt
-				FROM waiting_list
-				WHERE created_by_role = ?
-				  AND table_freed_time IS NOT NULL
-				  AND YEAR(table_freed_time) = ?
-				  AND MONTH(table_freed_time) = ?
-				GROUP BY DAY(table_freed_time)
-				ORDER BY day;
-				""";
-
 		Map<Integer, Integer> map = new HashMap<>();
+		LocalDateTime from = LocalDate.of(year, month, 1).atStartOfDay();
 
-		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+		try (PreparedStatement ps = conn.prepareStatement(COUNT_PER_DAY_BY_ROLE_SQL)) {
 			ps.setString(1, role.name());
-			ps.setInt(2, year);
-			ps.setInt(3, month);
+			ps.setTimestamp(2, Timestamp.valueOf(from));
+			ps.setTimestamp(3, Timestamp.valueOf(from.plusMonths(1)));
 
 			try (ResultSet rs = ps.executeQuery()) {
 				while (rs.next()) {
@@ -0,0 +1,131 @@
+package logicControllers;
+
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Issues unique six-digit confirmation codes for reservations and waiting-list
+ * entries.
+ * <p>
+ * Codes are produced from a permuted counter:
+ * <ol>
+ * <li>A monotonically increasing counter is taken from the
+ * {@code confirmation_code} id sequence (hi/lo blocks, see
+ * {@link IdBlockAllocator})</li>
+ * <li>The counter is mapped through a keyed Feistel permutation of
+ * {@code [0, 900000)} (format-preserving, with cycle walking), so consecutive
+ * counters give unrelated-looking codes</li>
+ * <li>{@code 100000} is added to get a six-digit code</li>
+ * </ol>
+ * Because the permutation is a bijection, distinct counters always produce
+ * distinct codes; no database probing is needed before an insert.
+ * </p>
+ * <p>
+ * Codes that already exist in the database (e.g. issued randomly before this
+ * allocator existed) are loaded once at startup via {@link #markUsed(Collection)}
+ * and are skipped. One allocator instance is shared by reservations and
+ * waitings, since a waiting's code is reused for its reservation. All methods
+ * are thread-safe.
+ * </p>
+ */
+public class ConfirmationCodeAllocator {
+
+	private static final int MIN_CODE = 100_000;
+	private static final int CODE_SPACE = 900_000;
+
+	/** Feistel domain: 2^20 >= CODE_SPACE, split into two 10-bit halves. */
+	private static final int HALF_BITS = 10;
+	private static final int HALF_MASK = (1 << HALF_BITS) - 1;
+	private static final int[] ROUND_KEYS = { 0x2F1, 0x1A7, 0x3C5, 0x0D9 };
+
+	private final IdBlockAllocator counter;
+	private final BitSet used = new BitSet(CODE_SPACE);
+
+	/**
+	 * Constructs an allocator on top of a counter sequence.
+	 *
+	 * @param counter id allocator backed by the {@code confirmation_code}
+	 *                sequence
+	 */
+	public ConfirmationCodeAllocator(IdBlockAllocator counter) {
+		this.counter = counter;
+	}
+
+	/**
+	 * Marks existing codes as used so they are never issued again.
+	 *
+	 * @param codes codes already stored in the database (non-numeric or
+	 *              out-of-range values are ignored)
+	 */
+	public synchronized void markUsed(Collection<String> codes) {
+		for (String c : codes) {
+			Integer idx = toIndex(c);
+			if (idx != null)
+				used.set(idx);
+		}
+	}
+
+	/**
+	 * Returns a new confirmation code that has not been issued before.
+	 *
+	 * @return six-digit confirmation code
+	 * @throws SQLException          if a new counter block cannot be reserved
+	 * @throws IllegalStateException if the whole code space is in use
+	 */
+	public synchronized String nextCode() throws SQLException {
+		for (int attempts = 0; attempts < CODE_SPACE; attempts++) {
+			int idx = permute((int) (counter.nextId() % CODE_SPACE));
+			if (!used.get(idx)) {
+				used.set(idx);
+				return String.valueOf(MIN_CODE + idx);
+			}
+		}
+		throw new IllegalStateException("Confirmation code space exhausted");
+	}
+
+	/**
+	 * @return number of codes currently marked as used
+	 */
+	public synchronized int usedCount() {
+		return used.cardinality();
+	}
+
+	// ====Helpers====
+
+	private static Integer toIndex(String code) {
+		if (code == null)
+			return null;
+		try {
+			int v = Integer.parseInt(code.trim());
+			int idx = v - MIN_CODE;
+			return (idx >= 0 && idx < CODE_SPACE) ? idx : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Bijection on {@code [0, CODE_SPACE)}: applies the 20-bit Feistel network
+	 * repeatedly until the value falls back into range (cycle walking).
+	 */
+	private static int permute(int x) {
+		do {
+			x = feistel(x);
+		} while (x >= CODE_SPACE);
+		return x;
+	}
+
+	private static int feistel(int x) {
+		int left = (x >>> HALF_BITS) & HALF_MASK;
+		int right = x & HALF_MASK;
+
+		for (int key : ROUND_KEYS) {
+			int f = ((right * 0x2C9 + key) ^ (right >>> 3)) & HALF_MASK;
+			int next = left ^ f;
+			left = right;
+			right = next;
+		}
+		return (left << HALF_BITS) | right;
+	}
+}
@@ -0,0 +1,140 @@
+package logicControllers;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * In-memory queue of expiry deadlines, fired on time by a dedicated thread.
+ * <p>
+ * Deadlines are kept in a {@link DelayQueue} (a min-heap ordered by due time).
+ * The worker thread sleeps until the earliest deadline is due, then hands it,
+ * together with every other deadline that is due by then, to the
+ * {@code onExpired} callback as one batch. Nothing is polled while no deadline
+ * is due.
+ * </p>
+ * <p>
+ * Entries are never removed when the underlying row changes (check-in,
+ * cancel, time change): the callback must re-check each key against the
+ * database and skip rows that no longer expire. A key scheduled twice simply
+ * fires twice. Due times are rounded up to the next whole second, because
+ * {@code DATETIME} columns store seconds and the callback compares against
+ * them.
+ * </p>
+ *
+ * @param <K> key of the expiring row (reservation id, confirmation code)
+ */
+public class DeadlineQueue<K> {
+
+	private static final class Deadline<K> implements Delayed {
+		private final K key;
+		private final long dueMs;
+
+		private Deadline(K key, long dueMs) {
+			this.key = key;
+			this.dueMs = dueMs;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(dueMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			if (other instanceof Deadline<?> d)
+				return Long.compare(dueMs, d.dueMs);
+			return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+		}
+	}
+
+	private final String name;
+	private final Consumer<List<K>> onExpired;
+	private final Consumer<String> logger;
+
+	private final DelayQueue<Deadline<K>> queue = new DelayQueue<>();
+	private Thread worker;
+
+	/**
+	 * Constructs a queue.
+	 *
+	 * @param name      name used for the worker thread and in logs
+	 * @param onExpired receives the keys whose deadline passed (worker thread)
+	 * @param logger    callback used for logging
+	 */
+	public DeadlineQueue(String name, Consumer<List<K>> onExpired, Consumer<String> logger) {
+		this.name = name;
+		this.onExpired = onExpired;
+		this.logger = logger;
+	}
+
+	/**
+	 * Adds a deadline. A deadline in the past fires right away.
+	 *
+	 * @param key   key handed to the callback
+	 * @param dueAt time the row expires
+	 */
+	public void schedule(K key, LocalDateTime dueAt) {
+		if (key == null || dueAt == null)
+			return;
+		LocalDateTime rounded = dueAt.getNano() == 0 ? dueAt : dueAt.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+		queue.add(new Deadline<>(key, rounded.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+	}
+
+	/**
+	 * @return number of pending deadlines
+	 */
+	public int size() {
+		return queue.size();
+	}
+
+	/**
+	 * Starts the worker thread.
+	 */
+	public synchronized void start() {
+		if (worker != null)
+			return;
+		worker = new Thread(this::run, name + "-deadlines");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Stops the worker thread. Pending deadlines are dropped.
+	 */
+	public synchronized void stop() {
+		if (worker != null)
+			worker.interrupt();
+		worker = null;
+		queue.clear();
+	}
+
+	private void run() {
+		while (!Thread.currentThread().isInterrupted()) {
+			List<Deadline<K>> due = new ArrayList<>();
+			try {
+				due.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(due);
+
+			List<K> keys = new ArrayList<>(due.size());
+			for (Deadline<K> d : due) {
+				keys.add(d.key);
+			}
+
+			try {
+				onExpired.accept(keys);
+			} catch (Exception e) {
+				logger.accept("❌ Deadline handler " + name + " failed: " + e.getMessage());
+			}
+		}
+	}
+}
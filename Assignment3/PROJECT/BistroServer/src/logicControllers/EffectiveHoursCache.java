@@ -0,0 +1,195 @@
+package logicControllers;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import entities.OpeningHouers;
+
+/**
+ * In-memory cache of effective opening hours keyed by calendar date.
+ * <p>
+ * "Effective" hours are the weekly hours for the date's weekday, overridden by
+ * a special opening-hours row when one exists. Closed days are cached too (as
+ * an entry with {@code null} open/close times), and dates without any data are
+ * cached as a {@code null} value so they do not hit the database repeatedly.
+ * </p>
+ * <p>
+ * The cache hands out copies of the cached {@link OpeningHouers} so callers can
+ * never mutate a shared entry. Hit/miss counters are kept for monitoring.
+ * </p>
+ * <p>
+ * Loads run outside any lock. Every invalidation bumps a generation counter,
+ * and a loaded value is only stored if no invalidation happened since the load
+ * started, so an override saved during a load is never hidden by the stale
+ * value.
+ * </p>
+ */
+public class EffectiveHoursCache {
+
+	/**
+	 * Resolves effective hours for a date on a cache miss.
+	 */
+	@FunctionalInterface
+	public interface Loader {
+		OpeningHouers load(LocalDate date) throws SQLException;
+	}
+
+	/** Wrapper so that "no hours for this date" can be cached as well. */
+	private static final class Entry {
+		private final OpeningHouers hours;
+
+		private Entry(OpeningHouers hours) {
+			this.hours = hours;
+		}
+	}
+
+	private final Map<LocalDate, Entry> entries = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+
+	/** Bumped on every invalidation (guarded by {@code this}). */
+	private long generation;
+
+	/**
+	 * Returns the effective hours for {@code date}, loading and caching them on a
+	 * miss.
+	 * <p>
+	 * If the loader throws, nothing is cached and the exception is propagated.
+	 * </p>
+	 *
+	 * @param date   target date
+	 * @param loader resolver used on a cache miss
+	 * @return a copy of the effective hours, or {@code null} if no data exists
+	 * @throws SQLException if the loader fails
+	 */
+	public OpeningHouers get(LocalDate date, Loader loader) throws SQLException {
+		Entry e = entries.get(date);
+		if (e != null) {
+			hits.incrementAndGet();
+			return copy(e.hours);
+		}
+
+		misses.incrementAndGet();
+		long loadGeneration = currentGeneration();
+		OpeningHouers loaded = loader.load(date);
+		put(date, loaded, loadGeneration);
+		return copy(loaded);
+	}
+
+	/**
+	 * Returns the generation to pass to {@link #put} for a value that is about to
+	 * be loaded.
+	 *
+	 * @return current invalidation generation
+	 */
+	public synchronized long currentGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Stores loaded effective hours for a date, unless an invalidation happened
+	 * since {@code loadGeneration} was read.
+	 *
+	 * @param date           target date
+	 * @param hours          effective hours (may be {@code null} when no data
+	 *                       exists)
+	 * @param loadGeneration value of {@link #currentGeneration()} taken before
+	 *                       the hours were read
+	 * @return {@code true} if the value was stored
+	 */
+	public synchronized boolean put(LocalDate date, OpeningHouers hours, long loadGeneration) {
+		if (generation != loadGeneration)
+			return false;
+		entries.put(date, new Entry(copy(hours)));
+		return true;
+	}
+
+	/**
+	 * Removes the cached entry for a single date.
+	 *
+	 * @param date date to invalidate
+	 */
+	public synchronized void invalidate(LocalDate date) {
+		if (date == null)
+			return;
+		generation++;
+		if (entries.remove(date) != null)
+			invalidations.incrementAndGet();
+	}
+
+	/**
+	 * Removes every cached date matching {@code filter}.
+	 *
+	 * @param filter predicate selecting the dates to invalidate
+	 */
+	public synchronized void invalidateIf(Predicate<LocalDate> filter) {
+		generation++;
+		entries.keySet().removeIf(d -> {
+			if (filter.test(d)) {
+				invalidations.incrementAndGet();
+				return true;
+			}
+			return false;
+		});
+	}
+
+	/**
+	 * Drops entries for dates before {@code today}.
+	 *
+	 * @param today first date to keep
+	 */
+	public void evictBefore(LocalDate today) {
+		entries.keySet().removeIf(d -> d.isBefore(today));
+	}
+
+	// ====METRICS====
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getInvalidations() {
+		return invalidations.get();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return hit ratio in the range {@code [0, 1]} ({@code 0} before any lookup)
+	 */
+	public double getHitRatio() {
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 0.0 : (double) h / total;
+	}
+
+	/**
+	 * @return one-line summary of the cache metrics for logging
+	 */
+	public String describeMetrics() {
+		return String.format("entries=%d, hits=%d, misses=%d, hitRatio=%.2f, invalidations=%d", size(), getHits(),
+				getMisses(), getHitRatio(), getInvalidations());
+	}
+
+	private static OpeningHouers copy(OpeningHouers src) {
+		if (src == null)
+			return null;
+		OpeningHouers oh = new OpeningHouers();
+		oh.setDayOfWeek(src.getDayOfWeek());
+		oh.setOpenTime(src.getOpenTime());
+		oh.setCloseTime(src.getCloseTime());
+		return oh;
+	}
+}
@@ -0,0 +1,107 @@
+package logicControllers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import entities.Table;
+
+/**
+ * Collects "table freed" events over a short window and hands them to
+ * {@link WaitingController#assignFreedTables(List)} as one batch.
+ * <p>
+ * When several tables free at once (end of a seating wave, a batch
+ * auto-cancel), matching them one by one lets the first freed table go to the
+ * first waiting party that fits, even if a smaller table freed a moment later
+ * would have fit that party as well. Batching lets the waiting controller
+ * assign all freed tables together.
+ * </p>
+ * <p>
+ * The first event of a batch schedules a flush after the window; later events
+ * of the same window join the batch. A table reported twice in one window is
+ * matched once. Flushes run on a single-threaded
+ * {@link ScheduledExecutorService}, so batches never overlap.
+ * </p>
+ */
+public class FreedTableMatcher {
+
+	private final WaitingController waitingController;
+	private final Consumer<String> logger;
+	private final long windowMs;
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+	/** Table number -> freed table, in arrival order. */
+	private final Map<Integer, Table> pending = new LinkedHashMap<>();
+	private boolean flushScheduled;
+
+	/**
+	 * Constructs a matcher.
+	 *
+	 * @param waitingController controller that performs the assignment
+	 * @param logger            callback used for logging
+	 * @param windowMs          how long events are collected before matching
+	 */
+	public FreedTableMatcher(WaitingController waitingController, Consumer<String> logger, long windowMs) {
+		this.waitingController = waitingController;
+		this.logger = logger;
+		this.windowMs = windowMs;
+	}
+
+	/**
+	 * Adds a freed table to the current batch.
+	 *
+	 * @param freedTable table that became available
+	 */
+	public void submit(Table freedTable) {
+		if (freedTable == null)
+			return;
+
+		synchronized (pending) {
+			pending.put(freedTable.getTableNumber(), freedTable);
+			if (flushScheduled)
+				return;
+			flushScheduled = true;
+		}
+
+		try {
+			executor.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+		} catch (Exception e) {
+			// executor stopped: match inline so the event is not lost
+			flush();
+		}
+	}
+
+	/**
+	 * Stops the matcher and matches any tables still waiting for their window.
+	 */
+	public void stop() {
+		executor.shutdownNow();
+		flush();
+	}
+
+	/**
+	 * Takes the current batch and assigns it.
+	 */
+	private void flush() {
+		List<Table> batch;
+		synchronized (pending) {
+			batch = new ArrayList<>(pending.values());
+			pending.clear();
+			flushScheduled = false;
+		}
+		if (batch.isEmpty())
+			return;
+
+		try {
+			waitingController.assignFreedTables(batch);
+		} catch (Exception e) {
+			logger.accept("❌ Freed-table matching failed: " + e.getMessage());
+		}
+	}
+}
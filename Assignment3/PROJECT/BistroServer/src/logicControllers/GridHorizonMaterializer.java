@@ -0,0 +1,366 @@
+package logicControllers;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import dbControllers.Restaurant_DB_Controller;
+import entities.OpeningHouers;
+
+/**
+ * Materializes {@code table_availability_grid} rows for a window of days in
+ * bulk.
+ * <p>
+ * For each run the materializer:
+ * <ol>
+ * <li>Purges past slots, at most once per calendar day</li>
+ * <li>Resolves the effective opening hours of every day in the window and
+ * skips days whose hours did not change since they were last
+ * materialized</li>
+ * <li>Reads the existing slots of the remaining days with one range query</li>
+ * <li>Inserts only the missing slots with multi-row inserts</li>
+ * </ol>
+ * Each run returns a {@link Report} with counts and timing.
+ * </p>
+ * <p>
+ * When opening hours change, {@link #reshape(Collection)} adjusts existing days
+ * in place: only the slots outside the old/new hours intersection are added or
+ * removed, so booking markers of the remaining slots are kept.
+ * </p>
+ */
+public class GridHorizonMaterializer {
+
+	/**
+	 * Result of a single materialization run.
+	 */
+	public static final class Report {
+		private final int daysChecked;
+		private final int daysTouched;
+		private final int slotsInserted;
+		private final boolean pastSlotsPurged;
+		private final long elapsedMs;
+
+		private Report(int daysChecked, int daysTouched, int slotsInserted, boolean pastSlotsPurged,
+				long elapsedMs) {
+			this.daysChecked = daysChecked;
+			this.daysTouched = daysTouched;
+			this.slotsInserted = slotsInserted;
+			this.pastSlotsPurged = pastSlotsPurged;
+			this.elapsedMs = elapsedMs;
+		}
+
+		public int getDaysChecked() {
+			return daysChecked;
+		}
+
+		public int getDaysTouched() {
+			return daysTouched;
+		}
+
+		public int getSlotsInserted() {
+			return slotsInserted;
+		}
+
+		public boolean isPastSlotsPurged() {
+			return pastSlotsPurged;
+		}
+
+		public long getElapsedMs() {
+			return elapsedMs;
+		}
+
+		@Override
+		public String toString() {
+			return "days=" + daysChecked + ", touched=" + daysTouched + ", slotsInserted=" + slotsInserted
+					+ ", pastPurged=" + pastSlotsPurged + ", " + elapsedMs + " ms";
+		}
+	}
+
+	/**
+	 * Per-date result of {@link GridHorizonMaterializer#reshape(Collection)}.
+	 */
+	public static final class DayChange {
+		private final LocalDate date;
+		private final String hours;
+		private final int slotsAdded;
+		private final int slotsRemoved;
+		private final int slotsKept;
+		private final boolean deferred;
+
+		private DayChange(LocalDate date, String hours, int slotsAdded, int slotsRemoved, int slotsKept,
+				boolean deferred) {
+			this.date = date;
+			this.hours = hours;
+			this.slotsAdded = slotsAdded;
+			this.slotsRemoved = slotsRemoved;
+			this.slotsKept = slotsKept;
+			this.deferred = deferred;
+		}
+
+		public LocalDate getDate() {
+			return date;
+		}
+
+		/**
+		 * @return new effective hours as {@code HH:mm-HH:mm}, or {@code "closed"}
+		 */
+		public String getHours() {
+			return hours;
+		}
+
+		public int getSlotsAdded() {
+			return slotsAdded;
+		}
+
+		public int getSlotsRemoved() {
+			return slotsRemoved;
+		}
+
+		/**
+		 * @return number of existing slots left untouched (booking state preserved)
+		 */
+		public int getSlotsKept() {
+			return slotsKept;
+		}
+
+		/**
+		 * @return {@code true} if the date had no grid rows yet and will be
+		 *         materialized lazily on first access
+		 */
+		public boolean isDeferred() {
+			return deferred;
+		}
+
+		@Override
+		public String toString() {
+			return date + " [" + hours + "] " + (deferred ? "deferred"
+					: "+" + slotsAdded + " -" + slotsRemoved + " kept=" + slotsKept);
+		}
+	}
+
+	private static final String CLOSED = "closed";
+
+	private final Restaurant_DB_Controller db;
+	private final Function<LocalDate, OpeningHouers> hoursProvider;
+
+	/** Date -> opening-hours signature the date was last materialized with. */
+	private final Map<LocalDate, String> materialized = new ConcurrentHashMap<>();
+	private LocalDate lastPurgeDate;
+
+	/**
+	 * Constructs a materializer.
+	 *
+	 * @param db            restaurant DB controller owning the grid
+	 * @param hoursProvider resolves effective opening hours for a date
+	 */
+	public GridHorizonMaterializer(Restaurant_DB_Controller db, Function<LocalDate, OpeningHouers> hoursProvider) {
+		this.db = db;
+		this.hoursProvider = hoursProvider;
+	}
+
+	/**
+	 * Ensures grid rows exist for {@code days} dates starting at {@code start}.
+	 *
+	 * @param start first date (inclusive)
+	 * @param days  number of dates
+	 * @return run report
+	 * @throws SQLException if reading or writing the grid fails
+	 */
+	public synchronized Report materialize(LocalDate start, int days) throws SQLException {
+		long startNs = System.nanoTime();
+
+		boolean purged = false;
+		LocalDate today = LocalDate.now();
+		if (!today.equals(lastPurgeDate)) {
+			db.deletePastSlots();
+			materialized.keySet().removeIf(d -> d.isBefore(today));
+			lastPurgeDate = today;
+			purged = true;
+		}
+
+		List<LocalDateTime> wanted = new ArrayList<>();
+		Map<LocalDate, String> pending = new HashMap<>();
+		LocalDate minTouched = null;
+		LocalDate maxTouched = null;
+
+		for (int i = 0; i < days; i++) {
+			LocalDate d = start.plusDays(i);
+			LocalTime[] hours = toOpenClose(hoursProvider.apply(d));
+			String signature = hours == null ? CLOSED : hours[0] + "-" + hours[1];
+
+			if (signature.equals(materialized.get(d)))
+				continue;
+
+			pending.put(d, signature);
+			if (hours == null)
+				continue;
+
+			wanted.addAll(Restaurant_DB_Controller.buildSlotsForDay(d, hours[0], hours[1]));
+			if (minTouched == null)
+				minTouched = d;
+			maxTouched = d;
+		}
+
+		int inserted = 0;
+		if (!wanted.isEmpty()) {
+			Set<LocalDateTime> existing = db.getExistingSlotsBetween(minTouched.atStartOfDay(),
+					maxTouched.plusDays(1).atStartOfDay());
+
+			List<LocalDateTime> missing = new ArrayList<>();
+			for (LocalDateTime slot : wanted) {
+				if (!existing.contains(slot))
+					missing.add(slot);
+			}
+			inserted = db.insertSlots(missing);
+		}
+
+		materialized.putAll(pending);
+
+		long ms = (System.nanoTime() - startNs) / 1_000_000;
+		return new Report(days, pending.size(), inserted, purged, ms);
+	}
+
+	/**
+	 * Reshapes the grid of the given dates to their current effective opening
+	 * hours.
+	 * <p>
+	 * All dates are handled in one batch:
+	 * <ol>
+	 * <li>The existing slots of the whole date range are read with one range
+	 * query</li>
+	 * <li>For each date the wanted slots are diffed against the existing ones</li>
+	 * <li>Slots outside the new hours are deleted and missing slots inserted with
+	 * chunked multi-row statements</li>
+	 * </ol>
+	 * Slots inside both the old and the new hours are not touched, so their
+	 * booking markers survive. Dates that have no grid rows yet are not created
+	 * here; they are only forgotten so lazy materialization picks up the new
+	 * hours.
+	 * </p>
+	 *
+	 * @param dates dates whose effective hours changed
+	 * @return per-date summary, ordered by date
+	 * @throws SQLException if reading or writing the grid fails
+	 */
+	public synchronized List<DayChange> reshape(Collection<LocalDate> dates) throws SQLException {
+		List<DayChange> out = new ArrayList<>();
+		if (dates == null || dates.isEmpty())
+			return out;
+
+		TreeSet<LocalDate> sorted = new TreeSet<>(dates);
+		sorted.remove(null);
+		if (sorted.isEmpty())
+			return out;
+
+		Map<LocalDate, Set<LocalDateTime>> existingByDate = new TreeMap<>();
+		for (LocalDateTime slot : db.getExistingSlotsBetween(sorted.first().atStartOfDay(),
+				sorted.last().plusDays(1).atStartOfDay())) {
+			existingByDate.computeIfAbsent(slot.toLocalDate(), d -> new HashSet<>()).add(slot);
+		}
+
+		List<LocalDateTime> toDelete = new ArrayList<>();
+		List<LocalDateTime> toInsert = new ArrayList<>();
+		Map<LocalDate, String> pending = new HashMap<>();
+
+		for (LocalDate d : sorted) {
+			LocalTime[] hours = toOpenClose(hoursProvider.apply(d));
+			String signature = hours == null ? CLOSED : hours[0] + "-" + hours[1];
+			Set<LocalDateTime> existing = existingByDate.getOrDefault(d, Set.of());
+
+			if (existing.isEmpty() && !materialized.containsKey(d)) {
+				out.add(new DayChange(d, signature, 0, 0, 0, true));
+				continue;
+			}
+
+			List<LocalDateTime> wanted = hours == null ? List.of()
+					: Restaurant_DB_Controller.buildSlotsForDay(d, hours[0], hours[1]);
+			Set<LocalDateTime> wantedSet = new HashSet<>(wanted);
+
+			int removed = 0;
+			for (LocalDateTime slot : existing) {
+				if (!wantedSet.contains(slot)) {
+					toDelete.add(slot);
+					removed++;
+				}
+			}
+
+			int added = 0;
+			for (LocalDateTime slot : wanted) {
+				if (!existing.contains(slot)) {
+					toInsert.add(slot);
+					added++;
+				}
+			}
+
+			pending.put(d, signature);
+			out.add(new DayChange(d, signature, added, removed, existing.size() - removed, false));
+		}
+
+		db.deleteSlots(toDelete);
+		db.insertSlots(toInsert);
+
+		materialized.putAll(pending);
+		return out;
+	}
+
+	/**
+	 * Materializes a single day on first access.
+	 * <p>
+	 * Once a day has been materialized this is an in-memory check only.
+	 * </p>
+	 *
+	 * @param date date to materialize
+	 * @throws SQLException if reading or writing the grid fails
+	 */
+	public void ensureDay(LocalDate date) throws SQLException {
+		if (date == null || materialized.containsKey(date))
+			return;
+		materialize(date, 1);
+	}
+
+	/**
+	 * Forgets the materialization state of a date so the next access re-checks it
+	 * (used after the date's grid rows were rebuilt or its hours changed).
+	 *
+	 * @param date date to forget
+	 */
+	public void forget(LocalDate date) {
+		if (date != null)
+			materialized.remove(date);
+	}
+
+	/**
+	 * Parses effective opening hours into {@code [open, close]}.
+	 *
+	 * @param oh effective opening hours (may be {@code null})
+	 * @return open/close pair, or {@code null} when the date is closed or has no
+	 *         valid hours
+	 */
+	static LocalTime[] toOpenClose(OpeningHouers oh) {
+		if (oh == null || oh.getOpenTime() == null || oh.getCloseTime() == null)
+			return null;
+
+		String open = oh.getOpenTime().trim();
+		String close = oh.getCloseTime().trim();
+		if (open.length() < 5 || close.length() < 5)
+			return null;
+
+		try {
+			return new LocalTime[] { LocalTime.parse(open.substring(0, 5)), LocalTime.parse(close.substring(0, 5)) };
+		} catch (Exception e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package logicControllers;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dbControllers.Sequence_DB_Controller;
+
+/**
+ * Hands out unique ids from a database sequence using hi/lo blocks.
+ * <p>
+ * A block of {@code blockSize} ids is reserved atomically in
+ * {@code id_sequences} and then served from memory through an
+ * {@link AtomicLong}. Only the thread that exhausts a block goes to the
+ * database; all other calls are lock-free.
+ * </p>
+ * <p>
+ * Guarantees:
+ * <ul>
+ * <li>No duplicates under concurrency (each id comes from one
+ * {@code getAndIncrement})</li>
+ * <li>No duplicates across restarts or several server instances (blocks are
+ * reserved by an atomic {@code UPDATE}); unused ids of a block are simply
+ * skipped</li>
+ * </ul>
+ * </p>
+ */
+public class IdBlockAllocator {
+
+	/** Immutable block {@code [next, end)} with its own cursor. */
+	private static final class Block {
+		private final AtomicLong next;
+		private final long end;
+
+		private Block(long start, long end) {
+			this.next = new AtomicLong(start);
+			this.end = end;
+		}
+	}
+
+	private final Sequence_DB_Controller db;
+	private final String sequenceName;
+	private final int blockSize;
+
+	private volatile Block current = new Block(0, 0);
+
+	/**
+	 * Constructs an allocator for one sequence.
+	 *
+	 * @param db           sequence DB controller
+	 * @param sequenceName sequence identifier in {@code id_sequences}
+	 * @param blockSize    number of ids reserved per database round trip
+	 */
+	public IdBlockAllocator(Sequence_DB_Controller db, String sequenceName, int blockSize) {
+		if (blockSize <= 0)
+			throw new IllegalArgumentException("blockSize must be positive");
+		this.db = db;
+		this.sequenceName = sequenceName;
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Returns the next unique id.
+	 *
+	 * @return next id
+	 * @throws SQLException if a new block cannot be reserved
+	 */
+	public long nextId() throws SQLException {
+		while (true) {
+			Block b = current;
+			long id = b.next.getAndIncrement();
+			if (id < b.end)
+				return id;
+
+			synchronized (this) {
+				if (current == b) {
+					long start = db.reserveBlock(sequenceName, blockSize);
+					current = new Block(start, start + blockSize);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Makes sure the sequence never returns an id below {@code minNextValue} and
+	 * discards the current in-memory block so the next call reserves a fresh one.
+	 *
+	 * @param minNextValue lowest id that may be handed out next
+	 * @throws SQLException if the sequence cannot be updated
+	 */
+	public synchronized void ensureAtLeast(long minNextValue) throws SQLException {
+		db.ensureAtLeast(sequenceName, minNextValue);
+		current = new Block(0, 0);
+	}
+}
@@ -0,0 +1,458 @@
+package logicControllers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import entities.Enums.Channel;
+import entities.Notification;
+
+/**
+ * Asynchronous delivery of dispatched notifications, one worker group per
+ * channel.
+ * <p>
+ * {@link NotificationSchedulerService} hands every claimed notification to
+ * {@link #submit(Notification)} and moves on; delivery happens here:
+ * <ul>
+ * <li><b>EMAIL</b>: a single sink thread (the simulation only logs), so email
+ * never waits behind socket writes</li>
+ * <li><b>SMS</b>: a fixed set of worker threads; a user is always served by the
+ * same worker and has one FIFO queue, so one user's messages are pushed in
+ * order and one slow client only delays the users of its worker</li>
+ * </ul>
+ * A push that is identical (type and text) to one already waiting in the user's
+ * queue is coalesced. When the user is offline or the push fails, the user's
+ * queue pauses and is retried with exponential backoff; after
+ * {@value #MAX_ATTEMPTS} attempts the queued messages are given up.
+ * </p>
+ * <p>
+ * The outcome of every submitted notification (including the coalesced ones)
+ * is reported to the {@link DeliveryListener}: the scheduler marks a row sent
+ * only once it was delivered, so a notification that is given up, or still
+ * queued when the server stops, is sent again later.
+ * </p>
+ * <p>
+ * Delivery latency ({@code scheduled_for} to delivery) is sampled per channel
+ * and exposed as percentiles through {@link #getStats()}.
+ * </p>
+ */
+public class NotificationDeliveryPipeline {
+
+	/**
+	 * Receives the outcome of submitted notifications. Called on the pipeline
+	 * threads.
+	 */
+	public interface DeliveryListener {
+
+		/**
+		 * @param n notification that was delivered
+		 */
+		void delivered(Notification n);
+
+		/**
+		 * @param n notification that was given up after the last retry, or still
+		 *          queued when the pipeline stopped
+		 */
+		void failed(Notification n);
+	}
+
+	/**
+	 * Latency percentiles of the most recent deliveries of one channel.
+	 */
+	public static final class LatencyStats {
+		private final int samples;
+		private final long p50;
+		private final long p95;
+		private final long p99;
+
+		private LatencyStats(int samples, long p50, long p95, long p99) {
+			this.samples = samples;
+			this.p50 = p50;
+			this.p95 = p95;
+			this.p99 = p99;
+		}
+
+		public int getSamples() {
+			return samples;
+		}
+
+		public long getP50Ms() {
+			return p50;
+		}
+
+		public long getP95Ms() {
+			return p95;
+		}
+
+		public long getP99Ms() {
+			return p99;
+		}
+
+		@Override
+		public String toString() {
+			return "p50=" + p50 + " p95=" + p95 + " p99=" + p99 + " ms (n=" + samples + ")";
+		}
+	}
+
+	/**
+	 * Snapshot of the pipeline counters.
+	 */
+	public static final class Stats {
+		private final LatencyStats sms;
+		private final LatencyStats email;
+		private final long delivered;
+		private final long coalesced;
+		private final long retried;
+		private final long gaveUp;
+
+		private Stats(LatencyStats sms, LatencyStats email, long delivered, long coalesced, long retried,
+				long gaveUp) {
+			this.sms = sms;
+			this.email = email;
+			this.delivered = delivered;
+			this.coalesced = coalesced;
+			this.retried = retried;
+			this.gaveUp = gaveUp;
+		}
+
+		public LatencyStats getSms() {
+			return sms;
+		}
+
+		public LatencyStats getEmail() {
+			return email;
+		}
+
+		public long getDelivered() {
+			return delivered;
+		}
+
+		public long getCoalesced() {
+			return coalesced;
+		}
+
+		public long getRetried() {
+			return retried;
+		}
+
+		/**
+		 * @return SMS pushes given up after the last retry or at shutdown
+		 */
+		public long getGaveUp() {
+			return gaveUp;
+		}
+
+		@Override
+		public String toString() {
+			return "sms[" + sms + "], email[" + email + "], delivered=" + delivered + ", coalesced=" + coalesced
+					+ ", retried=" + retried + ", failed=" + gaveUp;
+		}
+	}
+
+	private static final int MAX_ATTEMPTS = 6;
+	private static final long BASE_BACKOFF_MS = 2_000;
+	private static final long MAX_BACKOFF_MS = 300_000;
+	private static final int LATENCY_SAMPLES = 1024;
+
+	/** Pending pushes of one user (guarded by {@code userQueues}). */
+	private static final class UserQueue {
+		private final ArrayDeque<Pending> items = new ArrayDeque<>();
+		private int failedAttempts;
+	}
+
+	/** A queued push and the identical pushes coalesced into it. */
+	private static final class Pending {
+		private final Notification n;
+		private final List<Notification> coalesced = new ArrayList<>();
+
+		private Pending(Notification n) {
+			this.n = n;
+		}
+	}
+
+	/** Fixed-size ring of latency samples. */
+	private static final class LatencyRing {
+		private final long[] values = new long[LATENCY_SAMPLES];
+		private int next;
+		private int count;
+
+		synchronized void record(long ms) {
+			values[next] = ms;
+			next = (next + 1) % values.length;
+			count = Math.min(count + 1, values.length);
+		}
+
+		synchronized LatencyStats snapshot() {
+			if (count == 0)
+				return new LatencyStats(0, 0, 0, 0);
+			long[] sorted = Arrays.copyOf(values, count);
+			Arrays.sort(sorted);
+			return new LatencyStats(count, percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99));
+		}
+
+		private static long percentile(long[] sorted, int p) {
+			int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+			return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+		}
+	}
+
+	private final NotificationDispatcher dispatcher;
+	private final Consumer<String> logger;
+
+	private final ExecutorService emailSink = Executors.newSingleThreadExecutor();
+	private final ScheduledExecutorService[] smsWorkers;
+	private final Map<Integer, UserQueue> userQueues = new HashMap<>();
+	private volatile DeliveryListener listener;
+
+	private final LatencyRing smsLatency = new LatencyRing();
+	private final LatencyRing emailLatency = new LatencyRing();
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong retried = new AtomicLong();
+	private final AtomicLong gaveUp = new AtomicLong();
+
+	/**
+	 * Constructs the pipeline.
+	 *
+	 * @param dispatcher channel implementation (socket push / email log)
+	 * @param smsWorkers number of SMS worker threads
+	 * @param logger     callback used for logging
+	 */
+	public NotificationDeliveryPipeline(NotificationDispatcher dispatcher, int smsWorkers, Consumer<String> logger) {
+		this.dispatcher = dispatcher;
+		this.logger = logger;
+		this.smsWorkers = new ScheduledExecutorService[Math.max(1, smsWorkers)];
+		for (int i = 0; i < this.smsWorkers.length; i++) {
+			this.smsWorkers[i] = Executors.newSingleThreadScheduledExecutor();
+		}
+	}
+
+	/**
+	 * Registers the listener notified of every delivery outcome.
+	 *
+	 * @param listener listener, or {@code null} to remove it
+	 */
+	public void setDeliveryListener(DeliveryListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Queues a notification for delivery on its channel. Its outcome is reported
+	 * to the {@link DeliveryListener} later.
+	 *
+	 * @param n notification to deliver
+	 * @return {@code true} if the notification was queued (or coalesced),
+	 *         {@code false} if the pipeline is stopped or the channel is unknown
+	 */
+	public boolean submit(Notification n) {
+		if (n == null)
+			return false;
+
+		try {
+			if (n.getChannel() == Channel.EMAIL) {
+				emailSink.execute(() -> {
+					dispatcher.deliverEmail(n);
+					emailLatency.record(latencyMs(n));
+					delivered.incrementAndGet();
+					report(n, true);
+				});
+				return true;
+			}
+
+			if (n.getChannel() == Channel.SMS)
+				return enqueueSms(n);
+
+		} catch (RejectedExecutionException e) {
+			logger.accept("❌ Notification pipeline stopped; notification " + n.getNotificationId() + " not queued");
+		}
+		return false;
+	}
+
+	/**
+	 * @return latency percentiles and counters
+	 */
+	public Stats getStats() {
+		return new Stats(smsLatency.snapshot(), emailLatency.snapshot(), delivered.get(), coalesced.get(),
+				retried.get(), gaveUp.get());
+	}
+
+	/**
+	 * Stops all workers. Email already queued is still logged; SMS still queued
+	 * (waiting for a worker or a retry) is reported as failed, so its rows stay
+	 * unsent and are delivered after the restart.
+	 */
+	public void stop() {
+		for (ScheduledExecutorService w : smsWorkers) {
+			w.shutdownNow();
+		}
+		emailSink.shutdown();
+		try {
+			for (ScheduledExecutorService w : smsWorkers) {
+				w.awaitTermination(2, TimeUnit.SECONDS);
+			}
+			emailSink.awaitTermination(2, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		List<Pending> undelivered = new ArrayList<>();
+		synchronized (userQueues) {
+			for (UserQueue q : userQueues.values()) {
+				undelivered.addAll(q.items);
+			}
+			userQueues.clear();
+		}
+		for (Pending p : undelivered) {
+			report(p, false);
+		}
+		gaveUp.addAndGet(undelivered.size());
+		if (!undelivered.isEmpty())
+			logger.accept("⚠️ Notification pipeline stopped; " + undelivered.size()
+					+ " undelivered SMS left for a later retry.");
+	}
+
+	// ====SMS====
+
+	private boolean enqueueSms(Notification n) {
+		int userId = n.getUserId();
+		boolean startDrain;
+
+		synchronized (userQueues) {
+			UserQueue q = userQueues.get(userId);
+			startDrain = q == null;
+			if (q == null) {
+				q = new UserQueue();
+				userQueues.put(userId, q);
+			}
+
+			for (Pending queued : q.items) {
+				if (queued.n.getNotificationType() == n.getNotificationType()
+						&& Objects.equals(queued.n.getMessage(), n.getMessage())) {
+					queued.coalesced.add(n);
+					coalesced.incrementAndGet();
+					return true;
+				}
+			}
+			q.items.addLast(new Pending(n));
+		}
+
+		if (startDrain) {
+			try {
+				workerFor(userId).execute(() -> drain(userId));
+			} catch (RejectedExecutionException e) {
+				synchronized (userQueues) {
+					userQueues.remove(userId);
+				}
+				throw e;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Pushes the user's queue in order until it is empty or a push fails.
+	 * Runs on the user's worker only.
+	 */
+	private void drain(int userId) {
+		while (true) {
+			Pending head;
+			synchronized (userQueues) {
+				UserQueue q = userQueues.get(userId);
+				head = q == null ? null : q.items.peekFirst();
+				if (head == null) {
+					userQueues.remove(userId);
+					return;
+				}
+			}
+
+			if (dispatcher.deliverSms(head.n)) {
+				smsLatency.record(latencyMs(head.n));
+				delivered.incrementAndGet();
+				synchronized (userQueues) {
+					UserQueue q = userQueues.get(userId);
+					if (q != null) {
+						q.items.pollFirst();
+						q.failedAttempts = 0;
+					}
+				}
+				report(head, true);
+				continue;
+			}
+
+			int attempts;
+			List<Pending> failed = null;
+			synchronized (userQueues) {
+				UserQueue q = userQueues.get(userId);
+				if (q == null)
+					return; // stopped
+				attempts = ++q.failedAttempts;
+				if (attempts >= MAX_ATTEMPTS) {
+					failed = new ArrayList<>(q.items);
+					userQueues.remove(userId);
+				}
+			}
+			if (failed != null) {
+				for (Pending p : failed) {
+					report(p, false);
+				}
+				gaveUp.addAndGet(failed.size());
+				logger.accept("⚠️ SMS to userId=" + userId + " failed " + attempts + " times; " + failed.size()
+						+ " notifications left for a later retry.");
+				return;
+			}
+
+			retried.incrementAndGet();
+			long delay = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS * (long) Math.pow(3, attempts - 1));
+			try {
+				workerFor(userId).schedule(() -> drain(userId), delay, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				// stopping
+			}
+			return;
+		}
+	}
+
+	private void report(Pending p, boolean ok) {
+		report(p.n, ok);
+		for (Notification n : p.coalesced) {
+			report(n, ok);
+		}
+	}
+
+	private void report(Notification n, boolean ok) {
+		DeliveryListener l = listener;
+		if (l == null)
+			return;
+		try {
+			if (ok)
+				l.delivered(n);
+			else
+				l.failed(n);
+		} catch (RuntimeException e) {
+			logger.accept("❌ Notification delivery listener failed: " + e.getMessage());
+		}
+	}
+
+	private ScheduledExecutorService workerFor(int userId) {
+		return smsWorkers[Math.floorMod(userId, smsWorkers.length)];
+	}
+
+	private static long latencyMs(Notification n) {
+		if (n.getScheduledFor() == null)
+			return 0;
+		return Math.max(0, Duration.between(n.getScheduledFor(), LocalDateTime.now()).toMillis());
+	}
+}
@@ -53,48 +53,77 @@ public class NotificationDispatcher {
 	 * </ul>
 	 * </p>
 	 * <p>
-	 * For SMS notifications, a safe display message is shown in the UI, while the
-	 * full message content is preserved in the simulated SMS body.
+	 * This is the synchronous, single-attempt path; the server delivers through
+	 * {@link NotificationDeliveryPipeline}, which calls {@link #deliverEmail} and
+	 * {@link #deliverSms} on per-channel workers.
 	 * </p>
 	 *
 	 * @param n the notification entity to dispatch
 	 */
 	public void dispatch(Notification n) {
-
-		// EMAIL simulation -> log only (and mark as sent by scheduler)
 		if (n.getChannel() == Channel.EMAIL) {
-			logger.accept("📧 EMAIL-SIM | userId=" + n.getUserId() + " | " + n.getMessage());
+			deliverEmail(n);
 			return;
 		}
 
-		// SMS simulation -> popup (safe text) + channel message (full SMS content)
-		if (n.getChannel() == Channel.SMS) {
-			ConnectionToClient client = onlineUsers.getClient(n.getUserId());
+		if (n.getChannel() == Channel.SMS && !deliverSms(n))
+			logOfflineSms(n);
+	}
 
-			if (client == null) {
-				logger.accept("📩 SMS-SIM (OFFLINE) | userId=" + n.getUserId() + " | " + n.getMessage());
-				return;
-			}
+	/**
+	 * Delivers an EMAIL notification (simulation: logged only).
+	 *
+	 * @param n email notification
+	 */
+	public void deliverEmail(Notification n) {
+		logger.accept("📧 EMAIL-SIM | userId=" + n.getUserId() + " | " + n.getMessage());
+	}
 
-			try {
-				Type popupType = Type.INFO;
+	/**
+	 * Pushes an SMS notification to the user's client as a popup.
+	 * <p>
+	 * A safe display message is shown in the UI, while the full message content is
+	 * preserved in the simulated SMS body.
+	 * </p>
+	 *
+	 * @param n SMS notification
+	 * @return {@code true} if the popup was sent, {@code false} if the user is
+	 *         offline or sending failed
+	 */
+	public boolean deliverSms(Notification n) {
+		ConnectionToClient client = onlineUsers.getClient(n.getUserId());
+		if (client == null)
+			return false;
 
-				// Safe popup text (NO code / sensitive details)
-				String displayMessage = getSafeDisplayMessage(n);
+		try {
+			Type popupType = Type.INFO;
 
-				// The actual simulated SMS body (can include the code)
-				String smsBody = n.getMessage();
+			// Safe popup text (NO code / sensitive details)
+			String displayMessage = getSafeDisplayMessage(n);
 
-				client.sendToClient(new NotificationDTO(popupType, "SMS", displayMessage, smsBody));
+			// The actual simulated SMS body (can include the code)
+			String smsBody = n.getMessage();
 
-				logger.accept("📩 SMS-SIM (SENT) | userId=" + n.getUserId() + " | " + smsBody);
+			client.sendToClient(new NotificationDTO(popupType, "SMS", displayMessage, smsBody));
 
-			} catch (Exception e) {
-				logger.accept("❌ SMS-SIM error | userId=" + n.getUserId() + " | " + e.getMessage());
-			}
+			logger.accept("📩 SMS-SIM (SENT) | userId=" + n.getUserId() + " | " + smsBody);
+			return true;
+
+		} catch (Exception e) {
+			logger.accept("❌ SMS-SIM error | userId=" + n.getUserId() + " | " + e.getMessage());
+			return false;
 		}
 	}
 
+	/**
+	 * Records an SMS that could not be pushed because the user is offline.
+	 *
+	 * @param n SMS notification
+	 */
+	public void logOfflineSms(Notification n) {
+		logger.accept("📩 SMS-SIM (OFFLINE) | userId=" + n.getUserId() + " | " + n.getMessage());
+	}
+
 	/**
 	 * Generates a safe user-facing message for popup notifications.
 	 * <p>
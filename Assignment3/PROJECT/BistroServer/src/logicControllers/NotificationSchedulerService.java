@@ -1,105 +1,374 @@
 package logicControllers;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
+import application.ServerConfig;
 import dbControllers.Notification_DB_Controller;
 import entities.Notification;
 
 /**
  * Background service responsible for scheduling and dispatching notifications.
  * <p>
- * This service periodically queries the database for notifications that are due
- * to be sent and have not yet been marked as sent. Each due notification is
- * dispatched through {@link NotificationDispatcher} and then marked as sent to
- * prevent duplicate delivery.
+ * Notifications are fired on time by a {@link NotificationTimerWheel}:
+ * <ul>
+ * <li>At startup the wheel is loaded with the notifications of the next
+ * {@code ServerConfig.NOTIFICATION_WHEEL_HOURS} hours</li>
+ * <li>Every insert through {@link Notification_DB_Controller} is reported to the
+ * wheel by a schedule listener</li>
+ * <li>When an id comes due, it is claimed by id and handed to delivery (same
+ * claim rules as below, so an id is never handed off twice at once)</li>
+ * </ul>
  * </p>
  * <p>
- * The scheduler runs on a single-threaded {@link ScheduledExecutorService} to
- * ensure ordered and consistent processing.
+ * A low-frequency sweep (every {@code ServerConfig.NOTIFICATION_SWEEP_SECONDS})
+ * remains as the safety net: it refills the wheel with notifications that
+ * entered the window and drains anything due that was missed. The
+ * {@code notifications} table is processed as an outbox. Each sweep:
+ * <ol>
+ * <li>Claims a bounded batch of due, unsent rows with one
+ * {@code UPDATE ... LIMIT} stamped with a fresh claim token</li>
+ * <li>Hands the batch to the {@link NotificationDeliveryPipeline}, which
+ * delivers it asynchronously per channel and per user</li>
+ * <li>Releases the claim of the rows the pipeline did not accept, which are
+ * retried by a later batch</li>
+ * </ol>
+ * A handed-off row stays claimed until the pipeline reports it delivered; only
+ * then is it marked sent. A row whose delivery failed, or that was still queued
+ * when the server stopped, keeps its claim and is sent again once the lease
+ * expires.
+ * Batches repeat until the backlog is drained or the per-cycle limit is
+ * reached, so a large backlog (after an outage or restart) is sent in bounded
+ * steps instead of one huge list. A claim expires after
+ * {@value #CLAIM_LEASE_MINUTES} minutes.
+ * </p>
+ * <p>
+ * The service records backlog and lag metrics ({@link #getStats()}); delivery
+ * latency percentiles are kept by the pipeline.
+ * The sweep is a {@link SchedulingService} job in the {@code notifications}
+ * resource group; ids fired by the wheel are dispatched on the wheel's thread.
+ * Sweeps and wheel dispatches are synchronized, so they never overlap.
  * </p>
  */
 public class NotificationSchedulerService {
 
+	/**
+	 * Snapshot of the outbox metrics.
+	 */
+	public static final class Stats {
+		private final long backlog;
+		private final long lagMs;
+		private final long dispatchedTotal;
+		private final long batchesTotal;
+		private final long lastCycleMs;
+		private final int timerPending;
+
+		private Stats(long backlog, long lagMs, long dispatchedTotal, long batchesTotal, long lastCycleMs,
+				int timerPending) {
+			this.backlog = backlog;
+			this.lagMs = lagMs;
+			this.dispatchedTotal = dispatchedTotal;
+			this.batchesTotal = batchesTotal;
+			this.lastCycleMs = lastCycleMs;
+			this.timerPending = timerPending;
+		}
+
+		/**
+		 * @return due, unsent notifications after the last cycle
+		 */
+		public long getBacklog() {
+			return backlog;
+		}
+
+		/**
+		 * @return how long the oldest due notification has been waiting, in
+		 *         milliseconds ({@code 0} if the backlog is empty)
+		 */
+		public long getLagMs() {
+			return lagMs;
+		}
+
+		/**
+		 * @return notifications delivered and marked sent since startup
+		 */
+		public long getDispatchedTotal() {
+			return dispatchedTotal;
+		}
+
+		public long getBatchesTotal() {
+			return batchesTotal;
+		}
+
+		public long getLastCycleMs() {
+			return lastCycleMs;
+		}
+
+		/**
+		 * @return ids waiting in the timer wheel
+		 */
+		public int getTimerPending() {
+			return timerPending;
+		}
+
+		@Override
+		public String toString() {
+			return "backlog=" + backlog + ", lag=" + lagMs + " ms, dispatched=" + dispatchedTotal + ", batches="
+					+ batchesTotal + ", lastCycle=" + lastCycleMs + " ms, timerPending=" + timerPending;
+		}
+	}
+
+	private static final int CLAIM_LEASE_MINUTES = 5;
+	private static final int MAX_BATCHES_PER_CYCLE = 50;
+
 	private final Notification_DB_Controller db;
-	private final NotificationDispatcher dispatcher;
+	private final NotificationDeliveryPipeline pipeline;
 	private final Consumer<String> logger;
 
-	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+	private final NotificationTimerWheel wheel;
+	private final int wheelHours = Math.min(ServerConfig.NOTIFICATION_WHEEL_HOURS, 23);
+	/** Upper bound of the window already loaded into the wheel. */
+	private LocalDateTime wheelLoadedUntil;
+	private volatile boolean stopped;
+
+	private volatile Stats stats = new Stats(0, 0, 0, 0, 0, 0);
+	private final AtomicLong dispatchedTotal = new AtomicLong();
+	private long batchesTotal;
 
 	/**
 	 * Constructs a notification scheduler service.
 	 *
 	 * @param db         database controller used to fetch and update notifications
-	 * @param dispatcher dispatcher responsible for delivering notifications
+	 * @param pipeline   asynchronous delivery pipeline for dispatched notifications
 	 * @param logger     callback used for logging scheduler activity
 	 */
-	public NotificationSchedulerService(Notification_DB_Controller db, NotificationDispatcher dispatcher,
+	public NotificationSchedulerService(Notification_DB_Controller db, NotificationDeliveryPipeline pipeline,
 			Consumer<String> logger) {
 		this.db = db;
-		this.dispatcher = dispatcher;
+		this.pipeline = pipeline;
 		this.logger = logger;
+		this.wheel = new NotificationTimerWheel(this::onDue, logger);
+		pipeline.setDeliveryListener(new NotificationDeliveryPipeline.DeliveryListener() {
+			@Override
+			public void delivered(Notification n) {
+				onDelivered(n);
+			}
+
+			@Override
+			public void failed(Notification n) {
+				// keeps its claim; claimed again when the lease expires
+			}
+		});
 	}
 
 	/**
 	 * Starts the notification scheduler.
 	 * <p>
-	 * The scheduler periodically invokes the internal {@code tick} method at a
-	 * fixed rate, checking for due notifications and dispatching them.
+	 * Registers the schedule listener, loads the timer wheel with the upcoming
+	 * window and starts it, then registers the safety-net sweep as the
+	 * {@code notifications.sweep} job.
 	 * </p>
+	 *
+	 * @param scheduling service that runs the sweep
 	 */
-	public void start() {
-		executor.scheduleAtFixedRate(this::tick, 2, 30, TimeUnit.SECONDS);
+	public void start(SchedulingService scheduling) {
+		stopped = false;
+		db.setScheduleListener(this::onScheduled);
+		refillWheel();
+		wheel.start();
+		scheduling.schedule("notifications.sweep", 2, ServerConfig.NOTIFICATION_SWEEP_SECONDS, TimeUnit.SECONDS,
+				this::sweep, "notifications");
 		logger.accept("⏱️ Notification scheduler started.");
 	}
 
 	/**
 	 * Stops the notification scheduler immediately.
 	 * <p>
-	 * All scheduled tasks are cancelled and no further notifications will be
-	 * processed until the service is started again.
+	 * The timer wheel is stopped and further sweeps do nothing, so no more
+	 * notifications are processed.
 	 * </p>
 	 */
 	public void stop() {
-		executor.shutdownNow();
+		stopped = true;
+		db.setScheduleListener(null);
+		wheel.stop();
 		logger.accept("⏹️ Notification scheduler stopped.");
 	}
 
 	/**
-	 * Performs a single scheduler cycle.
+	 * @return outbox metrics as of the last cycle
+	 */
+	public Stats getStats() {
+		return stats;
+	}
+
+	/**
+	 * Performs a single sweep (safety net behind the timer wheel).
 	 * <p>
-	 * This method:
-	 * <ol>
-	 * <li>Fetches all notifications that are due and not yet sent</li>
-	 * <li>Dispatches each notification via {@link NotificationDispatcher}</li>
-	 * <li>Marks each notification as sent in the database</li>
-	 * </ol>
+	 * Refills the wheel, then claims and dispatches batches of {@code ServerConfig.NOTIFICATION_BATCH_SIZE}
+	 * until a batch comes back smaller than that (backlog drained) or
+	 * {@value #MAX_BATCHES_PER_CYCLE} batches were sent, then refreshes the
+	 * metrics.
 	 * </p>
 	 * <p>
 	 * Any exception during processing is caught and logged to ensure the scheduler
 	 * continues running.
 	 * </p>
 	 */
-	private void tick() {
+	private synchronized void sweep() {
+		if (stopped)
+			return;
+		refillWheel();
+
+		long startNs = System.nanoTime();
+		int handedOff = 0;
+		int batches = 0;
+
+		try {
+			int limit = ServerConfig.NOTIFICATION_BATCH_SIZE;
+			while (batches < MAX_BATCHES_PER_CYCLE) {
+				LocalDateTime now = LocalDateTime.now();
+				String token = UUID.randomUUID().toString();
+
+				List<Notification> batch = db.claimDue(now, token, limit, now.minusMinutes(CLAIM_LEASE_MINUTES));
+				if (batch.isEmpty())
+					break;
+
+				List<Integer> rejected = handOff(batch);
+				db.releaseClaim(token, rejected);
+
+				batches++;
+				handedOff += batch.size() - rejected.size();
+				if (batch.size() < limit)
+					break;
+			}
+
+		} catch (Exception e) {
+			logger.accept("❌ Notification scheduler error: " + e.getMessage());
+		}
+
+		batchesTotal += batches;
+		long cycleMs = (System.nanoTime() - startNs) / 1_000_000;
+
+		long backlog = stats.getBacklog();
+		long lagMs = stats.getLagMs();
 		try {
 			LocalDateTime now = LocalDateTime.now();
-			List<Notification> due = db.getDueUnsent(now);
+			Notification_DB_Controller.Backlog b = db.getDueBacklog(now);
+			backlog = b.getCount();
+			lagMs = b.getOldestDue() == null ? 0 : Math.max(0, Duration.between(b.getOldestDue(), now).toMillis());
+		} catch (Exception e) {
+			logger.accept("❌ Notification backlog check failed: " + e.getMessage());
+		}
+
+		stats = new Stats(backlog, lagMs, dispatchedTotal.get(), batchesTotal, cycleMs, wheel.size());
 
-			if (!due.isEmpty()) {
-				logger.accept("⏳ Due notifications found: " + due.size());
+		if (handedOff > 0 || backlog > 0) {
+			logger.accept("📤 Notifications handed off: " + handedOff + " in " + batches + " batches (" + stats
+					+ "; delivery " + pipeline.getStats() + ")");
+		}
+	}
+
+	/**
+	 * Loads notifications that entered the wheel window since the last load.
+	 */
+	private synchronized void refillWheel() {
+		try {
+			LocalDateTime now = LocalDateTime.now();
+			LocalDateTime until = now.plusHours(wheelHours);
+			LocalDateTime from = wheelLoadedUntil == null ? now : wheelLoadedUntil;
+			if (!until.isAfter(from))
+				return;
+
+			int loaded = 0;
+			for (Map.Entry<Integer, LocalDateTime> e : db.getUnsentScheduledBetween(from, until).entrySet()) {
+				if (wheel.schedule(e.getKey(), toEpochMs(e.getValue())))
+					loaded++;
 			}
+			if (wheelLoadedUntil == null)
+				logger.accept("⏱️ Notification timer loaded: " + loaded + " due in the next " + wheelHours + " h.");
+			wheelLoadedUntil = until;
+
+		} catch (Exception e) {
+			logger.accept("❌ Notification timer load failed: " + e.getMessage());
+		}
+	}
 
-			for (Notification n : due) {
-				dispatcher.dispatch(n);
-				db.markAsSent(n.getNotificationId(), now);
+	/**
+	 * Schedule listener: a new notification inside the window goes straight into
+	 * the wheel; later ones are loaded by a future sweep.
+	 */
+	private void onScheduled(Integer notificationId, LocalDateTime scheduledFor) {
+		if (scheduledFor.isAfter(LocalDateTime.now().plusHours(wheelHours)))
+			return;
+		wheel.schedule(notificationId, toEpochMs(scheduledFor));
+	}
+
+	/**
+	 * Wheel callback (wheel thread): claims the due ids and hands them to
+	 * delivery, in batches of {@code ServerConfig.NOTIFICATION_BATCH_SIZE}.
+	 */
+	private synchronized void onDue(List<Integer> ids) {
+		if (stopped)
+			return;
+		int limit = ServerConfig.NOTIFICATION_BATCH_SIZE;
+		for (int from = 0; from < ids.size(); from += limit) {
+			List<Integer> chunk = ids.subList(from, Math.min(from + limit, ids.size()));
+			try {
+				LocalDateTime now = LocalDateTime.now();
+				String token = UUID.randomUUID().toString();
+
+				List<Notification> batch = db.claimByIds(chunk, now, token, now.minusMinutes(CLAIM_LEASE_MINUTES));
+				if (batch.isEmpty())
+					continue;
+
+				db.releaseClaim(token, handOff(batch));
+				batchesTotal++;
+
+			} catch (Exception e) {
+				logger.accept("❌ Notification timer dispatch failed: " + e.getMessage());
 			}
+		}
+	}
+
+	private static long toEpochMs(LocalDateTime t) {
+		return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
 
+	/**
+	 * Hands a claimed batch to the delivery pipeline.
+	 *
+	 * @param batch claimed notifications, ordered by due time
+	 * @return ids of the notifications the pipeline did not accept
+	 */
+	private List<Integer> handOff(List<Notification> batch) {
+		List<Integer> rejected = new ArrayList<>();
+		for (Notification n : batch) {
+			if (!pipeline.submit(n))
+				rejected.add(n.getNotificationId());
+		}
+		return rejected;
+	}
+
+	/**
+	 * Delivery listener (pipeline thread): marks the row sent and counts it.
+	 * If marking fails the row keeps its claim and is sent again after the
+	 * lease, which is preferred over losing it.
+	 */
+	private void onDelivered(Notification n) {
+		try {
+			if (db.markDelivered(n.getNotificationId(), LocalDateTime.now()))
+				dispatchedTotal.incrementAndGet();
 		} catch (Exception e) {
-			logger.accept("❌ Notification scheduler error: " + e.getMessage());
+			logger.accept("❌ Notification " + n.getNotificationId() + " delivered but not marked sent: "
+					+ e.getMessage());
 		}
 	}
 }
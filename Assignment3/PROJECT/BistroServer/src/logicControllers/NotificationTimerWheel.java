@@ -0,0 +1,198 @@
+package logicControllers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel that fires notification ids at their
+ * {@code scheduled_for} time with one-second resolution.
+ * <p>
+ * The wheel has three levels:
+ * <ul>
+ * <li>60 one-second buckets (the next minute)</li>
+ * <li>60 one-minute buckets (the next hour)</li>
+ * <li>24 one-hour buckets (the next day)</li>
+ * </ul>
+ * An entry is placed on the lowest level that covers its delay. At every minute
+ * and hour boundary the matching bucket of the level above is cascaded down,
+ * so scheduling and firing are O(1) per entry regardless of how many entries
+ * are waiting. Entries more than {@value #SPAN_SECONDS} seconds ahead are
+ * rejected; the caller loads them later.
+ * </p>
+ * <p>
+ * A single-threaded {@link ScheduledExecutorService} advances the wheel once per
+ * second (catching up after pauses) and hands every batch of due ids to the
+ * {@code onDue} callback. Firing an id twice is harmless for callers that claim
+ * rows before sending them.
+ * </p>
+ */
+public class NotificationTimerWheel {
+
+	private static final int SECONDS = 60;
+	private static final int MINUTES = 60;
+	private static final int HOURS = 24;
+	private static final long SPAN_SECONDS = (long) SECONDS * MINUTES * HOURS;
+
+	private static final class Entry {
+		private final int id;
+		private final long dueTick;
+
+		private Entry(int id, long dueTick) {
+			this.id = id;
+			this.dueTick = dueTick;
+		}
+	}
+
+	private final List<Entry>[] secondBuckets = newBuckets(SECONDS);
+	private final List<Entry>[] minuteBuckets = newBuckets(MINUTES);
+	private final List<Entry>[] hourBuckets = newBuckets(HOURS);
+
+	private final Consumer<List<Integer>> onDue;
+	private final Consumer<String> logger;
+	private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+
+	/** Current time in whole seconds since the epoch; every tick up to it fired. */
+	private long currentTick;
+	private List<Integer> overdue = new ArrayList<>();
+	private int size;
+
+	/**
+	 * Constructs a wheel positioned at the current time.
+	 *
+	 * @param onDue  receives ids whose time has come (called on the ticker thread)
+	 * @param logger callback used for logging
+	 */
+	public NotificationTimerWheel(Consumer<List<Integer>> onDue, Consumer<String> logger) {
+		this.onDue = onDue;
+		this.logger = logger;
+		this.currentTick = System.currentTimeMillis() / 1000;
+	}
+
+	/**
+	 * Starts advancing the wheel once per second.
+	 */
+	public void start() {
+		ticker.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stops the wheel. Entries still waiting are dropped.
+	 */
+	public void stop() {
+		ticker.shutdownNow();
+	}
+
+	/**
+	 * Schedules an id.
+	 *
+	 * @param id    notification id
+	 * @param dueMs due time in epoch milliseconds
+	 * @return {@code true} if the entry was added, {@code false} if it is further
+	 *         ahead than the wheel span
+	 */
+	public synchronized boolean schedule(int id, long dueMs) {
+		long dueTick = (dueMs + 999) / 1000;
+		if (dueTick <= currentTick) {
+			overdue.add(id);
+			size++;
+			return true;
+		}
+		if (!place(new Entry(id, dueTick)))
+			return false;
+		size++;
+		return true;
+	}
+
+	/**
+	 * @return number of ids waiting in the wheel
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Advances the wheel to {@code nowMs} and returns the ids that became due.
+	 *
+	 * @param nowMs current time in epoch milliseconds
+	 * @return due ids (possibly empty)
+	 */
+	synchronized List<Integer> advanceTo(long nowMs) {
+		List<Integer> due = overdue;
+		overdue = new ArrayList<>();
+
+		long nowTick = nowMs / 1000;
+		while (currentTick < nowTick) {
+			currentTick++;
+
+			if (currentTick % SECONDS == 0) {
+				if (currentTick % ((long) SECONDS * MINUTES) == 0)
+					cascade(hourBuckets, (int) ((currentTick / (SECONDS * MINUTES)) % HOURS), due);
+				cascade(minuteBuckets, (int) ((currentTick / SECONDS) % MINUTES), due);
+			}
+
+			List<Entry> bucket = secondBuckets[(int) (currentTick % SECONDS)];
+			for (Entry e : bucket) {
+				due.add(e.id);
+			}
+			bucket.clear();
+		}
+
+		size -= due.size();
+		return due;
+	}
+
+	private void tick() {
+		try {
+			List<Integer> due = advanceTo(System.currentTimeMillis());
+			if (!due.isEmpty())
+				onDue.accept(due);
+		} catch (Exception e) {
+			logger.accept("❌ Notification timer wheel error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Re-places the entries of one bucket relative to the current tick.
+	 */
+	private void cascade(List<Entry>[] level, int index, List<Integer> due) {
+		List<Entry> bucket = level[index];
+		if (bucket.isEmpty())
+			return;
+
+		List<Entry> moving = new ArrayList<>(bucket);
+		bucket.clear();
+		for (Entry e : moving) {
+			if (e.dueTick < currentTick)
+				due.add(e.id);
+			else
+				place(e);
+		}
+	}
+
+	private boolean place(Entry e) {
+		long delta = e.dueTick - currentTick;
+		if (delta < SECONDS) {
+			secondBuckets[(int) (e.dueTick % SECONDS)].add(e);
+		} else if (delta < (long) SECONDS * MINUTES) {
+			minuteBuckets[(int) ((e.dueTick / SECONDS) % MINUTES)].add(e);
+		} else if (delta < SPAN_SECONDS) {
+			hourBuckets[(int) ((e.dueTick / (SECONDS * MINUTES)) % HOURS)].add(e);
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Entry>[] newBuckets(int n) {
+		List<Entry>[] buckets = (List<Entry>[]) new List<?>[n];
+		for (int i = 0; i < n; i++) {
+			buckets[i] = new ArrayList<>();
+		}
+		return buckets;
+	}
+}
@@ -0,0 +1,267 @@
+package logicControllers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import dbControllers.ReportCache_DB_Controller;
+
+/**
+ * Bounded LRU cache of built monthly reports.
+ * <p>
+ * Months are treated in two ways:
+ * <ul>
+ * <li><b>Closed months</b> (ended at least {@value #CLOSE_GRACE_DAYS} day ago,
+ * so late check-outs are in): the report is final. It is pinned, i.e. only a
+ * late correction invalidates it, and persisted as a serialized blob in
+ * {@code report_cache}; a closed month evicted from memory (or after a
+ * restart) is loaded from there instead of being rebuilt.</li>
+ * <li><b>Open months</b> (the current month, the grace day and future months):
+ * the report is kept in memory only and dropped by
+ * {@link #invalidate(LocalDate)} when a write touches that month, so the next
+ * request rebuilds it.</li>
+ * </ul>
+ * An invalidation also drops the following month, whose deltas are computed
+ * against the changed one. A report whose build overlapped an invalidation is
+ * returned but neither cached nor persisted.
+ * Memory holds at most {@code maxEntries} reports; the least recently used one
+ * is evicted first. Cached reports are shared between requests and must not be
+ * modified by callers.
+ * </p>
+ */
+public class ReportCache {
+
+	/**
+	 * Builds a report on a cache miss.
+	 *
+	 * @param <T> report type
+	 */
+	@FunctionalInterface
+	public interface Builder<T> {
+		T build() throws SQLException;
+	}
+
+	private static final int CLOSE_GRACE_DAYS = 1;
+
+	/** Only report DTOs and the JDK types they contain may be deserialized. */
+	private static final ObjectInputFilter BLOB_FILTER = ObjectInputFilter.Config
+			.createFilter("dto.*;java.util.*;java.lang.*;!*");
+
+	private final ReportCache_DB_Controller store;
+	private final Consumer<String> logger;
+	private final LinkedHashMap<String, Serializable> entries;
+
+	/** Incremented on every invalidation; a build started before it is not cached. */
+	private long generation;
+
+	/**
+	 * Constructs a cache.
+	 *
+	 * @param maxEntries maximum number of reports kept in memory
+	 * @param store      persistent store for closed months (may be {@code null}
+	 *                   to keep closed months in memory only)
+	 * @param logger     callback used for logging
+	 */
+	public ReportCache(int maxEntries, ReportCache_DB_Controller store, Consumer<String> logger) {
+		this.store = store;
+		this.logger = logger;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Serializable> eldest) {
+				return size() > Math.max(1, maxEntries);
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached report, or builds and caches it.
+	 *
+	 * @param <T>        report type
+	 * @param reportType report type key (e.g. {@code "TIME"})
+	 * @param month      report month
+	 * @param type       report class
+	 * @param builder    builds the report on a miss
+	 * @return the report (shared; do not modify)
+	 * @throws SQLException if the report has to be built and the build fails
+	 */
+	public <T extends Serializable> T get(String reportType, YearMonth month, Class<T> type, Builder<T> builder)
+			throws SQLException {
+		String key = key(reportType, month);
+		boolean closed = isClosed(month);
+		long startGeneration;
+
+		synchronized (this) {
+			Serializable cached = entries.get(key);
+			if (type.isInstance(cached))
+				return type.cast(cached);
+			startGeneration = generation;
+		}
+
+		if (closed) {
+			T stored = loadStored(reportType, month, type);
+			if (stored != null) {
+				put(key, stored, startGeneration);
+				return stored;
+			}
+		}
+
+		T built = builder.build();
+		if (put(key, built, startGeneration) && closed) {
+			persist(reportType, month, built);
+			// an invalidation between put and persist must not leave the blob behind
+			synchronized (this) {
+				if (generation == startGeneration)
+					return built;
+			}
+			deleteStored(month);
+		}
+		return built;
+	}
+
+	/**
+	 * Drops the cached reports of the month that contains {@code day} and of the
+	 * following month, whose month-over-month deltas are computed against it.
+	 * Closed months are also removed from {@code report_cache} (a late
+	 * correction).
+	 * <p>
+	 * Memory is dropped (and the generation bumped) both before and after the
+	 * stored rows are deleted: a lookup that starts in between may still read
+	 * the old blob, and the second pass discards whatever it cached.
+	 * </p>
+	 *
+	 * @param day day whose report data changed
+	 */
+	public void invalidate(LocalDate day) {
+		if (day == null)
+			return;
+		YearMonth month = YearMonth.from(day);
+		YearMonth next = month.plusMonths(1);
+		String suffix = ":" + month;
+		String nextSuffix = ":" + next;
+
+		drop(suffix, nextSuffix);
+		deleteStored(month);
+		deleteStored(next);
+		drop(suffix, nextSuffix);
+	}
+
+	/**
+	 * Drops every cached report, in memory and in {@code report_cache}.
+	 */
+	public void clear() {
+		dropAll();
+		if (store != null) {
+			try {
+				store.clear();
+			} catch (SQLException e) {
+				logger.accept("❌ Report cache: failed to clear stored reports: " + e.getMessage());
+			}
+		}
+		dropAll();
+	}
+
+	/**
+	 * @return number of reports held in memory
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	// ====Internals====
+
+	/**
+	 * Drops the reports of the months with the given key suffixes from memory and
+	 * bumps the generation.
+	 */
+	private synchronized void drop(String suffix, String nextSuffix) {
+		generation++;
+		Iterator<String> it = entries.keySet().iterator();
+		while (it.hasNext()) {
+			String key = it.next();
+			if (key.endsWith(suffix) || key.endsWith(nextSuffix))
+				it.remove();
+		}
+	}
+
+	private synchronized void dropAll() {
+		generation++;
+		entries.clear();
+	}
+
+	/**
+	 * Caches a report unless an invalidation happened since the lookup started
+	 * (the report may then be stale).
+	 *
+	 * @return {@code true} if the report was cached
+	 */
+	private synchronized boolean put(String key, Serializable report, long startGeneration) {
+		if (generation != startGeneration)
+			return false;
+		entries.put(key, report);
+		return true;
+	}
+
+	private void deleteStored(YearMonth month) {
+		if (!isClosed(month) || store == null)
+			return;
+		try {
+			store.delete(month);
+		} catch (SQLException e) {
+			logger.accept("❌ Report cache: failed to delete stored " + month + ": " + e.getMessage());
+		}
+	}
+
+	private static boolean isClosed(YearMonth month) {
+		return !LocalDate.now().minusDays(CLOSE_GRACE_DAYS).isBefore(month.plusMonths(1).atDay(1));
+	}
+
+	private static String key(String reportType, YearMonth month) {
+		return reportType + ":" + month;
+	}
+
+	private <T extends Serializable> T loadStored(String reportType, YearMonth month, Class<T> type) {
+		if (store == null)
+			return null;
+		try {
+			byte[] payload = store.load(reportType, month);
+			if (payload == null)
+				return null;
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+				in.setObjectInputFilter(BLOB_FILTER);
+				Object o = in.readObject();
+				return type.isInstance(o) ? type.cast(o) : null;
+			}
+		} catch (SQLException | IOException | ClassNotFoundException e) {
+			// unreadable (e.g. the DTO class changed): rebuild and overwrite
+			logger.accept("⚠️ Report cache: stored " + reportType + " " + month + " ignored: " + e.getMessage());
+			return null;
+		}
+	}
+
+	private void persist(String reportType, YearMonth month, Serializable report) {
+		if (store == null)
+			return;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(report);
+			}
+			store.store(reportType, month, bytes.toByteArray());
+		} catch (SQLException | IOException e) {
+			logger.accept("❌ Report cache: failed to store " + reportType + " " + month + ": " + e.getMessage());
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package logicControllers;
 
+import dbControllers.ReportAggregates_DB_Controller;
+import dbControllers.ReportAggregates_DB_Controller.DailyAggregate;
 import dbControllers.Reservation_DB_Controller;
 import dbControllers.Waiting_DB_Controller;
 import dbControllers.User_DB_Controller;
@@ -11,6 +13,7 @@ import entities.Reservation;
 
 import java.sql.SQLException;
 import java.time.Duration;
+import java.time.YearMonth;
 import java.util.*;
 
 /**
@@ -27,12 +30,28 @@ import java.util.*;
  * The controller acts as a logic layer that performs computations and grouping
  * on raw database results, returning structured DTO objects for the UI layer.
  * </p>
+ * <p>
+ * When report aggregates are set ({@link #setAggregatesDB}), both reports are
+ * computed from the per-day rows of {@code report_daily_aggregates} (at most
+ * 62 rows for a month and the month before) instead of scanning the
+ * reservation and waiting tables.
+ * </p>
+ * <p>
+ * When a {@link ReportCache} is set, built reports are cached: closed months
+ * are built once and then served from the cache, the current month is rebuilt
+ * only after a write invalidated it.
+ * </p>
  */
 public class ReportsController {
 
 	private final Reservation_DB_Controller reservationDB;
 	private final Waiting_DB_Controller waitingDB;
 	private final User_DB_Controller userDB;
+	private ReportAggregates_DB_Controller aggregatesDB;
+	private ReportCache reportCache;
+
+	private static final String TIME_REPORT = "TIME";
+	private static final String SUBSCRIBERS_REPORT = "SUBSCRIBERS";
 
 	/**
 	 * Constructs a ReportsController with the required database controllers.
@@ -51,6 +70,26 @@ public class ReportsController {
 		this.userDB = userDB;
 	}
 
+	/**
+	 * Sets the pre-aggregated report tables used to build the reports.
+	 *
+	 * @param aggregatesDB aggregates controller (may be {@code null} to compute
+	 *                     the reports from the raw tables)
+	 */
+	public void setAggregatesDB(ReportAggregates_DB_Controller aggregatesDB) {
+		this.aggregatesDB = aggregatesDB;
+	}
+
+	/**
+	 * Sets the cache for built reports.
+	 *
+	 * @param reportCache report cache (may be {@code null} to build every
+	 *                    request)
+	 */
+	public void setReportCache(ReportCache reportCache) {
+		this.reportCache = reportCache;
+	}
+
 	// =====================================================
 	// TIME REPORT
 	// =====================================================
@@ -78,6 +117,19 @@ public class ReportsController {
 	 * @throws SQLException if a database error occurs while fetching reservations
 	 */
 	public TimeReportDTO buildTimeReport(int year, int month) throws SQLException {
+		if (reportCache != null)
+			return reportCache.get(TIME_REPORT, YearMonth.of(year, month), TimeReportDTO.class,
+					() -> computeTimeReport(year, month));
+		return computeTimeReport(year, month);
+	}
+
+	/**
+	 * Builds the Time Report without the cache.
+	 */
+	private TimeReportDTO computeTimeReport(int year, int month) throws SQLException {
+
+		if (aggregatesDB != null)
+			return buildTimeReportFromAggregates(year, month);
 
 		ArrayList<Reservation> finished = reservationDB.getFinishedReservationsByMonth(year, month);
 
@@ -224,7 +276,7 @@ public class ReportsController {
 	 * <ul>
 	 * <li><b>Active vs. inactive subscribers</b> during the selected month</li>
 	 * <li><b>Waiting list activity</b>: number of subscriber waiting-list entries
-	 * per day</li>
+	 * seated per day (offers that expired or were cancelled do not count)</li>
 	 * <li><b>Reservations trend</b>: number of subscriber reservations per day</li>
 	 * </ul>
 	 * </p>
@@ -240,11 +292,26 @@ public class ReportsController {
 	 * @throws SQLException if a database error occurs while fetching report data
 	 */
 	public SubscribersReportDTO buildSubscribersReport(int year, int month) throws SQLException {
+		if (reportCache != null)
+			return reportCache.get(SUBSCRIBERS_REPORT, YearMonth.of(year, month), SubscribersReportDTO.class,
+					() -> computeSubscribersReport(year, month));
+		return computeSubscribersReport(year, month);
+	}
+
+	/**
+	 * Builds the Subscribers Report without the cache.
+	 */
+	private SubscribersReportDTO computeSubscribersReport(int year, int month) throws SQLException {
 
 		SubscribersReportDTO dto = new SubscribersReportDTO();
 		dto.setYear(year);
 		dto.setMonth(month);
 
+		if (aggregatesDB != null) {
+			fillSubscribersReportFromAggregates(dto, year, month);
+			return dto;
+		}
+
 		// ================= TAB 1: Active / Inactive Subscribers =================
 
 		// TAB 1: Active / Inactive Subscribers (MONTHLY)
@@ -301,4 +368,152 @@ public class ReportsController {
 		return dto;
 	}
 
+	// =====================================================
+	// REPORTS FROM AGGREGATES
+	// =====================================================
+
+	/**
+	 * Builds the Time Report from the daily aggregates. Produces the same values
+	 * as the raw computation: arrivals and stays are both recorded when a
+	 * reservation is finished, per-day average stays are whole minutes and the
+	 * monthly average is the average of the day averages.
+	 */
+	private TimeReportDTO buildTimeReportFromAggregates(int year, int month) throws SQLException {
+
+		Map<Integer, DailyAggregate> days = aggregatesDB.getDailyAggregates(year, month);
+
+		TimeReportDTO dto = new TimeReportDTO();
+
+		int onTime = 0;
+		int minorDelay = 0;
+		int significantDelay = 0;
+
+		Map<Integer, Integer> avgStayPerDay = new TreeMap<>();
+
+		int monthlySum = 0;
+		int daysCount = 0;
+
+		int maxAvg = Integer.MIN_VALUE;
+		int minAvg = Integer.MAX_VALUE;
+		int maxDay = -1;
+		int minDay = -1;
+
+		for (Map.Entry<Integer, DailyAggregate> entry : days.entrySet()) {
+
+			int day = entry.getKey();
+			DailyAggregate a = entry.getValue();
+
+			onTime += a.getOnTime();
+			minorDelay += a.getMinorDelay();
+			significantDelay += a.getSignificantDelay();
+
+			if (a.getStayCount() <= 0)
+				continue;
+
+			int avg = (int) (a.getStayMinutesSum() / a.getStayCount());
+
+			avgStayPerDay.put(day, avg);
+
+			monthlySum += avg;
+			daysCount++;
+
+			if (avg > maxAvg) {
+				maxAvg = avg;
+				maxDay = day;
+			}
+
+			if (avg < minAvg) {
+				minAvg = avg;
+				minDay = day;
+			}
+		}
+
+		dto.setOnTimeCount(onTime);
+		dto.setMinorDelayCount(minorDelay);
+		dto.setSignificantDelayCount(significantDelay);
+		dto.setAvgStayMinutesPerDay(avgStayPerDay);
+
+		if (daysCount > 0) {
+			dto.setMonthlyAvgStay(monthlySum / daysCount);
+			dto.setMaxAvgDay(maxDay);
+			dto.setMaxAvgMinutes(maxAvg);
+			dto.setMinAvgDay(minDay);
+			dto.setMinAvgMinutes(minAvg);
+		}
+
+		int[] prev = previousMonth(year, month);
+		int prevOnTime = 0;
+		int prevMinor = 0;
+		int prevMajor = 0;
+
+		for (DailyAggregate a : aggregatesDB.getDailyAggregates(prev[0], prev[1]).values()) {
+			prevOnTime += a.getOnTime();
+			prevMinor += a.getMinorDelay();
+			prevMajor += a.getSignificantDelay();
+		}
+		// every finished reservation has exactly one arrival bucket
+		boolean prevHasData = prevOnTime + prevMinor + prevMajor > 0;
+
+		if (prevHasData) {
+			dto.setOnTimeDelta(onTime - prevOnTime);
+			dto.setMinorDelayDelta(minorDelay - prevMinor);
+			dto.setSignificantDelayDelta(significantDelay - prevMajor);
+		}
+
+		return dto;
+	}
+
+	/**
+	 * Fills the Subscribers Report from the daily aggregates and the monthly
+	 * active-subscriber rows.
+	 */
+	private void fillSubscribersReportFromAggregates(SubscribersReportDTO dto, int year, int month)
+			throws SQLException {
+
+		int activeSubscribers = aggregatesDB.countActiveSubscribers(year, month);
+		int inactiveSubscribers = Math.max(0, aggregatesDB.countSubscribers() - activeSubscribers);
+
+		dto.setActiveSubscribersCount(activeSubscribers);
+		dto.setInactiveSubscribersCount(inactiveSubscribers);
+
+		Map<Integer, Integer> waitingPerDay = new HashMap<>();
+		Map<Integer, Integer> reservationsPerDay = new HashMap<>();
+		int currentWaitingTotal = 0;
+		int currentReservationsTotal = 0;
+
+		for (Map.Entry<Integer, DailyAggregate> entry : aggregatesDB.getDailyAggregates(year, month).entrySet()) {
+			DailyAggregate a = entry.getValue();
+			if (a.getSubscriberWaitings() > 0)
+				waitingPerDay.put(entry.getKey(), a.getSubscriberWaitings());
+			if (a.getSubscriberReservations() > 0)
+				reservationsPerDay.put(entry.getKey(), a.getSubscriberReservations());
+			currentWaitingTotal += a.getSubscriberWaitings();
+			currentReservationsTotal += a.getSubscriberReservations();
+		}
+
+		dto.setWaitingListPerDay(waitingPerDay);
+		dto.setReservationsPerDay(reservationsPerDay);
+
+		int[] prev = previousMonth(year, month);
+		int prevActive = aggregatesDB.countActiveSubscribers(prev[0], prev[1]);
+		int prevWaitingTotal = 0;
+		int prevReservationsTotal = 0;
+
+		for (DailyAggregate a : aggregatesDB.getDailyAggregates(prev[0], prev[1]).values()) {
+			prevWaitingTotal += a.getSubscriberWaitings();
+			prevReservationsTotal += a.getSubscriberReservations();
+		}
+
+		dto.setActiveSubscribersDelta(activeSubscribers - prevActive);
+		dto.setWaitingTotalDelta(currentWaitingTotal - prevWaitingTotal);
+		dto.setReservationsTotalDelta(currentReservationsTotal - prevReservationsTotal);
+	}
+
+	/**
+	 * @return {@code {year, month}} of the month before the given one
+	 */
+	private static int[] previousMonth(int year, int month) {
+		return month == 1 ? new int[] { year - 1, 12 } : new int[] { year, month - 1 };
+	}
+
 }
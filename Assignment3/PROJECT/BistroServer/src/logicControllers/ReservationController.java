@@ -8,9 +8,15 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import application.RestaurantServer;
+import application.ServerConfig;
 import dbControllers.Notification_DB_Controller;
 import dbControllers.Receipt_DB_Controller;
 import dbControllers.Reservation_DB_Controller;
@@ -21,6 +27,7 @@ import entities.Restaurant;
 import entities.Table;
 import entities.User;
 import entities.Notification;
+import entities.OpeningHouers;
 import entities.Enums;
 import logicControllers.WaitingController;
 import dto.GetTableResultDTO;
@@ -58,6 +65,9 @@ public class ReservationController {
 
 
     private WaitingController waitingController;
+    private ConfirmationCodeAllocator codeAllocator;
+    private TableRelocationPlanner relocationPlanner;
+    private DeadlineQueue<Integer> checkinDeadlines;
     private final Map<Integer, PendingReservationCheckin> pendingCheckins = new ConcurrentHashMap<>();
 
     /**
@@ -127,6 +137,72 @@ public class ReservationController {
         this.waitingController = waitingController;
     }
 
+    /**
+     * Sets the planner used to relocate reservations of deleted tables.
+     *
+     * @param relocationPlanner bulk relocation planner
+     */
+    public void setRelocationPlanner(TableRelocationPlanner relocationPlanner) {
+        this.relocationPlanner = relocationPlanner;
+    }
+
+    /**
+     * Sets the shared confirmation code allocator after construction.
+     *
+     * @param codeAllocator allocator that issues unique confirmation codes
+     */
+    public void setConfirmationCodeAllocator(ConfirmationCodeAllocator codeAllocator) {
+        this.codeAllocator = codeAllocator;
+    }
+
+    /**
+     * Sets the queue that fires the check-in deadline of each reservation
+     * ({@link #expireReservations(List)} is its callback).
+     *
+     * @param checkinDeadlines deadline queue keyed by reservation id
+     */
+    public void setCheckinDeadlines(DeadlineQueue<Integer> checkinDeadlines) {
+        this.checkinDeadlines = checkinDeadlines;
+    }
+
+    /**
+     * Loads the check-in deadline of every active reservation that has not checked in.
+     *
+     * @return number of deadlines scheduled
+     * @throws SQLException if the reservations cannot be read
+     */
+    public int rebuildCheckinDeadlines() throws SQLException {
+        if (checkinDeadlines == null) return 0;
+
+        Map<Integer, LocalDateTime> pending = db.getPendingCheckinTimes();
+        for (Map.Entry<Integer, LocalDateTime> e : pending.entrySet()) {
+            scheduleCheckinDeadline(e.getKey(), e.getValue());
+        }
+        return pending.size();
+    }
+
+    private void scheduleCheckinDeadline(int reservationId, LocalDateTime start) {
+        if (checkinDeadlines != null && reservationId > 0 && start != null)
+            checkinDeadlines.schedule(reservationId, start.plusMinutes(CHECKIN_GRACE_MINUTES));
+    }
+
+    /**
+     * Assigns a unique confirmation code to a new reservation.
+     * <p>
+     * Falls back to the entity's random code when no allocator is configured.
+     * </p>
+     *
+     * @param res reservation to update
+     * @throws SQLException if the allocator cannot reserve a new counter block
+     */
+    private void assignConfirmationCode(Reservation res) throws SQLException {
+        if (codeAllocator == null) {
+            res.generateAndSetConfirmationCode();
+            return;
+        }
+        res.setConfirmationCode(codeAllocator.nextCode());
+    }
+
     // ====NOTIFICATIONS (SCHEDULED)====
 
     /**
@@ -159,20 +235,11 @@ public class ReservationController {
             String smsBody = "Reminder: Your reservation is in 2 hours. Confirmation code: " + confirmationCode;
             String emailBody = "Reminder: Your reservation is in 2 hours. Confirmation code: " + confirmationCode;
 
-            notificationDB.addNotification(new Notification(
-                    userId,
-                    Enums.Channel.SMS,
-                    Enums.NotificationType.RESERVATION_REMINDER_2H,
-                    smsBody,
-                    scheduledFor
-            ));
-
-            notificationDB.addNotification(new Notification(
-                    userId,
-                    Enums.Channel.EMAIL,
-                    Enums.NotificationType.RESERVATION_REMINDER_2H,
-                    emailBody,
-                    scheduledFor
+            notificationDB.addNotifications(List.of(
+                    new Notification(userId, Enums.Channel.SMS,
+                            Enums.NotificationType.RESERVATION_REMINDER_2H, smsBody, scheduledFor),
+                    new Notification(userId, Enums.Channel.EMAIL,
+                            Enums.NotificationType.RESERVATION_REMINDER_2H, emailBody, scheduledFor)
             ));
 
         } catch (Exception e) {
@@ -283,7 +350,7 @@ public class ReservationController {
     /**
      * After a reservation cancellation/finish releases a table, triggers waiting-list logic.
      * <p>
-     * The method attempts to resolve the freed {@link Table} from the {@link Restaurant} cache.
+     * The method attempts to resolve the freed {@link Table} from the current {@link RestaurantSnapshot}.
      * If not found, it falls back to a minimal {@link Table} instance (with a best-effort seats amount).
      * </p>
      *
@@ -294,18 +361,11 @@ public class ReservationController {
         if (tableNumber == null) return;
 
         try {
-            // Try to find the real table object from Restaurant cache (so we have correct seats_amount)
+            // Resolve the real table from the restaurant snapshot (so we have correct seats_amount)
             Table freed = null;
 
             try {
-                // If your Restaurant singleton keeps tables in memory, use it
-                // (common in your project because you load tables into Restaurant cache).
-                for (Table t : restaurant.getTables()) {
-                    if (t != null && t.getTableNumber() == tableNumber) {
-                        freed = t;
-                        break;
-                    }
-                }
+                freed = restaurantController.getSnapshot().getTable(tableNumber);
             } catch (Exception ignore) {}
 
             // Fallback: minimal table (won't crash, but seats may be missing if cache isn't loaded)
@@ -316,7 +376,7 @@ public class ReservationController {
                 freed.setSeatsAmount(Integer.MAX_VALUE);
             }
 
-            waitingController.handleTableFreed(freed);
+            waitingController.onTableFreed(freed);
 
         } catch (Exception e) {
             server.log("ERROR: notifyWaitingTableFreed failed. Table=" + tableNumber + ", Msg=" + e.getMessage());
@@ -356,7 +416,7 @@ public class ReservationController {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime requested = LocalDateTime.of(dto.getDate(), dto.getTime());
 
-        if (requested.isBefore(now.plusHours(1)) || requested.isAfter(now.plusMonths(1))) {
+        if (requested.isBefore(now.plusHours(1)) || requested.isAfter(now.plusDays(ServerConfig.BOOKING_HORIZON_DAYS))) {
             server.log("WARN: Invalid reservation time. UserId=" + dto.getUserId());
             return null;
         }
@@ -389,9 +449,10 @@ public class ReservationController {
         res.setActive(true);
         res.setReservationStatus(ReservationStatus.Active);
         res.setCreatedByRole(dto.getRole());
-        res.generateAndSetConfirmationCode();
 
         try {
+            assignConfirmationCode(res);
+
             int reservationId = db.addReservation(
                     res.getReservationTime(),
                     dto.getGuests(),
@@ -406,6 +467,7 @@ public class ReservationController {
                 return null;
             }
             res.setReservationId(reservationId);
+            scheduleCheckinDeadline(reservationId, requested);
 
             // schedule reminder 2 hours before
             scheduleReservationReminder2HoursBefore(dto.getUserId(), requested, res.getConfirmationCode());
@@ -422,86 +484,57 @@ public class ReservationController {
     /**
      * Relocates or cancels upcoming active reservations when a table is deleted.
      * <p>
-     * For each active reservation of the deleted table within the next {@code days}:
-     * <ul>
-     *   <li>Try to find an alternative available table (excluding the deleted one)</li>
-     *   <li>If no alternative exists or locking fails, cancel the reservation</li>
-     *   <li>If relocation succeeds, update the reservation table number in the database</li>
-     * </ul>
+     * The work is delegated to {@link TableRelocationPlanner}, which loads all affected
+     * reservations and the grid once, computes a best-fit reassignment in memory and applies
+     * it in a single transaction. Customers of cancelled reservations are then notified with
+     * one batch insert.
      * </p>
      *
      * @param tableNumber deleted table number
      * @param days        how many days ahead to scan for affected reservations
-     * @return number of reservations that were cancelled or successfully relocated
+     * @return report of moved and cancelled reservations, or {@code null} if relocation failed
+     *         (nothing was changed)
      */
-    public int relocateOrCancelReservationsForDeletedTable(int tableNumber, int days) {
-        int affected = 0;
+    public TableRelocationPlanner.RelocationReport relocateOrCancelReservationsForDeletedTable(
+            int tableNumber, int days) {
+        if (relocationPlanner == null) {
+            server.log("ERROR: relocateOrCancelReservationsForDeletedTable - no relocation planner configured.");
+            return null;
+        }
 
         try {
-            ArrayList<Reservation> list =
-                    db.getActiveReservationsForTableInNextDays(tableNumber, days);
-
-            for (Reservation r : list) {
-                if (r == null || r.getReservationTime() == null) continue;
+            TableRelocationPlanner.RelocationReport report =
+                    relocationPlanner.relocate(tableNumber, days,
+                            restaurantController.getSnapshot().getCapacityIndex());
 
-                LocalDateTime start = r.getReservationTime();
-                int guests = r.getGuestAmount();
-
-                Table newTable = restaurantController.getOneAvailableTableAtExcluding(start, guests, tableNumber);
+            for (TableRelocationPlanner.Move m : report.getMoved()) {
+                server.log("DELETE TABLE: Reservation relocated. " + m);
+            }
 
-                if (newTable == null) {
+            if (!report.getCancelled().isEmpty()) {
+                List<Notification> batch = new ArrayList<>();
+                for (Reservation r : report.getCancelled()) {
                     server.log("DELETE TABLE: Cancelling reservation (no alternative table). Code=" +
-                            r.getConfirmationCode() + " Time=" + start + " OldTable=" + tableNumber);
-
-                    CancelReservation(r.getConfirmationCode()); // משחרר סלוטים + מעדכן DB
-                    affected++;
-                    continue;
+                            r.getConfirmationCode() + " Time=" + r.getReservationTime() + " OldTable=" + tableNumber);
+                    batch.add(buildCancelledPopup(r, "Your reservation was cancelled."));
                 }
 
-                int newTableNum = newTable.getTableNumber();
-
-                boolean locked = tryReserveForTwoHours(start, newTableNum);
-                if (!locked) {
-                    server.log("DELETE TABLE: Cancelling reservation (failed locking new table). Code=" +
-                            r.getConfirmationCode() + " Time=" + start + " NewTable=" + newTableNum);
-
-                    CancelReservation(r.getConfirmationCode());
-                    affected++;
-                    continue;
-                }
-
-                for (int i = 0; i < 4; i++) {
-                    try { restaurantController.releaseSlot(start.plusMinutes(30L * i), tableNumber); }
-                    catch (Exception ignore) {}
-                }
-
-                boolean updated = db.updateReservationTableNumber(r.getReservationId(), newTableNum);
-                if (!updated) {
-                    for (int i = 0; i < 4; i++) {
-                        try { restaurantController.releaseSlot(start.plusMinutes(30L * i), newTableNum); }
-                        catch (Exception ignore) {}
-                    }
-                    for (int i = 0; i < 4; i++) {
-                        try { restaurantController.tryReserveSlot(start.plusMinutes(30L * i), tableNumber); }
-                        catch (Exception ignore) {}
+                if (notificationDB != null) {
+                    try {
+                        notificationDB.addNotifications(batch);
+                    } catch (SQLException e) {
+                        server.log("ERROR: Failed to enqueue relocation cancel notifications. Msg=" + e.getMessage());
                     }
-
-                    server.log("DELETE TABLE: Failed updating reservation table_number -> kept original. Code=" +
-                            r.getConfirmationCode());
-                    continue;
                 }
-
-                server.log("DELETE TABLE: Reservation relocated. Code=" + r.getConfirmationCode() +
-                        " Time=" + start + " " + tableNumber + " -> " + newTableNum);
-
-                affected++;
             }
 
+            server.log("DELETE TABLE: Relocation finished (" + report + ")");
+            return report;
+
         } catch (Exception e) {
             server.log("ERROR: relocateOrCancelReservationsForDeletedTable failed. " + e.getMessage());
+            return null;
         }
-
-        return affected;
     }
 
     /**
@@ -545,6 +578,7 @@ public class ReservationController {
                 rollbackReservation(start, tableNumber);
                 return false;
             }
+            scheduleCheckinDeadline(reservationId, start);
 
             scheduleReservationReminder2HoursBefore(user.getUserId(), start, confirmationCode.trim());
 
@@ -633,25 +667,33 @@ public class ReservationController {
         if (notificationDB == null || r == null) return;
 
         try {
-            LocalDateTime now = LocalDateTime.now();
-
-            String smsBody =
-                    "Your reservation was cancelled. Confirmation code: " + r.getConfirmationCode() +
-                    (reason != null && !reason.isBlank() ? " Reason: " + reason : "");
-
-            notificationDB.addNotification(new Notification(
-                    r.getCreatedByUserId(),
-                    Enums.Channel.SMS,
-                    Enums.NotificationType.RESERVATION_CANCELLED, // תוסיפי ENUM כזה
-                    smsBody,
-                    now
-            ));
-
+            notificationDB.addNotifications(List.of(buildCancelledPopup(r, reason)));
         } catch (Exception e) {
             server.log("ERROR: scheduleReservationCancelledPopupForLogin failed: " + e.getMessage());
         }
     }
 
+    /**
+     * Builds the immediate SMS cancellation notification shown on the user's next login.
+     *
+     * @param r      cancelled reservation
+     * @param reason optional cancellation reason message
+     * @return notification scheduled for now
+     */
+    private Notification buildCancelledPopup(Reservation r, String reason) {
+        String smsBody =
+                "Your reservation was cancelled. Confirmation code: " + r.getConfirmationCode() +
+                (reason != null && !reason.isBlank() ? " Reason: " + reason : "");
+
+        return new Notification(
+                r.getCreatedByUserId(),
+                Enums.Channel.SMS,
+                Enums.NotificationType.RESERVATION_CANCELLED,
+                smsBody,
+                LocalDateTime.now()
+        );
+    }
+
 
    
 
@@ -1051,6 +1093,7 @@ public class ReservationController {
             }
 
             res.setReservationId(reservationId);
+            scheduleCheckinDeadline(reservationId, start);
 
             scheduleReservationReminder2HoursBefore(user.getUserId(), start, confirmationCode);
 
@@ -1226,20 +1269,11 @@ public class ReservationController {
                         "Your reserved table is now available. Please check in with your confirmation code: " +
                         pending.confirmationCode;
 
-                notificationDB.addNotification(new Notification(
-                        pending.userId,
-                        Enums.Channel.SMS,
-                        Enums.NotificationType.TABLE_AVAILABLE,
-                        body,
-                        now
-                ));
-
-                notificationDB.addNotification(new Notification(
-                        pending.userId,
-                        Enums.Channel.EMAIL,
-                        Enums.NotificationType.TABLE_AVAILABLE,
-                        body,
-                        now
+                notificationDB.addNotifications(List.of(
+                        new Notification(pending.userId, Enums.Channel.SMS,
+                                Enums.NotificationType.TABLE_AVAILABLE, body, now),
+                        new Notification(pending.userId, Enums.Channel.EMAIL,
+                                Enums.NotificationType.TABLE_AVAILABLE, body, now)
                 ));
             }
 
@@ -1267,6 +1301,7 @@ public class ReservationController {
         try {
             boolean success = db.updateFullReservationDetails(res);
             if (success) {
+                scheduleCheckinDeadline(res.getReservationId(), res.getReservationTime());
                 server.log("Reservation updated by manager. ID=" + res.getReservationId());
             }
             return success;
@@ -1303,60 +1338,215 @@ public class ReservationController {
         return out;
     }
     
- // ====AUTO-CANCEL: reservations without check-in (15 min)=====
+    // ====AUTO-CANCEL: reservations without check-in (15 min)=====
+
+    /** Maximum number of expired reservations claimed per transaction. */
+    private static final int AUTO_CANCEL_CHUNK = 100;
+
+    /** Upper bound of chunks per run, so one run cannot monopolize the shared connection. */
+    private static final int AUTO_CANCEL_MAX_CHUNKS = 20;
 
+    /** Minutes after the reservation time until an unchecked reservation is cancelled. */
+    private static final int CHECKIN_GRACE_MINUTES = 15;
+
+    /**
+     * Per-run metrics of {@link #cancelReservationsWithoutCheckinAfterGracePeriod()}.
+     */
+    public static final class AutoCancelReport {
+        private final int cancelled;
+        private final int chunks;
+        private final int gridRowsReleased;
+        private final int tablesFreed;
+        private final int notificationsQueued;
+        private final long elapsedMs;
+
+        private AutoCancelReport(int cancelled, int chunks, int gridRowsReleased, int tablesFreed,
+                                 int notificationsQueued, long elapsedMs) {
+            this.cancelled = cancelled;
+            this.chunks = chunks;
+            this.gridRowsReleased = gridRowsReleased;
+            this.tablesFreed = tablesFreed;
+            this.notificationsQueued = notificationsQueued;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public int getCancelled() { return cancelled; }
+
+        public int getChunks() { return chunks; }
+
+        public int getGridRowsReleased() { return gridRowsReleased; }
+
+        public int getTablesFreed() { return tablesFreed; }
+
+        public int getNotificationsQueued() { return notificationsQueued; }
+
+        public long getElapsedMs() { return elapsedMs; }
+
+        @Override
+        public String toString() {
+            return "cancelled=" + cancelled + ", chunks=" + chunks + ", gridRows=" + gridRowsReleased
+                    + ", tablesFreed=" + tablesFreed + ", notifications=" + notificationsQueued
+                    + ", " + elapsedMs + " ms";
+        }
+    }
 
     /**
      * Automatically cancels reservations that were not checked-in within the grace period.
      * <p>
-     * The grace period is 15 minutes after the reservation time. For each expired reservation,
-     * {@link #CancelReservation(String)} is invoked (which releases table slots and updates the DB).
+     * The grace period is 15 minutes after the reservation time. Expired reservations are
+     * processed as a batch pipeline:
+     * <ol>
+     *   <li>Chunks of up to {@value #AUTO_CANCEL_CHUNK} reservations are claimed and cancelled
+     *       in one transaction each ({@code SELECT ... FOR UPDATE} + one {@code UPDATE})</li>
+     *   <li>The slot ranges of each chunk are released with one grid update</li>
+     *   <li>The cancellation notifications of each chunk are inserted with one batch insert</li>
+     *   <li>After all chunks, table-freed events (waiting list and pending check-ins) are emitted
+     *       once per distinct table</li>
+     * </ol>
+     * </p>
+     * <p>
+     * With a check-in deadline queue this is the safety net; each reservation is normally
+     * cancelled on time by {@link #expireReservations(List)}.
      * </p>
      *
-     * @return number of reservations cancelled due to missing check-in after 15 minutes
+     * @return per-run metrics (never {@code null})
      */
- public int cancelReservationsWithoutCheckinAfterGracePeriod() {
+    public AutoCancelReport cancelReservationsWithoutCheckinAfterGracePeriod() {
+        long startNs = System.nanoTime();
 
-     int cancelledCount = 0;
+        int cancelled = 0;
+        int chunks = 0;
+        int[] gridRowsAndNotifications = new int[2];
+        Set<Integer> freedTables = new LinkedHashSet<>();
 
-     try {
-         LocalDateTime now = LocalDateTime.now();
+        try {
+            LocalDateTime threshold = LocalDateTime.now().minusMinutes(CHECKIN_GRACE_MINUTES);
 
-        
-         ArrayList<String> expiredCodes =
-                 db.getReservationsWithoutCheckinExpired(now.minusMinutes(15));
+            while (chunks < AUTO_CANCEL_MAX_CHUNKS) {
+                List<Reservation> claimed = db.claimExpiredWithoutCheckin(threshold, AUTO_CANCEL_CHUNK);
+                if (claimed.isEmpty()) break;
+
+                chunks++;
+                cancelled += claimed.size();
+                finishAutoCancelChunk(claimed, freedTables, gridRowsAndNotifications);
+
+                if (claimed.size() < AUTO_CANCEL_CHUNK) break;
+            }
+        } catch (Exception e) {
+            server.log("ERROR: cancelReservationsWithoutCheckinAfterGracePeriod failed. " + e.getMessage());
+        }
+
+        announceFreedTables(freedTables);
+
+        long ms = (System.nanoTime() - startNs) / 1_000_000;
+        return new AutoCancelReport(cancelled, chunks, gridRowsAndNotifications[0], freedTables.size(),
+                gridRowsAndNotifications[1], ms);
+    }
+
+    /**
+     * Deadline-queue callback: cancels the given reservations if they still have not
+     * checked in 15 minutes after their start time.
+     * <p>
+     * Only the listed rows are touched. Reservations that were checked in, cancelled or
+     * moved to a later time in the meantime are skipped by the claim query.
+     * </p>
+     *
+     * @param reservationIds reservations whose deadline passed
+     * @return per-call metrics (never {@code null})
+     */
+    public AutoCancelReport expireReservations(List<Integer> reservationIds) {
+        long startNs = System.nanoTime();
 
-         for (String code : expiredCodes) {
-             if (code == null) continue;
+        int cancelled = 0;
+        int chunks = 0;
+        int[] gridRowsAndNotifications = new int[2];
+        Set<Integer> freedTables = new LinkedHashSet<>();
 
-             boolean cancelled = CancelReservation(code);
-             if (cancelled) {
-                 cancelledCount++;
+        try {
+            LocalDateTime threshold = LocalDateTime.now().minusMinutes(CHECKIN_GRACE_MINUTES);
 
-                 server.log(
-                     "Reservation auto-cancelled (no check-in after 15 min): " + code
-                 );
-             }
-         }
+            for (int from = 0; from < reservationIds.size(); from += AUTO_CANCEL_CHUNK) {
+                List<Integer> ids = reservationIds.subList(from,
+                        Math.min(from + AUTO_CANCEL_CHUNK, reservationIds.size()));
+                List<Reservation> claimed = db.claimExpiredWithoutCheckinByIds(ids, threshold);
+                if (claimed.isEmpty()) continue;
 
-         return cancelledCount;
+                chunks++;
+                cancelled += claimed.size();
+                finishAutoCancelChunk(claimed, freedTables, gridRowsAndNotifications);
+            }
+        } catch (Exception e) {
+            server.log("ERROR: expireReservations failed. " + e.getMessage());
+        }
 
-     } catch (Exception e) {
-         server.log(
-             "ERROR: cancelReservationsWithoutCheckinAfterGracePeriod failed. " + e.getMessage()
-         );
-         return 0;
-     }
- }
+        announceFreedTables(freedTables);
 
+        long ms = (System.nanoTime() - startNs) / 1_000_000;
+        return new AutoCancelReport(cancelled, chunks, gridRowsAndNotifications[0], freedTables.size(),
+                gridRowsAndNotifications[1], ms);
+    }
 
+    /**
+     * Releases the slots and queues the notifications of one chunk of cancelled reservations.
+     *
+     * @param claimed                  reservations cancelled by the chunk
+     * @param freedTables              collects the tables of the chunk
+     * @param gridRowsAndNotifications running totals: {@code [0]} grid rows released,
+     *                                 {@code [1]} notifications queued
+     */
+    private void finishAutoCancelChunk(List<Reservation> claimed, Set<Integer> freedTables,
+                                       int[] gridRowsAndNotifications) {
+        Map<Integer, List<LocalDateTime>> slotsByTable = new HashMap<>();
+        List<Notification> batch = new ArrayList<>();
+        List<String> codes = new ArrayList<>();
+
+        for (Reservation r : claimed) {
+            codes.add(r.getConfirmationCode());
+            batch.add(buildCancelledPopup(r, "Your reservation was cancelled."));
+
+            Integer tableNum = r.getTableNumber();
+            if (tableNum == null || r.getReservationTime() == null) continue;
+
+            List<LocalDateTime> slots = slotsByTable.computeIfAbsent(tableNum, k -> new ArrayList<>());
+            for (int i = 0; i < 4; i++) {
+                slots.add(r.getReservationTime().plusMinutes(30L * i));
+            }
+            freedTables.add(tableNum);
+        }
+
+        try {
+            gridRowsAndNotifications[0] += restaurantController.releaseSlotsBulk(slotsByTable);
+        } catch (Exception e) {
+            server.log("ERROR: Failed releasing slots during auto-cancel. Msg=" + e.getMessage());
+        }
+
+        if (notificationDB != null) {
+            try {
+                gridRowsAndNotifications[1] += notificationDB.addNotifications(batch);
+            } catch (SQLException e) {
+                server.log("ERROR: Failed to enqueue auto-cancel notifications. Msg=" + e.getMessage());
+            }
+        }
+
+        server.log("Reservations auto-cancelled (no check-in after 15 min): " + codes);
+    }
+
+    /**
+     * Emits table-freed events (waiting list and pending check-ins) once per table.
+     * Tables of chunks that were already committed are announced even if a later chunk failed.
+     */
+    private void announceFreedTables(Set<Integer> freedTables) {
+        for (Integer tableNum : freedTables) {
+            notifyWaitingTableFreed(tableNum);
+            notifyPendingReservationCheckins(tableNum);
+        }
+    }
 
     /**
      * Cancels active reservations that become invalid due to an opening-hours change.
      * <p>
-     * The method scans active reservations on the specified {@code date} (limited to one month ahead),
-     * determines whether each reservation time is outside the new opening hours, and cancels invalid reservations.
-     * When cancellation occurs, the customer is notified via SMS and Email.
+     * Single-date convenience wrapper around the set-based path used by
+     * {@link #cancelReservationsDueToOpeningHoursChange(Map)}.
      * </p>
      *
      * @param date      date whose reservations should be evaluated
@@ -1371,59 +1561,156 @@ public class ReservationController {
             LocalTime newClose,
             boolean isClosed
     ) {
+        if (date == null) return 0;
 
-        int cancelledCount = 0;
+        Map<LocalDate, LocalTime[]> hours = new HashMap<>();
+        hours.put(date, (isClosed || newOpen == null || newClose == null) ? null : new LocalTime[] { newOpen, newClose });
+        return cancelReservationsOutsideHours(hours);
+    }
 
-        try {
-            if (date.isAfter(LocalDate.now().plusMonths(1))) {
-                server.log("Skip cancel: date beyond 1 month: " + date);
-                return 0;
+    /**
+     * Cancels active reservations on several dates that become invalid due to an opening-hours change.
+     *
+     * @param effectiveHoursByDate new effective hours per date; a {@code null} value (or blank times) means
+     *                             the restaurant is closed on that date
+     * @return number of reservations cancelled due to opening-hours change
+     */
+    public int cancelReservationsDueToOpeningHoursChange(Map<LocalDate, OpeningHouers> effectiveHoursByDate) {
+        if (effectiveHoursByDate == null || effectiveHoursByDate.isEmpty()) return 0;
+
+        Map<LocalDate, LocalTime[]> hours = new HashMap<>();
+        for (Map.Entry<LocalDate, OpeningHouers> e : effectiveHoursByDate.entrySet()) {
+            hours.put(e.getKey(), GridHorizonMaterializer.toOpenClose(e.getValue()));
+        }
+        return cancelReservationsOutsideHours(hours);
+    }
+
+    /**
+     * Set-based cancellation of reservations that fall outside new opening hours.
+     * <p>
+     * Each phase is a single round trip regardless of the number of reservations:
+     * <ol>
+     *   <li>One range query loads the active reservations of all affected dates</li>
+     *   <li>Reservations starting before opening or less than two hours before closing
+     *       (or on a closed date) are locked and cancelled in one transaction</li>
+     *   <li>The slots of the rows actually cancelled are released with one grid update</li>
+     *   <li>All customer notifications are inserted with one multi-row insert</li>
+     * </ol>
+     * Waiting-list and pending check-in hooks run once per freed table, and only for
+     * reservations of today (future tables are not relevant to walk-ins).
+     * Dates beyond the booking horizon are skipped.
+     * </p>
+     *
+     * @param hoursByDate {@code [open, close]} per date, or {@code null} for a closed date
+     * @return number of reservations cancelled
+     */
+    private int cancelReservationsOutsideHours(Map<LocalDate, LocalTime[]> hoursByDate) {
+        TreeMap<LocalDate, LocalTime[]> dates = new TreeMap<>();
+        LocalDate limit = LocalDate.now().plusDays(ServerConfig.BOOKING_HORIZON_DAYS);
+        for (Map.Entry<LocalDate, LocalTime[]> e : hoursByDate.entrySet()) {
+            if (e.getKey() == null) continue;
+            if (e.getKey().isAfter(limit)) {
+                server.log("Skip cancel: date beyond booking horizon: " + e.getKey());
+                continue;
             }
+            dates.put(e.getKey(), e.getValue());
+        }
+        if (dates.isEmpty()) return 0;
+
+        try {
+            // 1) one range query over all affected dates
+            ArrayList<Reservation> candidates = db.getActiveReservationsBetween(
+                    dates.firstKey().atStartOfDay(), dates.lastKey().plusDays(1).atStartOfDay());
 
-            ArrayList<Reservation> reservations =
-                    db.getActiveReservationsByDate(date);
+            List<Reservation> invalid = new ArrayList<>();
+            for (Reservation r : candidates) {
+                if (r.getReservationTime() == null) continue;
 
-            for (Reservation r : reservations) {
+                LocalDate d = r.getReservationTime().toLocalDate();
+                if (!dates.containsKey(d)) continue;
 
+                LocalTime[] hours = dates.get(d);
                 LocalTime resTime = r.getReservationTime().toLocalTime();
 
-                boolean invalid;
+                boolean isInvalid = hours == null
+                        || resTime.isBefore(hours[0])
+                        || resTime.isAfter(hours[1].minusHours(2));
 
-                if (isClosed) {
-                    invalid = true;
-                } else {
-                    invalid =
-                            resTime.isBefore(newOpen) ||
-                            resTime.isAfter(newClose.minusHours(2));
-                }
+                if (isInvalid) invalid.add(r);
+            }
+            if (invalid.isEmpty()) return 0;
+
+            // 2) lock and cancel in one transaction; later steps only see rows cancelled here
+            List<Integer> ids = new ArrayList<>();
+            for (Reservation r : invalid) ids.add(r.getReservationId());
+
+            List<Reservation> cancelledRows = db.claimAndCancelActiveByIds(ids);
+            int cancelled = cancelledRows.size();
+            if (cancelled != invalid.size()) {
+                server.log("WARN: Opening-hours cancel changed " + cancelled + " of " + invalid.size()
+                        + " reservations (others changed concurrently).");
+            }
+            if (cancelledRows.isEmpty()) return 0;
 
-                if (!invalid) continue;
+            // 3) one grid update releasing all slots
+            Map<Integer, List<LocalDateTime>> slotsByTable = new HashMap<>();
+            Set<Integer> freedToday = new LinkedHashSet<>();
+            LocalDate today = LocalDate.now();
 
-                boolean cancelled = CancelReservation(r.getConfirmationCode());
+            for (Reservation r : cancelledRows) {
+                Integer tableNum = r.getTableNumber();
+                if (tableNum == null) continue;
 
-                if (cancelled) {
-                    cancelledCount++;
+                List<LocalDateTime> slots = slotsByTable.computeIfAbsent(tableNum, k -> new ArrayList<>());
+                for (int i = 0; i < 4; i++) {
+                    slots.add(r.getReservationTime().plusMinutes(30L * i));
+                }
+                if (r.getReservationTime().toLocalDate().equals(today)) freedToday.add(tableNum);
+            }
+
+            try {
+                restaurantController.releaseSlotsBulk(slotsByTable);
+            } catch (Exception e) {
+                server.log("ERROR: Failed releasing slots during opening-hours cancel. Msg=" + e.getMessage());
+            }
 
-                    notifyReservationCancelledOpeningHours(r);
+            // 4) one batch insert for all notifications
+            if (notificationDB != null) {
+                List<Notification> batch = new ArrayList<>();
+                for (Reservation r : cancelledRows) {
+                    batch.add(buildCancelledPopup(r, "Your reservation was cancelled."));
+                    batch.addAll(buildOpeningHoursCancelledNotifications(r));
+                }
+                try {
+                    notificationDB.addNotifications(batch);
+                } catch (SQLException e) {
+                    server.log("ERROR: Failed to enqueue opening-hours cancel notifications. Msg=" + e.getMessage());
                 }
             }
 
+            // 5) same-day tables only, once per table
+            for (Integer tableNum : freedToday) {
+                notifyWaitingTableFreed(tableNum);
+                notifyPendingReservationCheckins(tableNum);
+            }
+
+            server.log("Opening-hours change: cancelled " + cancelled + " reservations across "
+                    + dates.size() + " date(s).");
+            return cancelled;
+
         } catch (Exception e) {
             server.log("ERROR: cancelReservationsDueToOpeningHoursChange failed: " + e.getMessage());
+            return 0;
         }
-
-        return cancelledCount;
     }
-    
+
     /**
-     * Sends cancellation notifications (SMS and Email) for a reservation cancelled due to opening-hours changes.
+     * Builds the SMS and Email notifications for a reservation cancelled due to opening-hours changes.
      *
      * @param r cancelled reservation
+     * @return SMS and Email notifications, scheduled for now
      */
-    private void notifyReservationCancelledOpeningHours(Reservation r) {
-
-        if (notificationDB == null || r == null) return;
-
+    private List<Notification> buildOpeningHoursCancelledNotifications(Reservation r) {
         LocalDateTime now = LocalDateTime.now();
 
         String body =
@@ -1433,31 +1720,11 @@ public class ReservationController {
             r.getReservationTime().toLocalTime().toString().substring(0,5) +
             " was cancelled due to a change in opening hours.";
 
-        try {
-			notificationDB.addNotification(new Notification(
-			        r.getCreatedByUserId(),
-			        Enums.Channel.SMS,
-			        Enums.NotificationType.RESERVATION_CANCELLED_OPENING_HOURS,
-			        body,
-			        now
-			));
-		} catch (SQLException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-
-        try {
-			notificationDB.addNotification(new Notification(
-			        r.getCreatedByUserId(),
-			        Enums.Channel.EMAIL,
-			        Enums.NotificationType.RESERVATION_CANCELLED_OPENING_HOURS,
-			        body,
-			        now
-			));
-		} catch (SQLException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+        return List.of(
+                new Notification(r.getCreatedByUserId(), Enums.Channel.SMS,
+                        Enums.NotificationType.RESERVATION_CANCELLED_OPENING_HOURS, body, now),
+                new Notification(r.getCreatedByUserId(), Enums.Channel.EMAIL,
+                        Enums.NotificationType.RESERVATION_CANCELLED_OPENING_HOURS, body, now));
     }
 
     /**
@@ -1,5 +1,6 @@
 package logicControllers;
 
+import application.ServerConfig;
 import dbControllers.Reservation_DB_Controller;
 import dbControllers.Restaurant_DB_Controller;
 import dbControllers.SpecialOpeningHours_DB_Controller;
@@ -12,6 +13,7 @@ import java.sql.SQLException;
 import java.time.*;
 import java.time.format.TextStyle;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Provides restaurant-level business logic for tables, opening hours, and
@@ -24,15 +26,17 @@ import java.util.*;
  * updates)</li>
  * <li>Managing weekly opening hours and date-specific overrides (special
  * opening hours)</li>
- * <li>Building and synchronizing the availability grid for the next 30
- * days</li>
+ * <li>Materializing the availability grid lazily within the booking horizon
+ * (with a small pre-warmed window) and keeping it synchronized</li>
  * <li>Querying and reserving availability slots for reservation operations</li>
  * </ul>
  * </p>
  * <p>
- * The controller maintains a reference to the {@link Restaurant} singleton as
- * an in-memory cache for relatively stable data (e.g., tables and opening
- * hours).
+ * Tables and weekly opening hours are served from an immutable
+ * {@link RestaurantSnapshot} that is replaced atomically on every change
+ * (copy-on-write), so readers never lock, copy or re-sort. The
+ * {@link Restaurant} singleton is still refreshed with new lists for legacy
+ * readers, but it is never mutated in place.
  * </p>
  */
 public class RestaurantController {
@@ -65,6 +69,10 @@ public class RestaurantController {
 
 	private SpecialOpeningHours_DB_Controller specialDB;
 
+	private final AtomicReference<RestaurantSnapshot> snapshot = new AtomicReference<>(RestaurantSnapshot.empty());
+	private final EffectiveHoursCache hoursCache = new EffectiveHoursCache();
+	private final GridHorizonMaterializer gridMaterializer;
+
 	/**
 	 * Constructs a RestaurantController with the given database controller.
 	 *
@@ -74,6 +82,7 @@ public class RestaurantController {
 	public RestaurantController(Restaurant_DB_Controller db) {
 		this.db = db;
 		this.restaurant = Restaurant.getInstance();
+		this.gridMaterializer = new GridHorizonMaterializer(db, this::getEffectiveOpeningHoursForDate);
 	}
 
 	/**
@@ -89,20 +98,22 @@ public class RestaurantController {
 	// ====TABLES====
 
 	/**
-	 * Loads tables from the database into the {@link Restaurant} cache.
+	 * Loads tables from the database and publishes a new snapshot.
 	 *
 	 * @throws SQLException if the database query fails
 	 */
 	public void loadTablesFromDb() throws SQLException {
-		db.loadTables();
+		ArrayList<Table> loaded = db.loadTables();
+		publish(snapshot.updateAndGet(s -> s.withTables(loaded)));
 	}
 
 	/**
-	 * Saves a new table or updates an existing table, both in the cache and in the
-	 * database.
+	 * Saves a new table or updates an existing table, both in the database and in
+	 * the snapshot.
 	 * <p>
 	 * After saving, the availability grid schema is ensured to match the current
-	 * sorted table list.
+	 * sorted table list. Together with {@link #removeTable(int)} this is the only
+	 * request path that may alter the grid schema.
 	 * </p>
 	 *
 	 * @param t table to save or update
@@ -112,25 +123,9 @@ public class RestaurantController {
 		if (t == null)
 			return;
 
-		if (restaurant.getTables() == null) {
-			restaurant.setTables(new ArrayList<>());
-		}
-
-		Table existing = null;
-		for (Table x : restaurant.getTables()) {
-			if (x.getTableNumber() == t.getTableNumber()) {
-				existing = x;
-				break;
-			}
-		}
-
-		if (existing == null) {
-			restaurant.getTables().add(t);
-		} else {
-			existing.setSeatsAmount(t.getSeatsAmount());
-		}
-
+		getSnapshot(); // make sure the other tables are loaded before copying
 		db.saveTable(t);
+		publish(snapshot.updateAndGet(s -> s.withTable(t)));
 
 		List<Table> tables = getSortedTablesEnsured();
 		db.ensureAvailabilityGridSchema(tables);
@@ -141,8 +136,9 @@ public class RestaurantController {
 	 * accordingly.
 	 * <p>
 	 * If a {@link ReservationController} is available, upcoming reservations for
-	 * the deleted table are first relocated or cancelled to ensure consistency
-	 * before the deletion occurs.
+	 * the deleted table are first relocated or cancelled in one transaction (see
+	 * {@link TableRelocationPlanner}) before the deletion occurs. If relocation
+	 * fails, the table keeps its reservations and the deletion is blocked.
 	 * </p>
 	 *
 	 * @param tableNumber table number to remove
@@ -151,26 +147,16 @@ public class RestaurantController {
 	 * @throws SQLException if a database operation fails
 	 */
 	public boolean removeTable(int tableNumber) throws SQLException {
-		List<Table> tables = getSortedTablesEnsured();
-		db.ensureAvailabilityGridSchema(tables);
-
 		if (reservationController != null) {
-			reservationController.relocateOrCancelReservationsForDeletedTable(tableNumber, 30);
+			reservationController.relocateOrCancelReservationsForDeletedTable(tableNumber,
+					ServerConfig.BOOKING_HORIZON_DAYS);
 		}
 
-		boolean deleted = db.deleteTable(tableNumber);
+		boolean deleted = db.deleteTable(tableNumber, ServerConfig.BOOKING_HORIZON_DAYS);
 		if (!deleted)
 			return false;
 
-		Table toRemove = null;
-		for (Table t : restaurant.getTables()) {
-			if (t.getTableNumber() == tableNumber) {
-				toRemove = t;
-				break;
-			}
-		}
-		if (toRemove != null)
-			restaurant.getTables().remove(toRemove);
+		publish(snapshot.updateAndGet(s -> s.withoutTable(tableNumber)));
 
 		db.dropTableColumnFromGrid(tableNumber);
 
@@ -192,40 +178,20 @@ public class RestaurantController {
 		if (slot == null || peopleCount <= 0)
 			return null;
 
-		List<Table> tables = getSortedTablesEnsured();
-		db.ensureAvailabilityGridSchema(tables);
-
-		List<Table> candidates = new ArrayList<>();
-		for (Table t : tables) {
-			if (t.getTableNumber() == excludeTableNumber)
-				continue;
-			if (t.getSeatsAmount() >= peopleCount)
-				candidates.add(t);
-		}
-		if (candidates.isEmpty())
-			return null;
-
-		Integer freeTableNumber = db.findOneFreeTableNumberAtSlot(slot, candidates);
-		if (freeTableNumber == null)
-			return null;
-
-		for (Table t : candidates) {
-			if (t.getTableNumber() == freeTableNumber)
-				return t;
-		}
-		return null;
+		ensureGridForDate(slot.toLocalDate());
+		return findBestFitFreeTable(slot, peopleCount, Set.of(excludeTableNumber));
 	}
 
 	// ====OPENING HOURS====
 
 	/**
-	 * Loads weekly opening hours from the database into the {@link Restaurant}
-	 * cache.
+	 * Loads weekly opening hours from the database and publishes a new snapshot.
 	 *
 	 * @throws SQLException if the database query fails
 	 */
 	public void loadOpeningHoursFromDb() throws SQLException {
-		db.loadOpeningHours();
+		ArrayList<OpeningHouers> loaded = db.loadOpeningHours();
+		publish(snapshot.updateAndGet(s -> s.withOpeningHours(loaded)));
 	}
 
 	/**
@@ -239,22 +205,47 @@ public class RestaurantController {
 			return;
 		db.updateOpeningHours(oh);
 		loadOpeningHoursFromDb();
+
+		if (oh.getDayOfWeek() != null) {
+			String day = oh.getDayOfWeek().trim();
+			hoursCache.invalidateIf(
+					d -> d.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH).equalsIgnoreCase(day));
+		}
 	}
 
 	/**
-	 * Retrieves weekly opening hours from the cache, refreshing it from the
-	 * database first.
+	 * Inserts or updates a special opening-hours override and invalidates the
+	 * cached effective hours for that date.
+	 *
+	 * @param special special opening hours to persist
+	 * @return {@code true} if the row was written, otherwise {@code false}
+	 * @throws SQLException if a database operation fails
+	 */
+	public boolean updateSpecialOpeningHours(SpecialOpeningHours special) throws SQLException {
+		if (special == null || specialDB == null)
+			return false;
+
+		boolean ok = specialDB.upsertSpecialHours(special);
+		hoursCache.invalidate(special.getSpecialDate());
+		return ok;
+	}
+
+	/**
+	 * Retrieves weekly opening hours from the cache.
+	 * <p>
+	 * The cache is loaded at startup and refreshed by
+	 * {@link #updateOpeningHours(OpeningHouers)}, so the database is only queried
+	 * here when the cache is still empty.
+	 * </p>
 	 *
 	 * @return a copy of the opening hours list (never {@code null})
 	 * @throws SQLException if loading opening hours fails
 	 */
 	public ArrayList<OpeningHouers> getOpeningHours() throws SQLException {
-		loadOpeningHoursFromDb();
-
-		ArrayList<OpeningHouers> list = restaurant.getOpeningHours();
-		if (list == null)
-			return new ArrayList<>();
-		return new ArrayList<>(list);
+		if (!snapshot.get().hasOpeningHours()) {
+			loadOpeningHoursFromDb();
+		}
+		return new ArrayList<>(snapshot.get().getOpeningHours());
 	}
 
 	/**
@@ -267,17 +258,7 @@ public class RestaurantController {
 	private OpeningHouers findOpeningHoursForDate(LocalDate date) {
 		String fullEn = date.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH);
 
-		if (restaurant.getOpeningHours() == null)
-			return null;
-
-		for (OpeningHouers oh : restaurant.getOpeningHours()) {
-			if (oh == null || oh.getDayOfWeek() == null)
-				continue;
-			if (oh.getDayOfWeek().trim().equalsIgnoreCase(fullEn)) {
-				return oh;
-			}
-		}
-		return null;
+		return snapshot.get().getOpeningHoursForDay(fullEn);
 	}
 
 	/**
@@ -293,6 +274,10 @@ public class RestaurantController {
 	 * When the date is marked as closed in special opening hours, the returned
 	 * {@link OpeningHouers} contains {@code null} open/close times.
 	 * </p>
+	 * <p>
+	 * Results are served from {@link EffectiveHoursCache}. If the special-hours
+	 * lookup fails, the weekly hours are returned without being cached.
+	 * </p>
 	 *
 	 * @param date target date
 	 * @return effective {@link OpeningHouers} for that date, or {@code null} if no
@@ -303,88 +288,186 @@ public class RestaurantController {
 		if (date == null)
 			return null;
 
+		try {
+			return hoursCache.get(date, this::resolveEffectiveOpeningHours);
+		} catch (Exception e) {
+			return findOpeningHoursForDate(date);
+		}
+	}
+
+	/**
+	 * Resolves effective opening hours for a date directly from the special-hours
+	 * table and the weekly cache (no effective-hours caching).
+	 *
+	 * @param date target date
+	 * @return effective hours, or {@code null} if no data exists
+	 * @throws SQLException if the special-hours lookup fails
+	 */
+	private OpeningHouers resolveEffectiveOpeningHours(LocalDate date) throws SQLException {
+		if (specialDB != null) {
+			SpecialOpeningHours sp = specialDB.getSpecialHoursByDate(date);
+			if (sp != null)
+				return toOpeningHours(sp);
+		}
+		return findOpeningHoursForDate(date);
+	}
+
+	/**
+	 * Precomputes effective opening hours for {@code days} dates starting at
+	 * {@code start}.
+	 * <p>
+	 * Special overrides for the whole range are read with a single query; dates
+	 * before {@code start} are evicted from the cache.
+	 * </p>
+	 *
+	 * @param start first date (inclusive)
+	 * @param days  number of dates to precompute
+	 * @throws SQLException if reading special opening hours fails
+	 */
+	public void precomputeEffectiveHours(LocalDate start, int days) throws SQLException {
+		long loadGeneration = hoursCache.currentGeneration();
+		Map<LocalDate, SpecialOpeningHours> specials = new HashMap<>();
 		if (specialDB != null) {
-			try {
-				SpecialOpeningHours sp = specialDB.getSpecialHoursByDate(date);
-				if (sp != null) {
-					OpeningHouers oh = new OpeningHouers();
-					oh.setDayOfWeek(date.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH));
-
-					if (sp.isClosed()) {
-						oh.setOpenTime(null);
-						oh.setCloseTime(null);
-					} else {
-						oh.setOpenTime(sp.getOpenTime() == null ? null : sp.getOpenTime().toString());
-						oh.setCloseTime(sp.getCloseTime() == null ? null : sp.getCloseTime().toString());
-					}
-					return oh;
-				}
-			} catch (Exception e) {
+			for (SpecialOpeningHours sp : specialDB.getSpecialHoursBetween(start, start.plusDays(days))) {
+				specials.put(sp.getSpecialDate(), sp);
 			}
 		}
 
-		return findOpeningHoursForDate(date);
+		hoursCache.evictBefore(start);
+		for (int i = 0; i < days; i++) {
+			LocalDate d = start.plusDays(i);
+			SpecialOpeningHours sp = specials.get(d);
+			if (!hoursCache.put(d, sp != null ? toOpeningHours(sp) : findOpeningHoursForDate(d), loadGeneration))
+				break; // invalidated meanwhile: remaining dates load on demand
+		}
+	}
+
+	/**
+	 * Converts a special opening-hours row into an {@link OpeningHouers} value.
+	 *
+	 * @param sp special opening hours
+	 * @return opening hours with {@code null} times when the date is closed
+	 */
+	private OpeningHouers toOpeningHours(SpecialOpeningHours sp) {
+		OpeningHouers oh = new OpeningHouers();
+		oh.setDayOfWeek(sp.getSpecialDate().getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH));
+
+		if (sp.isClosed()) {
+			oh.setOpenTime(null);
+			oh.setCloseTime(null);
+		} else {
+			oh.setOpenTime(sp.getOpenTime() == null ? null : sp.getOpenTime().toString());
+			oh.setCloseTime(sp.getCloseTime() == null ? null : sp.getCloseTime().toString());
+		}
+		return oh;
+	}
+
+	/**
+	 * Returns the effective opening-hours cache (for metrics).
+	 *
+	 * @return the effective-hours cache
+	 */
+	public EffectiveHoursCache getEffectiveHoursCache() {
+		return hoursCache;
 	}
 
 	// ====AVAILABILITY GRID====
 
 	/**
-	 * Initializes the availability grid for the next 30 days.
+	 * Loads the tables and verifies the availability grid schema once.
 	 * <p>
-	 * The method ensures table schema is aligned, deletes past slots, and then
-	 * initializes new slots using the effective opening hours for each date.
+	 * After this call the known grid columns are tracked in memory by the
+	 * {@link dbControllers.SchemaRegistry}, so availability lookups never run DDL
+	 * or {@code INFORMATION_SCHEMA} queries.
 	 * </p>
 	 *
-	 * @throws Exception if loading data or grid initialization fails
+	 * @throws SQLException if loading tables or verifying the schema fails
 	 */
-	public void initAvailabilityGridNext30Days() throws Exception {
+	public void verifyGridSchemaOnStartup() throws SQLException {
 		loadTablesFromDb();
-		loadOpeningHoursFromDb();
-
-		List<Table> tables = getSortedTablesEnsured();
+		db.getSchemaRegistry().verifyAvailabilityGrid(getSortedTablesEnsured());
+	}
 
-		db.ensureAvailabilityGridSchema(tables);
-		db.deletePastSlots();
+	/**
+	 * Pre-creates the availability grid for the next
+	 * {@link ServerConfig#GRID_WARM_DAYS} days (background warmer).
+	 * <p>
+	 * Tables and weekly hours are loaded only if the cache is still empty. The
+	 * effective opening hours for the whole booking horizon are precomputed (one
+	 * special-hours query, the rest is in memory), and then
+	 * {@link GridHorizonMaterializer} purges past slots (once per day) and
+	 * bulk-inserts only the slots that are missing. Later days in the booking
+	 * horizon are materialized lazily by {@link #ensureGridForDate(LocalDate)}.
+	 * </p>
+	 *
+	 * @return materialization report (counts and timing)
+	 * @throws Exception if loading data or grid initialization fails
+	 */
+	public GridHorizonMaterializer.Report warmAvailabilityGrid() throws Exception {
+		getSortedTablesEnsured();
+		if (!snapshot.get().hasOpeningHours()) {
+			loadOpeningHoursFromDb();
+		}
 
 		LocalDate start = LocalDate.now();
-		db.initGridForNextDays(start, 30, this::getEffectiveOpeningHoursForDate);
+		precomputeEffectiveHours(start, ServerConfig.BOOKING_HORIZON_DAYS);
+		int days = Math.min(ServerConfig.GRID_WARM_DAYS, ServerConfig.BOOKING_HORIZON_DAYS);
+		return gridMaterializer.materialize(start, days);
 	}
 
 	/**
-	 * Rebuilds availability grid slots for a specific date based on effective
-	 * opening hours.
+	 * Makes sure the grid rows for {@code date} exist, creating them on first
+	 * access.
 	 * <p>
-	 * Existing grid slots for the date are deleted first, then the grid is
-	 * re-initialized. If the effective hours indicate the date is closed, the grid
-	 * remains empty for that date.
+	 * Dates outside {@code [today, today + horizon)} are ignored. After the first
+	 * call for a date this is an in-memory check only.
 	 * </p>
 	 *
-	 * @param date date to synchronize
-	 * @throws Exception if schema validation or database operations fail
+	 * @param date date about to be queried or booked
+	 * @throws SQLException if the day's slots cannot be created
 	 */
-	public void syncGridForSpecialDate(LocalDate date) throws Exception {
+	private void ensureGridForDate(LocalDate date) throws SQLException {
 		if (date == null)
 			return;
-
-		List<Table> tables = getSortedTablesEnsured();
-		db.ensureAvailabilityGridSchema(tables);
-
-		db.deleteGridSlotsForDate(date);
-
-		OpeningHouers oh = getEffectiveOpeningHoursForDate(date);
-		if (oh == null)
+		LocalDate today = LocalDate.now();
+		if (date.isBefore(today) || !date.isBefore(today.plusDays(ServerConfig.BOOKING_HORIZON_DAYS)))
 			return;
+		gridMaterializer.ensureDay(date);
+	}
 
-		String openStr = safeHHMM(oh.getOpenTime());
-		String closeStr = safeHHMM(oh.getCloseTime());
-		if (openStr.isBlank() || closeStr.isBlank()) {
-			return;
-		}
+	/**
+	 * Reshapes availability grid slots for a specific date to its effective
+	 * opening hours.
+	 *
+	 * @param date date to synchronize
+	 * @return summary of the change for the date, or {@code null} if
+	 *         {@code date} is {@code null}
+	 * @throws Exception if database operations fail
+	 * @see #reshapeGridForDates(Collection)
+	 */
+	public GridHorizonMaterializer.DayChange syncGridForSpecialDate(LocalDate date) throws Exception {
+		if (date == null)
+			return null;
 
-		LocalTime open = LocalTime.parse(openStr);
-		LocalTime close = LocalTime.parse(closeStr);
+		List<GridHorizonMaterializer.DayChange> changes = reshapeGridForDates(List.of(date));
+		return changes.isEmpty() ? null : changes.get(0);
+	}
 
-		db.initGridForDate(date, open, close);
+	/**
+	 * Reshapes the availability grid of several dates to their effective opening
+	 * hours in one batch.
+	 * <p>
+	 * Only slots outside the old/new hours intersection are added or removed;
+	 * slots that stay open keep their booking markers. Dates that were not
+	 * materialized yet are left to lazy creation.
+	 * </p>
+	 *
+	 * @param dates dates whose opening hours changed
+	 * @return per-date summary, ordered by date
+	 * @throws Exception if database operations fail
+	 */
+	public List<GridHorizonMaterializer.DayChange> reshapeGridForDates(Collection<LocalDate> dates) throws Exception {
+		return gridMaterializer.reshape(dates);
 	}
 
 	/**
@@ -392,11 +475,11 @@ public class RestaurantController {
 	 *
 	 * @param date target date
 	 * @return grid payload string for the date
-	 * @throws Exception if schema validation or payload retrieval fails
+	 * @throws Exception if payload retrieval fails
 	 */
 	public String getGridFromDbPayload(LocalDate date) throws Exception {
+		ensureGridForDate(date);
 		List<Table> tables = getSortedTablesEnsured();
-		db.ensureAvailabilityGridSchema(tables);
 		return db.getGridPayloadForDate(date, tables);
 	}
 
@@ -414,27 +497,8 @@ public class RestaurantController {
 		if (peopleCount <= 0)
 			return null;
 
-		List<Table> tables = getSortedTablesEnsured();
-		db.ensureAvailabilityGridSchema(tables);
-
-		List<Table> candidates = new ArrayList<>();
-		for (Table t : tables) {
-			if (t.getSeatsAmount() >= peopleCount) {
-				candidates.add(t);
-			}
-		}
-		if (candidates.isEmpty())
-			return null;
-
-		Integer freeTableNumber = db.findOneFreeTableNumberAtSlot(slot, candidates);
-		if (freeTableNumber == null)
-			return null;
-
-		for (Table t : candidates) {
-			if (t.getTableNumber() == freeTableNumber)
-				return t;
-		}
-		return null;
+		ensureGridForDate(slot.toLocalDate());
+		return findBestFitFreeTable(slot, peopleCount, Set.of());
 	}
 
 	/**
@@ -459,27 +523,8 @@ public class RestaurantController {
 		if (excludedTableNumbers != null)
 			excluded.addAll(excludedTableNumbers);
 
-		List<Table> tables = getSortedTablesEnsured();
-		db.ensureAvailabilityGridSchema(tables);
-
-		List<Table> candidates = new ArrayList<>();
-		for (Table t : tables) {
-			if (t.getSeatsAmount() >= peopleCount && !excluded.contains(t.getTableNumber())) {
-				candidates.add(t);
-			}
-		}
-		if (candidates.isEmpty())
-			return null;
-
-		Integer freeTableNumber = db.findOneFreeTableNumberAtSlot(slot, candidates);
-		if (freeTableNumber == null)
-			return null;
-
-		for (Table t : candidates) {
-			if (t.getTableNumber() == freeTableNumber)
-				return t;
-		}
-		return null;
+		ensureGridForDate(slot.toLocalDate());
+		return findBestFitFreeTable(slot, peopleCount, excluded);
 	}
 
 	/**
@@ -498,26 +543,17 @@ public class RestaurantController {
 		if (peopleCount <= 0)
 			return result;
 
-		List<Table> tables = getSortedTablesEnsured();
-		db.ensureAvailabilityGridSchema(tables);
+		ensureGridForDate(date);
+		RestaurantSnapshot snap = getSnapshot();
 
-		List<Table> candidates = new ArrayList<>();
-		for (Table t : tables) {
-			if (t.getSeatsAmount() >= peopleCount) {
-				candidates.add(t);
-			}
-		}
+		List<Table> candidates = snap.getCapacityIndex().candidatesFor(peopleCount);
 		if (candidates.isEmpty())
 			return result;
 
 		Map<LocalDateTime, Integer> chosenNumbers = db.findOneFreeTableNumberPerSlotForDate(date, candidates);
 
-		Map<Integer, Table> byNumber = new HashMap<>();
-		for (Table t : candidates)
-			byNumber.put(t.getTableNumber(), t);
-
 		for (Map.Entry<LocalDateTime, Integer> e : chosenNumbers.entrySet()) {
-			Table chosen = byNumber.get(e.getValue());
+			Table chosen = snap.getTable(e.getValue());
 			if (chosen != null)
 				result.put(e.getKey(), chosen);
 		}
@@ -539,11 +575,11 @@ public class RestaurantController {
 		if (slot == null)
 			throw new IllegalArgumentException("slot is null");
 
-		List<Table> tables = getSortedTablesEnsured();
-		boolean exists = tables.stream().anyMatch(t -> t.getTableNumber() == tableNumber);
-		if (!exists)
+		if (getSnapshot().getTable(tableNumber) == null)
 			throw new IllegalArgumentException("Table number not found: " + tableNumber);
 
+		ensureGridForDate(slot.toLocalDate());
+
 		return db.tryReserveSlot(slot, tableNumber);
 	}
 
@@ -563,21 +599,89 @@ public class RestaurantController {
 		return db.setTableAvailability(slot, tableNumber, true);
 	}
 
+	/**
+	 * Releases many {@code (table, slot)} cells with a single grid update.
+	 *
+	 * @param slotsByTable slots to release, grouped by table number
+	 * @return number of grid rows changed
+	 * @throws SQLException if the update fails
+	 */
+	public int releaseSlotsBulk(Map<Integer, ? extends Collection<LocalDateTime>> slotsByTable) throws SQLException {
+		return db.releaseSlotsBulk(slotsByTable);
+	}
+
 	// ====Helpers====
 
 	/**
-	 * Returns a sorted table list, ensuring tables are loaded into cache first.
+	 * Returns the current snapshot, loading tables from the database first if
+	 * none are known yet.
 	 *
-	 * @return sorted list of tables by table number
+	 * @return current immutable snapshot
 	 * @throws SQLException if loading tables from DB fails
 	 */
-	private List<Table> getSortedTablesEnsured() throws SQLException {
-		if (restaurant.getTables() == null || restaurant.getTables().isEmpty()) {
+	public RestaurantSnapshot getSnapshot() throws SQLException {
+		RestaurantSnapshot s = snapshot.get();
+		if (!s.hasTables()) {
 			loadTablesFromDb();
+			s = snapshot.get();
+		}
+		return s;
+	}
+
+	/**
+	 * Finds the smallest free table that seats {@code peopleCount} at
+	 * {@code slot}.
+	 * <p>
+	 * Candidates come from the snapshot's {@link TableCapacityIndex} in best-fit
+	 * order; the grid query returns the first free one, which is mapped back to
+	 * its {@link Table} through the snapshot's number index.
+	 * </p>
+	 *
+	 * @param slot        slot date-time
+	 * @param peopleCount number of guests
+	 * @param excluded    table numbers that must not be chosen
+	 * @return best-fit free table, or {@code null} if none is available
+	 * @throws SQLException if the grid query fails
+	 */
+	private Table findBestFitFreeTable(LocalDateTime slot, int peopleCount, Set<Integer> excluded)
+			throws SQLException {
+		RestaurantSnapshot snap = getSnapshot();
+
+		List<Table> candidates = snap.getCapacityIndex().candidatesFor(peopleCount);
+		if (!excluded.isEmpty()) {
+			List<Table> filtered = new ArrayList<>(candidates.size());
+			for (Table t : candidates) {
+				if (!excluded.contains(t.getTableNumber()))
+					filtered.add(t);
+			}
+			candidates = filtered;
 		}
-		List<Table> tables = new ArrayList<>(restaurant.getTables());
-		tables.sort(Comparator.comparingInt(Table::getTableNumber));
-		return tables;
+		if (candidates.isEmpty())
+			return null;
+
+		Integer freeTableNumber = db.findOneFreeTableNumberAtSlot(slot, candidates);
+		return freeTableNumber == null ? null : snap.getTable(freeTableNumber);
+	}
+
+	/**
+	 * Returns the snapshot's table list (already sorted by table number).
+	 *
+	 * @return unmodifiable sorted list of tables
+	 * @throws SQLException if loading tables from DB fails
+	 */
+	private List<Table> getSortedTablesEnsured() throws SQLException {
+		return getSnapshot().getTables();
+	}
+
+	/**
+	 * Mirrors a newly published snapshot into the {@link Restaurant} singleton
+	 * (fresh lists, never mutated in place) for code that still reads it.
+	 *
+	 * @param s published snapshot
+	 */
+	private void publish(RestaurantSnapshot s) {
+		restaurant.setTables(new ArrayList<>(s.getTables()));
+		restaurant.setOpeningHours(new ArrayList<>(s.getOpeningHours()));
 	}
 
 	/**
@@ -591,15 +695,13 @@ public class RestaurantController {
 	 * @param tableNumber target table number
 	 * @return {@code true} if the table is free for all 4 slots, {@code false}
 	 *         otherwise
-	 * @throws Exception if schema validation or database access fails
+	 * @throws Exception if database access fails
 	 */
 	public boolean isTableFreeForTwoHours(LocalDateTime start, int tableNumber) throws Exception {
 		if (start == null)
 			return false;
 
-		List<Table> tables = getSortedTablesEnsured();
-		db.ensureAvailabilityGridSchema(tables);
-
+		ensureGridForDate(start.toLocalDate());
 		for (int i = 0; i < 4; i++) {
 			LocalDateTime slot = start.plusMinutes(30L * i);
 			if (!db.isTableFreeAtSlot(slot, tableNumber))
@@ -609,16 +711,13 @@ public class RestaurantController {
 	}
 
 	/**
-	 * Retrieves all tables from the cache (loading from DB if needed).
+	 * Retrieves all tables from the snapshot (loading from DB if needed).
 	 *
-	 * @return list of all tables
+	 * @return list of all tables, sorted by table number
 	 * @throws SQLException if loading tables fails
 	 */
 	public ArrayList<Table> getAllTables() throws SQLException {
-		if (restaurant.getTables() == null || restaurant.getTables().isEmpty()) {
-			loadTablesFromDb();
-		}
-		return new ArrayList<>(restaurant.getTables());
+		return new ArrayList<>(getSortedTablesEnsured());
 	}
 
 	/**
@@ -671,7 +770,7 @@ public class RestaurantController {
 	}
 
 	/**
-	 * Returns all dates in the next 30 days (including today) that match the given
+	 * Returns all dates in the booking horizon (including today) that match the given
 	 * weekday.
 	 * <p>
 	 * The input is expected to be a weekday name supported by
@@ -680,9 +779,9 @@ public class RestaurantController {
 	 * </p>
 	 *
 	 * @param dayOfWeekEn weekday name in English (e.g., {@code "Thursday"})
-	 * @return list of matching dates within the next 30 days (including today)
+	 * @return list of matching dates within the booking horizon (including today)
 	 */
-	public List<LocalDate> getDatesForWeekdayNext30Days(String dayOfWeekEn) {
+	public List<LocalDate> getDatesForWeekdayInBookingHorizon(String dayOfWeekEn) {
 
 		List<LocalDate> out = new ArrayList<>();
 		if (dayOfWeekEn == null || dayOfWeekEn.isBlank())
@@ -696,7 +795,7 @@ public class RestaurantController {
 		}
 
 		LocalDate start = LocalDate.now();
-		LocalDate end = start.plusDays(30);
+		LocalDate end = start.plusDays(ServerConfig.BOOKING_HORIZON_DAYS);
 
 		for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
 			if (d.getDayOfWeek() == target)
@@ -0,0 +1,195 @@
+package logicControllers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import entities.OpeningHouers;
+import entities.Table;
+
+/**
+ * Immutable, versioned view of the restaurant's tables and weekly opening
+ * hours.
+ * <p>
+ * A snapshot is built once per change and then only read:
+ * <ul>
+ * <li>Tables are copied, sorted by table number and exposed as an unmodifiable
+ * list</li>
+ * <li>Tables are indexed by number and by seat capacity (ascending), and a
+ * best-fit {@link TableCapacityIndex} is precomputed</li>
+ * <li>Weekly hours are copied and indexed by English weekday name</li>
+ * </ul>
+ * Changes go through the {@code with...} methods, which return a new snapshot
+ * with {@code version + 1}. {@link RestaurantController} keeps the current
+ * snapshot in an {@link java.util.concurrent.atomic.AtomicReference} and swaps
+ * it atomically, so readers never lock, copy or re-sort.
+ * </p>
+ * <p>
+ * The {@link Table} and {@link OpeningHouers} instances are owned by the
+ * snapshot and must not be modified by callers.
+ * </p>
+ */
+public final class RestaurantSnapshot {
+
+	private static final RestaurantSnapshot EMPTY = new RestaurantSnapshot(0, List.of(), List.of());
+
+	private final long version;
+	private final List<Table> tables;
+	private final Map<Integer, Table> tablesByNumber;
+	private final NavigableMap<Integer, List<Table>> tablesBySeats;
+	private final TableCapacityIndex capacityIndex;
+	private final List<OpeningHouers> openingHours;
+	private final Map<String, OpeningHouers> openingHoursByDay;
+
+	private RestaurantSnapshot(long version, Collection<Table> tables, Collection<OpeningHouers> openingHours) {
+		this.version = version;
+
+		List<Table> sorted = new ArrayList<>();
+		for (Table t : tables) {
+			if (t != null)
+				sorted.add(new Table(t.getTableNumber(), t.getSeatsAmount()));
+		}
+		sorted.sort(Comparator.comparingInt(Table::getTableNumber));
+		this.tables = Collections.unmodifiableList(sorted);
+
+		Map<Integer, Table> byNumber = new HashMap<>();
+		TreeMap<Integer, List<Table>> bySeats = new TreeMap<>();
+		for (Table t : sorted) {
+			byNumber.put(t.getTableNumber(), t);
+			bySeats.computeIfAbsent(t.getSeatsAmount(), k -> new ArrayList<>()).add(t);
+		}
+		bySeats.replaceAll((k, v) -> Collections.unmodifiableList(v));
+		this.tablesByNumber = Collections.unmodifiableMap(byNumber);
+		this.tablesBySeats = Collections.unmodifiableNavigableMap(bySeats);
+		this.capacityIndex = new TableCapacityIndex(sorted);
+
+		List<OpeningHouers> hours = new ArrayList<>();
+		Map<String, OpeningHouers> byDay = new HashMap<>();
+		for (OpeningHouers oh : openingHours) {
+			if (oh == null)
+				continue;
+			OpeningHouers copy = new OpeningHouers();
+			copy.setDayOfWeek(oh.getDayOfWeek());
+			copy.setOpenTime(oh.getOpenTime());
+			copy.setCloseTime(oh.getCloseTime());
+			hours.add(copy);
+			if (copy.getDayOfWeek() != null)
+				byDay.put(copy.getDayOfWeek().trim().toLowerCase(Locale.ROOT), copy);
+		}
+		this.openingHours = Collections.unmodifiableList(hours);
+		this.openingHoursByDay = Collections.unmodifiableMap(byDay);
+	}
+
+	/**
+	 * @return the empty snapshot (version 0)
+	 */
+	public static RestaurantSnapshot empty() {
+		return EMPTY;
+	}
+
+	// ====Copy-on-write====
+
+	/**
+	 * @param newTables full table list
+	 * @return new snapshot with the given tables and the current opening hours
+	 */
+	public RestaurantSnapshot withTables(Collection<Table> newTables) {
+		return new RestaurantSnapshot(version + 1, newTables, openingHours);
+	}
+
+	/**
+	 * @param table table to add, or to replace the table with the same number
+	 * @return new snapshot containing {@code table}
+	 */
+	public RestaurantSnapshot withTable(Table table) {
+		Map<Integer, Table> next = new HashMap<>(tablesByNumber);
+		next.put(table.getTableNumber(), table);
+		return withTables(next.values());
+	}
+
+	/**
+	 * @param tableNumber table to remove
+	 * @return new snapshot without that table
+	 */
+	public RestaurantSnapshot withoutTable(int tableNumber) {
+		Map<Integer, Table> next = new HashMap<>(tablesByNumber);
+		next.remove(tableNumber);
+		return withTables(next.values());
+	}
+
+	/**
+	 * @param newHours full weekly opening hours list
+	 * @return new snapshot with the given hours and the current tables
+	 */
+	public RestaurantSnapshot withOpeningHours(Collection<OpeningHouers> newHours) {
+		return new RestaurantSnapshot(version + 1, tables, newHours);
+	}
+
+	// ====Reads====
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return unmodifiable table list sorted by table number
+	 */
+	public List<Table> getTables() {
+		return tables;
+	}
+
+	public boolean hasTables() {
+		return !tables.isEmpty();
+	}
+
+	/**
+	 * @param tableNumber table identifier
+	 * @return the table, or {@code null} if unknown
+	 */
+	public Table getTable(int tableNumber) {
+		return tablesByNumber.get(tableNumber);
+	}
+
+	/**
+	 * @return unmodifiable seat count -> tables with exactly that many seats
+	 *         (ascending by seats, each list sorted by table number)
+	 */
+	public NavigableMap<Integer, List<Table>> getTablesBySeats() {
+		return tablesBySeats;
+	}
+
+	/**
+	 * @return best-fit seat-capacity index over the snapshot's tables
+	 */
+	public TableCapacityIndex getCapacityIndex() {
+		return capacityIndex;
+	}
+
+	/**
+	 * @return unmodifiable weekly opening hours, in the order they were loaded
+	 */
+	public List<OpeningHouers> getOpeningHours() {
+		return openingHours;
+	}
+
+	public boolean hasOpeningHours() {
+		return !openingHours.isEmpty();
+	}
+
+	/**
+	 * @param dayOfWeek English weekday name (case-insensitive)
+	 * @return the weekly hours of that day, or {@code null} if not defined
+	 */
+	public OpeningHouers getOpeningHoursForDay(String dayOfWeek) {
+		if (dayOfWeek == null)
+			return null;
+		return openingHoursByDay.get(dayOfWeek.trim().toLowerCase(Locale.ROOT));
+	}
+}
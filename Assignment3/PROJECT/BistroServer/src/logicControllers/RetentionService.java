@@ -0,0 +1,224 @@
+package logicControllers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import application.ServerConfig;
+import dbControllers.RetentionPolicy;
+import dbControllers.Retention_DB_Controller;
+import entities.OpeningHouers;
+
+/**
+ * Removes rows that are no longer needed, once a day outside opening hours.
+ * <p>
+ * Default policies ({@link #defaultPolicies()}):
+ * <ul>
+ * <li>{@code notifications}: sent rows, deleted after
+ * {@link ServerConfig#RETENTION_NOTIFICATION_DAYS}</li>
+ * <li>{@code waiting_list}: cancelled and seated entries, moved to
+ * {@code waiting_list_archive} after {@link ServerConfig#RETENTION_WAITING_DAYS}
+ * (the reports read the live table)</li>
+ * <li>{@code login_sessions}: deleted after
+ * {@link ServerConfig#RETENTION_SESSION_DAYS}</li>
+ * <li>{@code GUESTS}: guests that {@code deleteGuestAfterPayment} missed (no
+ * active reservation, no active waiting entry, no unpaid bill), deleted after
+ * {@link ServerConfig#RETENTION_GUEST_DAYS}</li>
+ * </ul>
+ * </p>
+ * <p>
+ * {@link #runIfDue()} is called periodically by the {@link SchedulingService}
+ * (every {@link ServerConfig#RETENTION_CHECK_MINUTES}); it runs the policies
+ * once a day, when the restaurant is closed (outside today's effective opening
+ * hours). A run
+ * works through each policy in chunks of {@link ServerConfig#RETENTION_CHUNK_SIZE}
+ * rows, one short transaction per chunk with a pause in between, and stops a
+ * table after {@link ServerConfig#RETENTION_MAX_CHUNKS} chunks; the rest is left
+ * for the next day. Each run is logged with the rows reclaimed per table.
+ * </p>
+ */
+public class RetentionService {
+
+	/**
+	 * Outcome of one retention run.
+	 */
+	public static final class Report {
+		private final Map<String, Integer> reclaimed = new LinkedHashMap<>();
+		private final Map<String, String> failures = new LinkedHashMap<>();
+		private long elapsedMs;
+
+		/**
+		 * @return rows removed per policy name, in policy order
+		 */
+		public Map<String, Integer> getReclaimed() {
+			return reclaimed;
+		}
+
+		/**
+		 * @return error message per policy that stopped early
+		 */
+		public Map<String, String> getFailures() {
+			return failures;
+		}
+
+		public int getTotal() {
+			int total = 0;
+			for (int n : reclaimed.values()) {
+				total += n;
+			}
+			return total;
+		}
+
+		public long getElapsedMs() {
+			return elapsedMs;
+		}
+
+		@Override
+		public String toString() {
+			return "reclaimed=" + reclaimed + ", total=" + getTotal() + ", " + elapsedMs + " ms"
+					+ (failures.isEmpty() ? "" : ", failed=" + failures);
+		}
+	}
+
+	private final Retention_DB_Controller db;
+	private final RestaurantController restaurantController;
+	private final Consumer<String> logger;
+	private final List<RetentionPolicy> policies;
+
+	private volatile boolean stopping;
+	private LocalDate lastRunDate;
+
+	/**
+	 * Constructs a service with the default policies.
+	 *
+	 * @param db                   retention database controller
+	 * @param restaurantController source of today's opening hours
+	 * @param logger               callback used for logging
+	 */
+	public RetentionService(Retention_DB_Controller db, RestaurantController restaurantController,
+			Consumer<String> logger) {
+		this(db, restaurantController, logger, defaultPolicies());
+	}
+
+	/**
+	 * Constructs a service.
+	 *
+	 * @param db                   retention database controller
+	 * @param restaurantController source of today's opening hours
+	 * @param logger               callback used for logging
+	 * @param policies             policies applied in order
+	 */
+	public RetentionService(Retention_DB_Controller db, RestaurantController restaurantController,
+			Consumer<String> logger, List<RetentionPolicy> policies) {
+		this.db = db;
+		this.restaurantController = restaurantController;
+		this.logger = logger;
+		this.policies = List.copyOf(policies);
+	}
+
+	/**
+	 * @return the built-in policies, with retention periods from
+	 *         {@link ServerConfig}
+	 */
+	public static List<RetentionPolicy> defaultPolicies() {
+		return List.of(
+				new RetentionPolicy("notifications", "notifications", "notification_id",
+						"is_sent = 1 AND scheduled_for < ?", ServerConfig.RETENTION_NOTIFICATION_DAYS, null),
+
+				new RetentionPolicy("waiting_list", "waiting_list", "waiting_id",
+						"waiting_status IN ('Cancelled', 'Seated') AND joined_at < ?",
+						ServerConfig.RETENTION_WAITING_DAYS, "waiting_list_archive"),
+
+				new RetentionPolicy("login_sessions", "login_sessions", "session_id", "created_at < ?",
+						ServerConfig.RETENTION_SESSION_DAYS, null),
+
+				new RetentionPolicy("guests", "GUESTS", "guest_id", """
+						created_at < ?
+						  AND NOT EXISTS (SELECT 1 FROM reservations r
+						                  WHERE r.created_by = GUESTS.guest_id AND r.is_active = 1)
+						  AND NOT EXISTS (SELECT 1 FROM waiting_list w
+						                  WHERE w.created_by = GUESTS.guest_id AND w.waiting_status = 'Waiting')
+						  AND NOT EXISTS (SELECT 1 FROM receipts rc
+						                  WHERE rc.created_by_user_id = GUESTS.guest_id AND rc.is_paid = 0)
+						""", ServerConfig.RETENTION_GUEST_DAYS, null));
+	}
+
+	/**
+	 * Stops the service. A run in progress ends after its current chunk.
+	 */
+	public void stop() {
+		stopping = true;
+	}
+
+	/**
+	 * Runs all policies now, regardless of the time of day.
+	 *
+	 * @return rows reclaimed per policy
+	 */
+	public Report runOnce() {
+		long started = System.currentTimeMillis();
+		Report report = new Report();
+		LocalDateTime now = LocalDateTime.now();
+
+		for (RetentionPolicy policy : policies) {
+			if (stopping)
+				break;
+
+			LocalDateTime cutoff = now.minusDays(policy.getRetentionDays());
+			int removed = 0;
+			try {
+				for (int chunk = 0; chunk < ServerConfig.RETENTION_MAX_CHUNKS && !stopping; chunk++) {
+					int n = db.purgeChunk(policy, cutoff, ServerConfig.RETENTION_CHUNK_SIZE);
+					removed += n;
+					if (n < ServerConfig.RETENTION_CHUNK_SIZE)
+						break;
+					Thread.sleep(ServerConfig.RETENTION_PAUSE_MS);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				stopping = true;
+			} catch (Exception e) {
+				report.failures.put(policy.getName(), e.getMessage());
+			}
+			report.reclaimed.put(policy.getName(), removed);
+		}
+
+		report.elapsedMs = System.currentTimeMillis() - started;
+		return report;
+	}
+
+	/**
+	 * Runs all policies if today's run is still pending and the restaurant is
+	 * closed.
+	 *
+	 * @return the run's report, or {@code null} if nothing was run
+	 */
+	public Report runIfDue() {
+		LocalDate today = LocalDate.now();
+		if (stopping || today.equals(lastRunDate) || !isOffHours(today, LocalTime.now()))
+			return null;
+
+		Report report = runOnce();
+		lastRunDate = today;
+		logger.accept("🧹 Retention run completed (" + report + ")");
+		return report;
+	}
+
+	/**
+	 * @return {@code true} if {@code time} is outside the effective opening hours
+	 *         of {@code date} (always true on a closed day)
+	 */
+	private boolean isOffHours(LocalDate date, LocalTime time) {
+		OpeningHouers oh = restaurantController.getEffectiveOpeningHoursForDate(date);
+		if (oh == null || oh.getOpenTime() == null || oh.getCloseTime() == null)
+			return true;
+
+		LocalTime open = LocalTime.parse(oh.getOpenTime().substring(0, 5));
+		LocalTime close = LocalTime.parse(oh.getCloseTime().substring(0, 5));
+		return time.isBefore(open) || time.isAfter(close);
+	}
+}
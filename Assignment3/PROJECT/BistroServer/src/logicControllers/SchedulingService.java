@@ -0,0 +1,339 @@
+package logicControllers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Runs the server's periodic background jobs on one shared thread pool.
+ * <p>
+ * Every job has a unique name, a period and optional resource groups:
+ * <ul>
+ * <li><b>Jitter</b>: each run is planned at a fixed rate and moved by a random
+ * offset of up to {@code jitterPercent} of the period, so jobs with the same
+ * period do not all hit the database in the same second</li>
+ * <li><b>Overrun protection</b>: a run that comes due while the previous run of
+ * the same job is still executing is skipped (and counted)</li>
+ * <li><b>Resource groups</b>: jobs that touch the same tables name the same
+ * group; a job holds the locks of all its groups while it runs, so such jobs
+ * never overlap. Locks are taken in name order, so jobs with several groups
+ * cannot deadlock</li>
+ * </ul>
+ * Exceptions thrown by a job are logged and counted; the job keeps its
+ * schedule. Per-job counters are available through {@link #getJobStats()}.
+ * </p>
+ */
+public class SchedulingService {
+
+	/**
+	 * A unit of periodic work.
+	 */
+	@FunctionalInterface
+	public interface Task {
+		/**
+		 * @throws Exception any failure (logged and counted by the service)
+		 */
+		void run() throws Exception;
+	}
+
+	/**
+	 * Snapshot of the counters of one job.
+	 */
+	public static final class JobStats {
+		private final String name;
+		private final long periodMs;
+		private final long runs;
+		private final long failures;
+		private final long skipped;
+		private final LocalDateTime lastStart;
+		private final long lastDurationMs;
+		private final long maxDurationMs;
+		private final long lastLockWaitMs;
+		private final String lastError;
+
+		private JobStats(Job job) {
+			this.name = job.name;
+			this.periodMs = job.periodMs;
+			this.runs = job.runs;
+			this.failures = job.failures;
+			this.skipped = job.skipped;
+			this.lastStart = job.lastStart;
+			this.lastDurationMs = job.lastDurationMs;
+			this.maxDurationMs = job.maxDurationMs;
+			this.lastLockWaitMs = job.lastLockWaitMs;
+			this.lastError = job.lastError;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getPeriodMs() {
+			return periodMs;
+		}
+
+		public long getRuns() {
+			return runs;
+		}
+
+		public long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * @return runs skipped because the previous run was still executing
+		 */
+		public long getSkipped() {
+			return skipped;
+		}
+
+		/**
+		 * @return start time of the last run, or {@code null} if it never ran
+		 */
+		public LocalDateTime getLastStart() {
+			return lastStart;
+		}
+
+		public long getLastDurationMs() {
+			return lastDurationMs;
+		}
+
+		public long getMaxDurationMs() {
+			return maxDurationMs;
+		}
+
+		/**
+		 * @return time the last run waited for its resource groups
+		 */
+		public long getLastLockWaitMs() {
+			return lastLockWaitMs;
+		}
+
+		/**
+		 * @return message of the last failure, or {@code null}
+		 */
+		public String getLastError() {
+			return lastError;
+		}
+
+		@Override
+		public String toString() {
+			return name + "[runs=" + runs + ", failures=" + failures + ", skipped=" + skipped + ", last="
+					+ (lastStart == null ? "-" : lastStart.withNano(0)) + ", took=" + lastDurationMs + " ms, max="
+					+ maxDurationMs + " ms" + (lastError == null ? "" : ", lastError=" + lastError) + "]";
+		}
+	}
+
+	/** A registered job; counters are guarded by the job itself. */
+	private static final class Job {
+		private final String name;
+		private final long periodMs;
+		private final List<ReentrantLock> locks;
+		private final Task task;
+		private final AtomicBoolean running = new AtomicBoolean();
+
+		/** Planned time of the next run, before jitter (scheduling only). */
+		private long plannedMs;
+
+		private long runs;
+		private long failures;
+		private long skipped;
+		private LocalDateTime lastStart;
+		private long lastDurationMs;
+		private long maxDurationMs;
+		private long lastLockWaitMs;
+		private String lastError;
+
+		private Job(String name, long periodMs, List<ReentrantLock> locks, Task task) {
+			this.name = name;
+			this.periodMs = periodMs;
+			this.locks = locks;
+			this.task = task;
+		}
+	}
+
+	private final ScheduledExecutorService executor;
+	private final int jitterPercent;
+	private final Consumer<String> logger;
+
+	private final Map<String, Job> jobs = new LinkedHashMap<>();
+	private final Map<String, ReentrantLock> groupLocks = new TreeMap<>();
+	private volatile boolean stopped;
+
+	/**
+	 * Constructs a service.
+	 *
+	 * @param threads       pool size (jobs waiting for a resource group hold a
+	 *                      thread)
+	 * @param jitterPercent maximum random offset of a run, in percent of the
+	 *                      job's period
+	 * @param logger        callback used for logging
+	 */
+	public SchedulingService(int threads, int jitterPercent, Consumer<String> logger) {
+		this.executor = Executors.newScheduledThreadPool(Math.max(1, threads));
+		this.jitterPercent = Math.max(0, Math.min(jitterPercent, 50));
+		this.logger = logger;
+	}
+
+	/**
+	 * Registers and starts a job.
+	 *
+	 * @param name           unique job name (used in logs and stats)
+	 * @param initialDelay   delay before the first run
+	 * @param period         time between planned runs
+	 * @param unit           unit of {@code initialDelay} and {@code period}
+	 * @param task           work to run
+	 * @param resourceGroups groups whose lock the job holds while it runs
+	 * @throws IllegalArgumentException if the name is already registered or the
+	 *                                  period is not positive
+	 */
+	public void schedule(String name, long initialDelay, long period, TimeUnit unit, Task task,
+			String... resourceGroups) {
+		long periodMs = unit.toMillis(period);
+		if (periodMs <= 0)
+			throw new IllegalArgumentException("Period must be positive: " + name);
+
+		Job job;
+		synchronized (jobs) {
+			if (jobs.containsKey(name))
+				throw new IllegalArgumentException("Job already registered: " + name);
+
+			String[] groups = resourceGroups.clone();
+			Arrays.sort(groups);
+			List<ReentrantLock> locks = new ArrayList<>();
+			for (String g : groups) {
+				locks.add(groupLocks.computeIfAbsent(g, k -> new ReentrantLock()));
+			}
+
+			job = new Job(name, periodMs, locks, task);
+			jobs.put(name, job);
+		}
+
+		synchronized (job) {
+			job.plannedMs = System.currentTimeMillis() + unit.toMillis(initialDelay);
+		}
+		submit(job);
+	}
+
+	/**
+	 * @return counters of all jobs, in registration order
+	 */
+	public List<JobStats> getJobStats() {
+		List<Job> snapshot;
+		synchronized (jobs) {
+			snapshot = new ArrayList<>(jobs.values());
+		}
+		List<JobStats> out = new ArrayList<>();
+		for (Job job : snapshot) {
+			synchronized (job) {
+				out.add(new JobStats(job));
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Stops all jobs. Running jobs are interrupted.
+	 */
+	public void stop() {
+		stopped = true;
+		executor.shutdownNow();
+	}
+
+	// ====Execution====
+
+	private void submit(Job job) {
+		if (stopped)
+			return;
+
+		long delay;
+		synchronized (job) {
+			long now = System.currentTimeMillis();
+			if (job.plannedMs < now)
+				job.plannedMs = now;
+			delay = job.plannedMs - now + jitterMs(job.periodMs);
+		}
+
+		try {
+			executor.schedule(() -> fire(job), Math.max(0, delay), TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// stopped
+		}
+	}
+
+	private void fire(Job job) {
+		synchronized (job) {
+			job.plannedMs += job.periodMs;
+		}
+		submit(job);
+
+		if (!job.running.compareAndSet(false, true)) {
+			synchronized (job) {
+				job.skipped++;
+			}
+			return;
+		}
+
+		List<ReentrantLock> held = new ArrayList<>();
+		try {
+			long waitStart = System.nanoTime();
+			for (ReentrantLock lock : job.locks) {
+				lock.lockInterruptibly();
+				held.add(lock);
+			}
+			long lockWaitMs = (System.nanoTime() - waitStart) / 1_000_000;
+
+			LocalDateTime start = LocalDateTime.now();
+			long startNs = System.nanoTime();
+			String error = null;
+			try {
+				job.task.run();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+				logger.accept("❌ Job " + job.name + " failed: " + error);
+			}
+			long durationMs = (System.nanoTime() - startNs) / 1_000_000;
+
+			synchronized (job) {
+				job.runs++;
+				job.lastStart = start;
+				job.lastDurationMs = durationMs;
+				job.maxDurationMs = Math.max(job.maxDurationMs, durationMs);
+				job.lastLockWaitMs = lockWaitMs;
+				if (error != null) {
+					job.failures++;
+					job.lastError = error;
+				}
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			for (int i = held.size() - 1; i >= 0; i--) {
+				held.get(i).unlock();
+			}
+			job.running.set(false);
+		}
+	}
+
+	private long jitterMs(long periodMs) {
+		long max = periodMs * jitterPercent / 100;
+		if (max <= 0)
+			return 0;
+		return ThreadLocalRandom.current().nextLong(-max, max + 1);
+	}
+}
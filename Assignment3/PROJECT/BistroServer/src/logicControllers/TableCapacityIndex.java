@@ -0,0 +1,131 @@
+package logicControllers;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import entities.Table;
+
+/**
+ * Immutable seat-capacity index over a fixed set of tables.
+ * <p>
+ * Tables are kept in best-fit order, ascending by seats and then by table
+ * number, so the first fitting table is always the smallest one and small
+ * parties do not occupy large tables. For every party size from {@code 1} to
+ * the largest table the index precomputes:
+ * <ul>
+ * <li>The start of the suffix of the best-fit list whose tables seat the
+ * party, so {@link #candidatesFor(int)} is O(1)</li>
+ * <li>A {@link BitSet} over table numbers of those tables, for set-based
+ * availability checks</li>
+ * </ul>
+ * The same index is used by the DB-backed lookups (candidate order decides
+ * which free column is chosen) and by in-memory planning
+ * ({@link #firstFit(int, BitSet)}).
+ * </p>
+ */
+public final class TableCapacityIndex {
+
+	private static final BitSet NO_TABLES = new BitSet();
+
+	private final List<Table> bestFit;
+	/** suffixStart[p] = first index in {@link #bestFit} with seats >= p. */
+	private final int[] suffixStart;
+	private final BitSet[] masks;
+	private final int maxSeats;
+
+	/**
+	 * Builds the index.
+	 *
+	 * @param tables tables to index (not modified)
+	 */
+	public TableCapacityIndex(List<Table> tables) {
+		List<Table> sorted = new ArrayList<>(tables);
+		sorted.sort(Comparator.comparingInt(Table::getSeatsAmount).thenComparingInt(Table::getTableNumber));
+		this.bestFit = Collections.unmodifiableList(sorted);
+
+		int max = 0;
+		for (Table t : sorted) {
+			max = Math.max(max, t.getSeatsAmount());
+		}
+		this.maxSeats = max;
+
+		this.suffixStart = new int[max + 2];
+		this.masks = new BitSet[max + 2];
+
+		int idx = 0;
+		for (int party = 0; party <= max + 1; party++) {
+			while (idx < sorted.size() && sorted.get(idx).getSeatsAmount() < party) {
+				idx++;
+			}
+			suffixStart[party] = idx;
+
+			BitSet mask = new BitSet();
+			for (int i = idx; i < sorted.size(); i++) {
+				mask.set(sorted.get(i).getTableNumber());
+			}
+			masks[party] = mask;
+		}
+	}
+
+	/**
+	 * @return all tables in best-fit order (unmodifiable)
+	 */
+	public List<Table> getBestFitOrder() {
+		return bestFit;
+	}
+
+	/**
+	 * @return seats of the largest table, or {@code 0} if there are no tables
+	 */
+	public int getMaxSeats() {
+		return maxSeats;
+	}
+
+	/**
+	 * Returns the tables that seat {@code partySize} guests, smallest first.
+	 *
+	 * @param partySize number of guests
+	 * @return unmodifiable best-fit ordered view (empty if no table is large
+	 *         enough)
+	 */
+	public List<Table> candidatesFor(int partySize) {
+		if (partySize > maxSeats)
+			return List.of();
+		return bestFit.subList(suffixStart[Math.max(partySize, 0)], bestFit.size());
+	}
+
+	/**
+	 * Returns the table numbers that seat {@code partySize} guests.
+	 *
+	 * @param partySize number of guests
+	 * @return a copy of the precomputed mask (bit {@code n} = table {@code n})
+	 */
+	public BitSet maskFor(int partySize) {
+		if (partySize > maxSeats)
+			return (BitSet) NO_TABLES.clone();
+		return (BitSet) masks[Math.max(partySize, 0)].clone();
+	}
+
+	/**
+	 * Returns the best-fit table among {@code freeTableNumbers}.
+	 *
+	 * @param partySize        number of guests
+	 * @param freeTableNumbers free tables (bit {@code n} = table {@code n})
+	 * @return smallest fitting free table, or {@code null} if none
+	 */
+	public Table firstFit(int partySize, BitSet freeTableNumbers) {
+		if (freeTableNumbers == null || partySize > maxSeats)
+			return null;
+		if (!masks[Math.max(partySize, 0)].intersects(freeTableNumbers))
+			return null;
+
+		for (Table t : candidatesFor(partySize)) {
+			if (freeTableNumbers.get(t.getTableNumber()))
+				return t;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,274 @@
+package logicControllers;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import dbControllers.Reservation_DB_Controller;
+import dbControllers.Restaurant_DB_Controller;
+import dbControllers.TransactionRunner;
+import entities.Reservation;
+import entities.Table;
+
+/**
+ * Moves the upcoming reservations of a table that is about to be deleted to
+ * other tables, in bulk.
+ * <p>
+ * A run works in three phases, all inside one transaction:
+ * <ol>
+ * <li>Load: the affected reservations and the grid rows of their time range are
+ * read once (grid rows with {@code FOR UPDATE})</li>
+ * <li>Plan: reservations are assigned in memory, largest parties first, to the
+ * smallest free table that fits all four slots (best fit from the
+ * {@link TableCapacityIndex}); reservations that cannot be placed are
+ * cancelled</li>
+ * <li>Apply: one grid update claims all new cells, one update rewrites all
+ * table numbers, one update cancels the rest, and one update frees the deleted
+ * table's column</li>
+ * </ol>
+ * If anything fails the whole plan is rolled back and nothing is moved.
+ * </p>
+ */
+public class TableRelocationPlanner {
+
+	/** One reservation moved to another table. */
+	public static final class Move {
+		private final Reservation reservation;
+		private final int fromTable;
+		private final int toTable;
+
+		private Move(Reservation reservation, int fromTable, int toTable) {
+			this.reservation = reservation;
+			this.fromTable = fromTable;
+			this.toTable = toTable;
+		}
+
+		public Reservation getReservation() {
+			return reservation;
+		}
+
+		public int getFromTable() {
+			return fromTable;
+		}
+
+		public int getToTable() {
+			return toTable;
+		}
+
+		@Override
+		public String toString() {
+			return reservation.getConfirmationCode() + "@" + reservation.getReservationTime() + " " + fromTable + "->"
+					+ toTable;
+		}
+	}
+
+	/**
+	 * Result of one relocation run.
+	 */
+	public static final class RelocationReport {
+		private final int tableNumber;
+		private final List<Move> moved;
+		private final List<Reservation> cancelled;
+		private final long elapsedMs;
+
+		private RelocationReport(int tableNumber, List<Move> moved, List<Reservation> cancelled, long elapsedMs) {
+			this.tableNumber = tableNumber;
+			this.moved = Collections.unmodifiableList(moved);
+			this.cancelled = Collections.unmodifiableList(cancelled);
+			this.elapsedMs = elapsedMs;
+		}
+
+		public int getTableNumber() {
+			return tableNumber;
+		}
+
+		public List<Move> getMoved() {
+			return moved;
+		}
+
+		public List<Reservation> getCancelled() {
+			return cancelled;
+		}
+
+		/**
+		 * @return number of reservations moved or cancelled
+		 */
+		public int getAffected() {
+			return moved.size() + cancelled.size();
+		}
+
+		public long getElapsedMs() {
+			return elapsedMs;
+		}
+
+		@Override
+		public String toString() {
+			return "table=" + tableNumber + ", moved=" + moved.size() + ", cancelled=" + cancelled.size() + ", "
+					+ elapsedMs + " ms";
+		}
+	}
+
+	private static final int SLOTS_PER_RESERVATION = 4;
+
+	private final Connection conn;
+	private final Restaurant_DB_Controller restaurantDB;
+	private final Reservation_DB_Controller reservationDB;
+
+	/**
+	 * Constructs a planner.
+	 *
+	 * @param conn          connection reserved for {@link TransactionRunner}
+	 * @param restaurantDB  restaurant DB controller owning the grid
+	 * @param reservationDB reservation DB controller
+	 */
+	public TableRelocationPlanner(Connection conn, Restaurant_DB_Controller restaurantDB,
+			Reservation_DB_Controller reservationDB) {
+		this.conn = conn;
+		this.restaurantDB = restaurantDB;
+		this.reservationDB = reservationDB;
+	}
+
+	/**
+	 * Relocates or cancels all active reservations of {@code tableNumber} within
+	 * the next {@code days} days.
+	 *
+	 * @param tableNumber table about to be deleted
+	 * @param days        horizon to scan
+	 * @param index       capacity index of the current tables (the deleted one may
+	 *                    be included; it is never chosen)
+	 * @return report of moved and cancelled reservations
+	 * @throws SQLException if loading or applying the plan fails (nothing is
+	 *                      changed)
+	 */
+	public RelocationReport relocate(int tableNumber, int days, TableCapacityIndex index) throws SQLException {
+		long startNs = System.nanoTime();
+
+		List<Table> candidates = new ArrayList<>();
+		for (Table t : index.getBestFitOrder()) {
+			if (t.getTableNumber() != tableNumber)
+				candidates.add(t);
+		}
+
+		List<Move> moved = new ArrayList<>();
+		List<Reservation> cancelled = new ArrayList<>();
+
+		TransactionRunner.inTransaction(conn, c -> {
+			Restaurant_DB_Controller txRestaurantDB = restaurantDB.onConnection(c);
+			Reservation_DB_Controller txReservationDB = reservationDB.onConnection(c);
+
+			List<Reservation> affected = txReservationDB.getActiveReservationsForTableInNextDays(tableNumber, days);
+			if (affected.isEmpty())
+				return null;
+
+			LocalDateTime from = null;
+			LocalDateTime to = null;
+			for (Reservation r : affected) {
+				LocalDateTime start = r.getReservationTime();
+				LocalDateTime end = start.plusMinutes(30L * SLOTS_PER_RESERVATION);
+				if (from == null || start.isBefore(from))
+					from = start;
+				if (to == null || end.isAfter(to))
+					to = end;
+			}
+
+			Map<LocalDateTime, Set<Integer>> free = txRestaurantDB.getFreeTablesBetween(from, to, candidates, true);
+
+			plan(affected, index, free, tableNumber, moved, cancelled);
+			apply(txRestaurantDB, txReservationDB, tableNumber, from, to, moved, cancelled);
+			return null;
+		});
+
+		long ms = (System.nanoTime() - startNs) / 1_000_000;
+		return new RelocationReport(tableNumber, moved, cancelled, ms);
+	}
+
+	/**
+	 * Best-fit assignment in memory. Claimed cells are removed from {@code free}
+	 * so later reservations see them as taken.
+	 */
+	private static void plan(List<Reservation> affected, TableCapacityIndex index,
+			Map<LocalDateTime, Set<Integer>> free, int fromTable, List<Move> moved, List<Reservation> cancelled) {
+
+		List<Reservation> order = new ArrayList<>(affected);
+		order.sort(Comparator.comparingInt(Reservation::getGuestAmount).reversed()
+				.thenComparing(Reservation::getReservationTime));
+
+		for (Reservation r : order) {
+			Table chosen = null;
+			for (Table t : index.candidatesFor(r.getGuestAmount())) {
+				if (t.getTableNumber() == fromTable)
+					continue;
+				if (isFreeForReservation(free, r.getReservationTime(), t.getTableNumber())) {
+					chosen = t;
+					break;
+				}
+			}
+
+			if (chosen == null) {
+				cancelled.add(r);
+				continue;
+			}
+
+			for (int i = 0; i < SLOTS_PER_RESERVATION; i++) {
+				free.get(r.getReservationTime().plusMinutes(30L * i)).remove(chosen.getTableNumber());
+			}
+			moved.add(new Move(r, fromTable, chosen.getTableNumber()));
+		}
+	}
+
+	private static boolean isFreeForReservation(Map<LocalDateTime, Set<Integer>> free, LocalDateTime start,
+			int tableNumber) {
+		for (int i = 0; i < SLOTS_PER_RESERVATION; i++) {
+			Set<Integer> atSlot = free.get(start.plusMinutes(30L * i));
+			if (atSlot == null || !atSlot.contains(tableNumber))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the plan with one statement per phase through controllers bound to
+	 * the caller's transaction.
+	 */
+	private static void apply(Restaurant_DB_Controller restaurantDB, Reservation_DB_Controller reservationDB,
+			int fromTable, LocalDateTime from, LocalDateTime to, List<Move> moved, List<Reservation> cancelled)
+			throws SQLException {
+
+		Map<Integer, List<LocalDateTime>> claims = new HashMap<>();
+		Map<Integer, Integer> newTables = new LinkedHashMap<>();
+		for (Move m : moved) {
+			List<LocalDateTime> slots = claims.computeIfAbsent(m.getToTable(), k -> new ArrayList<>());
+			for (int i = 0; i < SLOTS_PER_RESERVATION; i++) {
+				slots.add(m.getReservation().getReservationTime().plusMinutes(30L * i));
+			}
+			newTables.put(m.getReservation().getReservationId(), m.getToTable());
+		}
+
+		restaurantDB.reserveSlotsBulk(claims);
+
+		int updated = reservationDB.updateReservationTableNumbers(newTables);
+		if (updated != newTables.size())
+			throw new SQLException("Relocation plan is stale: updated " + updated + " of " + newTables.size()
+					+ " reservations");
+
+		List<Integer> cancelIds = new ArrayList<>();
+		for (Reservation r : cancelled) {
+			cancelIds.add(r.getReservationId());
+		}
+		reservationDB.cancelReservationsByIds(cancelIds);
+
+		restaurantDB.releaseTableBetween(fromTable, from, to);
+
+		for (Move m : moved) {
+			m.getReservation().setTableNumber(m.getToTable());
+		}
+	}
+}
@@ -20,14 +20,14 @@ import entities.User;
  * authorization rules)</li>
  * <li>Fetching and searching subscriber records</li>
  * <li>Updating and deleting user records via the DB layer</li>
- * <li>Generating new user identifiers based on the current maximum in
- * persistence</li>
+ * <li>Generating new user identifiers from a block-based id sequence</li>
  * </ul>
  * </p>
  */
 public class UserController {
 
 	private User_DB_Controller userDB;
+	private IdBlockAllocator userIds;
 
 	/**
 	 * Constructs a UserController with the given database controller.
@@ -38,6 +38,21 @@ public class UserController {
 		this.userDB = userDB;
 	}
 
+	/**
+	 * Sets the allocator used to generate user ids after construction.
+	 * <p>
+	 * The sequence is raised above the current maximum guest/subscriber id once,
+	 * so ids inserted outside the allocator can never be handed out again.
+	 * </p>
+	 *
+	 * @param userIds id allocator backed by the {@code user_id} sequence
+	 * @throws SQLException if the sequence cannot be synchronized
+	 */
+	public void setUserIdAllocator(IdBlockAllocator userIds) throws SQLException {
+		userIds.ensureAtLeast((long) userDB.getMaxUserIdFromGuestsAndSubscribers() + 1);
+		this.userIds = userIds;
+	}
+
 	/**
 	 * Authenticates a subscriber by subscriber ID and username.
 	 *
@@ -359,11 +374,20 @@ public class UserController {
 
 	/**
 	 * Generates the next available user ID across guests and subscribers.
+	 * <p>
+	 * IDs come from the in-memory block of the {@link IdBlockAllocator}, so most
+	 * calls need no database round trip and concurrent logins never share an ID.
+	 * Without an allocator the method falls back to {@code MAX()+1}.
+	 * </p>
 	 *
 	 * @return next user identifier
-	 * @throws SQLException if reading the maximum user ID fails
+	 * @throws SQLException if a new id block (or the maximum user ID) cannot be
+	 *                      read
 	 */
 	public int generateNextUserId() throws SQLException {
+		if (userIds != null)
+			return Math.toIntExact(userIds.nextId());
+
 		int max = userDB.getMaxUserIdFromGuestsAndSubscribers();
 		return max + 1;
 	}
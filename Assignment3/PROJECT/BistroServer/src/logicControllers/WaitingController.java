@@ -3,7 +3,13 @@ package logicControllers;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import application.RestaurantServer;
 import dbControllers.Notification_DB_Controller;
@@ -45,15 +51,28 @@ import entities.Waiting;
  * notifications</li>
  * </ul>
  * </p>
+ * <p>
+ * When a {@link WaitingListIndex} is set, active entries are also kept in
+ * memory: every write to {@code waiting_list} is mirrored into the index, and
+ * table-freed matching, locked-table checks and per-code / per-user lookups of
+ * active entries are served from it without querying the database.
+ * </p>
  */
 public class WaitingController {
 
+	/** Minutes a party has to arrive after being offered a table. */
+	private static final int ARRIVAL_GRACE_MINUTES = 15;
+
 	private final Waiting_DB_Controller db;
 	private final Notification_DB_Controller notificationDB;
 	private final RestaurantServer server;
 
 	private final RestaurantController restaurantController;
 	private final ReservationController reservationController;
+	private ConfirmationCodeAllocator codeAllocator;
+	private WaitingListIndex index;
+	private FreedTableMatcher freedTableMatcher;
+	private DeadlineQueue<String> offerDeadlines;
 
 	/**
 	 * Constructs a WaitingController with its required dependencies.
@@ -76,6 +95,100 @@ public class WaitingController {
 		this.reservationController = reservationController;
 	}
 
+	/**
+	 * Sets the shared confirmation code allocator after construction.
+	 * <p>
+	 * The same allocator is used by {@link ReservationController}, because a
+	 * waiting entry's code is reused for the reservation created from it.
+	 * </p>
+	 *
+	 * @param codeAllocator allocator that issues unique confirmation codes
+	 */
+	public void setConfirmationCodeAllocator(ConfirmationCodeAllocator codeAllocator) {
+		this.codeAllocator = codeAllocator;
+	}
+
+	/**
+	 * Sets the in-memory index of active waiting entries after construction.
+	 * <p>
+	 * Call {@link #rebuildWaitingListIndex()} afterwards to load it.
+	 * </p>
+	 *
+	 * @param index waiting-list index (may be {@code null} to query the database
+	 *              directly)
+	 */
+	public void setWaitingListIndex(WaitingListIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Sets the matcher that batches freed-table events after construction.
+	 *
+	 * @param freedTableMatcher matcher (may be {@code null} to match each freed
+	 *                          table immediately)
+	 */
+	public void setFreedTableMatcher(FreedTableMatcher freedTableMatcher) {
+		this.freedTableMatcher = freedTableMatcher;
+	}
+
+	/**
+	 * Sets the queue that fires the arrival deadline of each table offer
+	 * ({@link #expireWaitingOffers(List)} is its callback).
+	 *
+	 * @param offerDeadlines deadline queue keyed by confirmation code
+	 */
+	public void setOfferDeadlines(DeadlineQueue<String> offerDeadlines) {
+		this.offerDeadlines = offerDeadlines;
+	}
+
+	/**
+	 * Loads the arrival deadline of every active entry that was offered a table.
+	 *
+	 * @return number of deadlines scheduled, or {@code -1} if no queue is set or
+	 *         loading failed
+	 */
+	public int rebuildOfferDeadlines() {
+		if (offerDeadlines == null)
+			return -1;
+		try {
+			int scheduled = 0;
+			for (Waiting w : db.getAllActiveWaitings()) {
+				if (w.getTableFreedTime() != null) {
+					scheduleOfferDeadline(w.getConfirmationCode(), w.getTableFreedTime());
+					scheduled++;
+				}
+			}
+			return scheduled;
+		} catch (Exception e) {
+			server.log("ERROR: Failed to load waiting offer deadlines. " + e.getMessage());
+			return -1;
+		}
+	}
+
+	private void scheduleOfferDeadline(String confirmationCode, LocalDateTime freedTime) {
+		if (offerDeadlines != null)
+			offerDeadlines.schedule(confirmationCode, freedTime.plusMinutes(ARRIVAL_GRACE_MINUTES));
+	}
+
+	/**
+	 * Reloads the waiting-list index from {@code waiting_list}.
+	 *
+	 * @return number of active entries loaded, or {@code -1} if no index is set or
+	 *         loading failed
+	 */
+	public int rebuildWaitingListIndex() {
+		if (index == null)
+			return -1;
+		try {
+			ArrayList<Waiting> active = db.getAllActiveWaitings();
+			index.rebuild(active);
+			return active.size();
+		} catch (Exception e) {
+			server.log("ERROR: Failed to rebuild waiting-list index. " + e.getMessage());
+			return -1;
+		}
+	}
+
 	/**
 	 * Exception thrown when joining the waiting list is blocked due to business
 	 * rules (e.g., restaurant is closed or outside opening hours).
@@ -162,9 +275,12 @@ public class WaitingController {
 		w.setCreatedByRole(user.getUserRole());
 		w.setGuestAmount(guestsNumber);
 
-		w.generateAndSetConfirmationCode();
-
 		try {
+			if (codeAllocator != null)
+				w.setConfirmationCode(codeAllocator.nextCode());
+			else
+				w.generateAndSetConfirmationCode();
+
 			int waitingId = db.addToWaitingList(guestsNumber, w.getConfirmationCode(), user.getUserId(),
 					user.getUserRole());
 
@@ -196,10 +312,13 @@ public class WaitingController {
 			} catch (Exception e) {
 				server.log("ERROR: Failed to mark waiting as seated (immediate). " + e.getMessage());
 			}
-			return w;
+			if (w.getWaitingStatus() == WaitingStatus.Seated)
+				return w;
 		}
 
 		w.setWaitingStatus(WaitingStatus.Waiting);
+		if (index != null)
+			index.add(w);
 		return w;
 	}
 
@@ -241,6 +360,9 @@ public class WaitingController {
 				return false;
 			}
 
+			if (index != null)
+				index.remove(code);
+
 			try {
 				reservationController.CancelReservation(code);
 			} catch (Exception ignore) {
@@ -279,7 +401,7 @@ public class WaitingController {
 		String code = confirmationCode.trim();
 
 		try {
-			Waiting w = db.getWaitingByConfirmationCode(code);
+			Waiting w = (index != null) ? index.get(code) : db.getWaitingByConfirmationCode(code);
 			if (w == null)
 				return false;
 
@@ -293,6 +415,8 @@ public class WaitingController {
 			LocalDateTime now = LocalDateTime.now();
 			if (w.getTableFreedTime().plusMinutes(15).isBefore(now)) {
 				db.cancelWaiting(code);
+				if (index != null)
+					index.remove(code);
 				return false;
 			}
 
@@ -310,7 +434,10 @@ public class WaitingController {
 				return false;
 			}
 
-			return db.markWaitingAsSeated(code);
+			boolean seated = db.markWaitingAsSeated(code);
+			if (index != null)
+				index.remove(code);
+			return seated;
 
 		} catch (Exception e) {
 			server.log("ERROR: confirmArrival failed. Code=" + code + ", Msg=" + e.getMessage());
@@ -318,9 +445,41 @@ public class WaitingController {
 		}
 	}
 
+	/**
+	 * Deadline-queue callback: cancels the given entries if their table offer is
+	 * still unanswered 15 minutes after it was made.
+	 * <p>
+	 * Only the listed rows are touched; entries that were seated, cancelled or
+	 * left in the meantime are skipped.
+	 * </p>
+	 *
+	 * @param confirmationCodes entries whose deadline passed
+	 * @return number of cancelled waiting entries, or 0 on error
+	 */
+	public int expireWaitingOffers(List<String> confirmationCodes) {
+		try {
+			List<String> cancelled = db.cancelExpiredWaitingsByCodes(confirmationCodes, LocalDateTime.now());
+			if (index != null)
+				index.removeAll(cancelled);
+
+			for (String code : cancelled) {
+				server.log("Waiting auto-cancelled (no check-in after 15 min): " + code);
+			}
+			return cancelled.size();
+
+		} catch (Exception e) {
+			server.log("ERROR: expireWaitingOffers failed. Msg=" + e.getMessage());
+			return 0;
+		}
+	}
+
 	/**
 	 * Cancels waiting entries that expired (e.g., no arrival confirmation within
 	 * allowed time).
+	 * <p>
+	 * With an offer deadline queue this is the safety net; each entry is normally
+	 * cancelled on time by {@link #expireWaitingOffers(List)}.
+	 * </p>
 	 *
 	 * @return number of cancelled waiting entries, or 0 on error
 	 */
@@ -329,9 +488,13 @@ public class WaitingController {
 		try {
 			LocalDateTime now = LocalDateTime.now();
 
-			ArrayList<String> expiredCodes = db.getExpiredWaitingCodes(now);
+			List<String> expiredCodes = (index != null) ? index.getExpiredCodes(now) : db.getExpiredWaitingCodes(now);
+			if (index != null && expiredCodes.isEmpty())
+				return 0;
 
 			int count = db.cancelExpiredWaitings(now);
+			if (index != null)
+				index.removeAll(expiredCodes);
 
 			for (String code : expiredCodes) {
 				if (code == null)
@@ -348,12 +511,174 @@ public class WaitingController {
 		}
 	}
 
+	/**
+	 * Entry point for a freed table.
+	 * <p>
+	 * With a {@link FreedTableMatcher} the table joins the current batch and is
+	 * matched by {@link #assignFreedTables(List)}; otherwise it is matched right
+	 * away by {@link #handleTableFreed(Table)}.
+	 * </p>
+	 *
+	 * @param freedTable table that became available
+	 */
+	public void onTableFreed(Table freedTable) {
+		if (freedTable == null)
+			return;
+		if (freedTableMatcher != null && index != null)
+			freedTableMatcher.submit(freedTable);
+		else
+			handleTableFreed(freedTable);
+	}
+
+	/**
+	 * Matches a batch of freed tables to waiting entries (scenario 2B for several
+	 * tables at once).
+	 * <p>
+	 * Waiting entries are visited in FIFO order and each gets the smallest freed
+	 * table that seats its party, so an early small party never takes a large
+	 * table while a smaller freed table fits it, and a large party behind it can
+	 * still get the large table. An entry that fits none of the remaining tables
+	 * is skipped without blocking later entries.
+	 * </p>
+	 * <p>
+	 * All offers are written with one statement and all notifications are inserted
+	 * with one batch. Entries whose row is no longer {@code Waiting} are dropped
+	 * from the index and their tables are matched again (at most three rounds).
+	 * Tables left free by a failed write or by the round limit are not dropped:
+	 * each goes through {@link #handleTableFreed(Table)}. Without an index, or for tables of unknown size, each table is handled by
+	 * {@link #handleTableFreed(Table)}.
+	 * </p>
+	 *
+	 * @param freedTables tables that became available
+	 * @return number of waiting entries that were offered a table
+	 */
+	public int assignFreedTables(List<Table> freedTables) {
+		if (freedTables == null || freedTables.isEmpty())
+			return 0;
+
+		List<Table> known = new ArrayList<>();
+		int assigned = 0;
+		for (Table t : freedTables) {
+			if (t == null)
+				continue;
+			if (index == null || t.getSeatsAmount() <= 0 || t.getSeatsAmount() == Integer.MAX_VALUE) {
+				if (handleTableFreed(t))
+					assigned++;
+			} else {
+				known.add(t);
+			}
+		}
+		if (known.isEmpty())
+			return assigned;
+
+		TableCapacityIndex tables = new TableCapacityIndex(known);
+		BitSet free = new BitSet();
+		for (Table t : known) {
+			free.set(t.getTableNumber());
+		}
+
+		// whole seconds: the value stored in table_freed_time, the index and the deadline agree
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+		List<Notification> notifications = new ArrayList<>();
+		// tables still free because of a failure or too many stale rounds, not a lack of fits
+		boolean leftover = false;
+
+		for (int round = 0; round < 3 && !free.isEmpty(); round++) {
+			leftover = false;
+			Map<String, Table> plan = new LinkedHashMap<>();
+			Map<String, Waiting> planned = new LinkedHashMap<>();
+
+			for (Waiting w : index.getQueuedInFifoOrder(tables.getMaxSeats())) {
+				Table t = tables.firstFit(w.getGuestAmount(), free);
+				if (t == null || !index.claim(w.getConfirmationCode()))
+					continue;
+				plan.put(w.getConfirmationCode(), t);
+				planned.put(w.getConfirmationCode(), w);
+				free.clear(t.getTableNumber());
+				if (free.isEmpty())
+					break;
+			}
+			if (plan.isEmpty())
+				break;
+
+			Map<String, Integer> tableByCode = new LinkedHashMap<>();
+			plan.forEach((code, t) -> tableByCode.put(code, t.getTableNumber()));
+
+			Set<String> updated;
+			try {
+				updated = db.setTableFreedForWaitings(tableByCode, now);
+			} catch (Exception e) {
+				for (Map.Entry<String, Table> p : plan.entrySet()) {
+					index.requeue(p.getKey());
+					free.set(p.getValue().getTableNumber());
+				}
+				server.log("ERROR: assignFreedTables failed. " + e.getMessage());
+				leftover = true;
+				break;
+			}
+
+			boolean stale = false;
+			for (Map.Entry<String, Table> e : plan.entrySet()) {
+				String code = e.getKey();
+				Table t = e.getValue();
+				if (updated.contains(code)) {
+					index.markOffered(code, t.getTableNumber(), now);
+					scheduleOfferDeadline(code, now);
+					notifications.addAll(buildTableAvailableNotifications(planned.get(code), now));
+					server.log("Assigned freed table to waiting. WaitingCode=" + code + ", Table=" + t.getTableNumber());
+					assigned++;
+				} else {
+					server.log("WARN: Stale waiting entry dropped from index. Code=" + code);
+					index.remove(code);
+					free.set(t.getTableNumber());
+					stale = true;
+				}
+			}
+			if (!stale)
+				break;
+			leftover = true;
+		}
+
+		if (notificationDB != null && !notifications.isEmpty()) {
+			try {
+				notificationDB.addNotifications(notifications);
+			} catch (Exception e) {
+				server.log("ERROR: assignFreedTables - notifications failed. " + e.getMessage());
+			}
+		}
+
+		if (leftover) {
+			for (Table t : known) {
+				if (free.get(t.getTableNumber()) && handleTableFreed(t))
+					assigned++;
+			}
+		}
+
+		return assigned;
+	}
+
+	/**
+	 * Builds the "table available" SMS and Email for an entry that was offered a
+	 * table.
+	 */
+	private List<Notification> buildTableAvailableNotifications(Waiting w, LocalDateTime now) {
+		String smsEmailBody = "A table is now available. Your waiting code is: " + w.getConfirmationCode()
+				+ ". Please arrive within 15 minutes to avoid cancellation.";
+
+		return List.of(
+				new Notification(w.getCreatedByUserId(), Enums.Channel.SMS, Enums.NotificationType.TABLE_AVAILABLE,
+						smsEmailBody, now),
+				new Notification(w.getCreatedByUserId(), Enums.Channel.EMAIL, Enums.NotificationType.TABLE_AVAILABLE,
+						smsEmailBody, now));
+	}
+
 	/**
 	 * Handles the "table freed" workflow (scenario 2B).
 	 * <p>
 	 * The method:
 	 * <ul>
-	 * <li>Finds the next waiting entry that fits the freed table capacity</li>
+	 * <li>Finds the next waiting entry that fits the freed table capacity (from
+	 * the index when one is set, otherwise from the database)</li>
 	 * <li>Updates the waiting entry with the freed time and assigned table
 	 * number</li>
 	 * <li>Schedules immediate notifications (SMS and Email)</li>
@@ -373,27 +698,14 @@ public class WaitingController {
 			return false;
 
 		try {
-			Waiting next = db.getNextWaitingForSeats(freedTable.getSeatsAmount());
-			if (next == null)
-				return false;
-
 			LocalDateTime now = LocalDateTime.now();
-
-			boolean updated = db.setTableFreedForWaiting(next.getConfirmationCode(), now, freedTable.getTableNumber());
-
-			if (!updated)
+			Waiting next = (index != null) ? offerFromIndex(freedTable, now) : offerFromDb(freedTable, now);
+			if (next == null)
 				return false;
+			scheduleOfferDeadline(next.getConfirmationCode(), now);
 
-			if (notificationDB != null) {
-				String smsEmailBody = "A table is now available. Your waiting code is: " + next.getConfirmationCode()
-						+ ". Please arrive within 15 minutes to avoid cancellation.";
-
-				notificationDB.addNotification(new Notification(next.getCreatedByUserId(), Enums.Channel.SMS,
-						Enums.NotificationType.TABLE_AVAILABLE, smsEmailBody, now));
-
-				notificationDB.addNotification(new Notification(next.getCreatedByUserId(), Enums.Channel.EMAIL,
-						Enums.NotificationType.TABLE_AVAILABLE, smsEmailBody, now));
-			}
+			if (notificationDB != null)
+				notificationDB.addNotifications(buildTableAvailableNotifications(next, now));
 
 			server.log("Assigned freed table to waiting. WaitingCode=" + next.getConfirmationCode() + ", Table="
 					+ freedTable.getTableNumber());
@@ -406,8 +718,54 @@ public class WaitingController {
 		}
 	}
 
+	/**
+	 * Offers the freed table to the first indexed entry that fits.
+	 * <p>
+	 * Entries whose row is no longer {@code Waiting} are dropped from the index
+	 * and the next one is tried.
+	 * </p>
+	 *
+	 * @return the entry that was offered the table, or {@code null} if none fits
+	 */
+	private Waiting offerFromIndex(Table freedTable, LocalDateTime now) throws Exception {
+		while (true) {
+			Waiting next = index.claimNextForSeats(freedTable.getSeatsAmount());
+			if (next == null)
+				return null;
+
+			boolean updated;
+			try {
+				updated = db.setTableFreedForWaiting(next.getConfirmationCode(), now, freedTable.getTableNumber());
+			} catch (Exception e) {
+				index.requeue(next.getConfirmationCode());
+				throw e;
+			}
+
+			if (updated) {
+				index.markOffered(next.getConfirmationCode(), freedTable.getTableNumber(), now);
+				return next;
+			}
+
+			server.log("WARN: Stale waiting entry dropped from index. Code=" + next.getConfirmationCode());
+			index.remove(next.getConfirmationCode());
+		}
+	}
+
+	private Waiting offerFromDb(Table freedTable, LocalDateTime now) throws Exception {
+		Waiting next = db.getNextWaitingForSeats(freedTable.getSeatsAmount());
+		if (next == null)
+			return null;
+
+		boolean updated = db.setTableFreedForWaiting(next.getConfirmationCode(), now, freedTable.getTableNumber());
+		return updated ? next : null;
+	}
+
 	/**
 	 * Retrieves a waiting entry by confirmation code.
+	 * <p>
+	 * Active entries are served from the index; other entries (seated,
+	 * cancelled) are read from the database.
+	 * </p>
 	 *
 	 * @param confirmationCode waiting confirmation code
 	 * @return the matching {@link Waiting}, or {@code null} if not found or on
@@ -417,6 +775,11 @@ public class WaitingController {
 		if (confirmationCode == null || confirmationCode.isBlank())
 			return null;
 		try {
+			if (index != null) {
+				Waiting active = index.get(confirmationCode.trim());
+				if (active != null)
+					return active;
+			}
 			return db.getWaitingByConfirmationCode(confirmationCode.trim());
 		} catch (Exception e) {
 			server.log("ERROR: getWaitingByCode failed. Code=" + confirmationCode + ", Msg=" + e.getMessage());
@@ -432,6 +795,8 @@ public class WaitingController {
 	 */
 	public ArrayList<Waiting> getActiveWaitingsForUser(int userId) {
 		try {
+			if (index != null)
+				return index.getActiveForUser(userId);
 			return db.getActiveWaitingsByUser(userId);
 		} catch (Exception e) {
 			server.log("ERROR: getActiveWaitingsForUser failed. UserId=" + userId + ", Msg=" + e.getMessage());
@@ -454,22 +819,29 @@ public class WaitingController {
 			ArrayList<Waiting> toCancel = db.getActiveWaitingsByDate(date);
 
 			int count = db.cancelAllWaitingsByDate(date);
+			if (index != null && toCancel != null) {
+				for (Waiting w : toCancel) {
+					if (w != null)
+						index.remove(w.getConfirmationCode());
+				}
+			}
 
 			if (count > 0 && notificationDB != null && toCancel != null) {
 				LocalDateTime now = LocalDateTime.now();
+				String msg = "The restaurant is now closed. Your waiting request was cancelled.";
+				List<Notification> batch = new ArrayList<>();
 
 				for (Waiting w : toCancel) {
 					if (w == null)
 						continue;
 
-					String msg = "The restaurant is now closed. Your waiting request was cancelled.";
-
-					notificationDB.addNotification(new Notification(w.getCreatedByUserId(), Enums.Channel.SMS,
+					batch.add(new Notification(w.getCreatedByUserId(), Enums.Channel.SMS,
 							Enums.NotificationType.TABLE_AVAILABLE, msg, now));
-
-					notificationDB.addNotification(new Notification(w.getCreatedByUserId(), Enums.Channel.EMAIL,
+					batch.add(new Notification(w.getCreatedByUserId(), Enums.Channel.EMAIL,
 							Enums.NotificationType.TABLE_AVAILABLE, msg, now));
 				}
+
+				notificationDB.addNotifications(batch);
 			}
 
 			if (count > 0) {
@@ -492,6 +864,8 @@ public class WaitingController {
 	 */
 	public ArrayList<Integer> getLockedTableNumbersNow() {
 		try {
+			if (index != null)
+				return index.getLockedTableNumbers(LocalDateTime.now());
 			return db.getLockedTableNumbersNow();
 		} catch (Exception e) {
 			server.log("ERROR: getLockedTableNumbersNow failed. " + e.getMessage());
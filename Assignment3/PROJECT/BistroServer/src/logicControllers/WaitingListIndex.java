@@ -0,0 +1,310 @@
+package logicControllers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import entities.Enums.WaitingStatus;
+import entities.Waiting;
+
+/**
+ * In-memory index of the active ({@code Waiting}) entries of
+ * {@code waiting_list}.
+ * <p>
+ * The index keeps:
+ * <ul>
+ * <li>FIFO queues of entries that were not offered a table yet, bucketed by
+ * party size (each queue ordered by {@code waiting_id})</li>
+ * <li>All active entries by confirmation code, including entries that were
+ * offered a table and have not arrived yet</li>
+ * <li>Active confirmation codes per creating user</li>
+ * </ul>
+ * It is rebuilt from the database at startup and kept in sync by
+ * {@link WaitingController} on join, table offer, cancel, seat and expiry, so
+ * matching a freed table, the locked-table check and status polls do not query
+ * {@code waiting_list}. The database stays the source of truth: every state
+ * change is written there first and only then applied here.
+ * </p>
+ * <p>
+ * All methods are synchronized. Returned {@link Waiting} objects are copies.
+ * </p>
+ */
+public class WaitingListIndex {
+
+	private static final int ARRIVAL_GRACE_MINUTES = 15;
+
+	/** Party size -> (waiting_id -> entry), only entries not offered a table. */
+	private final TreeMap<Integer, TreeMap<Integer, Waiting>> queuesBySize = new TreeMap<>();
+	private final Map<String, Waiting> byCode = new HashMap<>();
+	private final Map<Integer, Set<String>> codesByUser = new HashMap<>();
+
+	/**
+	 * Replaces the index content.
+	 *
+	 * @param active active waiting entries (non-active entries are ignored)
+	 */
+	public synchronized void rebuild(Collection<Waiting> active) {
+		queuesBySize.clear();
+		byCode.clear();
+		codesByUser.clear();
+
+		if (active == null)
+			return;
+		for (Waiting w : active) {
+			put(w);
+		}
+	}
+
+	/**
+	 * Adds or replaces an active entry.
+	 *
+	 * @param w entry with status {@code Waiting} and a confirmation code
+	 */
+	public synchronized void add(Waiting w) {
+		put(w);
+	}
+
+	/**
+	 * Removes the next entry (lowest {@code waiting_id}) whose party fits
+	 * {@code seats} from the FIFO queues.
+	 * <p>
+	 * The entry stays registered by code and user. The caller must follow up with
+	 * {@link #markOffered}, {@link #requeue} or {@link #remove}.
+	 * </p>
+	 *
+	 * @param seats seat capacity of the freed table
+	 * @return copy of the claimed entry, or {@code null} if no party fits
+	 */
+	public synchronized Waiting claimNextForSeats(int seats) {
+		TreeMap<Integer, Waiting> best = null;
+		for (TreeMap<Integer, Waiting> queue : queuesBySize.headMap(seats, true).values()) {
+			if (best == null || queue.firstKey() < best.firstKey())
+				best = queue;
+		}
+		if (best == null)
+			return null;
+
+		Waiting w = best.pollFirstEntry().getValue();
+		if (best.isEmpty())
+			queuesBySize.remove(w.getGuestAmount());
+		return copy(w);
+	}
+
+	/**
+	 * Returns the entries that were not offered a table yet and whose party fits
+	 * {@code maxGuests}, in FIFO order.
+	 *
+	 * @param maxGuests largest party size to include
+	 * @return copies ordered by {@code waiting_id}
+	 */
+	public synchronized List<Waiting> getQueuedInFifoOrder(int maxGuests) {
+		List<Waiting> out = new ArrayList<>();
+		for (TreeMap<Integer, Waiting> queue : queuesBySize.headMap(maxGuests, true).values()) {
+			for (Waiting w : queue.values()) {
+				out.add(copy(w));
+			}
+		}
+		out.sort((a, b) -> Integer.compare(a.getWaitingId(), b.getWaitingId()));
+		return out;
+	}
+
+	/**
+	 * Removes a specific entry from its FIFO queue, like
+	 * {@link #claimNextForSeats(int)}.
+	 *
+	 * @param confirmationCode entry code
+	 * @return {@code true} if the entry was queued and is now claimed by the
+	 *         caller
+	 */
+	public synchronized boolean claim(String confirmationCode) {
+		Waiting w = confirmationCode == null ? null : byCode.get(confirmationCode);
+		if (w == null || w.getTableFreedTime() != null)
+			return false;
+
+		TreeMap<Integer, Waiting> queue = queuesBySize.get(w.getGuestAmount());
+		if (queue == null || queue.remove(w.getWaitingId()) == null)
+			return false;
+		if (queue.isEmpty())
+			queuesBySize.remove(w.getGuestAmount());
+		return true;
+	}
+
+	/**
+	 * Records that a table was offered to an entry.
+	 *
+	 * @param confirmationCode entry code
+	 * @param tableNumber      offered table
+	 * @param freedTime        time the table was offered
+	 */
+	public synchronized void markOffered(String confirmationCode, int tableNumber, LocalDateTime freedTime) {
+		Waiting w = byCode.get(confirmationCode);
+		if (w == null)
+			return;
+		dequeue(w);
+		w.setTableNumber(tableNumber);
+		w.setTableFreedTime(freedTime);
+	}
+
+	/**
+	 * Puts a claimed entry back into its FIFO queue (e.g. the offer could not be
+	 * written).
+	 *
+	 * @param confirmationCode entry code
+	 */
+	public synchronized void requeue(String confirmationCode) {
+		Waiting w = byCode.get(confirmationCode);
+		if (w != null && w.getTableFreedTime() == null)
+			enqueue(w);
+	}
+
+	/**
+	 * Removes an entry that is no longer active (cancelled, seated or expired).
+	 *
+	 * @param confirmationCode entry code
+	 */
+	public synchronized void remove(String confirmationCode) {
+		if (confirmationCode == null)
+			return;
+		Waiting w = byCode.remove(confirmationCode);
+		if (w == null)
+			return;
+
+		dequeue(w);
+		Set<String> codes = codesByUser.get(w.getCreatedByUserId());
+		if (codes != null) {
+			codes.remove(confirmationCode);
+			if (codes.isEmpty())
+				codesByUser.remove(w.getCreatedByUserId());
+		}
+	}
+
+	/**
+	 * Removes several entries.
+	 *
+	 * @param confirmationCodes entry codes
+	 */
+	public synchronized void removeAll(Collection<String> confirmationCodes) {
+		if (confirmationCodes == null)
+			return;
+		for (String code : confirmationCodes) {
+			remove(code);
+		}
+	}
+
+	/**
+	 * @param confirmationCode entry code
+	 * @return copy of the active entry, or {@code null} if it is not active
+	 */
+	public synchronized Waiting get(String confirmationCode) {
+		Waiting w = confirmationCode == null ? null : byCode.get(confirmationCode);
+		return w == null ? null : copy(w);
+	}
+
+	/**
+	 * @param userId creating user
+	 * @return copies of the user's active entries, newest first
+	 */
+	public synchronized ArrayList<Waiting> getActiveForUser(int userId) {
+		ArrayList<Waiting> out = new ArrayList<>();
+		Set<String> codes = codesByUser.get(userId);
+		if (codes == null)
+			return out;
+
+		for (String code : codes) {
+			out.add(copy(byCode.get(code)));
+		}
+		out.sort((a, b) -> Integer.compare(b.getWaitingId(), a.getWaitingId()));
+		return out;
+	}
+
+	/**
+	 * Returns the tables currently held for offered entries (offered less than 15
+	 * minutes before {@code now}).
+	 *
+	 * @param now current time
+	 * @return distinct locked table numbers
+	 */
+	public synchronized ArrayList<Integer> getLockedTableNumbers(LocalDateTime now) {
+		LocalDateTime threshold = now.minusMinutes(ARRIVAL_GRACE_MINUTES);
+		Set<Integer> out = new LinkedHashSet<>();
+		for (Waiting w : byCode.values()) {
+			if (w.getTableNumber() != null && w.getTableFreedTime() != null
+					&& w.getTableFreedTime().isAfter(threshold))
+				out.add(w.getTableNumber());
+		}
+		return new ArrayList<>(out);
+	}
+
+	/**
+	 * Returns offered entries whose arrival window (15 minutes) ended.
+	 *
+	 * @param now current time
+	 * @return expired confirmation codes
+	 */
+	public synchronized List<String> getExpiredCodes(LocalDateTime now) {
+		LocalDateTime threshold = now.minusMinutes(ARRIVAL_GRACE_MINUTES);
+		List<String> out = new ArrayList<>();
+		for (Waiting w : byCode.values()) {
+			if (w.getTableFreedTime() != null && !w.getTableFreedTime().isAfter(threshold))
+				out.add(w.getConfirmationCode());
+		}
+		return out;
+	}
+
+	/**
+	 * @return number of active entries
+	 */
+	public synchronized int size() {
+		return byCode.size();
+	}
+
+	// ====Internals====
+
+	private void put(Waiting source) {
+		if (source == null || source.getConfirmationCode() == null)
+			return;
+		if (source.getWaitingStatus() != null && source.getWaitingStatus() != WaitingStatus.Waiting)
+			return;
+
+		remove(source.getConfirmationCode());
+
+		Waiting w = copy(source);
+		byCode.put(w.getConfirmationCode(), w);
+		codesByUser.computeIfAbsent(w.getCreatedByUserId(), k -> new LinkedHashSet<>()).add(w.getConfirmationCode());
+		if (w.getTableFreedTime() == null)
+			enqueue(w);
+	}
+
+	private void enqueue(Waiting w) {
+		queuesBySize.computeIfAbsent(w.getGuestAmount(), k -> new TreeMap<>()).put(w.getWaitingId(), w);
+	}
+
+	private void dequeue(Waiting w) {
+		TreeMap<Integer, Waiting> queue = queuesBySize.get(w.getGuestAmount());
+		if (queue == null)
+			return;
+		queue.remove(w.getWaitingId());
+		if (queue.isEmpty())
+			queuesBySize.remove(w.getGuestAmount());
+	}
+
+	private static Waiting copy(Waiting src) {
+		Waiting w = new Waiting();
+		w.setWaitingId(src.getWaitingId());
+		w.setGuestAmount(src.getGuestAmount());
+		w.setCreatedByUserId(src.getCreatedByUserId());
+		w.setCreatedByRole(src.getCreatedByRole());
+		w.setConfirmationCode(src.getConfirmationCode());
+		w.setWaitingStatus(WaitingStatus.Waiting);
+		w.setTableNumber(src.getTableNumber());
+		w.setTableFreedTime(src.getTableFreedTime());
+		w.setJoinedAt(src.getJoinedAt());
+		return w;
+	}
+}
@@ -1,6 +1,7 @@
 package network;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.function.Consumer;
 
 import dbControllers.Notification_DB_Controller;
@@ -124,26 +125,18 @@ public class RecoverGuestConfirmationCodeHandler implements RequestHandler {
 		String emailBody = "Your confirmation code is: " + code;
 
 		/**
-		 * Step 4: Save EMAIL notification in DB and mark it as sent (simulation).
+		 * Step 4-5: Save the EMAIL and SMS notifications in DB, already marked as sent
+		 * (simulation), with one batch insert.
 		 */
-		int emailId = notificationDB.addNotification(new Notification(userIdForAudit, Enums.Channel.EMAIL,
-				Enums.NotificationType.RESEND_CONFIRMATION_CODE, emailBody, now));
-		if (emailId != -1) {
-			notificationDB.markAsSent(emailId, now);
-		}
+		notificationDB.addNotifications(List.of(
+				new Notification(0, userIdForAudit, Enums.Channel.EMAIL, Enums.NotificationType.RESEND_CONFIRMATION_CODE,
+						emailBody, now, true, now),
+				new Notification(0, userIdForAudit, Enums.Channel.SMS, Enums.NotificationType.RESEND_CONFIRMATION_CODE,
+						smsBody, now, true, now)));
 		if (logger != null) {
 			logger.accept("📧 EMAIL-SIM | Guest recover code | phone=" + data.getPhone() + " | " + emailBody);
 		}
 
-		/**
-		 * Step 5: Save SMS notification in DB and mark it as sent (simulation).
-		 */
-		int smsId = notificationDB.addNotification(new Notification(userIdForAudit, Enums.Channel.SMS,
-				Enums.NotificationType.RESEND_CONFIRMATION_CODE, smsBody, now));
-		if (smsId != -1) {
-			notificationDB.markAsSent(smsId, now);
-		}
-
 		/**
 		 * Step 6: Send in-app popup notification (safe UI message without sensitive
 		 * data). The SMS simulation content contains the actual code.
@@ -4,14 +4,16 @@ import dto.RequestDTO;
 import dto.ResponseDTO;
 import dto.UpdateOpeningHoursDTO;
 import entities.OpeningHouers;
+import logicControllers.GridHorizonMaterializer;
 import logicControllers.ReservationController;
 import logicControllers.RestaurantController;
 import ocsf.server.ConnectionToClient;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Server-side request handler responsible for updating the restaurant's weekly
@@ -20,8 +22,10 @@ import java.util.List;
  * This handler performs a multi-step update process:
  * <ul>
  * <li>Updates the weekly opening hours definition in the database</li>
- * <li>Synchronizes availability grids for the next 30 days</li>
- * <li>Cancels existing reservations that conflict with the new hours</li>
+ * <li>Reshapes availability grids for the booking horizon in one batch
+ * (existing bookings inside the new hours are kept)</li>
+ * <li>Cancels existing reservations that conflict with the new hours in one
+ * set-based pass</li>
  * <li>Returns the updated opening hours list to refresh the client UI</li>
  * </ul>
  * </p>
@@ -56,7 +60,7 @@ public class UpdateOpeningHoursHandler implements RequestHandler {
 	 * <ol>
 	 * <li>Validates the incoming update payload</li>
 	 * <li>Updates weekly opening hours in the database</li>
-	 * <li>Applies the change to all matching weekdays in the next 30 days</li>
+	 * <li>Applies the change to all matching weekdays in the booking horizon</li>
 	 * <li>Synchronizes availability grids and cancels conflicting reservations</li>
 	 * <li>Returns the refreshed opening hours list to the client</li>
 	 * </ol>
@@ -88,41 +92,36 @@ public class UpdateOpeningHoursHandler implements RequestHandler {
 			return;
 		}
 
-		// 2) Apply the change for all matching weekdays in the next 30 days
+		// 2) Apply the change for all matching weekdays in the booking horizon
 		int syncedDays = 0;
+		int slotsAdded = 0;
+		int slotsRemoved = 0;
 		int cancelledReservations = 0;
 		int errors = 0;
 
 		try {
-			List<LocalDate> dates = restaurantController.getDatesForWeekdayNext30Days(data.getDayOfWeek());
+			List<LocalDate> dates = restaurantController.getDatesForWeekdayInBookingHorizon(data.getDayOfWeek());
 
+			List<GridHorizonMaterializer.DayChange> changes = restaurantController.reshapeGridForDates(dates);
+			for (GridHorizonMaterializer.DayChange c : changes) {
+				syncedDays++;
+				slotsAdded += c.getSlotsAdded();
+				slotsRemoved += c.getSlotsRemoved();
+			}
+
+			Map<LocalDate, OpeningHouers> effectiveByDate = new HashMap<>();
 			for (LocalDate d : dates) {
 				try {
-					restaurantController.syncGridForSpecialDate(d);
-					syncedDays++;
-
-					OpeningHouers eff = restaurantController.getEffectiveOpeningHoursForDatePublic(d);
-
-					boolean isClosed = (eff == null) || isBlank(eff.getOpenTime()) || isBlank(eff.getCloseTime());
-
-					LocalTime open = null;
-					LocalTime close = null;
-
-					if (!isClosed) {
-						open = LocalTime.parse(restaurantController.toHHMM(eff.getOpenTime()));
-						close = LocalTime.parse(restaurantController.toHHMM(eff.getCloseTime()));
-					}
-
-					cancelledReservations += reservationController.cancelReservationsDueToOpeningHoursChange(d, open,
-							close, isClosed);
-
+					effectiveByDate.put(d, restaurantController.getEffectiveOpeningHoursForDatePublic(d));
 				} catch (Exception perDateEx) {
 					errors++;
 				}
 			}
+
+			cancelledReservations = reservationController.cancelReservationsDueToOpeningHoursChange(effectiveByDate);
 		} catch (Exception loopEx) {
 			client.sendToClient(new ResponseDTO(false,
-					"Opening hours updated, but failed applying changes to next 30 days: " + loopEx.getMessage(),
+					"Opening hours updated, but failed applying changes to booking horizon: " + loopEx.getMessage(),
 					null));
 			return;
 		}
@@ -132,27 +131,19 @@ public class UpdateOpeningHoursHandler implements RequestHandler {
 		try {
 			updatedList = restaurantController.getOpeningHours();
 		} catch (Exception e) {
-			String msg = "Opening hours updated. Synced days=" + syncedDays + ", Cancelled reservations="
+			String msg = "Opening hours updated. Synced days=" + syncedDays + " (slots +" + slotsAdded + "/-"
+					+ slotsRemoved + "), Cancelled reservations="
 					+ cancelledReservations + (errors > 0 ? (", Errors=" + errors) : "") + ". (Failed to reload list: "
 					+ e.getMessage() + ")";
 			client.sendToClient(new ResponseDTO(true, msg, null));
 			return;
 		}
 
-		String msg = "Opening hours updated. Synced days=" + syncedDays + ", Cancelled reservations="
+		String msg = "Opening hours updated. Synced days=" + syncedDays + " (slots +" + slotsAdded + "/-"
+				+ slotsRemoved + "), Cancelled reservations="
 				+ cancelledReservations + (errors > 0 ? (", Errors=" + errors) : "");
 
 		client.sendToClient(new ResponseDTO(true, msg, updatedList));
 	}
 
-	/**
-	 * Utility method used to determine whether a string is null, empty, or contains
-	 * only whitespace.
-	 *
-	 * @param s the string to check
-	 * @return {@code true} if the string is blank or null
-	 */
-	private boolean isBlank(String s) {
-		return s == null || s.trim().isEmpty();
-	}
 }
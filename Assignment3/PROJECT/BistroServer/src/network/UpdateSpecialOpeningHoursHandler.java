@@ -86,8 +86,8 @@ public class UpdateSpecialOpeningHoursHandler implements RequestHandler {
 			SpecialOpeningHours entity = new SpecialOpeningHours(dto.getSpecialDate(), dto.getOpenTime(),
 					dto.getCloseTime(), dto.isClosed());
 
-			// 1) Persist special opening hours in the database
-			boolean ok = specialDb.upsertSpecialHours(entity);
+			// 1) Persist special opening hours (also invalidates the cached effective hours)
+			boolean ok = restaurantController.updateSpecialOpeningHours(entity);
 			if (!ok) {
 				client.sendToClient(new ResponseDTO(false, "Failed to update special opening hours", null));
 				return;
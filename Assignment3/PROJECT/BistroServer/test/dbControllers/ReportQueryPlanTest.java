@@ -0,0 +1,230 @@
+package dbControllers;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Verifies with {@code EXPLAIN} that the queries behind the monthly reports
+ * stay index-only on a seeded schema.
+ * <p>
+ * The test:
+ * <ul>
+ * <li>Creates the scratch database {@value #DB} and applies
+ * {@link SchemaMigrations#all()}</li>
+ * <li>Seeds two years of subscribers, reservations and report aggregates, then
+ * runs {@code ANALYZE TABLE} so the optimizer sees realistic statistics</li>
+ * <li>Explains every report query and asserts the plan row of its table: the
+ * expected {@code key}, and {@code Using index} when the index must be
+ * covering</li>
+ * <li>Drops the scratch database</li>
+ * </ul>
+ * Run it with the MySQL driver on the classpath; it exits with status 1 when a
+ * plan does not match. Connection settings come from the system properties
+ * {@code bistro.test.url}, {@code bistro.test.user} and
+ * {@code bistro.test.password}.
+ * </p>
+ */
+public class ReportQueryPlanTest {
+
+	private static final String DB = "bistrodb_plan_test";
+
+	private static final LocalDate FIRST_MONTH = LocalDate.of(2024, 1, 1);
+	private static final int MONTHS = 24;
+	private static final int RESERVATIONS_PER_MONTH = 400;
+	private static final int SUBSCRIBERS = 300;
+
+	/** Month the queries are explained for (inside the seeded range). */
+	private static final LocalDate REPORT_MONTH = LocalDate.of(2025, 3, 1);
+
+	/** Binds the parameters of one query. */
+	@FunctionalInterface
+	private interface Binder {
+		void bind(PreparedStatement ps) throws SQLException;
+	}
+
+	/** One report query and the plan it must get. */
+	private static final class Expectation {
+		private final String name;
+		private final String sql;
+		private final String table;
+		private final String index;
+		private final boolean covering;
+		private final Binder binder;
+
+		private Expectation(String name, String sql, String table, String index, boolean covering, Binder binder) {
+			this.name = name;
+			this.sql = sql;
+			this.table = table;
+			this.index = index;
+			this.covering = covering;
+			this.binder = binder;
+		}
+	}
+
+	private static final List<Expectation> EXPECTATIONS = List.of(
+			new Expectation("daily aggregates of a month", ReportAggregates_DB_Controller.DAILY_AGGREGATES_SQL,
+					"report_daily_aggregates", "PRIMARY", false, ps -> {
+						ps.setDate(1, Date.valueOf(REPORT_MONTH));
+						ps.setDate(2, Date.valueOf(REPORT_MONTH.plusMonths(1)));
+					}),
+			new Expectation("active subscribers of a month", ReportAggregates_DB_Controller.ACTIVE_SUBSCRIBERS_SQL,
+					"report_monthly_active_subscribers", "PRIMARY", true, ps -> {
+						ps.setDate(1, Date.valueOf(REPORT_MONTH));
+					}),
+			new Expectation("inactive month probe", ReportAggregates_DB_Controller.REMOVE_INACTIVE_MONTH, "r",
+					"idx_res_creator_role_time", true, ps -> {
+						ps.setDate(1, Date.valueOf(REPORT_MONTH));
+						ps.setInt(2, 1);
+						ps.setInt(3, 1);
+						ps.setTimestamp(4, Timestamp.valueOf(REPORT_MONTH.atStartOfDay()));
+						ps.setTimestamp(5, Timestamp.valueOf(REPORT_MONTH.plusMonths(1).atStartOfDay()));
+					}));
+
+	public static void main(String[] args) throws SQLException {
+		String url = System.getProperty("bistro.test.url",
+				"jdbc:mysql://localhost:3306/?serverTimezone=Asia/Jerusalem&useSSL=false");
+		String user = System.getProperty("bistro.test.user", "root");
+		String password = System.getProperty("bistro.test.password", DBController.MYSQL_PASSWORD);
+
+		List<String> failures = new ArrayList<>();
+
+		try (Connection conn = DriverManager.getConnection(url, user, password);
+				Statement st = conn.createStatement()) {
+			st.execute("DROP DATABASE IF EXISTS " + DB);
+			st.execute("CREATE DATABASE " + DB);
+			try {
+				conn.setCatalog(DB);
+				new SchemaMigrator(conn, System.out::println).migrate(SchemaMigrations.all());
+				seed(conn);
+
+				for (Expectation e : EXPECTATIONS) {
+					String problem = explain(conn, e);
+					System.out.println((problem == null ? "PASS " : "FAIL ") + e.name
+							+ (problem == null ? "" : ": " + problem));
+					if (problem != null)
+						failures.add(e.name);
+				}
+			} finally {
+				st.execute("DROP DATABASE IF EXISTS " + DB);
+			}
+		}
+
+		if (!failures.isEmpty()) {
+			System.out.println(failures.size() + " of " + EXPECTATIONS.size() + " report query plans failed.");
+			System.exit(1);
+		}
+		System.out.println("All " + EXPECTATIONS.size() + " report query plans passed.");
+	}
+
+	/**
+	 * Seeds subscribers and reservations (a third created by walk-in clients,
+	 * half of the rest finished) and rebuilds the aggregates from them.
+	 */
+	private static void seed(Connection conn) throws SQLException {
+		Random random = new Random(42);
+
+		conn.setAutoCommit(false);
+		try (PreparedStatement ps = conn
+				.prepareStatement("INSERT INTO SUBSCRIBERS (subscriber_id, username, role) VALUES (?, ?, 'Subscriber')")) {
+			for (int id = 1; id <= SUBSCRIBERS; id++) {
+				ps.setInt(1, id);
+				ps.setString(2, "user" + id);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+
+		String insert = """
+				INSERT INTO reservations
+				(reservation_datetime, number_of_guests, confirmation_code, created_by, created_by_role,
+				 is_active, reservation_status, checkin, checkout)
+				VALUES (?, 2, ?, ?, ?, ?, ?, ?, ?)
+				""";
+		try (PreparedStatement ps = conn.prepareStatement(insert)) {
+			int code = 0;
+			for (int m = 0; m < MONTHS; m++) {
+				LocalDate month = FIRST_MONTH.plusMonths(m);
+				for (int i = 0; i < RESERVATIONS_PER_MONTH; i++) {
+					LocalDateTime start = month.plusDays(random.nextInt(month.lengthOfMonth()))
+							.atTime(12 + random.nextInt(10), random.nextBoolean() ? 0 : 30);
+					boolean subscriber = i % 3 != 0;
+					boolean finished = i % 2 == 0;
+
+					ps.setTimestamp(1, Timestamp.valueOf(start));
+					ps.setString(2, "T" + code++);
+					ps.setInt(3, subscriber ? 1 + random.nextInt(SUBSCRIBERS) : SUBSCRIBERS + 1 + i);
+					ps.setString(4, subscriber ? "Subscriber" : "RandomClient");
+					ps.setInt(5, finished ? 0 : 1);
+					ps.setString(6, finished ? "Finished" : "Active");
+					ps.setTimestamp(7, finished ? Timestamp.valueOf(start.plusMinutes(random.nextInt(15))) : null);
+					ps.setTimestamp(8, finished ? Timestamp.valueOf(start.plusMinutes(60 + random.nextInt(60))) : null);
+					ps.addBatch();
+				}
+				ps.executeBatch();
+			}
+		}
+		conn.commit();
+		conn.setAutoCommit(true);
+
+		new ReportAggregates_DB_Controller(conn, conn).rebuild();
+
+		try (Statement st = conn.createStatement()) {
+			st.execute("ANALYZE TABLE reservations, report_daily_aggregates, report_monthly_active_subscribers");
+		}
+	}
+
+	/**
+	 * @return {@code null} if the plan matches, otherwise what is wrong
+	 */
+	private static String explain(Connection conn, Expectation e) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + e.sql)) {
+			e.binder.bind(ps);
+
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					if (!e.table.equals(rs.getString("table")))
+						continue;
+
+					String type = rs.getString("type");
+					String key = rs.getString("key");
+					String extra = rs.getString("Extra");
+
+					if ("ALL".equals(type) || key == null)
+						return "full scan of " + e.table + " (type=" + type + ")";
+					if (!e.index.equals(key))
+						return "uses " + key + " instead of " + e.index;
+					if (e.covering && !isIndexOnly(extra))
+						return e.index + " is not covering (Extra=" + extra + ")";
+					return null;
+				}
+			}
+		}
+		return "no plan row for " + e.table;
+	}
+
+	/**
+	 * @return {@code true} if the plan reads the index only ({@code Using index},
+	 *         not to be confused with {@code Using index condition})
+	 */
+	private static boolean isIndexOnly(String extra) {
+		if (extra == null)
+			return false;
+		for (String part : extra.split(";")) {
+			String p = part.trim();
+			if (p.equals("Using index") || p.startsWith("Using index for"))
+				return true;
+		}
+		return false;
+	}
+}